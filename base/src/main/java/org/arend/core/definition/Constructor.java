@@ -31,6 +31,7 @@ public class Constructor extends Definition implements Function, BranchKey, Core
   private List<Integer> myParametersTypecheckingOrder;
   private List<Boolean> myGoodThisParameters = Collections.emptyList();
   private List<TypeClassParameterKind> myTypeClassParameters = Collections.emptyList();
+  private int myIndex = -1;
 
   public Constructor(TCReferable referable, DataDefinition dataType) {
     super(referable, TypeCheckingStatus.HEADER_NEEDS_TYPE_CHECKING);
@@ -38,6 +39,17 @@ public class Constructor extends Definition implements Function, BranchKey, Core
     myParameters = EmptyDependentLink.getInstance();
   }
 
+  /**
+   * @return the position of this constructor in the list of constructors of its data type or -1 if it was not added to it.
+   */
+  public int getIndex() {
+    return myIndex;
+  }
+
+  void setIndex(int index) {
+    myIndex = index;
+  }
+
   public void setBody(Body conditions) {
     myConditions = conditions;
   }
@@ -13,16 +13,19 @@ import org.arend.core.subst.LevelSubstitution;
 import org.arend.ext.core.definition.CoreFunctionDefinition;
 import org.arend.naming.reference.TCReferable;
 import org.arend.prelude.Prelude;
+import org.arend.typechecking.instance.ClassifyingHead;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class FunctionDefinition extends Definition implements Function, CoreFunctionDefinition {
   private DependentLink myParameters;
   private Expression myResultType;
   private Expression myResultTypeLevel;
   private Body myBody;
+  private volatile Supplier<? extends Body> myBodyLoader;
   private List<Integer> myParametersTypecheckingOrder;
   private Kind myKind = Kind.FUNC;
   private boolean myBodyIsHidden = false;
@@ -30,6 +33,7 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
   private List<TypeClassParameterKind> myTypeClassParameters = Collections.emptyList();
   private int myVisibleParameter = -1;
   private final ParametersLevels<ParametersLevel> myParametersLevels = new ParametersLevels<>();
+  private ClassifyingHead myClassifyingHead;
 
   public FunctionDefinition(TCReferable referable) {
     super(referable, TypeCheckingStatus.HEADER_NEEDS_TYPE_CHECKING);
@@ -38,14 +42,25 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
 
   @Override
   public Body getBody() {
-    return isSFunc() || myBodyIsHidden ? null : myBody;
+    return isSFunc() || myBodyIsHidden ? null : getActualBody();
   }
 
   @Override
   public Body getActualBody() {
+    if (myBodyLoader != null) {
+      loadBody();
+    }
     return myBody;
   }
 
+  private synchronized void loadBody() {
+    Supplier<? extends Body> bodyLoader = myBodyLoader;
+    if (bodyLoader != null) {
+      myBody = bodyLoader.get();
+      myBodyLoader = null;
+    }
+  }
+
   public boolean isBodyHidden() {
     return myBodyIsHidden;
   }
@@ -56,6 +71,26 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
 
   public void setBody(Body body) {
     myBody = body;
+    myBodyLoader = null;
+  }
+
+  /**
+   * Sets a function that computes the body when it is requested for the first time.
+   */
+  public void setLazyBody(Supplier<? extends Body> bodyLoader) {
+    myBody = null;
+    myBodyLoader = bodyLoader;
+  }
+
+  /**
+   * @return the head of the classifying expression of an instance or null if it was not computed yet.
+   */
+  public ClassifyingHead getClassifyingHead() {
+    return myClassifyingHead;
+  }
+
+  public void setClassifyingHead(ClassifyingHead head) {
+    myClassifyingHead = head;
   }
 
   public boolean isSFunc() {
@@ -1,6 +1,7 @@
 package org.arend.core.elimtree;
 
 import org.arend.core.constructor.SingleConstructor;
+import org.arend.core.definition.Constructor;
 import org.arend.core.expr.ConCallExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.IntegerExpression;
@@ -9,8 +10,24 @@ import org.arend.util.Decision;
 
 import java.util.*;
 
+/**
+ * A node of an elimination tree which branches on the constructor of an argument.
+ * <p>
+ * Children of constructors of a data type are stored in an array indexed by {@link Constructor#getIndex},
+ * so the dispatch on a constructor during evaluation does not compute hash codes.
+ * Other keys (single constructors, constructors which are not added to a data type, and {@code null}) are stored in a map.
+ * The child of a single constructor is cached since it is used on every evaluation step which matches a tuple, a record, or idp.
+ */
 public class BranchElimTree extends ElimTree {
-  private final Map<BranchKey, ElimTree> myChildren = new HashMap<>();
+  private static final Constructor[] NO_CONSTRUCTORS = new Constructor[0];
+  private static final ElimTree[] NO_CHILDREN = new ElimTree[0];
+
+  private Constructor[] myConstructors = NO_CONSTRUCTORS;
+  private ElimTree[] myConstructorChildren = NO_CHILDREN;
+  private Map<BranchKey, ElimTree> myOtherChildren;
+  private int mySize;
+  private SingleConstructor mySingleConstructorKey;
+  private ElimTree mySingleConstructorChild;
   private final boolean myKeepConCall;
 
   public BranchElimTree(int skip, boolean keepConCall) {
@@ -23,37 +40,84 @@ public class BranchElimTree extends ElimTree {
   }
 
   public ElimTree getSingleConstructorChild() {
-    if (myChildren.size() == 1) {
-      Map.Entry<BranchKey, ElimTree> entry = myChildren.entrySet().iterator().next();
-      return entry.getKey() instanceof SingleConstructor ? entry.getValue() : null;
-    } else {
-      return null;
-    }
+    return mySingleConstructorChild;
   }
 
   public SingleConstructor getSingleConstructorKey() {
-    if (myChildren.size() == 1) {
-      Map.Entry<BranchKey, ElimTree> entry = myChildren.entrySet().iterator().next();
-      return entry.getKey() instanceof SingleConstructor ? (SingleConstructor) entry.getKey() : null;
-    } else {
-      return null;
-    }
+    return mySingleConstructorKey;
   }
 
   public Collection<Map.Entry<BranchKey, ElimTree>> getChildren() {
-    return myChildren.entrySet();
+    List<Map.Entry<BranchKey, ElimTree>> result = new ArrayList<>(mySize);
+    for (int i = 0; i < myConstructors.length; i++) {
+      if (myConstructors[i] != null) {
+        result.add(new AbstractMap.SimpleImmutableEntry<>(myConstructors[i], myConstructorChildren[i]));
+      }
+    }
+    if (myOtherChildren != null) {
+      result.addAll(myOtherChildren.entrySet());
+    }
+    return result;
   }
 
   public ElimTree getChild(BranchKey key) {
-    return myChildren.get(key);
+    if (key instanceof Constructor) {
+      int index = ((Constructor) key).getIndex();
+      if (index >= 0 && index < myConstructors.length && myConstructors[index] == key) {
+        return myConstructorChildren[index];
+      }
+    }
+    return myOtherChildren == null ? null : myOtherChildren.get(key);
   }
 
   public void addChild(BranchKey key, ElimTree elimTree) {
-    myChildren.put(key, elimTree);
+    if (!putConstructorChild(key, elimTree)) {
+      if (myOtherChildren == null) {
+        myOtherChildren = new HashMap<>();
+      }
+      if (myOtherChildren.put(key, elimTree) == null) {
+        mySize++;
+      }
+    }
+
+    if (mySize == 1 && key instanceof SingleConstructor) {
+      mySingleConstructorKey = (SingleConstructor) key;
+      mySingleConstructorChild = elimTree;
+    } else {
+      mySingleConstructorKey = null;
+      mySingleConstructorChild = null;
+    }
+  }
+
+  private boolean putConstructorChild(BranchKey key, ElimTree elimTree) {
+    if (!(key instanceof Constructor)) {
+      return false;
+    }
+    Constructor constructor = (Constructor) key;
+    int index = constructor.getIndex();
+    if (index < 0) {
+      return false;
+    }
+
+    if (index >= myConstructors.length) {
+      int length = Math.max(index + 1, constructor.getDataType().getConstructors().size());
+      myConstructors = Arrays.copyOf(myConstructors, length);
+      myConstructorChildren = Arrays.copyOf(myConstructorChildren, length);
+    } else if (myConstructors[index] != null && myConstructors[index] != constructor) {
+      // Constructors of different data types may have the same index
+      return false;
+    }
+
+    if (myConstructors[index] == null) {
+      myConstructors[index] = constructor;
+      mySize++;
+    }
+    myConstructorChildren[index] = elimTree;
+    return true;
   }
 
   private boolean isSingleConstructorTree() {
-    return myChildren.size() == 1 && myChildren.keySet().iterator().next() instanceof SingleConstructor;
+    return mySingleConstructorKey != null;
   }
 
   private List<Expression> getNewArguments(List<? extends Expression> arguments, Expression argument, int index) {
@@ -71,7 +135,7 @@ public class BranchElimTree extends ElimTree {
     } else {
       ConCallExpression conCall = argument.cast(ConCallExpression.class);
       if (conCall != null) {
-        ElimTree elimTree = myChildren.get(conCall.getDefinition());
+        ElimTree elimTree = getChild(conCall.getDefinition());
         if (elimTree != null) {
           newArguments = new ArrayList<>(conCall.getDefCallArguments().size() + arguments.size() - index - 1);
           newArguments.addAll(conCall.getDefCallArguments());
@@ -83,7 +147,7 @@ public class BranchElimTree extends ElimTree {
         IntegerExpression intExpr = argument.cast(IntegerExpression.class);
         if (intExpr != null) {
           boolean isZero = intExpr.isZero();
-          ElimTree elimTree = myChildren.get(isZero ? Prelude.ZERO : Prelude.SUC);
+          ElimTree elimTree = getChild(isZero ? Prelude.ZERO : Prelude.SUC);
           if (elimTree != null) {
             newArguments = new ArrayList<>();
             if (!isZero) {
@@ -121,21 +185,21 @@ public class BranchElimTree extends ElimTree {
     } else {
       ConCallExpression conCall = argument.cast(ConCallExpression.class);
       if (conCall != null) {
-        ElimTree elimTree = myChildren.get(conCall.getDefinition());
+        ElimTree elimTree = getChild(conCall.getDefinition());
         if (elimTree != null) {
           return elimTree.isWHNF(newArguments).min(decision);
         } else {
-          elimTree = myChildren.get(null);
+          elimTree = getChild(null);
           return elimTree == null ? decision : elimTree.isWHNF(newArguments).min(decision);
         }
       } else {
         IntegerExpression intExpr = argument.cast(IntegerExpression.class);
         if (intExpr != null) {
-          ElimTree elimTree = myChildren.get(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
+          ElimTree elimTree = getChild(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
           if (elimTree != null) {
             return elimTree.isWHNF(newArguments).min(decision);
           } else {
-            elimTree = myChildren.get(null);
+            elimTree = getChild(null);
             return elimTree == null ? decision : elimTree.isWHNF(newArguments).min(decision);
           }
         }
@@ -163,21 +227,21 @@ public class BranchElimTree extends ElimTree {
     } else {
       ConCallExpression conCall = argument.cast(ConCallExpression.class);
       if (conCall != null) {
-        ElimTree elimTree = myChildren.get(conCall.getDefinition());
+        ElimTree elimTree = getChild(conCall.getDefinition());
         if (elimTree != null) {
           return elimTree.getStuckExpression(newArguments, expression);
         } else {
-          elimTree = myChildren.get(null);
+          elimTree = getChild(null);
           return elimTree != null ? elimTree.getStuckExpression(newArguments, expression) : expression;
         }
       } else {
         IntegerExpression intExpr = argument.cast(IntegerExpression.class);
         if (intExpr != null) {
-          ElimTree elimTree = myChildren.get(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
+          ElimTree elimTree = getChild(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
           if (elimTree != null) {
             return elimTree.getStuckExpression(newArguments, expression);
           } else {
-            elimTree = myChildren.get(null);
+            elimTree = getChild(null);
             return elimTree != null ? elimTree.getStuckExpression(newArguments, expression) : expression;
           }
         }
@@ -45,6 +45,10 @@ import org.jetbrains.annotations.TestOnly;
 import java.util.*;
 
 public abstract class Expression implements Body, CoreExpression {
+  private volatile long myVariablesMask;
+  private int myStructuralHash;
+  private volatile byte myNormalizationFlags;
+
   public abstract <P, R> R accept(ExpressionVisitor<? super P, ? extends R> visitor, P params);
 
   public abstract <P1, P2, R> R accept(ExpressionVisitor2<? super P1, ? super P2, ? extends R> visitor, P1 param1, P2 param2);
@@ -128,6 +132,45 @@ public abstract class Expression implements Body, CoreExpression {
     return new TypecheckingResult(this, computeType());
   }
 
+  /**
+   * @return a bloom filter of variables that may occur in this expression; see {@link VariablesMaskVisitor}.
+   */
+  public long getVariablesMask() {
+    long mask = myVariablesMask;
+    if (mask == 0) {
+      mask = accept(VariablesMaskVisitor.INSTANCE, null) | VariablesMaskVisitor.COMPUTED;
+      myVariablesMask = mask;
+    }
+    return mask;
+  }
+
+  /**
+   * @return flags cached by {@link NormalizationCache} or 0 if they are not computed yet.
+   */
+  public byte getNormalizationFlags() {
+    return myNormalizationFlags;
+  }
+
+  public void setNormalizationFlags(byte flags) {
+    myNormalizationFlags = flags;
+  }
+
+  /**
+   * @return a hash of this expression which does not depend on variables; see {@link ShapeHashVisitor}.
+   */
+  public int getStructuralHash() {
+    int hash = myStructuralHash;
+    if (hash == 0) {
+      long longHash = accept(ShapeHashVisitor.INSTANCE, null);
+      hash = (int) (longHash ^ (longHash >>> 32));
+      if (hash == 0) {
+        hash = 1;
+      }
+      myStructuralHash = hash;
+    }
+    return hash;
+  }
+
   public boolean findBinding(Variable binding) {
     return accept(new FindBindingVisitor(Collections.singleton(binding)), null) != null;
   }
@@ -0,0 +1,240 @@
+package org.arend.core.expr;
+
+import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.context.binding.inference.InferenceLevelVariable;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A table of canonical instances of closed expressions.
+ * Structurally equal closed expressions built from universes, small integers, and calls of functions, data types, and constructors
+ * are represented by the same object after they are interned.
+ * Since arguments are interned before the expressions that contain them, expressions are compared by the identity of their arguments,
+ * and an expression is closed if and only if its arguments are canonical.
+ * Canonical instances are also kept in an identity set, so this is checked in constant time.
+ * <p>
+ * Canonical instances are referenced weakly, so the table does not keep expressions, and definitions that they refer to,
+ * after definitions are reset or libraries are unloaded.
+ * The table is disabled by default.
+ */
+public class HashConsingTable {
+  private static final Map<Key, Entry> TABLE = new ConcurrentHashMap<>();
+  private static final Set<Object> CANONICAL = ConcurrentHashMap.newKeySet(); // entries of TABLE which are looked up by their referents
+  private static final ReferenceQueue<Expression> QUEUE = new ReferenceQueue<>();
+  private static volatile boolean ENABLED = false;
+
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    ENABLED = enabled;
+    if (!enabled) {
+      clear();
+    }
+  }
+
+  public static void clear() {
+    TABLE.clear();
+    CANONICAL.clear();
+  }
+
+  public static int size() {
+    expungeStaleEntries();
+    return TABLE.size();
+  }
+
+  private static void expungeStaleEntries() {
+    for (Reference<? extends Expression> ref = QUEUE.poll(); ref != null; ref = QUEUE.poll()) {
+      Entry entry = (Entry) ref;
+      TABLE.remove(entry.key, entry);
+      CANONICAL.remove(entry);
+    }
+  }
+
+  /**
+   * @return the canonical instance of {@code expr} if it is closed and the table is enabled, or {@code expr} itself otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T extends Expression> T intern(T expr) {
+    if (!ENABLED) {
+      return expr;
+    }
+    expungeStaleEntries();
+    Key key = makeKey(expr);
+    if (key == null) {
+      return expr;
+    }
+
+    Entry newEntry = new Entry(key, expr);
+    while (true) {
+      Entry entry = TABLE.putIfAbsent(key, newEntry);
+      if (entry == null) {
+        CANONICAL.add(newEntry);
+        return expr;
+      }
+      Expression result = entry.get();
+      if (result != null) {
+        return (T) result;
+      }
+      if (TABLE.replace(key, entry, newEntry)) {
+        CANONICAL.add(newEntry);
+        return expr;
+      }
+    }
+  }
+
+  /**
+   * Checks if {@code expr} is the canonical instance of some expression.
+   */
+  public static boolean isCanonical(Expression expr) {
+    return CANONICAL.contains(new Probe(expr));
+  }
+
+  private static Key makeKey(Expression expr) {
+    if (expr instanceof SmallIntegerExpression) {
+      return new Key(SmallIntegerExpression.class, ((SmallIntegerExpression) expr).getInteger(), null, new Expression[0]);
+    }
+    if (expr instanceof UniverseExpression) {
+      Sort sort = ((UniverseExpression) expr).getSort();
+      return isClosed(sort) ? new Key(UniverseExpression.class, null, sort, new Expression[0]) : null;
+    }
+    if (!(expr instanceof FunCallExpression || expr instanceof DataCallExpression || expr instanceof ConCallExpression)) {
+      return null;
+    }
+
+    DefCallExpression defCall = (DefCallExpression) expr;
+    if (!isClosed(defCall.getSortArgument())) {
+      return null;
+    }
+    List<? extends Expression> dataTypeArgs = expr instanceof ConCallExpression ? ((ConCallExpression) expr).getDataTypeArguments() : List.of();
+    List<? extends Expression> args = defCall.getDefCallArguments();
+    Expression[] children = new Expression[dataTypeArgs.size() + args.size()];
+    int i = 0;
+    for (Expression arg : dataTypeArgs) {
+      if (!isCanonical(arg)) {
+        return null;
+      }
+      children[i++] = arg;
+    }
+    for (Expression arg : args) {
+      if (!isCanonical(arg)) {
+        return null;
+      }
+      children[i++] = arg;
+    }
+    return new Key(expr.getClass(), defCall.getDefinition(), defCall.getSortArgument(), children);
+  }
+
+  private static boolean isClosed(Sort sort) {
+    return !(sort.getPLevel().getVar() instanceof InferenceLevelVariable) && !(sort.getHLevel().getVar() instanceof InferenceLevelVariable);
+  }
+
+  private static class Entry extends WeakReference<Expression> {
+    private final Key key;
+    private final int hashCode;
+
+    Entry(Key key, Expression expr) {
+      super(expr, QUEUE);
+      this.key = key;
+      hashCode = System.identityHashCode(expr);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * A key which is equal to entries that refer to the given expression.
+   * Only lookups in {@link #CANONICAL} use it, so it is enough that {@code equals} is defined on the probe.
+   */
+  private static class Probe {
+    private final Expression myExpression;
+
+    Probe(Expression expression) {
+      myExpression = expression;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Entry && ((Entry) obj).get() == myExpression;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(myExpression);
+    }
+  }
+
+  private static class Key {
+    private final Class<?> myClass;
+    private final Object myHead;
+    private final LevelVariable myPVar;
+    private final LevelVariable myHVar;
+    private final int[] myLevels;
+    private final Expression[] myChildren;
+    private final int myHashCode;
+
+    Key(Class<?> clazz, Object head, Sort sort, Expression[] children) {
+      myClass = clazz;
+      myHead = head;
+      myChildren = children;
+      if (sort == null) {
+        myPVar = null;
+        myHVar = null;
+        myLevels = new int[0];
+      } else {
+        Level pLevel = sort.getPLevel();
+        Level hLevel = sort.getHLevel();
+        myPVar = pLevel.getVar();
+        myHVar = hLevel.getVar();
+        myLevels = new int[] { pLevel.getConstant(), pLevel.getMaxConstant(), hLevel.getConstant(), hLevel.getMaxConstant() };
+      }
+
+      int hashCode = myClass.hashCode();
+      hashCode = 31 * hashCode + (myHead == null ? 0 : myHead.hashCode());
+      hashCode = 31 * hashCode + Arrays.hashCode(myLevels);
+      for (Expression child : children) {
+        hashCode = 31 * hashCode + System.identityHashCode(child);
+      }
+      myHashCode = hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+
+      Key key = (Key) obj;
+      if (myHashCode != key.myHashCode || myClass != key.myClass || !(myHead == null ? key.myHead == null : myHead.equals(key.myHead)) || myPVar != key.myPVar || myHVar != key.myHVar || !Arrays.equals(myLevels, key.myLevels) || myChildren.length != key.myChildren.length) {
+        return false;
+      }
+      for (int i = 0; i < myChildren.length; i++) {
+        if (myChildren[i] != key.myChildren[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return myHashCode;
+    }
+  }
+}
@@ -19,12 +19,18 @@ import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
 import org.arend.typechecking.implicitargs.equations.DummyEquations;
 import org.arend.typechecking.implicitargs.equations.Equations;
+import org.arend.typechecking.order.listener.TypecheckingProfiler;
 import org.jetbrains.annotations.TestOnly;
 
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 @SuppressWarnings("BooleanMethodIsAlwaysInverted")
 public class CompareVisitor implements ExpressionVisitor2<Expression, Expression, Boolean> {
+  private static final LongAdder COMPARISONS = new LongAdder();
+  private static final LongAdder HASH_MATCHES = new LongAdder();
+  private static final LongAdder STRUCTURAL_MATCHES = new LongAdder();
+
   private final Map<Binding, Binding> mySubstitution;
   private final Equations myEquations;
   private final Concrete.SourceNode mySourceNode;
@@ -33,6 +39,7 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
   private boolean myOnlySolveVars = false;
   private boolean myAllowEquations = true;
   private boolean myNormalize = true;
+  private boolean myStructurallyCompared = false; // true if an enclosing comparison already tried StructuralEqualityVisitor
 
   public CompareVisitor(Equations equations, CMP cmp, Concrete.SourceNode sourceNode) {
     mySubstitution = new HashMap<>();
@@ -49,11 +56,46 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
     myNormalize = false;
   }
 
+  /**
+   * @return the number of comparisons of expressions which are not identical.
+   */
+  public static long getComparisons() {
+    return COMPARISONS.sum();
+  }
+
+  /**
+   * @return the number of comparisons in which expressions have the same structural hash.
+   */
+  public static long getHashMatches() {
+    return HASH_MATCHES.sum();
+  }
+
+  /**
+   * @return the number of comparisons settled by {@link StructuralEqualityVisitor} without normalization.
+   */
+  public static long getStructuralMatches() {
+    return STRUCTURAL_MATCHES.sum();
+  }
+
+  public static void resetCounters() {
+    COMPARISONS.reset();
+    HASH_MATCHES.reset();
+    STRUCTURAL_MATCHES.reset();
+  }
+
   public static boolean compare(Equations equations, CMP cmp, Expression expr1, Expression expr2, Expression type, Concrete.SourceNode sourceNode) {
     return new CompareVisitor(equations, cmp, sourceNode).compare(expr1, expr2, type);
   }
 
   public boolean compare(ElimTree elimTree1, ElimTree elimTree2) {
+    return compare(elimTree1, elimTree2, new IdentityHashMap<>());
+  }
+
+  // Subtrees may be shared, so pairs of subtrees which are already known to be equal are not compared again
+  private boolean compare(ElimTree elimTree1, ElimTree elimTree2, Map<ElimTree, ElimTree> equal) {
+    if (equal.get(elimTree1) == elimTree2) {
+      return true;
+    }
     if (elimTree1.getSkip() != elimTree2.getSkip()) {
       return false;
     }
@@ -69,15 +111,18 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
       SingleConstructor single1 = branchElimTree1.getSingleConstructorKey();
       if (single1 != null) {
         SingleConstructor single2 = branchElimTree2.getSingleConstructorKey();
-        return single2 != null && single1.compare(single2, myEquations, mySourceNode) && compare(branchElimTree1.getSingleConstructorChild(), branchElimTree2.getSingleConstructorChild());
+        if (single2 == null || !single1.compare(single2, myEquations, mySourceNode) || !compare(branchElimTree1.getSingleConstructorChild(), branchElimTree2.getSingleConstructorChild(), equal)) {
+          return false;
+        }
       } else {
         for (Map.Entry<BranchKey, ElimTree> entry : branchElimTree1.getChildren()) {
           ElimTree subTree = branchElimTree2.getChild(entry.getKey());
-          if (subTree == null || !compare(entry.getValue(), subTree)) {
+          if (subTree == null || !compare(entry.getValue(), subTree, equal)) {
             return false;
           }
         }
       }
+      equal.put(elimTree1, elimTree2);
       return true;
     } else {
       return false;
@@ -278,6 +323,27 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
       return true;
     }
 
+    COMPARISONS.increment();
+    TypecheckingProfiler.count(TypecheckingProfiler.Counter.COMPARISONS);
+    // Subexpressions were already compared by the enclosing structural comparison, so it is not repeated for them
+    if (myStructurallyCompared || expr1.getStructuralHash() != expr2.getStructuralHash()) {
+      return compareNonStructurally(expr1, expr2, type);
+    }
+
+    HASH_MATCHES.increment();
+    if (new StructuralEqualityVisitor(mySubstitution).compare(expr1, expr2)) {
+      STRUCTURAL_MATCHES.increment();
+      return true;
+    }
+    myStructurallyCompared = true;
+    try {
+      return compareNonStructurally(expr1, expr2, type);
+    } finally {
+      myStructurallyCompared = false;
+    }
+  }
+
+  private boolean compareNonStructurally(Expression expr1, Expression expr2, Expression type) {
     InferenceReferenceExpression infRefExpr1 = expr1.cast(InferenceReferenceExpression.class);
     InferenceReferenceExpression infRefExpr2 = expr2.cast(InferenceReferenceExpression.class);
     if (infRefExpr1 != null && infRefExpr2 != null && infRefExpr1.getVariable() == infRefExpr2.getVariable()) {
@@ -990,7 +1056,8 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
       if (definition instanceof DataDefinition) {
         myCMP = ((DataDefinition) definition).isCovariant(i) ? origCMP : CMP.EQ;
       }
-      if (!compare(list1.get(i), list2.get(i), substitution != null && link.hasNext() ? link.getTypeExpr().subst(substitution) : null)) {
+      // Shared arguments are equal; the type of the parameter is not computed in this case
+      if (list1.get(i) != list2.get(i) && !compare(list1.get(i), list2.get(i), substitution != null && link.hasNext() ? link.getTypeExpr().subst(substitution) : null)) {
         myCMP = origCMP;
         return false;
       }
@@ -0,0 +1,225 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.constructor.IdpConstructor;
+import org.arend.core.constructor.SingleConstructor;
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.Constructor;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.*;
+import org.arend.core.expr.*;
+import org.arend.core.pattern.Pattern;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.core.subst.LevelSubstitution;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.prelude.Prelude;
+import org.arend.typechecking.computation.ComputationRunner;
+
+import java.util.*;
+
+/**
+ * Evaluates calls of functions defined by pattern matching in an environment which maps parameters of clauses to unevaluated arguments.
+ * Unlike {@link NormalizeVisitor#eval(ElimBody, List, ExprSubstitution, LevelSubstitution)}, the right hand side of a clause is not substituted;
+ * arguments of nested calls are evaluated lazily and at most once, and expressions are constructed only when the result is read back.
+ * <p>
+ * Function calls, constructors without conditions, integers, and variables are evaluated in the environment.
+ * Other expressions, including calls of constructors with conditions such as {@code neg 0}, are read back and normalized by {@link NormalizeVisitor}.
+ */
+public class EnvironmentEvaluator {
+  private final NormalizeVisitor myNormalizer;
+
+  EnvironmentEvaluator(NormalizeVisitor normalizer) {
+    myNormalizer = normalizer;
+  }
+
+  private static class Environment {
+    static final Environment EMPTY = new Environment(LevelSubstitution.EMPTY);
+
+    final Map<Binding, Thunk> values = new HashMap<>();
+    final LevelSubstitution levelSubstitution;
+
+    Environment(LevelSubstitution levelSubstitution) {
+      this.levelSubstitution = levelSubstitution;
+    }
+
+    Expression readBack(Expression expr) {
+      if (values.isEmpty() && levelSubstitution.isEmpty()) {
+        return expr;
+      }
+      ExprSubstitution substitution = new ExprSubstitution();
+      for (Map.Entry<Binding, Thunk> entry : values.entrySet()) {
+        substitution.add(entry.getKey(), entry.getValue().readBack());
+      }
+      return expr.subst(substitution, levelSubstitution);
+    }
+  }
+
+  /**
+   * An expression together with its environment.
+   * A value of a constructor is a thunk whose expression is a {@link ConCallExpression}.
+   */
+  private class Thunk {
+    private final Expression myExpression;
+    private final Environment myEnvironment;
+    private Thunk myValue;
+    private Expression myReadBack;
+
+    Thunk(Expression expression, Environment environment) {
+      myExpression = expression;
+      myEnvironment = environment;
+    }
+
+    Thunk force() {
+      if (myValue == null) {
+        myValue = evaluate(myExpression, myEnvironment);
+      }
+      return myValue;
+    }
+
+    Expression readBack() {
+      if (myReadBack == null) {
+        myReadBack = myValue != null && myValue != this ? myValue.readBack() : myEnvironment.readBack(myExpression);
+      }
+      return myReadBack;
+    }
+  }
+
+  private Thunk value(Expression expr) {
+    Thunk thunk = new Thunk(expr, Environment.EMPTY);
+    thunk.myValue = thunk;
+    return thunk;
+  }
+
+  private static boolean isEvaluable(FunctionDefinition definition) {
+    return !definition.isSFunc() && !Prelude.MODULE_PATH.equals(definition.getReferable().getLocation()) && definition.getBody() instanceof ElimBody;
+  }
+
+  /**
+   * Computes the weak head normal form of a function call.
+   * The result is the same as the result of {@link NormalizeVisitor} up to normalization of arguments of stuck calls.
+   *
+   * @return the result or null if the call is stuck.
+   */
+  Expression evaluate(FunCallExpression funCall, ElimBody body) {
+    List<Thunk> arguments = new ArrayList<>(funCall.getDefCallArguments().size());
+    for (Expression argument : funCall.getDefCallArguments()) {
+      arguments.add(new Thunk(argument, Environment.EMPTY));
+    }
+    Thunk result = evaluate(body, arguments, funCall.getSortArgument().toLevelSubstitution());
+    return result == null ? null : result.readBack();
+  }
+
+  private Thunk evaluate(Expression expr, Environment environment) {
+    ComputationRunner.checkCanceled();
+
+    if (expr instanceof ReferenceExpression) {
+      Thunk thunk = environment.values.get(((ReferenceExpression) expr).getBinding());
+      if (thunk != null) {
+        return thunk.force();
+      }
+    } else if (expr instanceof ConCallExpression && ((ConCallExpression) expr).getDefinition().getBody() == null) {
+      Thunk thunk = new Thunk(expr, environment);
+      thunk.myValue = thunk;
+      return thunk;
+    } else if (expr instanceof IntegerExpression) {
+      return value(expr);
+    } else if (expr instanceof FunCallExpression && isEvaluable(((FunCallExpression) expr).getDefinition())) {
+      FunCallExpression funCall = (FunCallExpression) expr;
+      List<Thunk> arguments = new ArrayList<>(funCall.getDefCallArguments().size());
+      for (Expression argument : funCall.getDefCallArguments()) {
+        arguments.add(new Thunk(argument, environment));
+      }
+      Thunk result = evaluate((ElimBody) funCall.getDefinition().getBody(), arguments, funCall.getSortArgument().subst(environment.levelSubstitution).toLevelSubstitution());
+      if (result != null) {
+        return result;
+      }
+
+      List<Expression> newArguments = new ArrayList<>(arguments.size());
+      for (Thunk argument : arguments) {
+        newArguments.add(argument.readBack());
+      }
+      return value(new FunCallExpression(funCall.getDefinition(), funCall.getSortArgument().subst(environment.levelSubstitution), newArguments));
+    }
+
+    return value(environment.readBack(expr).accept(myNormalizer, NormalizationMode.WHNF).getUnderlyingExpression());
+  }
+
+  private Thunk evaluate(ElimBody elimBody, List<Thunk> arguments, LevelSubstitution levelSubstitution) {
+    Deque<Thunk> stack = new ArrayDeque<>(arguments);
+    List<Thunk> result = new ArrayList<>();
+
+    ElimTree elimTree = elimBody.getElimTree();
+    while (true) {
+      for (int i = 0; i < elimTree.getSkip(); i++) {
+        result.add(stack.pop());
+      }
+
+      if (elimTree instanceof LeafElimTree) {
+        LeafElimTree leafElimTree = (LeafElimTree) elimTree;
+        ElimClause<Pattern> clause = elimBody.getClauses().get(leafElimTree.getClauseIndex());
+        Environment environment = new Environment(levelSubstitution);
+        int i = 0;
+        for (DependentLink link = clause.getParameters(); link.hasNext(); link = link.getNext(), i++) {
+          environment.values.put(link, result.get(leafElimTree.getArgumentIndex(i)));
+        }
+        return evaluate(Objects.requireNonNull(clause.getExpression()), environment);
+      }
+
+      elimTree = updateStack(stack, result, (BranchElimTree) elimTree);
+      if (elimTree == null) {
+        return null;
+      }
+    }
+  }
+
+  private ElimTree updateStack(Deque<Thunk> stack, List<Thunk> argList, BranchElimTree branchElimTree) {
+    Thunk argument = stack.peek().force();
+    Constructor constructor = null;
+    IntegerExpression intExpr = null;
+    if (argument.myExpression instanceof ConCallExpression) {
+      constructor = ((ConCallExpression) argument.myExpression).getDefinition();
+    } else if (argument.myExpression instanceof IntegerExpression) {
+      intExpr = (IntegerExpression) argument.myExpression;
+      constructor = intExpr.isZero() ? Prelude.ZERO : Prelude.SUC;
+    }
+
+    ElimTree elimTree = constructor == null ? branchElimTree.getSingleConstructorChild() : branchElimTree.getChild(constructor);
+    if (elimTree == null && constructor == Prelude.PATH_CON && branchElimTree.getSingleConstructorKey() instanceof IdpConstructor) {
+      elimTree = branchElimTree.getSingleConstructorChild();
+      constructor = null;
+    }
+    if (elimTree == null) {
+      return null;
+    }
+
+    stack.pop();
+    if (branchElimTree.keepConCall()) {
+      argList.add(argument);
+    }
+
+    List<Thunk> args = new ArrayList<>();
+    if (intExpr != null) {
+      if (constructor == Prelude.SUC) {
+        args.add(value(intExpr.pred()));
+      }
+    } else if (constructor != null) {
+      for (Expression arg : ((ConCallExpression) argument.myExpression).getDefCallArguments()) {
+        args.add(new Thunk(arg, argument.myEnvironment));
+      }
+    } else {
+      SingleConstructor singleConstructor = branchElimTree.getSingleConstructorKey();
+      List<? extends Expression> matched = singleConstructor == null ? null : singleConstructor.getMatchedArguments(argument.readBack(), true);
+      if (matched == null) {
+        return null;
+      }
+      for (Expression arg : matched) {
+        args.add(new Thunk(arg, Environment.EMPTY));
+      }
+    }
+
+    for (int i = args.size() - 1; i >= 0; i--) {
+      stack.push(args.get(i));
+    }
+    return elimTree;
+  }
+}
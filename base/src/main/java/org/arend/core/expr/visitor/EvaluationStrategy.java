@@ -0,0 +1,16 @@
+package org.arend.core.expr.visitor;
+
+/**
+ * Determines how {@link NormalizeVisitor} evaluates calls of functions defined by pattern matching.
+ */
+public enum EvaluationStrategy {
+  /**
+   * The right hand side of the matching clause is substituted and then normalized.
+   */
+  SUBSTITUTION,
+
+  /**
+   * The right hand side of the matching clause is evaluated in an environment by {@link EnvironmentEvaluator}.
+   */
+  ENVIRONMENT
+}
@@ -12,17 +12,26 @@ import java.util.Set;
 
 public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
   private final Set<? extends Variable> myBindings;
+  private final long myBindingsMask;
 
   public FindBindingVisitor(Set<? extends Variable> binding) {
     myBindings = binding;
+    myBindingsMask = VariablesMaskVisitor.getMask(binding);
   }
 
   Set<? extends Variable> getBindings() {
     return myBindings;
   }
 
+  private boolean cannotContain(Expression expr) {
+    return !VariablesMaskVisitor.intersects(expr.getVariablesMask(), myBindingsMask);
+  }
+
   @Override
   public Variable visitApp(AppExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     Variable result = expr.getFunction().accept(this, null);
     if (result != null) {
       return result;
@@ -32,6 +41,9 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitDefCall(DefCallExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     for (Expression arg : expr.getDefCallArguments()) {
       Variable result = arg.accept(this, null);
       if (result != null) {
@@ -43,6 +55,9 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitConCall(ConCallExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     for (Expression arg : expr.getDataTypeArguments()) {
       Variable result = arg.accept(this, null);
       if (result != null) {
@@ -80,12 +95,18 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitLam(LamExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     Variable result = visitDependentLink(expr.getParameters());
     return result != null ? result : expr.getBody().accept(this, null);
   }
 
   @Override
   public Variable visitPi(PiExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     Variable result = visitDependentLink(expr.getParameters());
     return result != null ? result : expr.getCodomain().accept(this, null);
   }
@@ -102,6 +123,9 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitTuple(TupleExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     for (Expression field : expr.getFields()) {
       Variable result = field.accept(this, null);
       if (result != null) {
@@ -113,11 +137,17 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitSigma(SigmaExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     return visitDependentLink(expr.getParameters());
   }
 
   @Override
   public Variable visitProj(ProjExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     return expr.getExpression().accept(this, null);
   }
 
@@ -140,6 +170,9 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitPEval(PEvalExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     return expr.getExpression().accept(this, null);
   }
 
@@ -156,6 +189,9 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitCase(CaseExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     for (Expression argument : expr.getArguments()) {
       Variable result = argument.accept(this, null);
       if (result != null) {
@@ -237,6 +273,9 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitOfType(OfTypeExpression expr, Void params) {
+    if (cannotContain(expr)) {
+      return null;
+    }
     Variable result = expr.getExpression().accept(this, null);
     return result != null ? result : expr.getTypeOf().accept(this, null);
   }
@@ -23,19 +23,23 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
     return myBindings;
   }
 
+  Variable visit(Expression expr) {
+    return expr.accept(this, null);
+  }
+
   @Override
   public Variable visitApp(AppExpression expr, Void params) {
-    Variable result = expr.getFunction().accept(this, null);
+    Variable result = visit(expr.getFunction());
     if (result != null) {
       return result;
     }
-    return expr.getArgument().accept(this, null);
+    return visit(expr.getArgument());
   }
 
   @Override
   public Variable visitDefCall(DefCallExpression expr, Void params) {
     for (Expression arg : expr.getDefCallArguments()) {
-      Variable result = arg.accept(this, null);
+      Variable result = visit(arg);
       if (result != null) {
         return result;
       }
@@ -46,7 +50,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
   @Override
   public Variable visitConCall(ConCallExpression expr, Void params) {
     for (Expression arg : expr.getDataTypeArguments()) {
-      Variable result = arg.accept(this, null);
+      Variable result = visit(arg);
       if (result != null) {
         return result;
       }
@@ -57,7 +61,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
   @Override
   public Variable visitClassCall(ClassCallExpression expr, Void params) {
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
-      Variable result = entry.getValue().accept(this, null);
+      Variable result = visit(entry.getValue());
       if (result != null) {
         return result;
       }
@@ -72,12 +76,12 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
 
   @Override
   public Variable visitInferenceReference(InferenceReferenceExpression expr, Void params) {
-    return expr.getSubstExpression() != null ? expr.getSubstExpression().accept(this, null) : null;
+    return expr.getSubstExpression() != null ? visit(expr.getSubstExpression()) : null;
   }
 
   @Override
   public Variable visitSubst(SubstExpression expr, Void params) {
-    return expr.getSubstExpression().accept(this, null);
+    return visit(expr.getSubstExpression());
   }
 
   @Override
@@ -87,7 +91,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
       return result;
     }
 
-    result = expr.getBody().accept(this, null);
+    result = visit(expr.getBody());
     freeParameters(expr.getParameters());
     return result;
   }
@@ -99,7 +103,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
       return result;
     }
 
-    result = expr.getCodomain().accept(this, null);
+    result = visit(expr.getCodomain());
     freeParameters(expr.getParameters());
     return result;
   }
@@ -117,12 +121,12 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
   @Override
   public Variable visitTuple(TupleExpression expr, Void params) {
     for (Expression field : expr.getFields()) {
-      Variable result = field.accept(this, null);
+      Variable result = visit(field);
       if (result != null) {
         return result;
       }
     }
-    return expr.getSigmaType().accept(this, null);
+    return visit(expr.getSigmaType());
   }
 
   @Override
@@ -136,13 +140,13 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
 
   @Override
   public Variable visitProj(ProjExpression expr, Void params) {
-    return expr.getExpression().accept(this, null);
+    return visit(expr.getExpression());
   }
 
   private Variable visitParameters(DependentLink parameters) {
     for (DependentLink link = parameters; link.hasNext(); link = link.getNext()) {
       DependentLink link1 = link.getNextTyped(null);
-      Variable result = link1.getTypeExpr().accept(this, null);
+      Variable result = visit(link1.getTypeExpr());
       if (result != null) {
         for (; parameters != link; parameters = parameters.getNext()) {
           myBindings.remove(parameters);
@@ -167,24 +171,24 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
   @Override
   public Variable visitNew(NewExpression expr, Void params) {
     Variable result = visitClassCall(expr.getClassCall(), null);
-    return result != null ? result : expr.getRenewExpression() == null ? null : expr.getRenewExpression().accept(this, null);
+    return result != null ? result : expr.getRenewExpression() == null ? null : visit(expr.getRenewExpression());
   }
 
   @Override
   public Variable visitPEval(PEvalExpression expr, Void params) {
-    return expr.getExpression().accept(this, null);
+    return visit(expr.getExpression());
   }
 
   @Override
   public Variable visitLet(LetExpression letExpression, Void params) {
     for (LetClause clause : letExpression.getClauses()) {
-      Variable result = clause.getExpression().accept(this, null);
+      Variable result = visit(clause.getExpression());
       if (result != null) {
         return result;
       }
       myBindings.add(clause);
     }
-    Variable result = letExpression.getExpression().accept(this, null);
+    Variable result = visit(letExpression.getExpression());
     letExpression.getClauses().forEach(myBindings::remove);
     return result;
   }
@@ -192,7 +196,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
   @Override
   public Variable visitCase(CaseExpression expr, Void params) {
     for (Expression argument : expr.getArguments()) {
-      Variable result = argument.accept(this, null);
+      Variable result = visit(argument);
       if (result != null) {
         return result;
       }
@@ -203,9 +207,9 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
       return result;
     }
 
-    result = expr.getResultType().accept(this, null);
+    result = visit(expr.getResultType());
     if (result == null && expr.getResultTypeLevel() != null) {
-      result = expr.getResultTypeLevel().accept(this, null);
+      result = visit(expr.getResultTypeLevel());
     }
     freeParameters(expr.getParameters());
     if (result != null) {
@@ -222,7 +226,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
         return result;
       }
       if (clause.getExpression() != null) {
-        result = clause.getExpression().accept(this, null);
+        result = visit(clause.getExpression());
         if (result != null) {
           return result;
         }
@@ -235,8 +239,8 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
 
   @Override
   public Variable visitOfType(OfTypeExpression expr, Void params) {
-    Variable result = expr.getExpression().accept(this, null);
-    return result != null ? result : expr.getTypeOf().accept(this, null);
+    Variable result = visit(expr.getExpression());
+    return result != null ? result : visit(expr.getTypeOf());
   }
 
   @Override
@@ -0,0 +1,235 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.expr.*;
+import org.arend.ext.variable.Variable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches weak head normal forms of function calls and case expressions.
+ * Expressions are compared by identity.
+ * <p>
+ * Each thread has its own cache which is created by {@link #runInScope} and usually corresponds to the typechecking of a single definition.
+ * Threads that perform parts of the same typechecking may share the cache, see {@link #runWithCache}.
+ * Closed expressions are stored in a cache which is shared between all scopes.
+ * Expressions with unsolved inference variables are not cached since their normal forms may change.
+ * <p>
+ * The cache is disabled by default.
+ */
+public class NormalizationCache {
+  private static final int SCOPE_CAPACITY = 1 << 12;
+  private static final int GLOBAL_CAPACITY = 1 << 16;
+
+  private static final ThreadLocal<NormalizationCache> CURRENT = new ThreadLocal<>();
+  private static final Map<Expression, Expression> GLOBAL_CACHE = new IdentityHashMap<>();
+  private static final LongAdder HITS = new LongAdder();
+  private static final LongAdder MISSES = new LongAdder();
+  private static volatile boolean ENABLED = false;
+
+  private static final byte COMPUTED = 1;
+  private static final byte OPEN = 2; // the expression has free variables
+  private static final byte UNSTABLE = 4; // the expression refers to a definition which is not typechecked yet
+  private static final byte UNSOLVED = 8; // the expression has unsolved inference variables
+
+  private final Map<Expression, Expression> myCache = new IdentityHashMap<>();
+
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    ENABLED = enabled;
+    if (!enabled) {
+      clearGlobalCache();
+    }
+  }
+
+  public static void clearGlobalCache() {
+    synchronized (GLOBAL_CACHE) {
+      GLOBAL_CACHE.clear();
+    }
+  }
+
+  public static long getHits() {
+    return HITS.sum();
+  }
+
+  public static long getMisses() {
+    return MISSES.sum();
+  }
+
+  public static void resetCounters() {
+    HITS.reset();
+    MISSES.reset();
+  }
+
+  /**
+   * @return the cache of the current scope or null if there is no such scope.
+   */
+  public static NormalizationCache getCurrent() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Runs {@code runnable} with a new cache if caching is enabled.
+   * The cache is discarded when {@code runnable} finishes.
+   */
+  public static void runInScope(Runnable runnable) {
+    if (!ENABLED) {
+      runnable.run();
+      return;
+    }
+
+    NormalizationCache prevCache = CURRENT.get();
+    CURRENT.set(new NormalizationCache());
+    try {
+      runnable.run();
+    } finally {
+      if (prevCache == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(prevCache);
+      }
+    }
+  }
+
+  /**
+   * Runs {@code runnable} in the current thread with the given cache.
+   * This is used to propagate the cache of a scope to the threads that perform its parts.
+   */
+  public static void runWithCache(NormalizationCache cache, Runnable runnable) {
+    NormalizationCache prevCache = CURRENT.get();
+    CURRENT.set(cache);
+    try {
+      runnable.run();
+    } finally {
+      if (prevCache == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(prevCache);
+      }
+    }
+  }
+
+  /**
+   * Returns the cached normal form of {@code expr} or computes it with {@code normalizer}.
+   */
+  public Expression normalize(Expression expr, Supplier<Expression> normalizer) {
+    Expression result;
+    synchronized (myCache) {
+      result = myCache.get(expr);
+    }
+    if (result == null) {
+      synchronized (GLOBAL_CACHE) {
+        result = GLOBAL_CACHE.get(expr);
+      }
+    }
+    if (result != null) {
+      HITS.increment();
+      return result;
+    }
+
+    MISSES.increment();
+    result = normalizer.get();
+    if ((getFlags(result) & UNSTABLE) != 0) {
+      return result;
+    }
+
+    byte flags = getFlags(expr);
+    if ((flags & UNSOLVED) != 0) {
+      return result;
+    }
+
+    if ((flags & OPEN) == 0) {
+      synchronized (GLOBAL_CACHE) {
+        if (GLOBAL_CACHE.size() >= GLOBAL_CAPACITY) {
+          GLOBAL_CACHE.clear();
+        }
+        GLOBAL_CACHE.put(expr, result);
+      }
+    } else {
+      synchronized (myCache) {
+        if (myCache.size() >= SCOPE_CAPACITY) {
+          myCache.clear();
+        }
+        myCache.put(expr, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes the flags of {@code expr}.
+   * They are cached in the expression if they cannot change later, that is,
+   * if the expression is stable and cannot be modified (its variables mask is not {@link VariablesMaskVisitor#ALL}).
+   * Thus, every subexpression is checked once and the check of an expression whose subexpressions are cached is fast.
+   */
+  private static byte getFlags(Expression expr) {
+    byte flags = expr.getNormalizationFlags();
+    if (flags != 0) {
+      return flags;
+    }
+
+    FlagsChecker checker = new FlagsChecker();
+    expr.accept(checker, null);
+    flags = checker.myFlags;
+    if ((flags & (UNSTABLE | UNSOLVED)) == 0 && expr.getVariablesMask() != VariablesMaskVisitor.ALL) {
+      expr.setNormalizationFlags((byte) (flags | COMPUTED));
+    }
+    return flags;
+  }
+
+  /**
+   * Finds free variables, unsolved inference variables, and definitions which are not typechecked yet.
+   * A subexpression which is not under binders is checked with {@link #getFlags} so that its flags are cached.
+   * A subexpression under binders is skipped if it is known to be closed.
+   */
+  private static class FlagsChecker extends FindMissingBindingVisitor {
+    private byte myFlags;
+
+    FlagsChecker() {
+      super(Collections.<Binding>emptySet());
+    }
+
+    @Override
+    Variable visit(Expression expr) {
+      if (getBindings().isEmpty()) {
+        myFlags |= getFlags(expr) & ~COMPUTED;
+        return null;
+      }
+
+      byte flags = expr.getNormalizationFlags();
+      return flags != 0 && (flags & OPEN) == 0 ? null : super.visit(expr);
+    }
+
+    @Override
+    public Variable visitDefCall(DefCallExpression expr, Void params) {
+      if (expr.getDefinition().status().needsTypeChecking()) {
+        myFlags |= UNSTABLE;
+      }
+      return super.visitDefCall(expr, params);
+    }
+
+    @Override
+    public Variable visitReference(ReferenceExpression expr, Void params) {
+      if (!getBindings().contains(expr.getBinding())) {
+        myFlags |= OPEN;
+      }
+      return null;
+    }
+
+    @Override
+    public Variable visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+      if (expr.getSubstExpression() != null) {
+        return visit(expr.getSubstExpression());
+      }
+      myFlags |= UNSOLVED;
+      return expr.getVariable();
+    }
+  }
+}
@@ -16,6 +16,7 @@ import org.arend.core.subst.LevelSubstitution;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.computation.ComputationRunner;
+import org.arend.typechecking.order.listener.TypecheckingProfiler;
 import org.arend.util.Pair;
 
 import java.util.*;
@@ -25,9 +26,22 @@ import static org.arend.core.expr.ExpressionFactory.*;
 public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, Expression>  {
   public static final NormalizeVisitor INSTANCE = new NormalizeVisitor();
 
+  private static volatile EvaluationStrategy EVALUATION_STRATEGY = EvaluationStrategy.SUBSTITUTION;
+
   private NormalizeVisitor() {
   }
 
+  public static EvaluationStrategy getEvaluationStrategy() {
+    return EVALUATION_STRATEGY;
+  }
+
+  /**
+   * Sets the strategy used to evaluate functions defined by pattern matching.
+   */
+  public static void setEvaluationStrategy(EvaluationStrategy strategy) {
+    EVALUATION_STRATEGY = strategy;
+  }
+
   @Override
   public Expression visitApp(AppExpression expr, NormalizationMode mode) {
     Expression function = expr.getFunction().accept(this, mode);
@@ -354,6 +368,11 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, E
     if (body instanceof Expression) {
       result = mode == NormalizationMode.RNF || mode == NormalizationMode.RNF_EXP ? null : ((Expression) body).subst(getDataTypeArgumentsSubstitution(expr).add(definition.getParameters(), defCallArgs), expr.getSortArgument().toLevelSubstitution());
     } else if (body instanceof ElimBody) {
+      if (EVALUATION_STRATEGY == EvaluationStrategy.ENVIRONMENT && expr instanceof FunCallExpression) {
+        result = new EnvironmentEvaluator(this).evaluate((FunCallExpression) expr, (ElimBody) body);
+        ComputationRunner.checkCanceled();
+        return result == null ? applyDefCall(expr, mode) : mode == NormalizationMode.WHNF ? result : result.accept(this, mode);
+      }
       result = eval((ElimBody) body, defCallArgs, getDataTypeArgumentsSubstitution(expr), expr.getSortArgument().toLevelSubstitution());
     } else {
       assert body == null;
@@ -504,6 +523,17 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, E
 
   @Override
   public Expression visitDefCall(DefCallExpression expr, NormalizationMode mode) {
+    TypecheckingProfiler.count(TypecheckingProfiler.Counter.NORMALIZATIONS);
+    if (mode == NormalizationMode.WHNF && expr instanceof FunCallExpression) {
+      NormalizationCache cache = NormalizationCache.getCurrent();
+      if (cache != null) {
+        return cache.normalize(expr, () -> normalizeDefCall(expr, mode));
+      }
+    }
+    return normalizeDefCall(expr, mode);
+  }
+
+  private Expression normalizeDefCall(DefCallExpression expr, NormalizationMode mode) {
     if (expr.getDefinition() instanceof FunctionDefinition && ((FunctionDefinition) expr.getDefinition()).isSFunc() ||
         expr.getDefinition() instanceof ClassField && ((ClassField) expr.getDefinition()).isProperty() ||
         expr.getDefinition().status() != Definition.TypeCheckingStatus.NO_ERRORS && expr.getDefinition() instanceof Function && ((Function) expr.getDefinition()).getBody() == null) {
@@ -668,6 +698,17 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, E
 
   @Override
   public Expression visitCase(CaseExpression expr, NormalizationMode mode) {
+    TypecheckingProfiler.count(TypecheckingProfiler.Counter.NORMALIZATIONS);
+    if (mode == NormalizationMode.WHNF) {
+      NormalizationCache cache = NormalizationCache.getCurrent();
+      if (cache != null) {
+        return cache.normalize(expr, () -> normalizeCase(expr, mode));
+      }
+    }
+    return normalizeCase(expr, mode);
+  }
+
+  private Expression normalizeCase(CaseExpression expr, NormalizationMode mode) {
     if (!expr.isSCase()) {
       Expression result = eval(expr.getElimBody(), expr.getArguments(), new ExprSubstitution(), LevelSubstitution.EMPTY);
       if (result != null) {
@@ -0,0 +1,152 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.expr.*;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+
+import java.util.List;
+
+/**
+ * Computes hashes of expressions which do not depend on variables, so expressions that differ only in names of variables have the same hash.
+ * The hash of an expression is computed from the cached hashes of its subexpressions (see {@link Expression#getStructuralHash}).
+ * <p>
+ * Hashes are used only to filter out expressions which are not equal before they are compared by {@link StructuralEqualityVisitor},
+ * so hashes of expressions which can be modified after they are constructed (class calls, \new expressions, and inference variables) do not depend on their contents.
+ */
+public class ShapeHashVisitor extends BaseExpressionVisitor<Void, Long> {
+  public static final ShapeHashVisitor INSTANCE = new ShapeHashVisitor();
+
+  private ShapeHashVisitor() {}
+
+  private static long mix(long hash, long value) {
+    return StructuralHashVisitor.mix(hash, value);
+  }
+
+  private static long mixLevel(long hash, Level level) {
+    hash = mix(hash, level.getVar() == null ? 0 : System.identityHashCode(level.getVar()));
+    hash = mix(hash, level.getConstant());
+    return mix(hash, level.getMaxConstant());
+  }
+
+  private static long mixSort(long hash, Sort sort) {
+    return mixLevel(mixLevel(hash, sort.getPLevel()), sort.getHLevel());
+  }
+
+  private static long mixArguments(long hash, List<? extends Expression> arguments) {
+    hash = mix(hash, arguments.size());
+    for (Expression argument : arguments) {
+      hash = mix(hash, argument.getStructuralHash());
+    }
+    return hash;
+  }
+
+  private static long mixParameters(long hash, DependentLink link) {
+    for (; link.hasNext(); link = link.getNext()) {
+      hash = mix(hash, link.isExplicit() ? 1 : 2);
+      hash = mix(hash, link.getTypeExpr().getStructuralHash());
+    }
+    return hash;
+  }
+
+  @Override
+  public Long visitApp(AppExpression expr, Void params) {
+    return mix(mix(mix(1, expr.isExplicit() ? 1 : 2), expr.getFunction().getStructuralHash()), expr.getArgument().getStructuralHash());
+  }
+
+  @Override
+  public Long visitDefCall(DefCallExpression expr, Void params) {
+    long hash = mix(2, System.identityHashCode(expr.getDefinition()));
+    return mixArguments(mixSort(hash, expr.getSortArgument()), expr.getDefCallArguments());
+  }
+
+  @Override
+  public Long visitConCall(ConCallExpression expr, Void params) {
+    return mixArguments(mix(3, visitDefCall(expr, null)), expr.getDataTypeArguments());
+  }
+
+  @Override
+  public Long visitClassCall(ClassCallExpression expr, Void params) {
+    return mix(4, System.identityHashCode(expr.getDefinition()));
+  }
+
+  @Override
+  public Long visitReference(ReferenceExpression expr, Void params) {
+    return 5L;
+  }
+
+  @Override
+  public Long visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    return 6L;
+  }
+
+  @Override
+  public Long visitSubst(SubstExpression expr, Void params) {
+    return (long) expr.getExpression().getStructuralHash();
+  }
+
+  @Override
+  public Long visitLam(LamExpression expr, Void params) {
+    return mix(mixParameters(7, expr.getParameters()), expr.getBody().getStructuralHash());
+  }
+
+  @Override
+  public Long visitPi(PiExpression expr, Void params) {
+    return mix(mixParameters(8, expr.getParameters()), expr.getCodomain().getStructuralHash());
+  }
+
+  @Override
+  public Long visitSigma(SigmaExpression expr, Void params) {
+    return mixParameters(9, expr.getParameters());
+  }
+
+  @Override
+  public Long visitUniverse(UniverseExpression expr, Void params) {
+    return mixSort(10, expr.getSort());
+  }
+
+  @Override
+  public Long visitError(ErrorExpression expr, Void params) {
+    return 11L;
+  }
+
+  @Override
+  public Long visitTuple(TupleExpression expr, Void params) {
+    return mixArguments(mix(12, expr.getSigmaType().getStructuralHash()), expr.getFields());
+  }
+
+  @Override
+  public Long visitProj(ProjExpression expr, Void params) {
+    return mix(mix(13, expr.getField()), expr.getExpression().getStructuralHash());
+  }
+
+  @Override
+  public Long visitNew(NewExpression expr, Void params) {
+    return mix(14, System.identityHashCode(expr.getClassCall().getDefinition()));
+  }
+
+  @Override
+  public Long visitPEval(PEvalExpression expr, Void params) {
+    return mix(15, expr.getExpression().getStructuralHash());
+  }
+
+  @Override
+  public Long visitLet(LetExpression expr, Void params) {
+    return mix(16, expr.getExpression().getStructuralHash());
+  }
+
+  @Override
+  public Long visitCase(CaseExpression expr, Void params) {
+    return mixArguments(mix(17, expr.getElimBody().getClauses().size()), expr.getArguments());
+  }
+
+  @Override
+  public Long visitOfType(OfTypeExpression expr, Void params) {
+    return (long) expr.getExpression().getStructuralHash();
+  }
+
+  @Override
+  public Long visitInteger(IntegerExpression expr, Void params) {
+    return mix(18, expr.getBigInteger().hashCode());
+  }
+}
@@ -38,7 +38,7 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
     for (Expression arg : expr.getDefCallArguments()) {
       args.add(arg.accept(this, null));
     }
-    return new FunCallExpression(expr.getDefinition(), expr.getSortArgument(), args);
+    return HashConsingTable.intern(new FunCallExpression(expr.getDefinition(), expr.getSortArgument(), args));
   }
 
   @Override
@@ -53,7 +53,7 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
       args.add(arg.accept(this, null));
     }
 
-    return ConCallExpression.make(expr.getDefinition(), expr.getSortArgument(), dataTypeArgs, args);
+    return HashConsingTable.intern(ConCallExpression.make(expr.getDefinition(), expr.getSortArgument(), dataTypeArgs, args));
   }
 
   @Override
@@ -62,7 +62,7 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
     for (Expression arg : expr.getDefCallArguments()) {
       args.add(arg.accept(this, null));
     }
-    return new DataCallExpression(expr.getDefinition(), expr.getSortArgument(), args);
+    return HashConsingTable.intern(new DataCallExpression(expr.getDefinition(), expr.getSortArgument(), args));
   }
 
   @Override
@@ -143,7 +143,7 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public UniverseExpression visitUniverse(UniverseExpression expr, Void params) {
-    return expr;
+    return HashConsingTable.intern(expr);
   }
 
   @Override
@@ -204,7 +204,7 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public IntegerExpression visitInteger(IntegerExpression expr, Void params) {
-    return expr;
+    return HashConsingTable.intern(expr);
   }
 
   @Override
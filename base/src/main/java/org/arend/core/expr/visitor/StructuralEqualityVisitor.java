@@ -0,0 +1,236 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.ClassField;
+import org.arend.core.expr.*;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks if two expressions are equal up to renaming of bound variables without normalizing them.
+ * If this visitor returns true, then the expressions are definitionally equal;
+ * if it returns false, then the expressions still may be equal.
+ * Expressions with inference variables, errors, \let and \case expressions are never considered equal.
+ * <p>
+ * Bindings of the second expression are mapped to bindings of the first one as in {@link CompareVisitor}.
+ */
+public class StructuralEqualityVisitor extends BaseExpressionVisitor<Expression, Boolean> {
+  private final Map<Binding, Binding> myOuterSubstitution;
+  private final Map<Binding, Binding> mySubstitution = new HashMap<>();
+
+  public StructuralEqualityVisitor(Map<Binding, Binding> substitution) {
+    myOuterSubstitution = substitution;
+  }
+
+  public boolean compare(Expression expr1, Expression expr2) {
+    expr1 = expr1.getUnderlyingExpression();
+    expr2 = expr2.getUnderlyingExpression();
+    return expr1 == expr2 || expr1.getStructuralHash() == expr2.getStructuralHash() && expr1.accept(this, expr2);
+  }
+
+  private boolean compareLists(List<? extends Expression> list1, List<? extends Expression> list2) {
+    if (list1.size() != list2.size()) {
+      return false;
+    }
+    for (int i = 0; i < list1.size(); i++) {
+      if (!compare(list1.get(i), list2.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean compareLevels(Level level1, Level level2) {
+    return level1 == level2 || level1.getVar() == level2.getVar() && level1.getConstant() == level2.getConstant() && level1.getMaxConstant() == level2.getMaxConstant();
+  }
+
+  private static boolean compareSorts(Sort sort1, Sort sort2) {
+    return sort1 == sort2 || compareLevels(sort1.getPLevel(), sort2.getPLevel()) && compareLevels(sort1.getHLevel(), sort2.getHLevel());
+  }
+
+  /**
+   * Compares types of parameters and maps parameters of the second list to parameters of the first one.
+   * Mapped parameters should be removed by {@link #freeParameters} even if this method returns false.
+   */
+  private boolean compareParameters(DependentLink link1, DependentLink link2) {
+    for (; link1.hasNext() && link2.hasNext(); link1 = link1.getNext(), link2 = link2.getNext()) {
+      if (link1.isExplicit() != link2.isExplicit() || !compare(link1.getTypeExpr(), link2.getTypeExpr())) {
+        return false;
+      }
+      mySubstitution.put(link2, link1);
+    }
+    return !link1.hasNext() && !link2.hasNext();
+  }
+
+  private void freeParameters(DependentLink link) {
+    for (; link.hasNext(); link = link.getNext()) {
+      mySubstitution.remove(link);
+    }
+  }
+
+  @Override
+  public Boolean visitApp(AppExpression expr1, Expression expr2) {
+    if (!(expr2 instanceof AppExpression)) {
+      return false;
+    }
+    AppExpression app2 = (AppExpression) expr2;
+    return expr1.isExplicit() == app2.isExplicit() && compare(expr1.getFunction(), app2.getFunction()) && compare(expr1.getArgument(), app2.getArgument());
+  }
+
+  @Override
+  public Boolean visitDefCall(DefCallExpression expr1, Expression expr2) {
+    if (expr1.getClass() != expr2.getClass()) {
+      return false;
+    }
+    DefCallExpression defCall2 = (DefCallExpression) expr2;
+    return expr1.getDefinition() == defCall2.getDefinition() && compareSorts(expr1.getSortArgument(), defCall2.getSortArgument()) && compareLists(expr1.getDefCallArguments(), defCall2.getDefCallArguments());
+  }
+
+  @Override
+  public Boolean visitConCall(ConCallExpression expr1, Expression expr2) {
+    return visitDefCall(expr1, expr2) && compareLists(expr1.getDataTypeArguments(), ((ConCallExpression) expr2).getDataTypeArguments());
+  }
+
+  @Override
+  public Boolean visitClassCall(ClassCallExpression expr1, Expression expr2) {
+    if (!(expr2 instanceof ClassCallExpression)) {
+      return false;
+    }
+    ClassCallExpression classCall2 = (ClassCallExpression) expr2;
+    if (expr1.getDefinition() != classCall2.getDefinition() || !compareSorts(expr1.getSortArgument(), classCall2.getSortArgument()) || expr1.getImplementedHere().size() != classCall2.getImplementedHere().size()) {
+      return false;
+    }
+
+    mySubstitution.put(classCall2.getThisBinding(), expr1.getThisBinding());
+    try {
+      for (Map.Entry<ClassField, Expression> entry : expr1.getImplementedHere().entrySet()) {
+        Expression impl2 = classCall2.getImplementedHere().get(entry.getKey());
+        if (impl2 == null || !compare(entry.getValue(), impl2)) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      mySubstitution.remove(classCall2.getThisBinding());
+    }
+  }
+
+  @Override
+  public Boolean visitReference(ReferenceExpression expr1, Expression expr2) {
+    if (!(expr2 instanceof ReferenceExpression)) {
+      return false;
+    }
+    Binding binding2 = ((ReferenceExpression) expr2).getBinding();
+    Binding subst2 = mySubstitution.get(binding2);
+    if (subst2 == null) {
+      subst2 = myOuterSubstitution.get(binding2);
+    }
+    return (subst2 != null ? subst2 : binding2) == expr1.getBinding();
+  }
+
+  @Override
+  public Boolean visitInferenceReference(InferenceReferenceExpression expr1, Expression expr2) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitSubst(SubstExpression expr1, Expression expr2) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitLam(LamExpression expr1, Expression expr2) {
+    if (!(expr2 instanceof LamExpression)) {
+      return false;
+    }
+    LamExpression lam2 = (LamExpression) expr2;
+    boolean result = compareSorts(expr1.getResultSort(), lam2.getResultSort()) && compareParameters(expr1.getParameters(), lam2.getParameters()) && compare(expr1.getBody(), lam2.getBody());
+    freeParameters(lam2.getParameters());
+    return result;
+  }
+
+  @Override
+  public Boolean visitPi(PiExpression expr1, Expression expr2) {
+    if (!(expr2 instanceof PiExpression)) {
+      return false;
+    }
+    PiExpression pi2 = (PiExpression) expr2;
+    boolean result = compareSorts(expr1.getResultSort(), pi2.getResultSort()) && compareParameters(expr1.getParameters(), pi2.getParameters()) && compare(expr1.getCodomain(), pi2.getCodomain());
+    freeParameters(pi2.getParameters());
+    return result;
+  }
+
+  @Override
+  public Boolean visitSigma(SigmaExpression expr1, Expression expr2) {
+    if (!(expr2 instanceof SigmaExpression)) {
+      return false;
+    }
+    SigmaExpression sigma2 = (SigmaExpression) expr2;
+    boolean result = compareSorts(expr1.getSort(), sigma2.getSort()) && compareParameters(expr1.getParameters(), sigma2.getParameters());
+    freeParameters(sigma2.getParameters());
+    return result;
+  }
+
+  @Override
+  public Boolean visitUniverse(UniverseExpression expr1, Expression expr2) {
+    return expr2 instanceof UniverseExpression && compareSorts(expr1.getSort(), ((UniverseExpression) expr2).getSort());
+  }
+
+  @Override
+  public Boolean visitError(ErrorExpression expr1, Expression expr2) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitTuple(TupleExpression expr1, Expression expr2) {
+    if (!(expr2 instanceof TupleExpression)) {
+      return false;
+    }
+    TupleExpression tuple2 = (TupleExpression) expr2;
+    return compareLists(expr1.getFields(), tuple2.getFields()) && compare(expr1.getSigmaType(), tuple2.getSigmaType());
+  }
+
+  @Override
+  public Boolean visitProj(ProjExpression expr1, Expression expr2) {
+    return expr2 instanceof ProjExpression && expr1.getField() == ((ProjExpression) expr2).getField() && compare(expr1.getExpression(), ((ProjExpression) expr2).getExpression());
+  }
+
+  @Override
+  public Boolean visitNew(NewExpression expr1, Expression expr2) {
+    if (!(expr2 instanceof NewExpression)) {
+      return false;
+    }
+    NewExpression new2 = (NewExpression) expr2;
+    return expr1.getRenewExpression() == null && new2.getRenewExpression() == null && visitClassCall(expr1.getClassCall(), new2.getClassCall());
+  }
+
+  @Override
+  public Boolean visitPEval(PEvalExpression expr1, Expression expr2) {
+    return expr2 instanceof PEvalExpression && compare(expr1.getExpression(), ((PEvalExpression) expr2).getExpression());
+  }
+
+  @Override
+  public Boolean visitLet(LetExpression expr1, Expression expr2) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitCase(CaseExpression expr1, Expression expr2) {
+    return false;
+  }
+
+  @Override
+  public Boolean visitOfType(OfTypeExpression expr1, Expression expr2) {
+    return compare(expr1.getExpression(), expr2);
+  }
+
+  @Override
+  public Boolean visitInteger(IntegerExpression expr1, Expression expr2) {
+    return expr2 instanceof IntegerExpression && expr1.isEqual((IntegerExpression) expr2);
+  }
+}
@@ -0,0 +1,383 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.DConstructor;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.Body;
+import org.arend.core.elimtree.ElimBody;
+import org.arend.core.elimtree.ElimClause;
+import org.arend.core.elimtree.IntervalElim;
+import org.arend.core.expr.*;
+import org.arend.core.expr.let.LetClause;
+import org.arend.core.pattern.Pattern;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+import org.arend.naming.reference.TCReferable;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes a hash of core expressions which does not depend on names of bound variables.
+ * Definitions are identified by their full names, so the hash is stable between typechecking runs.
+ * <p>
+ * The visitor can also record the sequence of hashed values.
+ * If the sequences of two expressions are equal, then the expressions are equal up to renaming of bound variables.
+ */
+public class StructuralHashVisitor extends BaseExpressionVisitor<Void, Void> {
+  private final Map<Binding, Integer> myBindings = new HashMap<>();
+  private final List<Object> myValues; // null if values are not recorded
+  private long myHash = 17;
+
+  public StructuralHashVisitor() {
+    myValues = null;
+  }
+
+  private StructuralHashVisitor(boolean recordValues) {
+    myValues = recordValues ? new ArrayList<>() : null;
+  }
+
+  public long getHash() {
+    return myHash;
+  }
+
+  /**
+   * Computes the hash of a function definition: its parameters, its result type and, if it can be evaluated, its body.
+   * Bodies of lemmas, \sfunc and functions with hidden bodies are not included since dependents cannot observe them.
+   *
+   * @return the hash or null if it is not supported for this kind of definitions.
+   */
+  public static @Nullable Long hashInterface(Definition definition) {
+    StructuralHashVisitor visitor = new StructuralHashVisitor();
+    return visitor.visitInterface(definition) ? visitor.getHash() : null;
+  }
+
+  /**
+   * Checks if two definitions are equal up to renaming of bound variables.
+   * This is the exact version of the comparison of {@link #hashInterface}, which should be used to filter definitions first.
+   */
+  public static boolean equalInterfaces(Definition definition1, Definition definition2) {
+    StructuralHashVisitor visitor1 = new StructuralHashVisitor(true);
+    StructuralHashVisitor visitor2 = new StructuralHashVisitor(true);
+    return visitor1.visitInterface(definition1) && visitor2.visitInterface(definition2) && visitor1.myValues.equals(visitor2.myValues);
+  }
+
+  private boolean visitInterface(Definition definition) {
+    if (!(definition instanceof FunctionDefinition) || definition instanceof DConstructor) {
+      return false;
+    }
+
+    FunctionDefinition function = (FunctionDefinition) definition;
+    mix(function.getKind().ordinal());
+    mix(function.getUniverseKind().ordinal());
+    mix(function.getVisibleParameter());
+    mix(function.getParametersLevels().size());
+    mixObject(function.getGoodThisParameters());
+    for (Definition.TypeClassParameterKind kind : function.getTypeClassParameters()) {
+      mix(kind.ordinal());
+    }
+    visitParameters(function.getParameters());
+    visitNullable(function.getResultType());
+    visitNullable(function.getResultTypeLevel());
+    mix(function.isBodyHidden() ? 1 : 2);
+    visitBody(function.getBody());
+    return true;
+  }
+
+  static long mix(long hash, long value) {
+    hash = (hash ^ value) * 0x100000001b3L;
+    return hash ^ (hash >>> 29);
+  }
+
+  private void mix(long value) {
+    myHash = mix(myHash, value);
+    if (myValues != null) {
+      myValues.add(value);
+    }
+  }
+
+  private void mixObject(@Nullable Object value) {
+    myHash = mix(myHash, Objects.hashCode(value));
+    if (myValues != null) {
+      myValues.add(value);
+    }
+  }
+
+  private void mixDefinition(Definition definition) {
+    TCReferable referable = definition.getReferable();
+    mixObject(referable.getRefLongName().toString());
+    mixObject(referable.getLocation() == null ? null : referable.getLocation().toString());
+  }
+
+  private void mixLevel(Level level) {
+    if (level.isInfinity()) {
+      mix(-1);
+      return;
+    }
+    LevelVariable var = level.getVar();
+    mixObject(var == null ? null : var.getName());
+    mix(level.getConstant());
+    mix(level.getMaxConstant());
+  }
+
+  private void mixSort(Sort sort) {
+    mixLevel(sort.getPLevel());
+    mixLevel(sort.getHLevel());
+  }
+
+  private void bind(Binding binding) {
+    myBindings.put(binding, myBindings.size());
+  }
+
+  private void visitNullable(@Nullable Expression expr) {
+    if (expr == null) {
+      mix(0);
+    } else {
+      expr.accept(this, null);
+    }
+  }
+
+  private void visitArguments(List<? extends Expression> arguments) {
+    mix(arguments.size());
+    for (Expression argument : arguments) {
+      argument.accept(this, null);
+    }
+  }
+
+  public void visitParameters(DependentLink link) {
+    int size = 0;
+    for (; link.hasNext(); link = link.getNext()) {
+      mix(link.isExplicit() ? 1 : 2);
+      link.getTypeExpr().accept(this, null);
+      bind(link);
+      size++;
+    }
+    mix(size);
+  }
+
+  private void visitPatterns(List<? extends Pattern> patterns) {
+    mix(patterns.size());
+    for (Pattern pattern : patterns) {
+      if (pattern.isAbsurd()) {
+        mix(1);
+      } else if (pattern.getDefinition() != null) {
+        mix(2);
+        mixDefinition(pattern.getDefinition());
+        visitPatterns(pattern.getSubPatterns());
+      } else {
+        mix(3);
+        Integer index = myBindings.get(pattern.getFirstBinding());
+        mix(index == null ? -1 : index);
+      }
+    }
+  }
+
+  private void visitElimBody(ElimBody elimBody) {
+    mix(elimBody.getClauses().size());
+    for (ElimClause<Pattern> clause : elimBody.getClauses()) {
+      visitParameters(clause.getParameters());
+      visitPatterns(clause.getPatterns());
+      visitNullable(clause.getExpression());
+    }
+  }
+
+  public void visitBody(@Nullable Body body) {
+    if (body instanceof IntervalElim) {
+      mix(1);
+      for (IntervalElim.CasePair pair : ((IntervalElim) body).getCases()) {
+        visitNullable(pair.proj1);
+        visitNullable(pair.proj2);
+      }
+      body = ((IntervalElim) body).getOtherwise();
+    }
+
+    if (body instanceof Expression) {
+      mix(2);
+      ((Expression) body).accept(this, null);
+    } else if (body instanceof ElimBody) {
+      mix(3);
+      visitElimBody((ElimBody) body);
+    } else {
+      mix(0);
+    }
+  }
+
+  @Override
+  public Void visitApp(AppExpression expr, Void params) {
+    mix(1);
+    mix(expr.isExplicit() ? 1 : 2);
+    expr.getFunction().accept(this, null);
+    expr.getArgument().accept(this, null);
+    return null;
+  }
+
+  @Override
+  public Void visitDefCall(DefCallExpression expr, Void params) {
+    mix(2);
+    mixDefinition(expr.getDefinition());
+    mixSort(expr.getSortArgument());
+    visitArguments(expr.getDefCallArguments());
+    return null;
+  }
+
+  @Override
+  public Void visitConCall(ConCallExpression expr, Void params) {
+    mix(3);
+    visitArguments(expr.getDataTypeArguments());
+    return visitDefCall(expr, null);
+  }
+
+  @Override
+  public Void visitClassCall(ClassCallExpression expr, Void params) {
+    mix(4);
+    mixDefinition(expr.getDefinition());
+    mixSort(expr.getSortArgument());
+    bind(expr.getThisBinding());
+    mix(expr.getImplementedHere().size());
+    for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
+      mixDefinition(entry.getKey());
+      entry.getValue().accept(this, null);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitReference(ReferenceExpression expr, Void params) {
+    mix(5);
+    Integer index = myBindings.get(expr.getBinding());
+    if (index != null) {
+      mix(index);
+    } else {
+      mix(-1);
+      mixObject(expr.getBinding().getName());
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    if (expr.getSubstExpression() != null) {
+      return expr.getSubstExpression().accept(this, null);
+    }
+    mix(6);
+    return null;
+  }
+
+  @Override
+  public Void visitSubst(SubstExpression expr, Void params) {
+    return expr.getSubstExpression().accept(this, null);
+  }
+
+  @Override
+  public Void visitLam(LamExpression expr, Void params) {
+    mix(7);
+    visitParameters(expr.getParameters());
+    expr.getBody().accept(this, null);
+    return null;
+  }
+
+  @Override
+  public Void visitPi(PiExpression expr, Void params) {
+    mix(8);
+    visitParameters(expr.getParameters());
+    expr.getCodomain().accept(this, null);
+    return null;
+  }
+
+  @Override
+  public Void visitSigma(SigmaExpression expr, Void params) {
+    mix(9);
+    visitParameters(expr.getParameters());
+    return null;
+  }
+
+  @Override
+  public Void visitUniverse(UniverseExpression expr, Void params) {
+    mix(10);
+    mixSort(expr.getSort());
+    return null;
+  }
+
+  @Override
+  public Void visitError(ErrorExpression expr, Void params) {
+    mix(11);
+    visitNullable(expr.getExpression());
+    return null;
+  }
+
+  @Override
+  public Void visitTuple(TupleExpression expr, Void params) {
+    mix(12);
+    visitSigma(expr.getSigmaType(), null);
+    visitArguments(expr.getFields());
+    return null;
+  }
+
+  @Override
+  public Void visitProj(ProjExpression expr, Void params) {
+    mix(13);
+    mix(expr.getField());
+    expr.getExpression().accept(this, null);
+    return null;
+  }
+
+  @Override
+  public Void visitNew(NewExpression expr, Void params) {
+    mix(14);
+    visitClassCall(expr.getClassCall(), null);
+    visitNullable(expr.getRenewExpression());
+    return null;
+  }
+
+  @Override
+  public Void visitPEval(PEvalExpression expr, Void params) {
+    mix(15);
+    expr.getExpression().accept(this, null);
+    return null;
+  }
+
+  @Override
+  public Void visitLet(LetExpression expr, Void params) {
+    mix(16);
+    mix(expr.isStrict() ? 1 : 2);
+    mix(expr.getClauses().size());
+    for (LetClause clause : expr.getClauses()) {
+      clause.getExpression().accept(this, null);
+      bind(clause);
+    }
+    expr.getExpression().accept(this, null);
+    return null;
+  }
+
+  @Override
+  public Void visitCase(CaseExpression expr, Void params) {
+    mix(17);
+    mix(expr.isSCase() ? 1 : 2);
+    visitArguments(expr.getArguments());
+    visitParameters(expr.getParameters());
+    expr.getResultType().accept(this, null);
+    visitNullable(expr.getResultTypeLevel());
+    visitElimBody(expr.getElimBody());
+    return null;
+  }
+
+  @Override
+  public Void visitOfType(OfTypeExpression expr, Void params) {
+    return expr.getExpression().accept(this, null);
+  }
+
+  @Override
+  public Void visitInteger(IntegerExpression expr, Void params) {
+    mix(18);
+    mixObject(expr.getBigInteger());
+    return null;
+  }
+}
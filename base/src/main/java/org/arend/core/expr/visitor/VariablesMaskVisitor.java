@@ -0,0 +1,186 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.EvaluatingBinding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.elimtree.ElimClause;
+import org.arend.core.expr.*;
+import org.arend.core.pattern.Pattern;
+import org.arend.ext.variable.Variable;
+
+import java.util.Collection;
+
+/**
+ * Computes a bloom filter of variables that may occur in an expression.
+ * Each variable corresponds to one of the lower 63 bits of a mask; the highest bit marks that the mask is computed.
+ * Bound variables and definitions are included, so the mask of an expression is an over-approximation of its free variables.
+ * <p>
+ * Expressions which can be modified after they are constructed (class calls, \new and \let expressions) and
+ * expressions whose free variables cannot be determined locally (unsolved inference variables, delayed substitutions, and references to let clauses)
+ * get the mask {@link #ALL}.
+ */
+public class VariablesMaskVisitor extends BaseExpressionVisitor<Void, Long> {
+  public static final VariablesMaskVisitor INSTANCE = new VariablesMaskVisitor();
+
+  public static final long COMPUTED = Long.MIN_VALUE;
+  public static final long ALL = -1L;
+
+  private VariablesMaskVisitor() {}
+
+  public static long getMask(Variable variable) {
+    return 1L << Math.floorMod(System.identityHashCode(variable), 63);
+  }
+
+  public static long getMask(Collection<? extends Variable> variables) {
+    long mask = 0;
+    for (Variable variable : variables) {
+      mask |= getMask(variable);
+    }
+    return mask;
+  }
+
+  /**
+   * @return true if there might be a variable which belongs to both masks.
+   */
+  public static boolean intersects(long mask1, long mask2) {
+    return (mask1 & mask2 & ~COMPUTED) != 0;
+  }
+
+  private static long getParametersMask(DependentLink link) {
+    long mask = 0;
+    for (; link.hasNext(); link = link.getNext()) {
+      link = link.getNextTyped(null);
+      mask |= link.getTypeExpr().getVariablesMask();
+    }
+    return mask;
+  }
+
+  @Override
+  public Long visitApp(AppExpression expr, Void params) {
+    return expr.getFunction().getVariablesMask() | expr.getArgument().getVariablesMask();
+  }
+
+  @Override
+  public Long visitDefCall(DefCallExpression expr, Void params) {
+    long mask = getMask(expr.getDefinition());
+    for (Expression arg : expr.getDefCallArguments()) {
+      mask |= arg.getVariablesMask();
+    }
+    return mask;
+  }
+
+  @Override
+  public Long visitConCall(ConCallExpression expr, Void params) {
+    long mask = visitDefCall(expr, null);
+    for (Expression arg : expr.getDataTypeArguments()) {
+      mask |= arg.getVariablesMask();
+    }
+    return mask;
+  }
+
+  @Override
+  public Long visitFieldCall(FieldCallExpression expr, Void params) {
+    return getMask(expr.getDefinition()) | expr.getArgument().getVariablesMask();
+  }
+
+  @Override
+  public Long visitClassCall(ClassCallExpression expr, Void params) {
+    return ALL;
+  }
+
+  @Override
+  public Long visitReference(ReferenceExpression expr, Void params) {
+    return expr.getBinding() instanceof EvaluatingBinding ? ALL : getMask(expr.getBinding());
+  }
+
+  @Override
+  public Long visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    return expr.getSubstExpression() != null ? expr.getSubstExpression().getVariablesMask() : ALL;
+  }
+
+  @Override
+  public Long visitSubst(SubstExpression expr, Void params) {
+    return ALL;
+  }
+
+  @Override
+  public Long visitLam(LamExpression expr, Void params) {
+    return getParametersMask(expr.getParameters()) | expr.getBody().getVariablesMask();
+  }
+
+  @Override
+  public Long visitPi(PiExpression expr, Void params) {
+    return getParametersMask(expr.getParameters()) | expr.getCodomain().getVariablesMask();
+  }
+
+  @Override
+  public Long visitSigma(SigmaExpression expr, Void params) {
+    return getParametersMask(expr.getParameters());
+  }
+
+  @Override
+  public Long visitUniverse(UniverseExpression expr, Void params) {
+    return 0L;
+  }
+
+  @Override
+  public Long visitError(ErrorExpression expr, Void params) {
+    return expr.getExpression() == null ? 0L : expr.getExpression().getVariablesMask();
+  }
+
+  @Override
+  public Long visitTuple(TupleExpression expr, Void params) {
+    long mask = expr.getSigmaType().getVariablesMask();
+    for (Expression field : expr.getFields()) {
+      mask |= field.getVariablesMask();
+    }
+    return mask;
+  }
+
+  @Override
+  public Long visitProj(ProjExpression expr, Void params) {
+    return expr.getExpression().getVariablesMask();
+  }
+
+  @Override
+  public Long visitNew(NewExpression expr, Void params) {
+    return ALL;
+  }
+
+  @Override
+  public Long visitPEval(PEvalExpression expr, Void params) {
+    return expr.getExpression().getVariablesMask();
+  }
+
+  @Override
+  public Long visitLet(LetExpression expr, Void params) {
+    return ALL;
+  }
+
+  @Override
+  public Long visitCase(CaseExpression expr, Void params) {
+    long mask = getParametersMask(expr.getParameters()) | expr.getResultType().getVariablesMask();
+    if (expr.getResultTypeLevel() != null) {
+      mask |= expr.getResultTypeLevel().getVariablesMask();
+    }
+    for (Expression argument : expr.getArguments()) {
+      mask |= argument.getVariablesMask();
+    }
+    for (ElimClause<Pattern> clause : expr.getElimBody().getClauses()) {
+      mask |= getParametersMask(clause.getParameters());
+      if (clause.getExpression() != null) {
+        mask |= clause.getExpression().getVariablesMask();
+      }
+    }
+    return mask;
+  }
+
+  @Override
+  public Long visitOfType(OfTypeExpression expr, Void params) {
+    return expr.getExpression().getVariablesMask() | expr.getTypeOf().getVariablesMask();
+  }
+
+  @Override
+  public Long visitInteger(IntegerExpression expr, Void params) {
+    return 0L;
+  }
+}
@@ -3,11 +3,13 @@ package org.arend.core.subst;
 import org.arend.ext.variable.Variable;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.VariablesMaskVisitor;
 
 import java.util.*;
 
 public class ExprSubstitution {
   private Map<Variable, Expression> mySubstExprs;
+  private long myKeysMask = VariablesMaskVisitor.COMPUTED;
 
   public ExprSubstitution() {
     mySubstExprs = Collections.emptyMap();
@@ -15,6 +17,7 @@ public class ExprSubstitution {
 
   public ExprSubstitution(ExprSubstitution substitution) {
     mySubstExprs = substitution.mySubstExprs.isEmpty() ? Collections.emptyMap() : new HashMap<>(substitution.mySubstExprs);
+    myKeysMask = substitution.myKeysMask;
   }
 
   public ExprSubstitution(Variable from, Expression to) {
@@ -26,6 +29,24 @@ public class ExprSubstitution {
     return mySubstExprs.keySet();
   }
 
+  /**
+   * @return a bloom filter of the keys of this substitution; see {@link VariablesMaskVisitor}.
+   */
+  public long getKeysMask() {
+    long mask = myKeysMask;
+    if (mask == 0) {
+      mask = VariablesMaskVisitor.getMask(mySubstExprs.keySet()) | VariablesMaskVisitor.COMPUTED;
+      myKeysMask = mask;
+    }
+    return mask;
+  }
+
+  private void addKey(Variable variable) {
+    if (myKeysMask != 0) {
+      myKeysMask |= VariablesMaskVisitor.getMask(variable);
+    }
+  }
+
   public Set<Map.Entry<Variable, Expression>> getEntries() {
     return mySubstExprs.entrySet();
   }
@@ -46,11 +67,12 @@ public class ExprSubstitution {
     if (!mySubstExprs.isEmpty()) {
       mySubstExprs.clear();
     }
+    myKeysMask = VariablesMaskVisitor.COMPUTED;
   }
 
   public void remove(Variable variable) {
-    if (!mySubstExprs.isEmpty()) {
-      mySubstExprs.remove(variable);
+    if (!mySubstExprs.isEmpty() && mySubstExprs.remove(variable) != null) {
+      myKeysMask = 0;
     }
   }
 
@@ -59,6 +81,7 @@ public class ExprSubstitution {
       mySubstExprs = new HashMap<>();
     }
     mySubstExprs.put(binding, expression);
+    addKey(binding);
   }
 
   public void addSubst(Variable binding, Expression expression) {
@@ -70,6 +93,7 @@ public class ExprSubstitution {
       }
     }
     mySubstExprs.put(binding, expression);
+    addKey(binding);
   }
 
   public void addAll(ExprSubstitution substitution) {
@@ -78,6 +102,10 @@ public class ExprSubstitution {
         mySubstExprs = new HashMap<>();
       }
       mySubstExprs.putAll(substitution.mySubstExprs);
+      if (myKeysMask != 0) {
+        long mask = substitution.myKeysMask;
+        myKeysMask = mask == 0 ? 0 : myKeysMask | mask;
+      }
     }
   }
 
@@ -90,6 +118,7 @@ public class ExprSubstitution {
         break;
       }
       mySubstExprs.put(link, arg);
+      addKey(link);
       link = link.getNext();
     }
     return this;
@@ -9,7 +9,10 @@ import org.arend.core.elimtree.ElimTree;
 import org.arend.core.expr.*;
 import org.arend.core.expr.visitor.VoidExpressionVisitor;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
   private final LevelSubstitution mySubstitution;
@@ -94,12 +97,17 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   @Override
   protected void visitElimTree(ElimTree elimTree, Void params) {
-    if (elimTree instanceof BranchElimTree) {
+    visitElimTree(elimTree, Collections.newSetFromMap(new IdentityHashMap<>()));
+  }
+
+  // Subtrees may be shared and the substitution is not idempotent, so every node is visited once
+  private void visitElimTree(ElimTree elimTree, Set<ElimTree> visited) {
+    if (elimTree instanceof BranchElimTree && visited.add(elimTree)) {
       for (Map.Entry<BranchKey, ElimTree> entry : ((BranchElimTree) elimTree).getChildren()) {
         if (entry.getKey() instanceof ClassConstructor) {
           ((ClassConstructor) entry.getKey()).substSort(mySubstitution);
         }
-        visitElimTree(entry.getValue(), null);
+        visitElimTree(entry.getValue(), visited);
       }
     }
   }
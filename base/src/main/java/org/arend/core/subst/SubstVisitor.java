@@ -11,6 +11,7 @@ import org.arend.core.elimtree.*;
 import org.arend.core.expr.*;
 import org.arend.core.expr.let.LetClause;
 import org.arend.core.expr.visitor.BaseExpressionVisitor;
+import org.arend.core.expr.visitor.VariablesMaskVisitor;
 import org.arend.core.pattern.Pattern;
 
 import java.util.*;
@@ -18,12 +19,14 @@ import java.util.*;
 public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   private final ExprSubstitution myExprSubstitution;
   private final LevelSubstitution myLevelSubstitution;
+  private final boolean myShareUnaffected;
 
   public static class SubstException extends RuntimeException {}
 
   public SubstVisitor(ExprSubstitution exprSubstitution, LevelSubstitution levelSubstitution) {
     myExprSubstitution = exprSubstitution;
     myLevelSubstitution = levelSubstitution;
+    myShareUnaffected = !exprSubstitution.isEmpty() && levelSubstitution.isEmpty();
   }
 
   public ExprSubstitution getExprSubstitution() {
@@ -38,13 +41,28 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
     return myExprSubstitution.isEmpty() && myLevelSubstitution.isEmpty();
   }
 
+  /**
+   * Checks if {@code expr} does not contain substituted variables, so it can be returned as is.
+   * Subexpressions are shared only if the visitor was created with a nonempty substitution of variables and without a substitution of levels,
+   * so that {@link Expression#copy} still copies the whole expression.
+   */
+  private boolean isUnaffected(Expression expr) {
+    return myShareUnaffected && !VariablesMaskVisitor.intersects(expr.getVariablesMask(), myExprSubstitution.getKeysMask());
+  }
+
   @Override
   public Expression visitApp(AppExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     return AppExpression.make(expr.getFunction().accept(this, null), expr.getArgument().accept(this, null), expr.isExplicit());
   }
 
   @Override
   public Expression visitDefCall(DefCallExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     List<Expression> args = new ArrayList<>(expr.getDefCallArguments().size());
     for (Expression arg : expr.getDefCallArguments()) {
       args.add(arg.accept(this, null));
@@ -54,6 +72,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitConCall(ConCallExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     List<Expression> dataTypeArgs = new ArrayList<>(expr.getDataTypeArguments().size());
     for (Expression parameter : expr.getDataTypeArguments()) {
       dataTypeArgs.add(parameter.accept(this, null));
@@ -85,6 +106,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitFieldCall(FieldCallExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     return FieldCallExpression.make(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution), expr.getArgument().accept(this, null));
   }
 
@@ -140,6 +164,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitLam(LamExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     SingleDependentLink parameters = DependentLink.Helper.subst(expr.getParameters(), this);
     LamExpression result = new LamExpression(expr.getResultSort().subst(myLevelSubstitution), parameters, expr.getBody().accept(this, null));
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
@@ -148,6 +175,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitPi(PiExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     SingleDependentLink parameters = DependentLink.Helper.subst(expr.getParameters(), this);
     PiExpression result = new PiExpression(expr.getResultSort().subst(myLevelSubstitution), parameters, expr.getCodomain().accept(this, null));
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
@@ -156,6 +186,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitSigma(SigmaExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     SigmaExpression result = new SigmaExpression(expr.getSort().subst(myLevelSubstitution), DependentLink.Helper.subst(expr.getParameters(), this));
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
     return result;
@@ -168,11 +201,17 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitError(ErrorExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     return expr.getExpression() == null ? expr : expr.replaceExpression(expr.getExpression().accept(this, null));
   }
 
   @Override
   public Expression visitTuple(TupleExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     List<Expression> fields = new ArrayList<>(expr.getFields().size());
     for (Expression field : expr.getFields()) {
       fields.add(field.accept(this, null));
@@ -186,6 +225,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitProj(ProjExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     return ProjExpression.make(expr.getExpression().accept(this, null), expr.getField());
   }
 
@@ -200,6 +242,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitPEval(PEvalExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     return new PEvalExpression(expr.getExpression().accept(this, null));
   }
 
@@ -218,6 +263,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitCase(CaseExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     List<Expression> arguments = new ArrayList<>(expr.getArguments().size());
     for (Expression arg : expr.getArguments()) {
       arguments.add(arg.accept(this, null));
@@ -239,9 +287,18 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   }
 
   public ElimTree substElimTree(ElimTree elimTree) {
+    return substElimTree(elimTree, new IdentityHashMap<>());
+  }
+
+  // Subtrees may be shared, so each of them is substituted once and the result is shared as well
+  private ElimTree substElimTree(ElimTree elimTree, Map<ElimTree, ElimTree> substituted) {
     if (!(elimTree instanceof BranchElimTree)) {
       return elimTree;
     }
+    ElimTree cached = substituted.get(elimTree);
+    if (cached != null) {
+      return cached;
+    }
 
     BranchElimTree result = new BranchElimTree(elimTree.getSkip(), ((BranchElimTree) elimTree).keepConCall());
     for (Map.Entry<BranchKey, ElimTree> entry : ((BranchElimTree) elimTree).getChildren()) {
@@ -252,13 +309,17 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
       } else {
         key = entry.getKey();
       }
-      result.addChild(key, substElimTree(entry.getValue()));
+      result.addChild(key, substElimTree(entry.getValue(), substituted));
     }
+    substituted.put(elimTree, result);
     return result;
   }
 
   @Override
   public Expression visitOfType(OfTypeExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     return new OfTypeExpression(expr.getExpression().accept(this, null), expr.getTypeOf().accept(this, null));
   }
 
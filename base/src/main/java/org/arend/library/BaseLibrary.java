@@ -9,6 +9,7 @@ import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.TCReferable;
 import org.arend.naming.scope.LexicalScope;
 import org.arend.term.group.Group;
+import org.arend.typechecking.ConcurrentTypecheckerState;
 import org.arend.typechecking.TypecheckerState;
 import org.arend.typechecking.order.Ordering;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
@@ -60,6 +61,10 @@ public abstract class BaseLibrary implements Library {
 
   @Override
   public void reset() {
+    if (myTypecheckerState instanceof ConcurrentTypecheckerState && ((ConcurrentTypecheckerState) myTypecheckerState).resetLibrary(getName())) {
+      return;
+    }
+
     for (ModulePath modulePath : getLoadedModules()) {
       Group group = getModuleGroup(modulePath);
       if (group != null) {
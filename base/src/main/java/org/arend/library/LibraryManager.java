@@ -32,6 +32,7 @@ public class LibraryManager {
   private MultiClassLoader<Library> myExternalClassLoader = new MultiClassLoader<>(ArendExtension.class.getClassLoader());
   private MultiClassLoader<Library> myInternalClassLoader = new MultiClassLoader<>(myExternalClassLoader);
   private final DefinitionRequester myDefinitionRequester;
+  private int myParsingThreads = 1;
 
   /**
    * Constructs new {@code LibraryManager}.
@@ -50,6 +51,19 @@ public class LibraryManager {
     myDefinitionRequester = definitionRequester;
   }
 
+  public int getParsingThreads() {
+    return myParsingThreads;
+  }
+
+  /**
+   * Sets the number of threads used to parse raw sources of libraries.
+   *
+   * @param threads the number of threads.
+   */
+  public void setParsingThreads(int threads) {
+    myParsingThreads = threads;
+  }
+
   /**
    * Gets a module scope provider that can be used to get scopes of modules in a library and its dependencies.
    * This method may be invoked only after the library is successfully loaded.
@@ -230,6 +244,17 @@ public class LibraryManager {
 
   }
 
+  /**
+   * Invoked after raw sources of a library are parsed.
+   *
+   * @param library     the library.
+   * @param modules     the number of parsed modules.
+   * @param time        the time of parsing in milliseconds.
+   */
+  public void onSourcesParsed(Library library, int modules, long time) {
+
+  }
+
   /**
    * Registers a library dependency.
    *
@@ -0,0 +1,123 @@
+package org.arend.library;
+
+import org.arend.error.ListErrorReporter;
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.naming.reference.converter.IdReferableConverter;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Persists modules of libraries on a background thread.
+ * A module is persisted after the typechecking of its library is finished (see {@link #flush}),
+ * so persisting overlaps with typechecking of other libraries and with everything that follows typechecking.
+ * Modules are not persisted earlier since definitions can still be changed after they are typechecked;
+ * for example, by \\use definitions or when dependencies are checked again.
+ * Modules are persisted one at a time; errors are collected and reported by {@link #waitForAll}.
+ */
+public class PersistingQueue {
+  private final ExecutorService myExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "Persisting");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final ListErrorReporter myErrorReporter = new ListErrorReporter();
+  private final ErrorReporter mySynchronizedErrorReporter = error -> {
+    synchronized (myErrorReporter) {
+      myErrorReporter.report(error);
+    }
+  };
+  private final List<Future<Boolean>> myFutures = new ArrayList<>();
+  private final Set<PendingModule> myPendingModules = new LinkedHashSet<>();
+
+  private static class PendingModule {
+    final SourceLibrary library;
+    final ModulePath module;
+
+    PendingModule(SourceLibrary library, ModulePath module) {
+      this.library = library;
+      this.module = module;
+    }
+  }
+
+  /**
+   * Schedules a module for persisting.
+   * The module is persisted after {@link #flush} is invoked.
+   *
+   * @param library   the library of the module.
+   * @param module    the module.
+   */
+  public synchronized void addModule(SourceLibrary library, ModulePath module) {
+    myPendingModules.add(new PendingModule(library, module));
+  }
+
+  /**
+   * Persists scheduled modules of a library.
+   * This should be invoked after the typechecking of the library is finished.
+   */
+  public synchronized void flush(SourceLibrary library) {
+    for (Iterator<PendingModule> it = myPendingModules.iterator(); it.hasNext(); ) {
+      PendingModule pendingModule = it.next();
+      if (pendingModule.library == library) {
+        it.remove();
+        submit(pendingModule);
+      }
+    }
+  }
+
+  private void submit(PendingModule pendingModule) {
+    myFutures.add(myExecutor.submit(() -> pendingModule.library.persistModule(pendingModule.module, IdReferableConverter.INSTANCE, mySynchronizedErrorReporter)));
+  }
+
+  /**
+   * Persists all scheduled modules and waits until they are written.
+   *
+   * @param errorReporter an error reporter for errors occurred during persisting.
+   * @return true if all modules were persisted successfully, false otherwise.
+   */
+  public boolean waitForAll(ErrorReporter errorReporter) {
+    List<Future<Boolean>> futures;
+    synchronized (this) {
+      for (PendingModule pendingModule : new ArrayList<>(myPendingModules)) {
+        flush(pendingModule.library);
+      }
+      futures = new ArrayList<>(myFutures);
+      myFutures.clear();
+    }
+
+    boolean ok = true;
+    for (Future<Boolean> future : futures) {
+      try {
+        if (!future.get()) {
+          ok = false;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        ok = false;
+        break;
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+
+    synchronized (myErrorReporter) {
+      myErrorReporter.reportTo(errorReporter);
+      myErrorReporter.getErrorList().clear();
+    }
+    return ok;
+  }
+
+  public void shutdown() {
+    myExecutor.shutdown();
+  }
+}
@@ -15,36 +15,46 @@ import org.arend.library.error.LibraryError;
 import org.arend.module.error.ExceptionError;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.module.scopeprovider.SimpleModuleScopeProvider;
+import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.naming.scope.Scope;
 import org.arend.prelude.Prelude;
 import org.arend.source.BinarySource;
 import org.arend.source.Source;
+import org.arend.source.SourceHashes;
 import org.arend.source.SourceLoader;
 import org.arend.source.error.PersistingError;
 import org.arend.term.group.ChildGroup;
+import org.arend.term.group.Group;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.order.Ordering;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.typechecking.order.dependency.DummyDependencyListener;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.EnumSet;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a library which can load modules in the binary format (see {@link #getBinarySource})
  * as well as ordinary modules (see {@link #getRawSource}).
  */
 public abstract class SourceLibrary extends BaseLibrary {
-  public enum Flag { RECOMPILE }
+  /**
+   * Flags that change how the library is loaded.
+   * {@code RECOMPILE} ignores binary modules.
+   * {@code LAZY_BODIES} postpones deserialization of bodies of functions from binary modules until they are requested.
+   * {@code MAPPED_BINARIES} asks the library to store binary modules in the memory-mapped format (see {@link org.arend.source.MappedFileBinarySource}) if it supports it.
+   */
+  public enum Flag { RECOMPILE, LAZY_BODIES, MAPPED_BINARIES }
   private final EnumSet<Flag> myFlags = EnumSet.noneOf(Flag.class);
   private final SimpleModuleScopeProvider myAdditionalModuleScopeProvider = new SimpleModuleScopeProvider();
   private ArendExtension myExtension;
+  private SourceHashes mySourceHashes;
+  private final Set<ModulePath> myModulesWithFailedBodies = ConcurrentHashMap.newKeySet();
 
   /**
    * Creates a new {@code SourceLibrary}
@@ -69,6 +79,13 @@ public abstract class SourceLibrary extends BaseLibrary {
     myFlags.remove(flag);
   }
 
+  /**
+   * Checks if the library has a flag.
+   */
+  public boolean hasFlag(Flag flag) {
+    return myFlags.contains(flag);
+  }
+
   /**
    * Gets the raw source (that is, the source containing not typechecked data) for a given module path.
    *
@@ -170,6 +187,26 @@ public abstract class SourceLibrary extends BaseLibrary {
     return true;
   }
 
+  /**
+   * Gets content hashes of raw sources of this library.
+   * Hashes are cached until {@link #resetSourceHashes} is invoked.
+   */
+  @NotNull
+  public synchronized SourceHashes getSourceHashes() {
+    if (mySourceHashes == null) {
+      mySourceHashes = new SourceHashes(this);
+    }
+    return mySourceHashes;
+  }
+
+  /**
+   * Discards cached hashes of raw sources.
+   * This method should be invoked when raw sources might have been changed.
+   */
+  public synchronized void resetSourceHashes() {
+    mySourceHashes = null;
+  }
+
   /**
    * Gets a referable converter which is used during loading of binary sources without raw counterparts.
    *
@@ -266,12 +303,11 @@ public abstract class SourceLibrary extends BaseLibrary {
       }
     }
 
+    resetSourceHashes();
     try {
       SourceLoader sourceLoader = new SourceLoader(this, libraryManager);
       if (hasRawSources()) {
-        for (ModulePath module : header.modules) {
-          sourceLoader.preloadRaw(module, false);
-        }
+        sourceLoader.preloadRaw(header.modules, false);
         sourceLoader.loadRawSources();
       }
 
@@ -320,17 +356,82 @@ public abstract class SourceLibrary extends BaseLibrary {
     for (ModulePath module : getLoadedModules()) {
       sourceLoader.setModuleLoaded(module);
     }
-    for (ModulePath module : modules) {
-      sourceLoader.preloadRaw(module, true);
-    }
+    sourceLoader.preloadRaw(modules, true);
     sourceLoader.loadRawSources();
 
     return true;
   }
 
+  @Override
+  public void reset() {
+    DependencyListener dependencyListener = getDependencyListener();
+    if (dependencyListener != DummyDependencyListener.INSTANCE) {
+      for (ModulePath modulePath : getLoadedModules()) {
+        Group group = getModuleGroup(modulePath);
+        if (group != null) {
+          resetDependencies(group, dependencyListener);
+        }
+      }
+    }
+    super.reset();
+  }
+
+  private static void resetDependencies(Group group, DependencyListener dependencyListener) {
+    if (group.getReferable() instanceof TCReferable) {
+      dependencyListener.reset((TCReferable) group.getReferable());
+    }
+    for (Group subgroup : group.getSubgroups()) {
+      resetDependencies(subgroup, dependencyListener);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      resetDependencies(subgroup, dependencyListener);
+    }
+  }
+
+  /**
+   * Records that a lazily loaded body of a definition from the given module cannot be deserialized.
+   * This may happen in any thread, for example, in a typechecking worker, so the module is not reset here.
+   * It is reset by {@link #resetModulesWithFailedBodies} before and after this library is ordered.
+   */
+  public void lazyBodyLoadingFailed(ModulePath modulePath) {
+    myModulesWithFailedBodies.add(modulePath);
+  }
+
+  /**
+   * Resets modules with bodies that cannot be loaded, so they are typechecked again from the raw sources when they are requested next time.
+   */
+  public void resetModulesWithFailedBodies() {
+    for (Iterator<ModulePath> iterator = myModulesWithFailedBodies.iterator(); iterator.hasNext(); ) {
+      ModulePath modulePath = iterator.next();
+      iterator.remove();
+      ChildGroup group = getModuleGroup(modulePath);
+      if (group != null) {
+        resetGroup(group);
+      }
+    }
+  }
+
+  @Override
+  public boolean orderModules(Ordering ordering) {
+    resetModulesWithFailedBodies();
+    boolean result = super.orderModules(ordering);
+    resetModulesWithFailedBodies();
+    return result;
+  }
+
+  @Override
+  public boolean orderTestModules(Ordering ordering) {
+    resetModulesWithFailedBodies();
+    boolean result = super.orderTestModules(ordering);
+    resetModulesWithFailedBodies();
+    return result;
+  }
+
   @Override
   public boolean unload() {
     myAdditionalModuleScopeProvider.clear();
+    myModulesWithFailedBodies.clear();
+    resetSourceHashes();
     return super.unload();
   }
 
@@ -11,6 +11,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a library which cannot be modified after loading.
@@ -19,7 +20,7 @@ public abstract class UnmodifiableSourceLibrary extends SourceLibrary {
   private boolean myExternal = false;
   private final String myName;
   private final SimpleModuleScopeProvider myModuleScopeProvider = new SimpleModuleScopeProvider();
-  private final Map<ModulePath, ChildGroup> myGroups = new HashMap<>();
+  private final Map<ModulePath, ChildGroup> myGroups = new ConcurrentHashMap<>();
   private final Set<ModulePath> myUpdatedModules = new LinkedHashSet<>();
 
   /**
@@ -0,0 +1,23 @@
+package org.arend.module.serialization;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Provides bodies of functions that are stored separately from the module they belong to.
+ */
+public interface BodyProvider {
+  /**
+   * Checks if the body of a function is stored separately.
+   *
+   * @param index  the index of the referable of the function.
+   */
+  boolean hasBody(int index);
+
+  /**
+   * Reads the body of a function.
+   *
+   * @param index  the index of the referable of the function.
+   * @return the body or null if it is not stored separately.
+   */
+  @Nullable DefinitionProtos.Body getBody(int index) throws DeserializationException;
+}
@@ -16,19 +16,47 @@ import org.arend.naming.reference.TCReferable;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.util.Pair;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 public class DefinitionDeserialization {
   private final CallTargetProvider myCallTargetProvider;
   private final DependencyListener myDependencyListener;
-
-  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener) {
+  private final boolean myLazyBodies;
+  private final BodyProvider myBodyProvider;
+  private final Consumer<DeserializationException> myLazyBodyErrorHandler;
+
+  /**
+   * @param lazyBodies            if true, bodies of functions are deserialized when they are requested for the first time.
+   *                              In this case, dependencies of bodies are reported to the dependency listener only after that.
+   * @param bodyProvider          a provider of bodies that are not stored in definitions.
+   *                              Such bodies are always deserialized when they are requested for the first time.
+   * @param lazyBodyErrorHandler  is invoked if a body cannot be deserialized when it is requested.
+   *                              The function is marked as having errors and its body is null in this case.
+   *                              If the handler is null, an {@link IllegalStateException} is thrown instead.
+   */
+  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, boolean lazyBodies, @Nullable BodyProvider bodyProvider, @Nullable Consumer<DeserializationException> lazyBodyErrorHandler) {
     myCallTargetProvider = callTargetProvider;
     myDependencyListener = dependencyListener;
+    myLazyBodies = lazyBodies;
+    myBodyProvider = bodyProvider;
+    myLazyBodyErrorHandler = lazyBodyErrorHandler;
+  }
+
+  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener) {
+    this(callTargetProvider, dependencyListener, false, null, null);
   }
 
   public void fillInDefinition(DefinitionProtos.Definition defProto, Definition def) throws DeserializationException {
+    fillInDefinition(defProto, def, -1);
+  }
+
+  /**
+   * @param index  the index of the referable of the definition, which is used to find its body in the body provider.
+   */
+  public void fillInDefinition(DefinitionProtos.Definition defProto, Definition def, int index) throws DeserializationException {
     final ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, myDependencyListener, def.getReferable());
 
     switch (defProto.getDefinitionDataCase()) {
@@ -39,10 +67,10 @@ public class DefinitionDeserialization {
         fillInDataDefinition(defDeserializer, defProto.getData(), (DataDefinition) def);
         break;
       case CONSTRUCTOR:
-        fillInDConstructor(defDeserializer, defProto.getConstructor(), (DConstructor) def);
+        fillInDConstructor(defDeserializer, defProto.getConstructor(), (DConstructor) def, index);
         break;
       case FUNCTION:
-        fillInFunctionDefinition(defDeserializer, defProto.getFunction(), (FunctionDefinition) def);
+        fillInFunctionDefinition(defDeserializer, defProto.getFunction(), (FunctionDefinition) def, index);
         break;
       default:
         throw new DeserializationException("Unknown Definition kind: " + defProto.getDefinitionDataCase());
@@ -289,7 +317,7 @@ public class DefinitionDeserialization {
     return new ParametersLevel(proto.getHasParameters() ? defDeserializer.readParameters(proto.getParameterList()) : null, proto.getLevel());
   }
 
-  private void fillInFunctionDefinition(ExpressionDeserialization defDeserializer, DefinitionProtos.Definition.FunctionData functionProto, FunctionDefinition functionDef) throws DeserializationException {
+  private void fillInFunctionDefinition(ExpressionDeserialization defDeserializer, DefinitionProtos.Definition.FunctionData functionProto, FunctionDefinition functionDef, int index) throws DeserializationException {
     functionDef.setParameters(defDeserializer.readParameters(functionProto.getParamList()));
     List<Integer> parametersTypecheckingOrder = functionProto.getParametersTypecheckingOrderList();
     if (!parametersTypecheckingOrder.isEmpty()) {
@@ -328,14 +356,36 @@ public class DefinitionDeserialization {
     }
     functionDef.setKind(kind);
     functionDef.setVisibleParameter(functionProto.getVisibleParameter());
-    if (functionProto.hasBody()) {
-      functionDef.setBody(readBody(defDeserializer, functionProto.getBody(), DependentLink.Helper.size(functionDef.getParameters())));
+    boolean isExternal = !functionProto.hasBody() && myBodyProvider != null && myBodyProvider.hasBody(index);
+    if (functionProto.hasBody() || isExternal) {
+      DefinitionProtos.Body bodyProto = isExternal ? null : functionProto.getBody();
+      int numberOfParameters = DependentLink.Helper.size(functionDef.getParameters());
+      if (isExternal || myLazyBodies && !(functionDef instanceof DConstructor)) {
+        functionDef.setLazyBody(() -> {
+          try {
+            DefinitionProtos.Body body = bodyProto != null ? bodyProto : myBodyProvider.getBody(index);
+            if (body == null) {
+              throw new DeserializationException("Missing body");
+            }
+            return readBody(defDeserializer, body, numberOfParameters);
+          } catch (DeserializationException e) {
+            if (myLazyBodyErrorHandler == null) {
+              throw new IllegalStateException("Cannot deserialize the body of '" + functionDef.getName() + "'", e);
+            }
+            functionDef.addStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
+            myLazyBodyErrorHandler.accept(new DeserializationException("Cannot deserialize the body of '" + functionDef.getName() + "': " + e.getMessage()));
+            return null;
+          }
+        });
+      } else {
+        functionDef.setBody(readBody(defDeserializer, bodyProto, numberOfParameters));
+      }
     }
     // setTypeClassReference(functionDef.getReferable(), functionDef.getParameters(), functionDef.getResultType());
   }
 
-  private void fillInDConstructor(ExpressionDeserialization defDeserializer, DefinitionProtos.Definition.DConstructorData constructorProto, DConstructor constructorDef) throws DeserializationException {
-    fillInFunctionDefinition(defDeserializer, constructorProto.getFunction(), constructorDef);
+  private void fillInDConstructor(ExpressionDeserialization defDeserializer, DefinitionProtos.Definition.DConstructorData constructorProto, DConstructor constructorDef, int index) throws DeserializationException {
+    fillInFunctionDefinition(defDeserializer, constructorProto.getFunction(), constructorDef, index);
     constructorDef.setNumberOfParameters(constructorProto.getNumberOfParameters());
     if (constructorProto.hasPattern()) {
       constructorDef.setPattern(readDPattern(defDeserializer, constructorProto.getPattern()));
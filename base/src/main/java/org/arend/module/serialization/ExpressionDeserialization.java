@@ -154,7 +154,11 @@ class ExpressionDeserialization {
     for (ExpressionProtos.ElimClause clause : proto.getClauseList()) {
       clauses.add(readElimClause(clause));
     }
-    return new ElimBody(clauses, readElimTree(proto.getElimTree()));
+    List<ElimTree> sharedTrees = new ArrayList<>(proto.getSharedTreeCount());
+    for (ExpressionProtos.ElimTree sharedTree : proto.getSharedTreeList()) {
+      sharedTrees.add(readElimTree(sharedTree, sharedTrees));
+    }
+    return new ElimBody(clauses, readElimTree(proto.getElimTree(), sharedTrees));
   }
 
   private ElimClause<Pattern> readElimClause(ExpressionProtos.ElimClause proto) throws DeserializationException {
@@ -222,17 +226,17 @@ class ExpressionDeserialization {
     }
   }
 
-  private ElimTree readElimTree(ExpressionProtos.ElimTree proto) throws DeserializationException {
+  private ElimTree readElimTree(ExpressionProtos.ElimTree proto, List<ElimTree> sharedTrees) throws DeserializationException {
     switch (proto.getKindCase()) {
       case BRANCH: {
         ExpressionProtos.ElimTree.Branch branchProto = proto.getBranch();
         BranchElimTree result = new BranchElimTree(proto.getSkip(), branchProto.getKeepConCall());
         for (Map.Entry<Integer, ExpressionProtos.ElimTree> entry : branchProto.getClausesMap().entrySet()) {
-          result.addChild(entry.getKey() == 0 ? null : myCallTargetProvider.getCallTarget(entry.getKey(), Constructor.class), readElimTree(entry.getValue()));
+          result.addChild(entry.getKey() == 0 ? null : myCallTargetProvider.getCallTarget(entry.getKey(), Constructor.class), readElimTree(entry.getValue(), sharedTrees));
         }
         if (branchProto.hasSingleClause()) {
           ExpressionProtos.ElimTree.Branch.SingleConstructorClause singleClause = branchProto.getSingleClause();
-          ElimTree elimTree = readElimTree(singleClause.getElimTree());
+          ElimTree elimTree = readElimTree(singleClause.getElimTree(), sharedTrees);
           if (singleClause.hasTuple()) {
             result.addChild(new TupleConstructor(singleClause.getTuple().getLength()), elimTree);
           }
@@ -254,6 +258,13 @@ class ExpressionDeserialization {
         ExpressionProtos.ElimTree.Leaf leaf = proto.getLeaf();
         return new LeafElimTree(proto.getSkip(), leaf.getHasIndices() ? leaf.getIndexList() : null, leaf.getClauseIndex());
       }
+      case SHARED_INDEX: {
+        int index = proto.getSharedIndex();
+        if (index < 0 || index >= sharedTrees.size()) {
+          throw new DeserializationException("Wrong shared ElimTree index: " + index);
+        }
+        return sharedTrees.get(index);
+      }
       default:
         throw new DeserializationException("Unknown ElimTreeNode kind: " + proto.getKindCase());
     }
@@ -322,20 +333,20 @@ class ExpressionDeserialization {
   private FunCallExpression readFunCall(ExpressionProtos.Expression.FunCall proto) throws DeserializationException {
     FunctionDefinition functionDefinition = myCallTargetProvider.getCallTarget(proto.getFunRef(), FunctionDefinition.class);
     myDependencyListener.dependsOn(myDefinition, functionDefinition.getReferable());
-    return new FunCallExpression(functionDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList()));
+    return HashConsingTable.intern(new FunCallExpression(functionDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList())));
   }
 
   private Expression readConCall(ExpressionProtos.Expression.ConCall proto) throws DeserializationException {
     Constructor constructor = myCallTargetProvider.getCallTarget(proto.getConstructorRef(), Constructor.class);
     myDependencyListener.dependsOn(myDefinition, constructor.getDataType().getReferable());
-    return ConCallExpression.make(constructor, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())),
-        readExprList(proto.getDatatypeArgumentList()), readExprList(proto.getArgumentList()));
+    return HashConsingTable.intern(ConCallExpression.make(constructor, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())),
+        readExprList(proto.getDatatypeArgumentList()), readExprList(proto.getArgumentList())));
   }
 
   private DataCallExpression readDataCall(ExpressionProtos.Expression.DataCall proto) throws DeserializationException {
     DataDefinition dataDefinition = myCallTargetProvider.getCallTarget(proto.getDataRef(), DataDefinition.class);
     myDependencyListener.dependsOn(myDefinition, dataDefinition.getReferable());
-    return new DataCallExpression(dataDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList()));
+    return HashConsingTable.intern(new DataCallExpression(dataDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList())));
   }
 
   private ClassCallExpression readClassCall(ExpressionProtos.Expression.ClassCall proto) throws DeserializationException {
@@ -373,7 +384,7 @@ class ExpressionDeserialization {
   }
 
   private UniverseExpression readUniverse(ExpressionProtos.Expression.Universe proto) throws DeserializationException {
-    return new UniverseExpression(readSort(proto.getSort()));
+    return HashConsingTable.intern(new UniverseExpression(readSort(proto.getSort())));
   }
 
   private ErrorExpression readError(ExpressionProtos.Expression.Error proto) throws DeserializationException {
@@ -466,7 +477,7 @@ class ExpressionDeserialization {
   }
 
   private SmallIntegerExpression readSmallInteger(ExpressionProtos.Expression.SmallInteger proto) {
-    return new SmallIntegerExpression(proto.getValue());
+    return HashConsingTable.intern(new SmallIntegerExpression(proto.getValue()));
   }
 
   private BigIntegerExpression readBigInteger(ExpressionProtos.Expression.BigInteger proto) {
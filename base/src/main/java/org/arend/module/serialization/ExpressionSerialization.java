@@ -25,6 +25,7 @@ import org.arend.core.sort.Sort;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -199,7 +200,24 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     return builder.build();
   }
 
-  private ExpressionProtos.ElimTree writeElimTree(ElimTree elimTree) {
+  private static void countReferences(ElimTree elimTree, Map<ElimTree, Integer> references) {
+    if (references.merge(elimTree, 1, Integer::sum) == 1 && elimTree instanceof BranchElimTree) {
+      for (Map.Entry<BranchKey, ElimTree> entry : ((BranchElimTree) elimTree).getChildren()) {
+        countReferences(entry.getValue(), references);
+      }
+    }
+  }
+
+  /**
+   * Writes {@code elimTree}.
+   * A subtree which is referenced several times is written once to the shared trees of {@code bodyBuilder} and replaced with its index.
+   */
+  private ExpressionProtos.ElimTree writeElimTree(ElimTree elimTree, Map<ElimTree, Integer> references, Map<ElimTree, Integer> sharedIndices, ExpressionProtos.ElimBody.Builder bodyBuilder) {
+    Integer sharedIndex = sharedIndices.get(elimTree);
+    if (sharedIndex != null) {
+      return ExpressionProtos.ElimTree.newBuilder().setSharedIndex(sharedIndex).build();
+    }
+
     ExpressionProtos.ElimTree.Builder builder = ExpressionProtos.ElimTree.newBuilder();
     builder.setSkip(elimTree.getSkip());
     if (elimTree instanceof LeafElimTree) {
@@ -220,7 +238,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
 
       for (Map.Entry<BranchKey, ElimTree> entry : branchElimTree.getChildren()) {
         if (entry.getKey() == null) {
-          branchBuilder.putClauses(0, writeElimTree(entry.getValue()));
+          branchBuilder.putClauses(0, writeElimTree(entry.getValue(), references, sharedIndices, bodyBuilder));
         } else if (entry.getKey() instanceof SingleConstructor) {
           ExpressionProtos.ElimTree.Branch.SingleConstructorClause.Builder singleClauseBuilder = ExpressionProtos.ElimTree.Branch.SingleConstructorClause.newBuilder();
           if (entry.getKey() instanceof TupleConstructor) {
@@ -239,10 +257,10 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
           } else {
             throw new IllegalStateException("Unknown SingleConstructor type: " + entry.getKey().getClass());
           }
-          singleClauseBuilder.setElimTree(writeElimTree(entry.getValue()));
+          singleClauseBuilder.setElimTree(writeElimTree(entry.getValue(), references, sharedIndices, bodyBuilder));
           branchBuilder.setSingleClause(singleClauseBuilder.build());
         } else if (entry.getKey() instanceof Constructor) {
-          branchBuilder.putClauses(myCallTargetIndexProvider.getDefIndex((Constructor) entry.getKey()), writeElimTree(entry.getValue()));
+          branchBuilder.putClauses(myCallTargetIndexProvider.getDefIndex((Constructor) entry.getKey()), writeElimTree(entry.getValue(), references, sharedIndices, bodyBuilder));
         } else {
           throw new IllegalStateException();
         }
@@ -250,7 +268,15 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
 
       builder.setBranch(branchBuilder);
     }
-    return builder.build();
+
+    ExpressionProtos.ElimTree result = builder.build();
+    if (references.get(elimTree) > 1) {
+      sharedIndex = bodyBuilder.getSharedTreeCount();
+      bodyBuilder.addSharedTree(result);
+      sharedIndices.put(elimTree, sharedIndex);
+      return ExpressionProtos.ElimTree.newBuilder().setSharedIndex(sharedIndex).build();
+    }
+    return result;
   }
 
   ExpressionProtos.ElimBody writeElimBody(ElimBody elimBody) {
@@ -258,7 +284,9 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     for (ElimClause<Pattern> clause : elimBody.getClauses()) {
       builder.addClause(writeElimClause(clause));
     }
-    builder.setElimTree(writeElimTree(elimBody.getElimTree()));
+    Map<ElimTree, Integer> references = new IdentityHashMap<>();
+    countReferences(elimBody.getElimTree(), references);
+    builder.setElimTree(writeElimTree(elimBody.getElimTree(), references, new IdentityHashMap<>(), builder));
     return builder.build();
   }
 
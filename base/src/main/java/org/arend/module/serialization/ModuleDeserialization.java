@@ -13,20 +13,35 @@ import org.arend.typechecking.TypecheckerState;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.util.Pair;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 public class ModuleDeserialization {
   private final ModuleProtos.Module myModuleProto;
   private final SimpleCallTargetProvider myCallTargetProvider = new SimpleCallTargetProvider();
   private final TypecheckerState myState;
   private final ReferableConverter myReferableConverter;
-  private final List<Pair<DefinitionProtos.Definition, Definition>> myDefinitions = new ArrayList<>();
-
-  public ModuleDeserialization(ModuleProtos.Module moduleProto, TypecheckerState state, ReferableConverter referableConverter) {
+  private final List<Pair<ModuleProtos.Group, Definition>> myDefinitions = new ArrayList<>();
+  private final boolean myLazyBodies;
+  private final BodyProvider myBodyProvider;
+  private final Consumer<DeserializationException> myLazyBodyErrorHandler;
+
+  /**
+   * See {@link DefinitionDeserialization#DefinitionDeserialization(CallTargetProvider, DependencyListener, boolean, BodyProvider, Consumer)} for the description of the parameters.
+   */
+  public ModuleDeserialization(ModuleProtos.Module moduleProto, TypecheckerState state, ReferableConverter referableConverter, boolean lazyBodies, @Nullable BodyProvider bodyProvider, @Nullable Consumer<DeserializationException> lazyBodyErrorHandler) {
     myModuleProto = moduleProto;
     myState = state;
     myReferableConverter = referableConverter;
+    myLazyBodies = lazyBodies;
+    myBodyProvider = bodyProvider;
+    myLazyBodyErrorHandler = lazyBodyErrorHandler;
+  }
+
+  public ModuleDeserialization(ModuleProtos.Module moduleProto, TypecheckerState state, ReferableConverter referableConverter) {
+    this(moduleProto, state, referableConverter, false, null, null);
   }
 
   public ModuleProtos.Module getModuleProto() {
@@ -50,9 +65,9 @@ public class ModuleDeserialization {
       }
     }
 
-    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener);
-    for (Pair<DefinitionProtos.Definition, Definition> pair : myDefinitions) {
-      defDeserialization.fillInDefinition(pair.proj1, pair.proj2);
+    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener, myLazyBodies, myBodyProvider, myLazyBodyErrorHandler);
+    for (Pair<ModuleProtos.Group, Definition> pair : myDefinitions) {
+      defDeserialization.fillInDefinition(pair.proj1.getDefinition(), pair.proj2, pair.proj1.getReferable().getIndex());
     }
     myDefinitions.clear();
   }
@@ -101,7 +116,7 @@ public class ModuleDeserialization {
       Definition def = readDefinition(groupProto.getDefinition(), tcReferable, false);
       myState.record(tcReferable, def);
       myCallTargetProvider.putCallTarget(groupProto.getReferable().getIndex(), def);
-      myDefinitions.add(new Pair<>(groupProto.getDefinition(), def));
+      myDefinitions.add(new Pair<>(groupProto, def));
 
       Collection<? extends Group.InternalReferable> fields = group.getFields();
       if (!fields.isEmpty()) {
@@ -209,7 +224,7 @@ public class ModuleDeserialization {
       def = readDefinition(groupProto.getDefinition(), (TCReferable) referable, true);
       myState.record((TCReferable) referable, def);
       myCallTargetProvider.putCallTarget(referableProto.getIndex(), def);
-      myDefinitions.add(new Pair<>(groupProto.getDefinition(), def));
+      myDefinitions.add(new Pair<>(groupProto, def));
     } else {
       def = null;
     }
@@ -0,0 +1,124 @@
+package org.arend.naming.scope;
+
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.Referable;
+import org.arend.term.group.Group;
+import org.arend.term.group.StaticGroup;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index of names defined in a group which is used by {@link LexicalScope} to resolve names without iterating over all definitions of the group.
+ * If several definitions have the same name, the index contains the one that is found first by a linear search.
+ * <p>
+ * Groups are not modified after they are built, so the index of a {@link StaticGroup} is built once and stored in the group.
+ * A reloaded module gets new groups and, therefore, new indices.
+ */
+public class GroupNameIndex {
+  private final Map<String, GlobalReferable> myConstructors = new HashMap<>();
+  private final Map<String, GlobalReferable> myVisibleConstructors = new HashMap<>();
+  private final Map<String, GlobalReferable> myFields = new HashMap<>();
+  private final Map<String, GlobalReferable> myVisibleFields = new HashMap<>();
+  private final Map<String, Referable> myStaticReferables = new HashMap<>();
+  private final Map<String, Referable> myDynamicReferables = new HashMap<>();
+  private final Map<String, Group> myStaticSubgroups = new HashMap<>();
+  private final Map<String, Group> myDynamicSubgroups = new HashMap<>();
+  private final Group myGroup;
+  private final int myConstructorsNumber;
+  private final int myFieldsNumber;
+  private final int mySubgroupsNumber;
+  private final int myDynamicSubgroupsNumber;
+  private volatile LexicalScope myOpenedScope;
+  private volatile LexicalScope myOpenedInternalScope;
+
+  public GroupNameIndex(Group group) {
+    myGroup = group;
+    myConstructorsNumber = group.getConstructors().size();
+    myFieldsNumber = group.getFields().size();
+    mySubgroupsNumber = group.getSubgroups().size();
+    myDynamicSubgroupsNumber = group.getDynamicSubgroups().size();
+    addInternalReferables(group.getConstructors(), myConstructors, myVisibleConstructors);
+    addInternalReferables(group.getFields(), myFields, myVisibleFields);
+    addSubgroups(group.getSubgroups(), myStaticReferables, myStaticSubgroups);
+    addSubgroups(group.getDynamicSubgroups(), myDynamicReferables, myDynamicSubgroups);
+  }
+
+  public static GroupNameIndex forGroup(Group group) {
+    return group instanceof StaticGroup ? ((StaticGroup) group).getNameIndex() : new GroupNameIndex(group);
+  }
+
+  /**
+   * Checks that no definitions were added to the group after the index was built.
+   */
+  public boolean isUpToDate() {
+    return myConstructorsNumber == myGroup.getConstructors().size() && myFieldsNumber == myGroup.getFields().size() &&
+      mySubgroupsNumber == myGroup.getSubgroups().size() && myDynamicSubgroupsNumber == myGroup.getDynamicSubgroups().size();
+  }
+
+  private static void addInternalReferables(Collection<? extends Group.InternalReferable> internalReferables, Map<String, GlobalReferable> all, Map<String, GlobalReferable> visible) {
+    for (Group.InternalReferable internalReferable : internalReferables) {
+      GlobalReferable referable = internalReferable.getReferable();
+      String name = referable.textRepresentation();
+      all.putIfAbsent(name, referable);
+      if (internalReferable.isVisible()) {
+        visible.putIfAbsent(name, referable);
+      }
+    }
+  }
+
+  private static void addSubgroups(Collection<? extends Group> subgroups, Map<String, Referable> referables, Map<String, Group> groups) {
+    for (Group subgroup : subgroups) {
+      String name = subgroup.getReferable().textRepresentation();
+      referables.putIfAbsent(name, subgroup.getReferable());
+      groups.putIfAbsent(name, subgroup);
+      for (Group.InternalReferable internalReferable : subgroup.getConstructors()) {
+        if (internalReferable.isVisible()) {
+          referables.putIfAbsent(internalReferable.getReferable().textRepresentation(), internalReferable.getReferable());
+        }
+      }
+      for (Group.InternalReferable internalReferable : subgroup.getFields()) {
+        if (internalReferable.isVisible()) {
+          referables.putIfAbsent(internalReferable.getReferable().textRepresentation(), internalReferable.getReferable());
+        }
+      }
+    }
+  }
+
+  public @Nullable GlobalReferable resolveConstructor(String name, boolean onlyVisible) {
+    return (onlyVisible ? myVisibleConstructors : myConstructors).get(name);
+  }
+
+  public @Nullable GlobalReferable resolveField(String name, boolean onlyVisible) {
+    return (onlyVisible ? myVisibleFields : myFields).get(name);
+  }
+
+  /**
+   * Resolves a name among subgroups and visible constructors and fields of subgroups.
+   */
+  public @Nullable Referable resolveInSubgroups(String name, boolean isDynamic) {
+    return (isDynamic ? myDynamicReferables : myStaticReferables).get(name);
+  }
+
+  public @Nullable Group resolveSubgroup(String name, boolean isDynamic) {
+    return (isDynamic ? myDynamicSubgroups : myStaticSubgroups).get(name);
+  }
+
+  /**
+   * @return the scope of the group as seen from outside of it; see {@link LexicalScope#opened}.
+   */
+  public LexicalScope getOpenedScope(boolean onlyInternal) {
+    LexicalScope scope = onlyInternal ? myOpenedInternalScope : myOpenedScope;
+    if (scope == null) {
+      scope = LexicalScope.opened(myGroup, onlyInternal);
+      if (onlyInternal) {
+        myOpenedInternalScope = scope;
+      } else {
+        myOpenedScope = scope;
+      }
+    }
+    return scope;
+  }
+}
@@ -10,12 +10,14 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 public class ImportedScope implements Scope {
   private final Tree myExpectedNamesTree;
   private final ModuleScopeProvider myProvider;
   private final Scope myElementsScope;
+  private final Map<String, Scope> myNamespaces = new ConcurrentHashMap<>();
 
   public ImportedScope(@NotNull Group group, ModuleScopeProvider provider) {
     myExpectedNamesTree = new Tree();
@@ -78,13 +80,20 @@ public class ImportedScope implements Scope {
   @Nullable
   @Override
   public Scope resolveNamespace(String name, boolean onlyInternal) {
+    Scope result = myNamespaces.get(name);
+    if (result != null) {
+      return result;
+    }
+
     Triple triple = myExpectedNamesTree.map.get(name);
     if (triple == null) {
       return null;
     }
 
     Scope scope2 = new ImportedScope(triple.tree, myProvider, myElementsScope == null ? null : myElementsScope.resolveNamespace(name, true));
-    return triple.modulePath == null || triple.scope == null ? scope2 : new MergeScope(triple.scope, scope2);
+    result = triple.modulePath == null || triple.scope == null ? scope2 : new MergeScope(triple.scope, scope2);
+    myNamespaces.put(name, result);
+    return result;
   }
 
   @Nullable
@@ -20,6 +20,8 @@ public class LexicalScope implements Scope {
   private final ModulePath myModule;
   private final Kind myKind;
   private final boolean myOnlyExternal;
+  private volatile GroupNameIndex myIndex;
+  private volatile List<Scope> myNamespaceCommandScopes;
 
   private enum Kind { INSIDE, OPENED, OPENED_INTERNAL }
 
@@ -43,7 +45,7 @@ public class LexicalScope implements Scope {
     return insideOf(group, parent, false);
   }
 
-  private static LexicalScope opened(Group group, boolean onlyInternal) {
+  static LexicalScope opened(Group group, boolean onlyInternal) {
     return new LexicalScope(EmptyScope.INSTANCE, group, null, onlyInternal ? Kind.OPENED_INTERNAL : Kind.OPENED, false);
   }
 
@@ -92,6 +94,34 @@ public class LexicalScope implements Scope {
       addSubgroups(myGroup.getDynamicSubgroups(), elements);
     }
 
+    for (Scope scope : getNamespaceCommandScopes()) {
+      elements.addAll(scope.getElements());
+    }
+
+    elements.addAll(myParent.getElements());
+    return elements;
+  }
+
+  private GroupNameIndex getIndex() {
+    GroupNameIndex index = myIndex;
+    if (index == null || !index.isUpToDate()) {
+      index = GroupNameIndex.forGroup(myGroup);
+      myIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * @return namespaces of namespace commands of the group.
+   *         They are resolved once since the parent scope and the imported scope do not change.
+   */
+  private List<Scope> getNamespaceCommandScopes() {
+    List<Scope> result = myNamespaceCommandScopes;
+    if (result != null) {
+      return result;
+    }
+
+    result = new ArrayList<>();
     Scope cachingScope = null;
     for (NamespaceCommand cmd : myGroup.getNamespaceCommands()) {
       if (ignoreOpens() && cmd.getKind() == NamespaceCommand.Kind.OPEN) {
@@ -110,51 +140,37 @@ public class LexicalScope implements Scope {
         }
         scope = cachingScope;
       }
-      elements.addAll(NamespaceCommandNamespace.resolveNamespace(scope, cmd).getElements());
+      scope = NamespaceCommandNamespace.resolveNamespace(scope, cmd);
+      if (scope != EmptyScope.INSTANCE) {
+        result.add(scope);
+      }
     }
 
-    elements.addAll(myParent.getElements());
-    return elements;
+    myNamespaceCommandScopes = result;
+    return result;
   }
 
-  private static GlobalReferable resolveInternal(Group group, String name, boolean onlyInternal) {
-    for (Group.InternalReferable internalReferable : group.getConstructors()) {
-      if (!onlyInternal || internalReferable.isVisible()) {
-        GlobalReferable constructor = internalReferable.getReferable();
-        if (constructor.textRepresentation().equals(name)) {
-          return constructor;
-        }
-      }
+  private static GlobalReferable resolveInternal(Group group, GroupNameIndex index, String name, boolean onlyInternal) {
+    GlobalReferable constructor = index.resolveConstructor(name, onlyInternal);
+    if (constructor != null) {
+      return constructor;
     }
 
     if (onlyInternal || !(group.getReferable() instanceof ClassReferable)) {
-      for (Group.InternalReferable internalReferable : group.getFields()) {
-        if (!onlyInternal || internalReferable.isVisible()) {
-          GlobalReferable field = internalReferable.getReferable();
-          if (field.textRepresentation().equals(name)) {
-            return field;
-          }
-        }
-      }
+      return index.resolveField(name, onlyInternal);
     } else {
       Referable referable = new ClassFieldImplScope((ClassReferable) group.getReferable(), false).resolveName(name);
       return referable instanceof GlobalReferable ? (GlobalReferable) referable : null;
     }
-
-    return null;
   }
 
-  private static Object resolveSubgroup(Group group, String name, ResolveType resolveType) {
-    Referable ref = group.getReferable();
-    if (ref.textRepresentation().equals(name)) {
-      return resolveType == ResolveType.REF ? ref : LexicalScope.opened(group, resolveType == ResolveType.INTERNAL_SCOPE);
-    }
-
+  private static Object resolveSubgroup(GroupNameIndex index, String name, ResolveType resolveType, boolean isDynamic) {
     if (resolveType == ResolveType.REF) {
-      return resolveInternal(group, name, true);
+      return index.resolveInSubgroups(name, isDynamic);
     }
 
-    return null;
+    Group subgroup = index.resolveSubgroup(name, isDynamic);
+    return subgroup == null ? null : GroupNameIndex.forGroup(subgroup).getOpenedScope(resolveType == ResolveType.INTERNAL_SCOPE);
   }
 
   private enum ResolveType { REF, SCOPE, INTERNAL_SCOPE }
@@ -164,49 +180,27 @@ public class LexicalScope implements Scope {
       return null;
     }
 
+    GroupNameIndex index = getIndex();
     if (resolveType == ResolveType.REF && !myOnlyExternal) {
-      Object result = resolveInternal(myGroup, name, myKind == Kind.OPENED_INTERNAL);
+      Object result = resolveInternal(myGroup, index, name, myKind == Kind.OPENED_INTERNAL);
       if (result != null) {
         return result;
       }
     }
 
-    for (Group subgroup : myGroup.getSubgroups()) {
-      Object result = resolveSubgroup(subgroup, name, resolveType);
-      if (result != null) {
-        return result;
-      }
+    Object result = resolveSubgroup(index, name, resolveType, false);
+    if (result != null) {
+      return result;
     }
     if (!myOnlyExternal) {
-      for (Group subgroup : myGroup.getDynamicSubgroups()) {
-        Object result = resolveSubgroup(subgroup, name, resolveType);
-        if (result != null) {
-          return result;
-        }
+      result = resolveSubgroup(index, name, resolveType, true);
+      if (result != null) {
+        return result;
       }
     }
 
-    Scope cachingScope = null;
-    for (NamespaceCommand cmd : myGroup.getNamespaceCommands()) {
-      if (ignoreOpens() && cmd.getKind() == NamespaceCommand.Kind.OPEN) {
-        continue;
-      }
-
-      Scope scope;
-      if (cmd.getKind() == NamespaceCommand.Kind.IMPORT) {
-        if (myModule != null && cmd.getPath().equals(myModule.toList())) {
-          continue;
-        }
-        scope = getImportedSubscope();
-      } else {
-        if (cachingScope == null) {
-          cachingScope = CachingScope.make(new LexicalScope(myParent, myGroup, null, Kind.OPENED, myOnlyExternal));
-        }
-        scope = cachingScope;
-      }
-
-      scope = NamespaceCommandNamespace.resolveNamespace(scope, cmd);
-      Object result = resolveType == ResolveType.REF ? scope.resolveName(name) : scope.resolveNamespace(name, resolveType == ResolveType.INTERNAL_SCOPE);
+    for (Scope scope : getNamespaceCommandScopes()) {
+      result = resolveType == ResolveType.REF ? scope.resolveName(name) : scope.resolveNamespace(name, resolveType == ResolveType.INTERNAL_SCOPE);
       if (result != null) {
         return result;
       }
@@ -14,6 +14,28 @@ import java.util.*;
 public class NamespaceCommandNamespace implements Scope {
   private final Scope myModuleNamespace;
   private final NamespaceCommand myNamespaceCommand;
+  private volatile Index myIndex;
+
+  /**
+   * Names which are hidden, opened, or renamed by a namespace command.
+   */
+  private static class Index {
+    final Set<String> hiddenNames = new HashSet<>();
+    final Map<String, NameRenaming> openedNames = new HashMap<>();
+    final Set<String> renamedNames = new HashSet<>();
+
+    Index(NamespaceCommand namespaceCommand) {
+      for (Referable hiddenRef : namespaceCommand.getHiddenReferences()) {
+        hiddenNames.add(hiddenRef.textRepresentation());
+      }
+      for (NameRenaming renaming : namespaceCommand.getOpenedReferences()) {
+        String newName = renaming.getName();
+        String oldName = renaming.getOldReference().textRepresentation();
+        openedNames.putIfAbsent(newName != null ? newName : oldName, renaming);
+        renamedNames.add(oldName);
+      }
+    }
+  }
 
   private NamespaceCommandNamespace(Scope moduleNamespace, NamespaceCommand namespaceCommand) {
     myNamespaceCommand = namespaceCommand;
@@ -78,66 +100,46 @@ public class NamespaceCommandNamespace implements Scope {
     return elements;
   }
 
+  private Index getIndex() {
+    Index index = myIndex;
+    if (index == null) {
+      index = new Index(myNamespaceCommand);
+      myIndex = index;
+    }
+    return index;
+  }
+
   @Nullable
   @Override
   public Referable resolveName(String name) {
-    for (Referable hiddenRef : myNamespaceCommand.getHiddenReferences()) {
-      if (hiddenRef.textRepresentation().equals(name)) {
-        return null;
-      }
-    }
-
-    Collection<? extends NameRenaming> opened = myNamespaceCommand.getOpenedReferences();
-    for (NameRenaming renaming : opened) {
-      String newName = renaming.getName();
-      Referable oldRef = renaming.getOldReference();
-      if ((newName != null ? newName : oldRef.textRepresentation()).equals(name)) {
-        oldRef = ExpressionResolveNameVisitor.resolve(oldRef, myModuleNamespace);
-        return oldRef == null || oldRef instanceof ErrorReference ? null : newName != null ? new RedirectingReferableImpl(oldRef, renaming.getPrecedence(), newName) : oldRef;
-      }
-    }
-
-    if (!myNamespaceCommand.isUsing()) {
+    Index index = getIndex();
+    if (index.hiddenNames.contains(name)) {
       return null;
     }
 
-    for (NameRenaming renaming : opened) {
-      if (renaming.getOldReference().textRepresentation().equals(name)) {
-        return null;
-      }
+    NameRenaming renaming = index.openedNames.get(name);
+    if (renaming != null) {
+      String newName = renaming.getName();
+      Referable oldRef = ExpressionResolveNameVisitor.resolve(renaming.getOldReference(), myModuleNamespace);
+      return oldRef == null || oldRef instanceof ErrorReference ? null : newName != null ? new RedirectingReferableImpl(oldRef, renaming.getPrecedence(), newName) : oldRef;
     }
 
-    return myModuleNamespace.resolveName(name);
+    return !myNamespaceCommand.isUsing() || index.renamedNames.contains(name) ? null : myModuleNamespace.resolveName(name);
   }
 
   @Nullable
   @Override
   public Scope resolveNamespace(String name, boolean onlyInternal) {
-    for (Referable hiddenRef : myNamespaceCommand.getHiddenReferences()) {
-      if (hiddenRef.textRepresentation().equals(name)) {
-        return null;
-      }
-    }
-
-    Collection<? extends NameRenaming> opened = myNamespaceCommand.getOpenedReferences();
-    for (NameRenaming renaming : opened) {
-      String newName = renaming.getName();
-      Referable oldRef = renaming.getOldReference();
-      if ((newName != null ? newName : oldRef.textRepresentation()).equals(name)) {
-        return myModuleNamespace.resolveNamespace(oldRef.textRepresentation(), onlyInternal);
-      }
-    }
-
-    if (!myNamespaceCommand.isUsing()) {
+    Index index = getIndex();
+    if (index.hiddenNames.contains(name)) {
       return null;
     }
 
-    for (NameRenaming renaming : opened) {
-      if (renaming.getOldReference().textRepresentation().equals(name)) {
-        return null;
-      }
+    NameRenaming renaming = index.openedNames.get(name);
+    if (renaming != null) {
+      return myModuleNamespace.resolveNamespace(renaming.getOldReference().textRepresentation(), onlyInternal);
     }
 
-    return myModuleNamespace.resolveNamespace(name, onlyInternal);
+    return !myNamespaceCommand.isUsing() || index.renamedNames.contains(name) ? null : myModuleNamespace.resolveNamespace(name, onlyInternal);
   }
 }
@@ -11,7 +11,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 
 public class FileBinarySource extends StreamBinarySource {
   private final Path myFile;
@@ -28,6 +27,13 @@ public class FileBinarySource extends StreamBinarySource {
     myModulePath = modulePath;
   }
 
+  /**
+   * Gets the path to the file of this source.
+   */
+  protected Path getFile() {
+    return myFile;
+  }
+
   @NotNull
   @Override
   public ModulePath getModulePath() {
@@ -40,11 +46,74 @@ public class FileBinarySource extends StreamBinarySource {
     return Files.newInputStream(myFile);
   }
 
+  /**
+   * Gets an output stream to a temporary file which replaces the file of this source when the stream is closed.
+   */
   @Nullable
   @Override
   protected OutputStream getOutputStream() throws IOException {
     Files.createDirectories(myFile.getParent());
-    return Files.newOutputStream(myFile, StandardOpenOption.CREATE);
+    Path tempFile = Files.createTempFile(myFile.getParent(), myFile.getFileName().toString(), ".tmp");
+    try {
+      return new ReplacingOutputStream(Files.newOutputStream(tempFile), tempFile, myFile);
+    } catch (IOException e) {
+      Files.deleteIfExists(tempFile);
+      throw e;
+    }
+  }
+
+  /**
+   * Writes to a temporary file and moves it to the target file when it is closed.
+   * If writing fails, the temporary file is deleted and the target file is not changed.
+   */
+  private static class ReplacingOutputStream extends OutputStream {
+    private final OutputStream myStream;
+    private final Path myTempFile;
+    private final Path myFile;
+    private boolean myFailed;
+
+    ReplacingOutputStream(OutputStream stream, Path tempFile, Path file) {
+      myStream = stream;
+      myTempFile = tempFile;
+      myFile = file;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      try {
+        myStream.write(b);
+      } catch (IOException e) {
+        myFailed = true;
+        throw e;
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      try {
+        myStream.write(b, off, len);
+      } catch (IOException e) {
+        myFailed = true;
+        throw e;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      myStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        myStream.close();
+        if (!myFailed) {
+          FileUtils.replaceFile(myTempFile, myFile);
+        }
+      } finally {
+        Files.deleteIfExists(myTempFile);
+      }
+    }
   }
 
   @Override
@@ -0,0 +1,208 @@
+package org.arend.source;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import org.arend.ext.module.ModulePath;
+import org.arend.module.serialization.BodyProvider;
+import org.arend.module.serialization.DefinitionProtos;
+import org.arend.module.serialization.DeserializationException;
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.util.FileUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A binary source stored in an uncompressed file which is mapped into memory.
+ * Bodies of functions are stored separately from the rest of the module together with an index,
+ * so that each body is decoded directly from the mapped buffer when it is requested for the first time.
+ * <p>
+ * The file consists of a header, the module without bodies of functions, and the bodies.
+ * The header contains the magic number, the version of the format, the size of the module, the number of bodies,
+ * and, for each body, the index of the referable of its function, its offset in the file, and its size.
+ * <p>
+ * Files in the default compressed format (see {@link GZIPStreamBinarySource}) are also accepted, so that binary modules of dependencies
+ * and modules persisted before switching to this format can still be loaded.
+ * Such files are replaced with files in this format when the module is persisted.
+ */
+public class MappedFileBinarySource extends FileBinarySource {
+  private static final int MAGIC = 0x4152434D;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final int ENTRY_SIZE = 12;
+
+  private MyBodyProvider myBodyProvider;
+
+  /**
+   * Creates a new {@code MappedFileBinarySource} from a path to the base directory and a path to the source.
+   *
+   * @param basePath    a path to the base directory.
+   * @param modulePath  a path to the source.
+   */
+  public MappedFileBinarySource(Path basePath, ModulePath modulePath) {
+    super(basePath, modulePath);
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, int offset, int size) throws IOException {
+    if (offset < 0 || size < 0 || offset > buffer.limit() - size) {
+      throw new IOException("Corrupted binary module");
+    }
+    ByteBuffer result = buffer.duplicate();
+    result.position(offset);
+    result.limit(offset + size);
+    return result.slice();
+  }
+
+  private static CodedInputStream newCodedInputStream(ByteBuffer buffer) {
+    CodedInputStream codedInputStream = CodedInputStream.newInstance(buffer);
+    codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+    return codedInputStream;
+  }
+
+  @Nullable
+  @Override
+  protected ModuleProtos.Module readModule() throws IOException {
+    myBodyProvider = null;
+
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (isGZIP(buffer)) {
+      return readGZIPModule();
+    }
+    if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+      return null;
+    }
+
+    int moduleSize = buffer.getInt(8);
+    int numberOfBodies = buffer.getInt(12);
+    if (numberOfBodies < 0 || numberOfBodies > (buffer.limit() - HEADER_SIZE) / ENTRY_SIZE) {
+      throw new IOException("Corrupted binary module");
+    }
+
+    Map<Integer, int[]> entries = new HashMap<>();
+    int entryOffset = HEADER_SIZE;
+    for (int i = 0; i < numberOfBodies; i++, entryOffset += ENTRY_SIZE) {
+      entries.put(buffer.getInt(entryOffset), new int[] { buffer.getInt(entryOffset + 4), buffer.getInt(entryOffset + 8) });
+    }
+
+    ModuleProtos.Module module = ModuleProtos.Module.parseFrom(newCodedInputStream(slice(buffer, entryOffset, moduleSize)));
+    myBodyProvider = new MyBodyProvider(buffer, entries);
+    return module;
+  }
+
+  private static boolean isGZIP(ByteBuffer buffer) {
+    return buffer.limit() >= 2 && (buffer.get(0) & 0xFF) == (GZIPInputStream.GZIP_MAGIC & 0xFF) && (buffer.get(1) & 0xFF) == GZIPInputStream.GZIP_MAGIC >> 8;
+  }
+
+  private ModuleProtos.Module readGZIPModule() throws IOException {
+    try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(getFile()))) {
+      CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
+      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+      return ModuleProtos.Module.parseFrom(codedInputStream);
+    }
+  }
+
+  @Nullable
+  @Override
+  protected BodyProvider getBodyProvider() {
+    return myBodyProvider;
+  }
+
+  private static void extractBodies(ModuleProtos.Group.Builder group, List<Integer> indices, List<ByteString> bodies) {
+    if (group.hasDefinition() && group.getDefinition().getDefinitionDataCase() == DefinitionProtos.Definition.DefinitionDataCase.FUNCTION && group.getDefinition().getFunction().hasBody()) {
+      indices.add(group.getReferable().getIndex());
+      bodies.add(group.getDefinition().getFunction().getBody().toByteString());
+      group.getDefinitionBuilder().getFunctionBuilder().clearBody();
+    }
+    for (ModuleProtos.Group.Builder subgroup : group.getSubgroupBuilderList()) {
+      extractBodies(subgroup, indices, bodies);
+    }
+    for (ModuleProtos.Group.Builder subgroup : group.getDynamicSubgroupBuilderList()) {
+      extractBodies(subgroup, indices, bodies);
+    }
+  }
+
+  @Override
+  protected boolean writeModule(ModuleProtos.Module module) throws IOException {
+    List<Integer> indices = new ArrayList<>();
+    List<ByteString> bodies = new ArrayList<>();
+    ModuleProtos.Module.Builder builder = module.toBuilder();
+    extractBodies(builder.getGroupBuilder(), indices, bodies);
+    byte[] moduleBytes = builder.build().toByteArray();
+
+    int headerSize = HEADER_SIZE + bodies.size() * ENTRY_SIZE;
+    ByteBuffer header = ByteBuffer.allocate(headerSize);
+    header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(moduleBytes.length).putInt(bodies.size());
+    int offset = headerSize + moduleBytes.length;
+    for (int i = 0; i < bodies.size(); i++) {
+      int size = bodies.get(i).size();
+      header.putInt(indices.get(i)).putInt(offset).putInt(size);
+      offset += size;
+    }
+    header.flip();
+
+    // The file is replaced atomically since it can be still mapped by a previously loaded module
+    Path file = getFile();
+    Files.createDirectories(file.getParent());
+    Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+        writeFully(channel, header);
+        writeFully(channel, ByteBuffer.wrap(moduleBytes));
+        for (ByteString body : bodies) {
+          writeFully(channel, body.asReadOnlyByteBuffer());
+        }
+      }
+      FileUtils.replaceFile(tempFile, file);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+    return true;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static class MyBodyProvider implements BodyProvider {
+    private final ByteBuffer myBuffer;
+    private final Map<Integer, int[]> myEntries;
+
+    MyBodyProvider(ByteBuffer buffer, Map<Integer, int[]> entries) {
+      myBuffer = buffer;
+      myEntries = entries;
+    }
+
+    @Override
+    public boolean hasBody(int index) {
+      return myEntries.containsKey(index);
+    }
+
+    @Nullable
+    @Override
+    public DefinitionProtos.Body getBody(int index) throws DeserializationException {
+      int[] entry = myEntries.get(index);
+      if (entry == null) {
+        return null;
+      }
+      try {
+        return DefinitionProtos.Body.parseFrom(newCodedInputStream(slice(myBuffer, entry[0], entry[1])));
+      } catch (IOException e) {
+        throw new DeserializationException("Cannot read body: " + e.getMessage());
+      }
+    }
+  }
+}
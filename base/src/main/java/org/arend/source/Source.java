@@ -28,6 +28,17 @@ public interface Source {
    */
   boolean preload(SourceLoader sourceLoader);
 
+  /**
+   * Parses the source without loading its dependencies.
+   * This method does not modify the state of the loading process, so it may be invoked concurrently for different sources.
+   * If it was invoked, then {@link #preload} does not parse the source again.
+   *
+   * @param sourceLoader    the state of the loading process.
+   */
+  default void parse(SourceLoader sourceLoader) {
+
+  }
+
   /**
    * This method is called after all dependencies of the source were preloaded.
    *
@@ -46,6 +57,17 @@ public interface Source {
    */
   long getTimeStamp();
 
+  /**
+   * Computes a hash of the content of this source.
+   *
+   * @return the hash or null if the source does not support hashing.
+   * @see SourceHashes
+   */
+  @Nullable
+  default byte[] getContentHash() {
+    return null;
+  }
+
   /**
    * Checks if the source is available for loading.
    *
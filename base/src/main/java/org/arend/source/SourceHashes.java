@@ -0,0 +1,125 @@
+package org.arend.source;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.library.SourceLibrary;
+import org.arend.term.NamespaceCommand;
+import org.arend.term.group.Group;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Computes content hashes of raw sources of a library.
+ * The interface hash of a module combines the hash of its source with the interface hashes of the modules it imports from the same library,
+ * so it changes whenever the module or one of its transitive dependencies changes.
+ * Hashes are requested when modules are persisted, which may happen on a background thread, so the methods of this class are synchronized.
+ */
+public class SourceHashes {
+  private static final String ALGORITHM = "SHA-256";
+  private static final byte[] NO_HASH = new byte[0];
+
+  private final SourceLibrary myLibrary;
+  private final Map<ModulePath, byte[]> mySourceHashes = new HashMap<>();
+  private final Map<ModulePath, byte[]> myInterfaceHashes = new HashMap<>();
+  private final Set<ModulePath> myVisiting = new HashSet<>();
+
+  public SourceHashes(SourceLibrary library) {
+    myLibrary = library;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Computes the hash of the content of a stream.
+   *
+   * @return the hash or null if some error occurred.
+   */
+  public static @Nullable byte[] digest(InputStream inputStream) {
+    MessageDigest digest = newDigest();
+    byte[] buffer = new byte[8192];
+    try (InputStream stream = inputStream) {
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    } catch (IOException e) {
+      return null;
+    }
+    return digest.digest();
+  }
+
+  /**
+   * Gets the hash of the raw source of a module.
+   *
+   * @return the hash or null if it cannot be computed.
+   */
+  public synchronized @Nullable byte[] getSourceHash(ModulePath modulePath) {
+    byte[] hash = mySourceHashes.get(modulePath);
+    if (hash == null) {
+      Source source = myLibrary.getRawSource(modulePath);
+      hash = source == null || !source.isAvailable() ? null : source.getContentHash();
+      mySourceHashes.put(modulePath, hash == null ? NO_HASH : hash);
+    }
+    return hash == null || hash.length == 0 ? null : hash;
+  }
+
+  /**
+   * Gets the interface hash of a module.
+   *
+   * @return the hash or null if it cannot be computed, for example, if the module or one of its dependencies does not have a raw source,
+   *         or if the module belongs to an import cycle.
+   */
+  public synchronized @Nullable byte[] getInterfaceHash(ModulePath modulePath) {
+    byte[] hash = myInterfaceHashes.get(modulePath);
+    if (hash == null) {
+      if (!myVisiting.add(modulePath)) {
+        return null;
+      }
+      hash = computeInterfaceHash(modulePath);
+      myVisiting.remove(modulePath);
+      myInterfaceHashes.put(modulePath, hash == null ? NO_HASH : hash);
+    }
+    return hash == null || hash.length == 0 ? null : hash;
+  }
+
+  private byte[] computeInterfaceHash(ModulePath modulePath) {
+    byte[] sourceHash = getSourceHash(modulePath);
+    Group group = myLibrary.getModuleGroup(modulePath);
+    if (sourceHash == null || group == null) {
+      return null;
+    }
+
+    SortedMap<String, ModulePath> imports = new TreeMap<>();
+    for (NamespaceCommand command : group.getNamespaceCommands()) {
+      if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
+        ModulePath module = new ModulePath(command.getPath());
+        if (myLibrary.containsModule(module)) {
+          imports.put(module.toString(), module);
+        }
+      }
+    }
+
+    MessageDigest digest = newDigest();
+    digest.update(sourceHash);
+    for (Map.Entry<String, ModulePath> entry : imports.entrySet()) {
+      byte[] importHash = getInterfaceHash(entry.getValue());
+      if (importHash == null) {
+        return null;
+      }
+      digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+      digest.update(importHash);
+    }
+    return digest.digest();
+  }
+}
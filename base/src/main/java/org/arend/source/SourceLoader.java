@@ -10,10 +10,11 @@ import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.naming.scope.Scope;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Contains all necessary information for source loading.
@@ -25,6 +26,7 @@ public final class SourceLoader {
   private final Map<ModulePath, SourceType> myLoadedModules = new HashMap<>();
   private final Map<ModulePath, BinarySource> myLoadingBinaryModules = new HashMap<>();
   private final Map<ModulePath, Source> myLoadingRawModules = new HashMap<>();
+  private final Map<ModulePath, Source> myParsedRawModules = new HashMap<>();
   private ModuleScopeProvider myModuleScopeProvider;
   private ModuleScopeProvider myTestsModuleScopeProvider;
 
@@ -74,6 +76,36 @@ public final class SourceLoader {
     return myLibraryManager.getLibraryErrorReporter();
   }
 
+  /**
+   * Checks if a binary module is up to date with respect to its raw source.
+   * If the binary records an interface hash, it is compared with the interface hash of the current raw sources.
+   * Otherwise, the timestamps of the binary and the raw source are compared.
+   *
+   * @param modulePath    the module.
+   * @param binarySource  the binary source of the module.
+   * @param recordedHash  the interface hash recorded in the binary source or null if it was not recorded.
+   * @return true if the binary source can be loaded instead of the raw source, false otherwise.
+   */
+  public boolean isBinaryUpToDate(ModulePath modulePath, BinarySource binarySource, @Nullable byte[] recordedHash) {
+    if (!myLibrary.hasRawSources()) {
+      return true;
+    }
+
+    Source rawSource = myLibrary.getRawSource(modulePath);
+    if (rawSource == null || !rawSource.isAvailable()) {
+      return true;
+    }
+
+    if (recordedHash != null && recordedHash.length > 0) {
+      byte[] currentHash = myLibrary.getSourceHashes().getInterfaceHash(modulePath);
+      if (currentHash != null) {
+        return Arrays.equals(recordedHash, currentHash);
+      }
+    }
+
+    return binarySource.getTimeStamp() >= rawSource.getTimeStamp();
+  }
+
   public void setModuleLoaded(ModulePath modulePath) {
     myLoadedModules.put(modulePath, SourceType.RAW);
   }
@@ -93,7 +125,10 @@ public final class SourceLoader {
       return true;
     }
 
-    Source rawSource = inTests ? myLibrary.getTestSource(modulePath) : myLibrary.getRawSource(modulePath);
+    Source rawSource = myParsedRawModules.remove(modulePath);
+    if (rawSource == null) {
+      rawSource = inTests ? myLibrary.getTestSource(modulePath) : myLibrary.getRawSource(modulePath);
+    }
     boolean rawSourceIsAvailable = rawSource != null && rawSource.isAvailable();
 
     if (!rawSourceIsAvailable) {
@@ -111,6 +146,65 @@ public final class SourceLoader {
     return true;
   }
 
+  /**
+   * Loads the structure of sources and their dependencies.
+   * Available sources are parsed in parallel before they are preloaded.
+   * Dependencies that are not in the list are parsed when they are preloaded.
+   *
+   * @param modules     modules to load.
+   * @param inTests     true if the modules located in the test directory, false otherwise.
+   */
+  public void preloadRaw(Collection<? extends ModulePath> modules, boolean inTests) {
+    List<Source> sources = new ArrayList<>();
+    for (ModulePath modulePath : modules) {
+      if (myLoadedModules.containsKey(modulePath) || myLoadingRawModules.containsKey(modulePath) || myParsedRawModules.containsKey(modulePath)) {
+        continue;
+      }
+      Source rawSource = inTests ? myLibrary.getTestSource(modulePath) : myLibrary.getRawSource(modulePath);
+      if (rawSource != null && rawSource.isAvailable()) {
+        sources.add(rawSource);
+        myParsedRawModules.put(modulePath, rawSource);
+      }
+    }
+
+    try {
+      parseRawSources(sources);
+      for (ModulePath modulePath : modules) {
+        preloadRaw(modulePath, inTests);
+      }
+    } finally {
+      myParsedRawModules.clear();
+    }
+  }
+
+  private void parseRawSources(List<Source> sources) {
+    if (sources.isEmpty()) {
+      return;
+    }
+
+    long time = System.currentTimeMillis();
+    int threads = Math.min(myLibraryManager.getParsingThreads(), sources.size());
+    if (threads <= 1) {
+      for (Source source : sources) {
+        source.parse(this);
+      }
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(sources.size());
+        for (Source source : sources) {
+          tasks.add(pool.submit(() -> source.parse(this)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+          task.join();
+        }
+      } finally {
+        pool.shutdown();
+      }
+    }
+    myLibraryManager.onSourcesParsed(myLibrary, sources.size(), System.currentTimeMillis() - time);
+  }
+
   /**
    * Loads raw sources that were preloaded.
    */
@@ -176,11 +270,9 @@ public final class SourceLoader {
       return false;
     }
 
-    if (myLibrary.hasRawSources()) {
-      Source rawSource = myLibrary.getRawSource(modulePath);
-      if (rawSource != null && rawSource.isAvailable() && binarySource.getTimeStamp() < rawSource.getTimeStamp()) {
-        return false;
-      }
+    // Stream binary sources check hashes themselves since hashes are stored in the binary
+    if (!(binarySource instanceof StreamBinarySource) && !isBinaryUpToDate(modulePath, binarySource, null)) {
+      return false;
     }
 
     myLoadedModules.put(modulePath, SourceType.BINARY);
@@ -1,5 +1,6 @@
 package org.arend.source;
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedInputStream;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
@@ -9,6 +10,7 @@ import org.arend.library.error.PartialModuleError;
 import org.arend.module.FullModulePath;
 import org.arend.module.error.DeserializationError;
 import org.arend.module.error.ExceptionError;
+import org.arend.module.serialization.BodyProvider;
 import org.arend.module.serialization.DeserializationException;
 import org.arend.module.serialization.ModuleDeserialization;
 import org.arend.module.serialization.ModuleProtos;
@@ -51,19 +53,62 @@ public abstract class StreamBinarySource implements BinarySource {
   @Nullable
   protected abstract OutputStream getOutputStream() throws IOException;
 
+  /**
+   * Reads the module.
+   *
+   * @return the module or null if it is not available.
+   */
+  @Nullable
+  protected ModuleProtos.Module readModule() throws IOException {
+    try (InputStream inputStream = getInputStream()) {
+      if (inputStream == null) {
+        return null;
+      }
+
+      CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
+      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+      return ModuleProtos.Module.parseFrom(codedInputStream);
+    }
+  }
+
+  /**
+   * Gets a provider of bodies of functions that are not stored in the module returned by the last invocation of {@link #readModule}.
+   */
+  @Nullable
+  protected BodyProvider getBodyProvider() {
+    return null;
+  }
+
+  /**
+   * Writes the module.
+   *
+   * @return true if the module was written, false if the source does not support persisting.
+   */
+  protected boolean writeModule(ModuleProtos.Module module) throws IOException {
+    try (OutputStream outputStream = getOutputStream()) {
+      if (outputStream == null) {
+        return false;
+      }
+      module.writeTo(outputStream);
+      return true;
+    }
+  }
+
   @Override
   public boolean preload(SourceLoader sourceLoader) {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
     ChildGroup group = null;
-    try (InputStream inputStream = getInputStream()) {
-      if (inputStream == null) {
+    try {
+      ModuleProtos.Module moduleProto = readModule();
+      if (moduleProto == null) {
+        return false;
+      }
+
+      if (!sourceLoader.isBinaryUpToDate(modulePath, this, moduleProto.getInterfaceHash().toByteArray())) {
         return false;
       }
 
-      CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
-      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
-      ModuleProtos.Module moduleProto = ModuleProtos.Module.parseFrom(codedInputStream);
       boolean isComplete = moduleProto.getComplete();
       if (!isComplete && !library.hasRawSources()) {
         sourceLoader.getLibraryErrorReporter().report(new PartialModuleError(modulePath));
@@ -78,7 +123,8 @@ public abstract class StreamBinarySource implements BinarySource {
       }
 
       ReferableConverter referableConverter = sourceLoader.getReferableConverter();
-      myModuleDeserialization = new ModuleDeserialization(moduleProto, library.getTypecheckerState(), referableConverter);
+      ErrorReporter libraryErrorReporter = sourceLoader.getLibraryErrorReporter();
+      myModuleDeserialization = new ModuleDeserialization(moduleProto, library.getTypecheckerState(), referableConverter, library.hasFlag(SourceLibrary.Flag.LAZY_BODIES), getBodyProvider(), e -> lazyBodyLoadingFailed(library, libraryErrorReporter, modulePath, e));
 
       if (referableConverter == null) {
         group = myModuleDeserialization.readGroup(new FullModulePath(library.getName(), FullModulePath.LocationKind.SOURCE, modulePath.toList()));
@@ -136,6 +182,16 @@ public abstract class StreamBinarySource implements BinarySource {
     }
   }
 
+  /**
+   * A body that cannot be deserialized is replaced with null during the current computation.
+   * This may be called from any thread, so the module is only recorded here;
+   * as in {@link #loadingFailed}, its definitions are reset later by {@link SourceLibrary#resetModulesWithFailedBodies}.
+   */
+  private static void lazyBodyLoadingFailed(SourceLibrary library, ErrorReporter errorReporter, ModulePath modulePath, DeserializationException e) {
+    errorReporter.report(new DeserializationError(modulePath, e));
+    library.lazyBodyLoadingFailed(modulePath);
+  }
+
   @Override
   public boolean persist(SourceLibrary library, ReferableConverter referableConverter, ErrorReporter errorReporter) {
     ModulePath currentModulePath = getModulePath();
@@ -145,18 +201,23 @@ public abstract class StreamBinarySource implements BinarySource {
       return false;
     }
 
-    try (OutputStream outputStream = getOutputStream()) {
-      if (outputStream == null) {
-        errorReporter.report(new PersistingError(currentModulePath));
-        return false;
-      }
-
+    try {
       ModuleProtos.Module module = new ModuleSerialization(library.getTypecheckerState(), errorReporter).writeModule(group, currentModulePath, referableConverter);
       if (module == null) {
         return false;
       }
 
-      module.writeTo(outputStream);
+      SourceHashes sourceHashes = library.getSourceHashes();
+      byte[] sourceHash = sourceHashes.getSourceHash(currentModulePath);
+      byte[] interfaceHash = sourceHashes.getInterfaceHash(currentModulePath);
+      if (sourceHash != null && interfaceHash != null) {
+        module = module.toBuilder().setSourceHash(ByteString.copyFrom(sourceHash)).setInterfaceHash(ByteString.copyFrom(interfaceHash)).build();
+      }
+
+      if (!writeModule(module)) {
+        errorReporter.report(new PersistingError(currentModulePath));
+        return false;
+      }
       return true;
     } catch (Exception e) {
       errorReporter.report(new ExceptionError(e, "persisting", currentModulePath));
@@ -1,6 +1,7 @@
 package org.arend.term.group;
 
 import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.scope.GroupNameIndex;
 import org.arend.term.ChildNamespaceCommand;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -14,6 +15,7 @@ public class StaticGroup implements ChildGroup {
   private final List<Group> myStaticGroups;
   private final List<ChildNamespaceCommand> myNamespaceCommands;
   private final ChildGroup myParent;
+  private volatile GroupNameIndex myNameIndex;
 
   public StaticGroup(LocatedReferable referable, List<Group> staticGroups, List<ChildNamespaceCommand> namespaceCommands, ChildGroup parent) {
     myReferable = referable;
@@ -51,4 +53,18 @@ public class StaticGroup implements ChildGroup {
   public ChildGroup getParentGroup() {
     return myParent;
   }
+
+  /**
+   * @return the index of names defined in this group.
+   *         It is built when it is requested for the first time, that is, after the group is constructed,
+   *         and rebuilt if subgroups were added to the group later.
+   */
+  public @NotNull GroupNameIndex getNameIndex() {
+    GroupNameIndex index = myNameIndex;
+    if (index == null || !index.isUpToDate()) {
+      index = new GroupNameIndex(this);
+      myNameIndex = index;
+    }
+    return index;
+  }
 }
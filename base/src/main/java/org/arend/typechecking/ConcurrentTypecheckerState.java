@@ -0,0 +1,101 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.module.FullModulePath;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.TCReferable;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe implementation of {@link TypecheckerState}.
+ * Reads do not take locks; {@link #record}, {@link #rewrite} and {@link #reset(TCReferable)} are atomic.
+ * <p>
+ * If sharding is enabled, definitions are stored in separate maps for each library,
+ * so that all definitions of a library can be removed at once with {@link #resetLibrary}.
+ * Definitions without a library are stored in a separate map which is cleared together with every library.
+ */
+public class ConcurrentTypecheckerState implements TypecheckerState {
+  private static final String NO_LIBRARY = "";
+
+  private final boolean myShardByLibrary;
+  private final Map<GlobalReferable, Definition> myTypechecked;
+  private final Map<String, Map<GlobalReferable, Definition>> myShards;
+
+  public ConcurrentTypecheckerState(boolean shardByLibrary) {
+    myShardByLibrary = shardByLibrary;
+    myTypechecked = shardByLibrary ? null : new ConcurrentHashMap<>();
+    myShards = shardByLibrary ? new ConcurrentHashMap<>() : null;
+  }
+
+  public ConcurrentTypecheckerState() {
+    this(false);
+  }
+
+  public boolean isShardedByLibrary() {
+    return myShardByLibrary;
+  }
+
+  private static String getLibraryName(TCReferable def) {
+    FullModulePath modulePath = def.getLocation();
+    String libraryName = modulePath == null ? null : modulePath.getLibraryName();
+    return libraryName == null ? NO_LIBRARY : libraryName;
+  }
+
+  private Map<GlobalReferable, Definition> getMap(TCReferable def) {
+    return myShardByLibrary ? myShards.computeIfAbsent(getLibraryName(def), k -> new ConcurrentHashMap<>()) : myTypechecked;
+  }
+
+  private @Nullable Map<GlobalReferable, Definition> getMapIfPresent(TCReferable def) {
+    return myShardByLibrary ? myShards.get(getLibraryName(def)) : myTypechecked;
+  }
+
+  @Override
+  public Definition record(TCReferable def, Definition res) {
+    return getMap(def).putIfAbsent(def, res);
+  }
+
+  @Override
+  public void rewrite(TCReferable def, Definition res) {
+    getMap(def).put(def, res);
+  }
+
+  @Override
+  public Definition getTypechecked(TCReferable def) {
+    assert def != null;
+    Map<GlobalReferable, Definition> map = getMapIfPresent(def);
+    return map == null ? null : map.get(def);
+  }
+
+  @Override
+  public Definition reset(TCReferable def) {
+    Map<GlobalReferable, Definition> map = getMapIfPresent(def);
+    return map == null ? null : map.remove(def);
+  }
+
+  /**
+   * Removes all definitions of the given library.
+   * Definitions without a library are removed too since they may refer to definitions of any library.
+   *
+   * @return true if the state is sharded by library and the definitions were removed, false otherwise.
+   */
+  public boolean resetLibrary(String libraryName) {
+    if (!myShardByLibrary) {
+      return false;
+    }
+    myShards.remove(libraryName);
+    myShards.remove(NO_LIBRARY);
+    return true;
+  }
+
+  @Override
+  public void reset() {
+    if (myShardByLibrary) {
+      myShards.clear();
+    } else {
+      myTypechecked.clear();
+    }
+  }
+}
@@ -5,18 +5,35 @@ import org.arend.util.ComputationInterruptedException;
 import java.util.function.Supplier;
 
 public class ComputationRunner<T> {
-  private static CancellationIndicator CANCELLATION_INDICATOR = ThreadCancellationIndicator.INSTANCE;
+  private static final ThreadLocal<CancellationIndicator> CANCELLATION_INDICATOR = ThreadLocal.withInitial(() -> ThreadCancellationIndicator.INSTANCE);
 
   public static void checkCanceled() throws ComputationInterruptedException {
-    CANCELLATION_INDICATOR.checkCanceled();
+    CANCELLATION_INDICATOR.get().checkCanceled();
   }
 
+  /**
+   * @return the cancellation indicator of the computation running in the current thread.
+   */
   public static CancellationIndicator getCancellationIndicator() {
-    return CANCELLATION_INDICATOR;
+    return CANCELLATION_INDICATOR.get();
   }
 
   public static void resetCancellationIndicator() {
-    CANCELLATION_INDICATOR = ThreadCancellationIndicator.INSTANCE;
+    CANCELLATION_INDICATOR.remove();
+  }
+
+  /**
+   * Runs {@code runnable} in the current thread with the given cancellation indicator.
+   * This is used to propagate the indicator of a computation to the threads that perform its parts.
+   */
+  public static void runWithCancellationIndicator(CancellationIndicator cancellationIndicator, Runnable runnable) {
+    CancellationIndicator prevIndicator = CANCELLATION_INDICATOR.get();
+    CANCELLATION_INDICATOR.set(cancellationIndicator);
+    try {
+      runnable.run();
+    } finally {
+      CANCELLATION_INDICATOR.set(prevIndicator);
+    }
   }
 
   protected T computationInterrupted() {
@@ -24,19 +41,18 @@ public class ComputationRunner<T> {
   }
 
   public T run(CancellationIndicator cancellationIndicator, Supplier<T> runnable) {
-    synchronized (ComputationRunner.class) {
-      if (cancellationIndicator != null) {
-        CANCELLATION_INDICATOR = cancellationIndicator;
-      }
+    CancellationIndicator prevIndicator = CANCELLATION_INDICATOR.get();
+    if (cancellationIndicator != null) {
+      CANCELLATION_INDICATOR.set(cancellationIndicator);
+    }
 
-      try {
-        return runnable.get();
-      } catch (ComputationInterruptedException ignored) {
-        return computationInterrupted();
-      } finally {
-        if (cancellationIndicator != null) {
-          CANCELLATION_INDICATOR = ThreadCancellationIndicator.INSTANCE;
-        }
+    try {
+      return runnable.get();
+    } catch (ComputationInterruptedException ignored) {
+      return computationInterrupted();
+    } finally {
+      if (cancellationIndicator != null) {
+        CANCELLATION_INDICATOR.set(prevIndicator);
       }
     }
   }
@@ -1,13 +1,22 @@
 package org.arend.typechecking.doubleChecker;
 
 import org.arend.core.definition.Definition;
+import org.arend.error.ListErrorReporter;
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.module.ModulePath;
 import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.TCReferable;
 import org.arend.term.group.Group;
 import org.arend.typechecking.TypecheckerState;
 import org.arend.typechecking.error.local.LocalErrorReporter;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 public class CoreModuleChecker {
   private final ErrorReporter myErrorReporter;
   private final TypecheckerState myState;
@@ -43,4 +52,110 @@ public class CoreModuleChecker {
 
     return ok;
   }
+
+  public static class ModuleStatistics {
+    private int myDefinitions;
+    private int myFailed;
+    private long myTime;
+
+    public int getDefinitionsNumber() {
+      return myDefinitions;
+    }
+
+    public int getFailedNumber() {
+      return myFailed;
+    }
+
+    /**
+     * @return the total time of checking of definitions of the module in milliseconds.
+     */
+    public long getTime() {
+      return myTime / 1000000;
+    }
+  }
+
+  private static class DefinitionTask {
+    final ModulePath module;
+    final LocatedReferable referable;
+    final Definition definition;
+    final ListErrorReporter errorReporter = new ListErrorReporter();
+    boolean ok;
+    long time;
+
+    DefinitionTask(ModulePath module, LocatedReferable referable, Definition definition) {
+      this.module = module;
+      this.referable = referable;
+      this.definition = definition;
+    }
+
+    void run() {
+      long start = System.nanoTime();
+      ok = new CoreDefinitionChecker(new LocalErrorReporter(referable, errorReporter)).check(definition);
+      time = System.nanoTime() - start;
+    }
+  }
+
+  private void collectDefinitions(ModulePath module, Group group, List<DefinitionTask> tasks) {
+    LocatedReferable ref = group.getReferable();
+    Definition def = ref instanceof TCReferable ? myState.getTypechecked((TCReferable) ref) : null;
+    if (def != null) {
+      tasks.add(new DefinitionTask(module, ref, def));
+    }
+    for (Group subgroup : group.getSubgroups()) {
+      collectDefinitions(module, subgroup, tasks);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      collectDefinitions(module, subgroup, tasks);
+    }
+  }
+
+  /**
+   * Checks definitions of modules on a fork-join pool.
+   * Definitions are not modified after they are typechecked, so each of them is checked independently by its own {@link CoreDefinitionChecker}.
+   * Errors are collected separately for each definition and reported in the order of definitions after all of them are checked.
+   *
+   * @param modules   groups of modules.
+   * @param threads   the number of threads.
+   * @return statistics for each module.
+   */
+  public Map<ModulePath, ModuleStatistics> checkModules(Map<ModulePath, ? extends Group> modules, int threads) {
+    List<DefinitionTask> tasks = new ArrayList<>();
+    for (Map.Entry<ModulePath, ? extends Group> entry : modules.entrySet()) {
+      collectDefinitions(entry.getKey(), entry.getValue(), tasks);
+    }
+
+    if (threads <= 1 || tasks.size() <= 1) {
+      for (DefinitionTask task : tasks) {
+        task.run();
+      }
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        List<ForkJoinTask<?>> futures = new ArrayList<>(tasks.size());
+        for (DefinitionTask task : tasks) {
+          futures.add(pool.submit(task::run));
+        }
+        for (ForkJoinTask<?> future : futures) {
+          future.join();
+        }
+      } finally {
+        pool.shutdown();
+      }
+    }
+
+    Map<ModulePath, ModuleStatistics> result = new LinkedHashMap<>();
+    for (ModulePath module : modules.keySet()) {
+      result.put(module, new ModuleStatistics());
+    }
+    for (DefinitionTask task : tasks) {
+      task.errorReporter.reportTo(myErrorReporter);
+      ModuleStatistics statistics = result.get(task.module);
+      statistics.myDefinitions++;
+      if (!task.ok) {
+        statistics.myFailed++;
+      }
+      statistics.myTime += task.time;
+    }
+    return result;
+  }
 }
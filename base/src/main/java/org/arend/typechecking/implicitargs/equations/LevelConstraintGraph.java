@@ -0,0 +1,277 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.arend.typechecking.implicitargs.equations.LevelEquations.INFINITY;
+
+/**
+ * A system of difference constraints {@code x(v) <= x(u) + c} over nodes {@code 0 .. n-1} which is solved incrementally.
+ * Node 0 is the base node, its value must remain 0.
+ * An edge with a max constant {@code m} constrains its target only when {@code x(u) + m < 0}.
+ * All values start at 0 and only decrease, {@link LevelEquations#INFINITY} is the least value.
+ * <p>
+ * Every insertion propagates the change immediately, so the graph usually contains the greatest solution of the system.
+ * If a sequence of edges which decreases some value indefinitely or decreases the value of the base node is found,
+ * it still can be resolved by a later infinity constraint.
+ * In this case, and after {@link #defer}, insertions are only recorded and the solution is recomputed from scratch when it is requested:
+ * first, infinite values are propagated, then finite ones.
+ * <p>
+ * Nodes and edges are stored in arrays indexed by their ids.
+ * Graphs are reused between definitions, use {@link #acquire} and {@link #release} to get and return them.
+ */
+final class LevelConstraintGraph {
+  private static final int NONE = -1;
+  private static final int NO_MAX_CONSTANT = Integer.MIN_VALUE;
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int POOL_SIZE = 8;
+  private static final int MAX_POOLED_CAPACITY = 1024; // graphs with larger arrays are not kept in the pool
+  private static final ThreadLocal<ArrayDeque<LevelConstraintGraph>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+  private int myNodes;
+  private int[] myValues = new int[INITIAL_CAPACITY];
+  private int[] myFirstEdges = new int[INITIAL_CAPACITY];
+  private int[] myPredecessors = new int[INITIAL_CAPACITY]; // the edge that gave the current value to the node
+  private int[] myPathLengths = new int[INITIAL_CAPACITY];  // the number of relaxations that gave the current value to the node
+  private boolean[] myQueued = new boolean[INITIAL_CAPACITY];
+  private boolean[] myInfinite = new boolean[INITIAL_CAPACITY]; // true if the node has an infinity constraint
+  private int[] myQueue = new int[INITIAL_CAPACITY];
+  private int myQueueHead;
+  private int myQueueSize;
+
+  private int myEdges;
+  private int[] mySources = new int[INITIAL_CAPACITY];
+  private int[] myTargets = new int[INITIAL_CAPACITY];
+  private int[] myConstants = new int[INITIAL_CAPACITY];
+  private int[] myMaxConstants = new int[INITIAL_CAPACITY];
+  private int[] myNextEdges = new int[INITIAL_CAPACITY];
+
+  private int myCycleNode;
+  private boolean myStale; // true if values must be recomputed
+
+  LevelConstraintGraph() {
+    reset();
+  }
+
+  static LevelConstraintGraph acquire() {
+    LevelConstraintGraph graph = POOL.get().poll();
+    return graph != null ? graph : new LevelConstraintGraph();
+  }
+
+  void release() {
+    if (myValues.length > MAX_POOLED_CAPACITY || mySources.length > MAX_POOLED_CAPACITY) {
+      return;
+    }
+    reset();
+    ArrayDeque<LevelConstraintGraph> pool = POOL.get();
+    if (pool.size() < POOL_SIZE) {
+      pool.push(this);
+    }
+  }
+
+  /**
+   * Removes all nodes and edges except for the base node.
+   */
+  void reset() {
+    myNodes = 0;
+    myEdges = 0;
+    myCycleNode = NONE;
+    myStale = false;
+    addNode();
+  }
+
+  int addNode() {
+    if (myNodes == myValues.length) {
+      int capacity = myValues.length * 2;
+      myValues = Arrays.copyOf(myValues, capacity);
+      myFirstEdges = Arrays.copyOf(myFirstEdges, capacity);
+      myPredecessors = Arrays.copyOf(myPredecessors, capacity);
+      myPathLengths = Arrays.copyOf(myPathLengths, capacity);
+      myQueued = Arrays.copyOf(myQueued, capacity);
+      myInfinite = Arrays.copyOf(myInfinite, capacity);
+      myQueue = new int[capacity];
+    }
+
+    int node = myNodes++;
+    myValues[node] = 0;
+    myFirstEdges[node] = NONE;
+    myPredecessors[node] = NONE;
+    myPathLengths[node] = 0;
+    myQueued[node] = false;
+    myInfinite[node] = false;
+    return node;
+  }
+
+  /**
+   * Stops propagation of inserted constraints until the solution is requested.
+   * This is faster if many constraints are inserted at once.
+   */
+  void defer() {
+    myStale = true;
+  }
+
+  int getValue(int node) {
+    if (myStale) {
+      recompute();
+    }
+    return myValues[node];
+  }
+
+  private boolean isDeferred() {
+    if (myCycleNode != NONE) {
+      myStale = true;
+    }
+    return myStale;
+  }
+
+  /**
+   * Adds constraint {@code x(target) <= x(source) + constant} which is active if {@code maxConstant == null || x(source) + maxConstant < 0}.
+   *
+   * @return the id of the new edge.
+   */
+  int addEdge(int source, int target, int constant, Integer maxConstant) {
+    if (myEdges == mySources.length) {
+      int capacity = mySources.length * 2;
+      mySources = Arrays.copyOf(mySources, capacity);
+      myTargets = Arrays.copyOf(myTargets, capacity);
+      myConstants = Arrays.copyOf(myConstants, capacity);
+      myMaxConstants = Arrays.copyOf(myMaxConstants, capacity);
+      myNextEdges = Arrays.copyOf(myNextEdges, capacity);
+    }
+
+    int edge = myEdges++;
+    mySources[edge] = source;
+    myTargets[edge] = target;
+    myConstants[edge] = constant;
+    myMaxConstants[edge] = maxConstant == null ? NO_MAX_CONSTANT : maxConstant;
+    myNextEdges[edge] = myFirstEdges[source];
+    myFirstEdges[source] = edge;
+
+    if (!isDeferred()) {
+      relax(edge);
+      propagate();
+    }
+    return edge;
+  }
+
+  /**
+   * Sets the value of the node to {@link LevelEquations#INFINITY}.
+   */
+  void setInfinity(int node) {
+    myInfinite[node] = true;
+    if (isDeferred() || myValues[node] == INFINITY) {
+      return;
+    }
+    myValues[node] = INFINITY;
+    enqueue(node);
+    propagate();
+  }
+
+  private void enqueue(int node) {
+    if (!myQueued[node]) {
+      myQueued[node] = true;
+      int index = myQueueHead + myQueueSize++;
+      myQueue[index >= myQueue.length ? index - myQueue.length : index] = node;
+    }
+  }
+
+  private int poll() {
+    int node = myQueue[myQueueHead++];
+    if (myQueueHead == myQueue.length) {
+      myQueueHead = 0;
+    }
+    myQueueSize--;
+    myQueued[node] = false;
+    return node;
+  }
+
+  private void relax(int edge) {
+    int target = myTargets[edge];
+    int b = myValues[target];
+    if (b == INFINITY) {
+      return;
+    }
+
+    int source = mySources[edge];
+    int a = myValues[source];
+    if (a == INFINITY) {
+      myValues[target] = INFINITY;
+      enqueue(target);
+      return;
+    }
+
+    int maxConstant = myMaxConstants[edge];
+    int value = a + myConstants[edge];
+    if (maxConstant != NO_MAX_CONSTANT && a + maxConstant >= 0 || b <= value) {
+      return;
+    }
+
+    myPredecessors[target] = edge;
+    myPathLengths[target] = myPathLengths[source] + 1;
+    // Every relaxation strictly decreases a value, so a sequence of relaxations that visits a node twice is a negative cycle.
+    if (target == 0 || myPathLengths[target] >= myNodes) {
+      myCycleNode = target;
+      return;
+    }
+    myValues[target] = value;
+    enqueue(target);
+  }
+
+  private void propagate() {
+    while (myQueueSize > 0 && myCycleNode == NONE) {
+      int node = poll();
+      for (int edge = myFirstEdges[node]; edge != NONE && myCycleNode == NONE; edge = myNextEdges[edge]) {
+        relax(edge);
+      }
+    }
+    while (myQueueSize > 0) {
+      poll();
+    }
+    myQueueHead = 0;
+  }
+
+  private void recompute() {
+    myStale = false;
+    myCycleNode = NONE;
+    for (int node = 0; node < myNodes; node++) {
+      myValues[node] = myInfinite[node] ? INFINITY : 0;
+      myPredecessors[node] = NONE;
+      myPathLengths[node] = 0;
+      if (myInfinite[node]) {
+        enqueue(node);
+      }
+    }
+    propagate();
+
+    for (int node = 0; node < myNodes; node++) {
+      if (myValues[node] != INFINITY) {
+        enqueue(node);
+      }
+    }
+    propagate();
+  }
+
+  /**
+   * @return the ids of edges of the cycle in the order of their relaxation or null if there is no cycle.
+   */
+  List<Integer> getCycle() {
+    if (myStale) {
+      recompute();
+    }
+    if (myCycleNode == NONE) {
+      return null;
+    }
+
+    List<Integer> result = new ArrayList<>();
+    boolean[] visited = new boolean[myNodes];
+    for (int node = myCycleNode; myPredecessors[node] != NONE && !visited[node]; node = mySources[myPredecessors[node]]) {
+      visited[node] = true;
+      result.add(myPredecessors[node]);
+    }
+    Collections.reverse(result);
+    return result;
+  }
+}
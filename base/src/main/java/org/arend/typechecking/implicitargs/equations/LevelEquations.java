@@ -1,89 +1,144 @@
 package org.arend.typechecking.implicitargs.equations;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Predicate;
 
+/**
+ * A system of level equations.
+ * Equations are inserted into a {@link LevelConstraintGraph} as they are added, so {@link #solve} usually only reads the solution.
+ * The graph is rebuilt if some equations were removed.
+ */
 public class LevelEquations<Var> {
   private final List<Var> myVariables = new ArrayList<>();
   private final List<LevelEquation<Var>> myEquations = new ArrayList<>();
+  private final Map<Var, Integer> myNodes = new HashMap<>();
+  private final List<LevelEquation<Var>> myEdges = new ArrayList<>();
+  private LevelConstraintGraph myGraph;
+  private boolean myRebuild;
   static final int INFINITY = Integer.MAX_VALUE;
 
   public List<LevelEquation<Var>> getEquations() {
-    return myEquations;
+    return Collections.unmodifiableList(myEquations);
   }
 
   public List<Var> getVariables() {
     return myVariables;
   }
 
+  private LevelConstraintGraph getGraph() {
+    if (myGraph == null) {
+      myGraph = LevelConstraintGraph.acquire();
+    }
+    return myGraph;
+  }
+
+  private int getNode(Var var) {
+    if (var == null) {
+      return 0;
+    }
+    Integer node = myNodes.get(var);
+    if (node == null) {
+      node = getGraph().addNode();
+      myNodes.put(var, node);
+    }
+    return node;
+  }
+
+  private void insert(LevelEquation<Var> equation) {
+    if (equation.isInfinity()) {
+      getGraph().setInfinity(getNode(equation.getVariable()));
+    } else {
+      int source = getNode(equation.getVariable1());
+      int target = getNode(equation.getVariable2());
+      myEdges.add(equation);
+      getGraph().addEdge(source, target, equation.getConstant(), equation.getMaxConstant());
+    }
+  }
+
   void addVariable(Var var) {
     myVariables.add(var);
+    if (!myRebuild) {
+      getNode(var);
+    }
   }
 
   public void add(LevelEquations<Var> equations) {
-    myVariables.addAll(equations.myVariables);
-    myEquations.addAll(equations.myEquations);
+    for (Var var : equations.myVariables) {
+      addVariable(var);
+    }
+    for (LevelEquation<Var> equation : equations.myEquations) {
+      addEquation(equation);
+    }
   }
 
   void addEquation(LevelEquation<Var> equation) {
     myEquations.add(equation);
+    if (!myRebuild) {
+      insert(equation);
+    }
+  }
+
+  public void removeEquations(Predicate<? super LevelEquation<Var>> predicate) {
+    if (myEquations.removeIf(predicate)) {
+      myRebuild = true;
+    }
   }
 
   public void clear() {
     myVariables.clear();
     myEquations.clear();
+    myNodes.clear();
+    myEdges.clear();
+    myRebuild = false;
+    if (myGraph != null) {
+      myGraph.release();
+      myGraph = null;
+    }
   }
 
   public boolean isEmpty() {
     return myVariables.isEmpty() && myEquations.isEmpty();
   }
 
+  private void rebuild() {
+    myRebuild = false;
+    myNodes.clear();
+    myEdges.clear();
+    getGraph().reset();
+    myGraph.defer();
+    for (Var var : myVariables) {
+      getNode(var);
+    }
+    for (LevelEquation<Var> equation : myEquations) {
+      insert(equation);
+    }
+  }
+
+  /**
+   * Puts the solution of the system into {@code solution}.
+   *
+   * @return null if the system is consistent; otherwise, a sequence of equations which cannot be satisfied.
+   */
   public List<LevelEquation<Var>> solve(Map<Var, Integer> solution) {
-    Map<Var, List<LevelEquation<Var>>> paths = new HashMap<>();
+    if (myRebuild) {
+      rebuild();
+    }
+    if (myGraph == null) {
+      return null;
+    }
 
-    solution.put(null, 0);
-    paths.put(null, new ArrayList<>());
     for (Var var : myVariables) {
-      solution.put(var, 0);
-      paths.put(var, new ArrayList<>());
-    }
-
-    for (int i = myVariables.size(); i >= 0; i--) {
-      boolean updated = false;
-      for (LevelEquation<Var> equation : myEquations) {
-        if (equation.isInfinity()) {
-          Integer prev = solution.put(equation.getVariable(), INFINITY);
-          if (prev == null || prev != INFINITY) {
-            updated = true;
-          }
-        } else {
-          int a = solution.get(equation.getVariable1());
-          int b = solution.get(equation.getVariable2());
-          Integer m = equation.getMaxConstant();
-          if (b != INFINITY && (a == INFINITY || (m == null || a + m < 0) && b > a + equation.getConstant())) {
-            if (a != INFINITY) {
-              List<LevelEquation<Var>> newPath = new ArrayList<>(paths.get(equation.getVariable1()));
-              newPath.add(equation);
-              paths.put(equation.getVariable2(), newPath);
-            }
-            if (i == 0 || equation.getVariable2() == null && a != INFINITY) {
-              solution.remove(null);
-              return paths.get(equation.getVariable2());
-            }
-
-            solution.put(equation.getVariable2(), a == INFINITY ? INFINITY : a + equation.getConstant());
-            updated = true;
-          }
-        }
-      }
-      if (!updated) {
-        break;
-      }
-    }
-
-    solution.remove(null);
-    return null;
+      solution.put(var, myGraph.getValue(getNode(var)));
+    }
+
+    List<Integer> cycle = myGraph.getCycle();
+    if (cycle == null) {
+      return null;
+    }
+    List<LevelEquation<Var>> result = new ArrayList<>(cycle.size());
+    for (Integer edge : cycle) {
+      result.add(myEdges.get(edge));
+    }
+    return result;
   }
 }
@@ -0,0 +1,121 @@
+package org.arend.typechecking.instance;
+
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.Constructor;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.*;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.prelude.Prelude;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The head symbol of a classifying expression: a definition, a sigma type, a universe, or an integer.
+ * Instances are indexed by the heads of their classifying expressions,
+ * so that instance search checks only instances with a matching head.
+ */
+public class ClassifyingHead {
+  public enum Kind { DEFINITION, SIGMA, UNIVERSE, INTEGER, NONE }
+
+  public static final ClassifyingHead SIGMA = new ClassifyingHead(Kind.SIGMA, null, null);
+  public static final ClassifyingHead UNIVERSE = new ClassifyingHead(Kind.UNIVERSE, null, null);
+  public static final ClassifyingHead NONE = new ClassifyingHead(Kind.NONE, null, null);
+
+  private final Kind myKind;
+  private final Definition myDefinition;
+  private final IntegerExpression myInteger;
+
+  private ClassifyingHead(Kind kind, Definition definition, IntegerExpression integer) {
+    myKind = kind;
+    myDefinition = definition;
+    myInteger = integer;
+  }
+
+  public Kind getKind() {
+    return myKind;
+  }
+
+  public Definition getDefinition() {
+    return myDefinition;
+  }
+
+  /**
+   * @return the key of the index under which instances with this head are stored.
+   */
+  public Object getKey() {
+    return myKind == Kind.DEFINITION ? myDefinition : myKind;
+  }
+
+  /**
+   * @return keys of instances that may match a classifying expression with this head.
+   */
+  public List<Object> getMatchingKeys() {
+    switch (myKind) {
+      case NONE:
+        return Collections.emptyList();
+      case DEFINITION:
+        return myDefinition == Prelude.ZERO || myDefinition == Prelude.SUC ? Arrays.asList(myDefinition, Kind.INTEGER) : Collections.singletonList(myDefinition);
+      default:
+        return Collections.singletonList(myKind);
+    }
+  }
+
+  /**
+   * Checks if an instance with this head matches a classifying expression with the given head.
+   */
+  public boolean matches(ClassifyingHead head) {
+    switch (myKind) {
+      case DEFINITION:
+        return head.myKind == Kind.DEFINITION && myDefinition == head.myDefinition;
+      case SIGMA:
+      case UNIVERSE:
+        return myKind == head.myKind;
+      case INTEGER:
+        return head.myKind == Kind.INTEGER && myInteger.isEqual(head.myInteger) || head.myKind == Kind.DEFINITION && head.myDefinition instanceof Constructor && myInteger.match((Constructor) head.myDefinition);
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Computes the head of an expression in whnf.
+   * Leading lambdas are skipped.
+   */
+  public static ClassifyingHead fromExpression(@Nullable Expression expr) {
+    if (expr != null) {
+      expr = expr.getUnderlyingExpression();
+    }
+    while (expr instanceof LamExpression) {
+      expr = ((LamExpression) expr).getBody().getUnderlyingExpression();
+    }
+
+    if (expr instanceof DefCallExpression) {
+      return new ClassifyingHead(Kind.DEFINITION, ((DefCallExpression) expr).getDefinition(), null);
+    }
+    if (expr instanceof SigmaExpression) {
+      return SIGMA;
+    }
+    if (expr instanceof UniverseExpression) {
+      return UNIVERSE;
+    }
+    if (expr instanceof IntegerExpression) {
+      return new ClassifyingHead(Kind.INTEGER, null, (IntegerExpression) expr);
+    }
+    return NONE;
+  }
+
+  /**
+   * Computes the head of the implementation of a classifying field in the result type of an instance.
+   */
+  public static ClassifyingHead compute(FunctionDefinition instance, ClassField classifyingField) {
+    if (!(instance.getResultType() instanceof ClassCallExpression)) {
+      return NONE;
+    }
+    Expression expr = ((ClassCallExpression) instance.getResultType()).getAbsImplementationHere(classifyingField);
+    return expr == null ? NONE : fromExpression(expr.normalize(NormalizationMode.WHNF));
+  }
+}
@@ -11,7 +11,9 @@ import org.arend.core.subst.ExprSubstitution;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.naming.reference.TCClassReferable;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.instance.ClassifyingHead;
 import org.arend.typechecking.instance.provider.InstanceProvider;
+import org.arend.typechecking.order.listener.TypecheckingProfiler;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 import org.arend.util.Pair;
@@ -55,6 +57,7 @@ public class GlobalInstancePool implements InstancePool {
 
   @Override
   public TypecheckingResult getInstance(Expression classifyingExpression, Expression expectedType, TCClassReferable classRef, Concrete.SourceNode sourceNode, RecursiveInstanceHoleExpression recursiveHoleExpression) {
+    TypecheckingProfiler.count(TypecheckingProfiler.Counter.INSTANCE_SEARCHES);
     if (myInstancePool != null) {
       TypecheckingResult result = myInstancePool.getInstance(classifyingExpression, expectedType, classRef, sourceNode, recursiveHoleExpression);
       if (result != null) {
@@ -88,6 +91,7 @@ public class GlobalInstancePool implements InstancePool {
 
   @Override
   public Concrete.Expression getInstance(Expression classifyingExpression, TCClassReferable classRef, Concrete.SourceNode sourceNode, RecursiveInstanceHoleExpression recursiveHoleExpression) {
+    TypecheckingProfiler.count(TypecheckingProfiler.Counter.INSTANCE_SEARCHES);
     if (myInstancePool != null) {
       Concrete.Expression result = myInstancePool.getInstance(classifyingExpression, classRef, sourceNode, recursiveHoleExpression);
       if (result != null) {
@@ -103,15 +107,34 @@ public class GlobalInstancePool implements InstancePool {
     return pair == null ? null : pair.proj1;
   }
 
+  /**
+   * Gets the head of the implementation of {@code classifyingField} in an instance.
+   * The head computed during typechecking of the instance is used if it corresponds to the same field.
+   *
+   * @return the head or null if the header of the instance is not typechecked yet.
+   */
+  private static ClassifyingHead getClassifyingHead(FunctionDefinition instanceDef, ClassField classifyingField) {
+    if (!instanceDef.status().headerIsOK() || !(instanceDef.getResultType() instanceof ClassCallExpression)) {
+      return null;
+    }
+
+    boolean isOwnField = ((ClassCallExpression) instanceDef.getResultType()).getDefinition().getClassifyingField() == classifyingField;
+    ClassifyingHead head = isOwnField ? instanceDef.getClassifyingHead() : null;
+    if (head == null) {
+      head = ClassifyingHead.compute(instanceDef, classifyingField);
+      if (isOwnField) {
+        instanceDef.setClassifyingHead(head);
+      }
+    }
+    return head;
+  }
+
   private Pair<Concrete.Expression, ClassDefinition> getInstanceX(Expression classifyingExpression, TCClassReferable classRef, Concrete.SourceNode sourceNode, RecursiveInstanceHoleExpression recursiveHoleExpression) {
     ClassField classifyingField;
-    Expression normClassifyingExpression = classifyingExpression;
+    ClassifyingHead classifyingHead;
     if (classifyingExpression != null) {
-      normClassifyingExpression = normClassifyingExpression.normalize(NormalizationMode.WHNF).getUnderlyingExpression();
-      while (normClassifyingExpression instanceof LamExpression) {
-        normClassifyingExpression = ((LamExpression) normClassifyingExpression).getBody().getUnderlyingExpression();
-      }
-      if (!(normClassifyingExpression instanceof DefCallExpression || normClassifyingExpression instanceof SigmaExpression || normClassifyingExpression instanceof UniverseExpression || normClassifyingExpression instanceof IntegerExpression)) {
+      classifyingHead = ClassifyingHead.fromExpression(classifyingExpression.normalize(NormalizationMode.WHNF));
+      if (classifyingHead.getKind() == ClassifyingHead.Kind.NONE) {
         return null;
       }
 
@@ -125,9 +148,9 @@ public class GlobalInstancePool implements InstancePool {
       }
     } else {
       classifyingField = null;
+      classifyingHead = null;
     }
 
-    Expression finalClassifyingExpression = normClassifyingExpression;
     class MyPredicate implements Predicate<Concrete.FunctionDefinition> {
       private FunctionDefinition instanceDef = null;
 
@@ -138,28 +161,25 @@ public class GlobalInstancePool implements InstancePool {
           return false;
         }
 
-        if (finalClassifyingExpression == null) {
+        if (classifyingHead == null) {
           return true;
         }
-
-        Expression instanceClassifyingExpr = ((ClassCallExpression) instanceDef.getResultType()).getAbsImplementationHere(classifyingField);
-        if (instanceClassifyingExpr != null) {
-          instanceClassifyingExpr = instanceClassifyingExpr.normalize(NormalizationMode.WHNF);
-        }
-        while (instanceClassifyingExpr instanceof LamExpression) {
-          instanceClassifyingExpr = ((LamExpression) instanceClassifyingExpr).getBody();
-        }
-        return
-          instanceClassifyingExpr instanceof UniverseExpression && finalClassifyingExpression instanceof UniverseExpression ||
-            instanceClassifyingExpr instanceof SigmaExpression && finalClassifyingExpression instanceof SigmaExpression ||
-            instanceClassifyingExpr instanceof IntegerExpression && (finalClassifyingExpression instanceof IntegerExpression && ((IntegerExpression) instanceClassifyingExpr).isEqual((IntegerExpression) finalClassifyingExpression) ||
-              finalClassifyingExpression instanceof ConCallExpression && ((IntegerExpression) instanceClassifyingExpr).match(((ConCallExpression) finalClassifyingExpression).getDefinition())) ||
-            instanceClassifyingExpr instanceof DefCallExpression && finalClassifyingExpression instanceof DefCallExpression && ((DefCallExpression) instanceClassifyingExpr).getDefinition() == ((DefCallExpression) finalClassifyingExpression).getDefinition();
+        ClassifyingHead instanceHead = getClassifyingHead(instanceDef, classifyingField);
+        return instanceHead != null && instanceHead.matches(classifyingHead);
       }
     }
 
     MyPredicate predicate = new MyPredicate();
-    Concrete.FunctionDefinition instance = myInstanceProvider.findInstance(classRef, predicate);
+    Concrete.FunctionDefinition instance;
+    if (classifyingHead == null) {
+      instance = myInstanceProvider.findInstance(classRef, predicate);
+    } else {
+      instance = myInstanceProvider.findInstance(classRef, classifyingHead.getMatchingKeys(), inst -> {
+        Definition instanceDef = myCheckTypeVisitor.getTypecheckingState().getTypechecked(inst.getData());
+        ClassifyingHead instanceHead = instanceDef instanceof FunctionDefinition ? getClassifyingHead((FunctionDefinition) instanceDef, classifyingField) : null;
+        return instanceHead == null ? null : instanceHead.getKey();
+      }, predicate);
+    }
     if (instance == null || predicate.instanceDef == null) {
       return null;
     }
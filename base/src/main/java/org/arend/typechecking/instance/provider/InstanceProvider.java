@@ -1,10 +1,34 @@
 package org.arend.typechecking.instance.provider;
 
 import org.arend.naming.reference.ClassReferable;
+import org.arend.naming.reference.TCReferable;
 import org.arend.term.concrete.Concrete;
 
+import java.util.List;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 public interface InstanceProvider {
   Concrete.FunctionDefinition findInstance(ClassReferable classRef, Predicate<Concrete.FunctionDefinition> pred);
+
+  /**
+   * Finds an instance that satisfies the predicate among instances with the given keys.
+   * Instances are checked in the same order as in {@link #findInstance(ClassReferable, Predicate)}.
+   *
+   * @param keys        keys of instances that may satisfy the predicate.
+   * @param keyFunction computes the key of an instance; it returns null if the key is not known yet.
+   *                    It should return the same key for the same instance as long as {@code classRef} is the same
+   *                    and the instance is not reset by {@link #resetInstance}.
+   */
+  default Concrete.FunctionDefinition findInstance(ClassReferable classRef, List<?> keys, Function<Concrete.FunctionDefinition, Object> keyFunction, Predicate<Concrete.FunctionDefinition> pred) {
+    return findInstance(classRef, pred);
+  }
+
+  /**
+   * Forgets the keys of an instance computed by {@link #findInstance(ClassReferable, List, Function, Predicate)}.
+   * This should be invoked when the instance is typechecked again.
+   */
+  default void resetInstance(TCReferable instance) {
+
+  }
 }
@@ -31,6 +31,18 @@ public class InstanceProviderSet {
     return myProviders.get(referable);
   }
 
+  /**
+   * Forgets cached keys of an instance in all providers, see {@link InstanceProvider#resetInstance}.
+   */
+  public void resetInstance(TCReferable instance) {
+    Set<InstanceProvider> providers = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (InstanceProvider provider : myProviders.values()) {
+      if (providers.add(provider)) {
+        provider.resetInstance(instance);
+      }
+    }
+  }
+
   public InstanceProvider computeIfAbsent(TCReferable referable, Function<? super TCReferable, ? extends InstanceProvider> fun) {
     return myProviders.computeIfAbsent(referable, fun);
   }
@@ -2,14 +2,17 @@ package org.arend.typechecking.instance.provider;
 
 import org.arend.naming.reference.ClassReferable;
 import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCReferable;
 import org.arend.term.concrete.Concrete;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 public class SimpleInstanceProvider implements InstanceProvider {
   private List<Concrete.FunctionDefinition> myInstances;
+  private final Map<ClassReferable, ClassIndex> myIndices = new ConcurrentHashMap<>();
 
   public SimpleInstanceProvider() {
     myInstances = new ArrayList<>();
@@ -21,17 +24,106 @@ public class SimpleInstanceProvider implements InstanceProvider {
 
   public void put(Concrete.FunctionDefinition instance) {
     myInstances.add(instance);
+    myIndices.clear();
+  }
+
+  private static boolean isInstanceOf(Concrete.FunctionDefinition instance, ClassReferable classRef) {
+    Concrete.Expression type = instance.getResultType();
+    Referable ref = type == null ? null : type.getUnderlyingReferable();
+    return ref instanceof ClassReferable && ((ClassReferable) ref).isSubClassOf(classRef);
   }
 
   @Override
   public Concrete.FunctionDefinition findInstance(ClassReferable classRef, Predicate<Concrete.FunctionDefinition> pred) {
     for (Concrete.FunctionDefinition instance : myInstances) {
-      Concrete.Expression type = instance.getResultType();
-      Referable ref = type == null ? null : type.getUnderlyingReferable();
-      if (ref instanceof ClassReferable && ((ClassReferable) ref).isSubClassOf(classRef) && pred.test(instance)) {
+      if (isInstanceOf(instance, classRef) && pred.test(instance)) {
+        return instance;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Concrete.FunctionDefinition findInstance(ClassReferable classRef, List<?> keys, Function<Concrete.FunctionDefinition, Object> keyFunction, Predicate<Concrete.FunctionDefinition> pred) {
+    for (Concrete.FunctionDefinition instance : myIndices.computeIfAbsent(classRef, ClassIndex::new).getCandidates(keys, keyFunction)) {
+      if (pred.test(instance)) {
         return instance;
       }
     }
     return null;
   }
+
+  @Override
+  public void resetInstance(TCReferable instance) {
+    for (ClassIndex index : myIndices.values()) {
+      index.reset(instance);
+    }
+  }
+
+  /**
+   * Instances of a class grouped by their keys.
+   * Instances are identified by their positions in {@link #myInstances}, so that the order of instances is preserved.
+   * Instances whose keys are not known yet are kept in {@link #myPending} and are checked again on every query.
+   * A reset instance is moved back to {@link #myPending}.
+   */
+  private class ClassIndex {
+    private final Map<Object, List<Integer>> myByKey = new HashMap<>();
+    private final Map<TCReferable, Object> myKeys = new HashMap<>();
+    private final List<Integer> myPending = new ArrayList<>();
+
+    ClassIndex(ClassReferable classRef) {
+      for (int i = 0; i < myInstances.size(); i++) {
+        if (isInstanceOf(myInstances.get(i), classRef)) {
+          myPending.add(i);
+        }
+      }
+    }
+
+    synchronized List<Concrete.FunctionDefinition> getCandidates(List<?> keys, Function<Concrete.FunctionDefinition, Object> keyFunction) {
+      for (Iterator<Integer> it = myPending.iterator(); it.hasNext(); ) {
+        Integer index = it.next();
+        Concrete.FunctionDefinition instance = myInstances.get(index);
+        Object key = keyFunction.apply(instance);
+        if (key != null) {
+          it.remove();
+          myKeys.put(instance.getData(), key);
+          List<Integer> list = myByKey.computeIfAbsent(key, k -> new ArrayList<>());
+          int pos = Collections.binarySearch(list, index);
+          list.add(pos < 0 ? -pos - 1 : pos, index);
+        }
+      }
+
+      List<Integer> indices = new ArrayList<>();
+      for (Object key : keys) {
+        List<Integer> list = myByKey.get(key);
+        if (list != null) {
+          indices.addAll(list);
+        }
+      }
+      if (keys.size() > 1) {
+        Collections.sort(indices);
+      }
+
+      List<Concrete.FunctionDefinition> result = new ArrayList<>(indices.size());
+      for (Integer index : indices) {
+        result.add(myInstances.get(index));
+      }
+      return result;
+    }
+
+    synchronized void reset(TCReferable instance) {
+      Object key = myKeys.remove(instance);
+      if (key == null) {
+        return;
+      }
+
+      for (Iterator<Integer> it = myByKey.get(key).iterator(); it.hasNext(); ) {
+        Integer index = it.next();
+        if (myInstances.get(index).getData() == instance) {
+          it.remove();
+          myPending.add(index);
+        }
+      }
+    }
+  }
 }
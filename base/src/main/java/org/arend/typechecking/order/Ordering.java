@@ -71,7 +71,7 @@ public class Ordering extends BellmanFord<Concrete.Definition> {
   public void orderModule(Group group) {
     LocatedReferable referable = group.getReferable();
     TCReferable tcReferable = myReferableConverter.toDataLocatedReferable(referable);
-    if (tcReferable == null || getTypechecked(tcReferable) == null) {
+    if (tcReferable == null || getTypechecked(tcReferable) == null || !myDependencyListener.getUpdatedDependencies(tcReferable).isEmpty()) {
       Concrete.ReferableDefinition def = myConcreteProvider.getConcrete(referable);
       if (def instanceof Concrete.Definition) {
         order((Concrete.Definition) def);
@@ -88,12 +88,45 @@ public class Ordering extends BellmanFord<Concrete.Definition> {
 
   @Override
   public void order(Concrete.Definition definition) {
+    if (myAllowedDependencies == null) {
+      orderUpdatedDependencies(definition.getData(), this::order);
+    }
     if (getTypechecked(definition.getData()) == null) {
       ComputationRunner.checkCanceled();
       super.order(definition);
     }
   }
 
+  /**
+   * Typechecks units that were found, but not typechecked yet.
+   * This ordering passes units to the listener immediately, so it does nothing.
+   */
+  public void typecheckCollected() {
+
+  }
+
+  /**
+   * Typechecks definitions which were updated, but not typechecked again, and on which the given definition depends.
+   * This may reset the definition, so it must be done before the definition is used.
+   */
+  private void orderUpdatedDependencies(TCReferable definition, Consumer<Concrete.Definition> consumer) {
+    Collection<? extends TCReferable> updatedDefinitions = myDependencyListener.getUpdatedDependencies(definition);
+    if (updatedDefinitions.isEmpty()) {
+      return;
+    }
+
+    for (TCReferable updated : updatedDefinitions) {
+      Concrete.ReferableDefinition updatedDef = myConcreteProvider.getConcrete(updated);
+      if (updatedDef instanceof Concrete.Definition) {
+        consumer.accept((Concrete.Definition) updatedDef);
+      } else {
+        // The definition was removed, so its dependents are reset
+        myDependencyListener.update(updated);
+      }
+    }
+    typecheckCollected();
+  }
+
   public Definition getTypechecked(TCReferable definition) {
     Definition typechecked = myState.getTypechecked(definition);
     return typechecked == null || typechecked.status().needsTypeChecking() ? null : typechecked;
@@ -131,6 +164,9 @@ public class Ordering extends BellmanFord<Concrete.Definition> {
         myDependencyListener.dependsOn(definition.getData(), tcReferable);
         Concrete.ReferableDefinition dependency = myConcreteProvider.getConcrete(tcReferable);
         if (dependency instanceof Concrete.Definition) {
+          if (myAllowedDependencies == null) {
+            orderUpdatedDependencies(tcReferable, consumer);
+          }
           Definition typechecked = myState.getTypechecked(tcReferable);
           if (typechecked == null || typechecked.status() == Definition.TypeCheckingStatus.HEADER_NEEDS_TYPE_CHECKING) {
             consumer.accept((Concrete.Definition) dependency);
@@ -0,0 +1,259 @@
+package org.arend.typechecking.order;
+
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.ReferableConverter;
+import org.arend.term.concrete.Concrete;
+import org.arend.term.group.Group;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.computation.CancellationIndicator;
+import org.arend.typechecking.computation.ComputationRunner;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.listener.CollectingOrderingListener;
+import org.arend.typechecking.order.listener.OrderingListener;
+import org.arend.typechecking.provider.ConcreteProvider;
+import org.arend.util.ComputationInterruptedException;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An ordering that first builds the whole DAG of typechecking units (single definitions and strongly connected components)
+ * and then feeds independent units to the listener concurrently.
+ * The listener, the typechecker state and the error reporter must be safe for concurrent use.
+ */
+public class ParallelOrdering extends Ordering {
+  private final MyCollector myCollector;
+  private final OrderingListener myListener;
+  private final int myThreads;
+
+  private ParallelOrdering(MyCollector collector, InstanceProviderSet instanceProviderSet, ConcreteProvider concreteProvider, OrderingListener orderingListener, ReferableConverter referableConverter, TypecheckerState state, PartialComparator<TCReferable> comparator, int threads) {
+    super(instanceProviderSet, concreteProvider, collector, collector, referableConverter, state, comparator);
+    myCollector = collector;
+    myListener = orderingListener;
+    myThreads = threads;
+  }
+
+  public ParallelOrdering(InstanceProviderSet instanceProviderSet, ConcreteProvider concreteProvider, OrderingListener orderingListener, DependencyListener dependencyListener, ReferableConverter referableConverter, TypecheckerState state, PartialComparator<TCReferable> comparator, int threads) {
+    this(new MyCollector(dependencyListener), instanceProviderSet, concreteProvider, orderingListener, referableConverter, state, comparator, threads);
+  }
+
+  @Override
+  public void orderModules(Collection<? extends Group> modules) {
+    super.orderModules(modules);
+    typecheckCollected();
+  }
+
+  @Override
+  protected void unitFound(Concrete.Definition unit, boolean withLoops) {
+    super.unitFound(unit, withLoops);
+    myCollector.closeUnit();
+  }
+
+  @Override
+  protected void sccFound(List<Concrete.Definition> scc) {
+    super.sccFound(scc);
+    myCollector.closeUnit();
+  }
+
+  /**
+   * Typechecks units collected so far.
+   * A unit is scheduled as soon as all units it depends on are finished.
+   */
+  @Override
+  public void typecheckCollected() {
+    List<MyUnit> units = myCollector.getUnits();
+    if (units.isEmpty()) {
+      return;
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(myThreads);
+    MyScheduler scheduler = new MyScheduler(pool, ComputationRunner.getCancellationIndicator());
+    try {
+      for (MyUnit unit : units) {
+        if (unit.pending.get() == 0) {
+          scheduler.submit(unit);
+        }
+      }
+
+      while (!pool.awaitQuiescence(100, TimeUnit.MILLISECONDS)) {
+        try {
+          ComputationRunner.checkCanceled();
+        } catch (ComputationInterruptedException e) {
+          scheduler.fail(e);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    Throwable error = scheduler.error.get();
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    }
+    if (error instanceof Error) {
+      throw (Error) error;
+    }
+  }
+
+  private static class MyUnit {
+    final CollectingOrderingListener events = new CollectingOrderingListener();
+    final Set<TCReferable> definitions = new LinkedHashSet<>();
+    final Set<MyUnit> dependents = new LinkedHashSet<>();
+    final AtomicInteger pending = new AtomicInteger();
+  }
+
+  private class MyScheduler {
+    private final ForkJoinPool myPool;
+    private final CancellationIndicator myCancellationIndicator;
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    MyScheduler(ForkJoinPool pool, CancellationIndicator cancellationIndicator) {
+      myPool = pool;
+      myCancellationIndicator = cancellationIndicator;
+    }
+
+    void fail(Throwable e) {
+      error.compareAndSet(null, e);
+    }
+
+    void submit(MyUnit unit) {
+      myPool.execute(() -> {
+        if (error.get() != null) {
+          return;
+        }
+        try {
+          ComputationRunner.runWithCancellationIndicator(myCancellationIndicator, () -> unit.events.feed(myListener));
+        } catch (Throwable e) {
+          fail(e);
+          return;
+        }
+        for (MyUnit dependent : unit.dependents) {
+          if (dependent.pending.decrementAndGet() == 0) {
+            submit(dependent);
+          }
+        }
+      });
+    }
+  }
+
+  private static class MyCollector implements OrderingListener, DependencyListener {
+    private final DependencyListener myDependencyListener;
+    private final Map<TCReferable, Set<TCReferable>> myDependencies = new HashMap<>();
+    private final List<MyUnit> myUnits = new ArrayList<>();
+    private MyUnit myCurrentUnit = new MyUnit();
+
+    MyCollector(DependencyListener dependencyListener) {
+      myDependencyListener = dependencyListener;
+    }
+
+    void closeUnit() {
+      if (!myCurrentUnit.definitions.isEmpty()) {
+        myUnits.add(myCurrentUnit);
+        myCurrentUnit = new MyUnit();
+      }
+    }
+
+    List<MyUnit> getUnits() {
+      Map<TCReferable, MyUnit> unitMap = new HashMap<>();
+      for (MyUnit unit : myUnits) {
+        for (TCReferable definition : unit.definitions) {
+          unitMap.put(definition, unit);
+        }
+      }
+
+      for (MyUnit unit : myUnits) {
+        for (TCReferable definition : unit.definitions) {
+          Set<TCReferable> dependencies = myDependencies.get(definition);
+          if (dependencies == null) {
+            continue;
+          }
+          for (TCReferable dependency : dependencies) {
+            MyUnit dependencyUnit = unitMap.get(dependency);
+            if (dependencyUnit != null && dependencyUnit != unit && dependencyUnit.dependents.add(unit)) {
+              unit.pending.incrementAndGet();
+            }
+          }
+        }
+      }
+
+      // Dependencies of definitions which are still being ordered are kept
+      for (MyUnit unit : myUnits) {
+        for (TCReferable definition : unit.definitions) {
+          myDependencies.remove(definition);
+        }
+      }
+      List<MyUnit> result = new ArrayList<>(myUnits);
+      myUnits.clear();
+      return result;
+    }
+
+    @Override
+    public void dependsOn(TCReferable def1, TCReferable def2) {
+      myDependencies.computeIfAbsent(def1, k -> new HashSet<>()).add(def2);
+      myDependencyListener.dependsOn(def1, def2);
+    }
+
+    @Override
+    public Set<? extends TCReferable> update(TCReferable definition) {
+      return myDependencyListener.update(definition);
+    }
+
+    @Override
+    public Set<? extends TCReferable> typechecked(TCReferable definition, boolean isolated) {
+      return myDependencyListener.typechecked(definition, isolated);
+    }
+
+    @Override
+    public void reset(TCReferable definition) {
+      myDependencyListener.reset(definition);
+    }
+
+    @Override
+    public Collection<? extends TCReferable> getUpdatedDependencies(TCReferable definition) {
+      return myDependencyListener.getUpdatedDependencies(definition);
+    }
+
+    private void addDefinitions(List<? extends Concrete.Definition> definitions) {
+      for (Concrete.Definition definition : definitions) {
+        myCurrentUnit.definitions.add(definition.getData());
+      }
+    }
+
+    @Override
+    public void unitFound(Concrete.Definition definition, boolean recursive) {
+      myCurrentUnit.definitions.add(definition.getData());
+      myCurrentUnit.events.unitFound(definition, recursive);
+    }
+
+    @Override
+    public void cycleFound(List<Concrete.Definition> definitions) {
+      addDefinitions(definitions);
+      myCurrentUnit.events.cycleFound(definitions);
+    }
+
+    @Override
+    public void headerFound(Concrete.Definition definition) {
+      myCurrentUnit.definitions.add(definition.getData());
+      myCurrentUnit.events.headerFound(definition);
+    }
+
+    @Override
+    public void bodiesFound(List<Concrete.Definition> definitions) {
+      addDefinitions(definitions);
+      myCurrentUnit.events.bodiesFound(definitions);
+    }
+
+    @Override
+    public void useFound(List<Concrete.UseDefinition> definitions) {
+      addDefinitions(definitions);
+      for (Concrete.UseDefinition definition : definitions) {
+        myCurrentUnit.definitions.add(definition.getUseParent());
+      }
+      myCurrentUnit.events.useFound(definitions);
+    }
+  }
+}
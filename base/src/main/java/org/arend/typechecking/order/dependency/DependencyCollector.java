@@ -1,32 +1,186 @@
 package org.arend.typechecking.order.dependency;
 
 import org.arend.core.definition.*;
+import org.arend.core.expr.visitor.StructuralHashVisitor;
 import org.arend.naming.reference.TCReferable;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.util.Pair;
 
 import java.util.*;
 
+/**
+ * Collects dependencies between definitions and resets dependent definitions when a definition is updated.
+ * <p>
+ * If early cutoff is enabled, {@link #update} resets only the updated function and postpones resetting its dependents until
+ * it is typechecked again (see {@link #typechecked}).
+ * If the structural hash of the function (see {@link StructuralHashVisitor#hashInterface}) did not change
+ * and the new function is equal to the old one up to renaming of bound variables,
+ * the old definition is restored and its dependents are kept.
+ * Bodies of lemmas and other functions that cannot be evaluated are not compared; the new body is moved into the old definition.
+ * If the function is not typechecked again, its dependents are reset when it is updated or reset once more.
+ * Until then, the function is reported to its transitive dependents by {@link #getUpdatedDependencies},
+ * so that orderings typecheck it before they use them.
+ * <p>
+ * The collector can be used by several typechecking threads at once.
+ */
 public class DependencyCollector implements DependencyListener {
   private final Map<TCReferable, Set<TCReferable>> myDependencies = new HashMap<>();
   private final Map<TCReferable, Set<TCReferable>> myReverseDependencies = new HashMap<>();
+  private final Map<TCReferable, Pair<Definition, Long>> myUpdatedDefinitions = new HashMap<>();
+  private final Map<TCReferable, Set<TCReferable>> myUpdatedDependencies = new HashMap<>(); // updated definitions on which a definition depends
+  private final Map<TCReferable, Set<TCReferable>> myMarkedDependents = new HashMap<>(); // the inverse of myUpdatedDependencies
   private final TypecheckerState myState;
+  private final boolean myEarlyCutoff;
 
-  public DependencyCollector(TypecheckerState state) {
+  public DependencyCollector(TypecheckerState state, boolean earlyCutoff) {
     myState = state;
+    myEarlyCutoff = earlyCutoff;
+  }
+
+  public DependencyCollector(TypecheckerState state) {
+    this(state, false);
   }
 
   @Override
-  public void dependsOn(TCReferable def1, TCReferable def2) {
+  public synchronized void dependsOn(TCReferable def1, TCReferable def2) {
     myDependencies.computeIfAbsent(def1, k -> new HashSet<>()).add(def2);
     myReverseDependencies.computeIfAbsent(def2, k -> new HashSet<>()).add(def1);
   }
 
+  private void removeDependencies(TCReferable definition) {
+    Set<TCReferable> dependencies = myDependencies.remove(definition);
+    if (dependencies != null) {
+      for (TCReferable dependency : dependencies) {
+        Set<TCReferable> definitions = myReverseDependencies.get(dependency);
+        if (definitions != null) {
+          definitions.remove(definition);
+        }
+      }
+    }
+  }
+
   @Override
-  public Set<? extends TCReferable> update(TCReferable definition) {
-    if (myState.getTypechecked(definition) == null) {
+  public synchronized Set<? extends TCReferable> update(TCReferable definition) {
+    Definition typechecked = myState.getTypechecked(definition);
+    if (typechecked == null) {
+      // The definition was updated, but it was not typechecked, so its dependents still refer to the old one
+      return removeUpdated(definition) != null ? invalidate(definition, true) : Collections.emptySet();
+    }
+
+    if (myEarlyCutoff && typechecked.status().isOK()) {
+      Long hash = StructuralHashVisitor.hashInterface(typechecked);
+      if (hash != null) {
+        removeDependencies(definition);
+        myState.reset(definition);
+        myUpdatedDefinitions.put(definition, new Pair<>(typechecked, hash));
+        markDependents(definition);
+        return Collections.singleton(definition);
+      }
+    }
+
+    return invalidate(definition, true);
+  }
+
+  @Override
+  public synchronized Set<? extends TCReferable> typechecked(TCReferable definition, boolean isolated) {
+    Pair<Definition, Long> old = removeUpdated(definition);
+    if (old == null) {
       return Collections.emptySet();
     }
 
+    if (isolated) {
+      Definition typechecked = myState.getTypechecked(definition);
+      if (typechecked != null && typechecked.status().isOK() && old.proj2.equals(StructuralHashVisitor.hashInterface(typechecked)) && StructuralHashVisitor.equalInterfaces(old.proj1, typechecked)) {
+        // Dependents refer to the old definition, so we keep it
+        if (old.proj1 instanceof FunctionDefinition && typechecked instanceof FunctionDefinition) {
+          moveBody((FunctionDefinition) typechecked, (FunctionDefinition) old.proj1);
+        }
+        myState.rewrite(definition, old.proj1);
+        return Collections.emptySet();
+      }
+    }
+
+    Set<TCReferable> updated = invalidate(definition, false);
+    updated.remove(definition);
+    return updated;
+  }
+
+  private static void moveBody(FunctionDefinition from, FunctionDefinition to) {
+    if (to.getBody() != null) {
+      return;
+    }
+    // The body refers to the parameters of the new definition, so they are moved too
+    to.setParameters(from.getParameters());
+    to.setResultType(from.getResultType());
+    to.setResultTypeLevel(from.getResultTypeLevel());
+    to.setBody(from.getActualBody());
+  }
+
+  @Override
+  public synchronized void reset(TCReferable definition) {
+    if (removeUpdated(definition) != null) {
+      invalidate(definition, true);
+    }
+  }
+
+  @Override
+  public synchronized Collection<? extends TCReferable> getUpdatedDependencies(TCReferable definition) {
+    Set<TCReferable> updated = myUpdatedDependencies.get(definition);
+    return updated == null ? Collections.emptySet() : new ArrayList<>(updated);
+  }
+
+  /**
+   * Forgets all dependencies and updated definitions.
+   * This should be invoked when all definitions are reset.
+   */
+  public synchronized void clear() {
+    myDependencies.clear();
+    myReverseDependencies.clear();
+    myUpdatedDefinitions.clear();
+    myUpdatedDependencies.clear();
+    myMarkedDependents.clear();
+  }
+
+  private Set<TCReferable> getTransitiveDependents(TCReferable definition) {
+    Set<TCReferable> dependents = new HashSet<>();
+    Stack<TCReferable> stack = new Stack<>();
+    stack.push(definition);
+    while (!stack.isEmpty()) {
+      Set<TCReferable> reverseDependencies = myReverseDependencies.get(stack.pop());
+      if (reverseDependencies != null) {
+        for (TCReferable dependent : reverseDependencies) {
+          if (dependent != definition && dependents.add(dependent)) {
+            stack.push(dependent);
+          }
+        }
+      }
+    }
+    return dependents;
+  }
+
+  private void markDependents(TCReferable definition) {
+    Set<TCReferable> dependents = getTransitiveDependents(definition);
+    for (TCReferable dependent : dependents) {
+      myUpdatedDependencies.computeIfAbsent(dependent, k -> new LinkedHashSet<>()).add(definition);
+    }
+    myMarkedDependents.put(definition, dependents);
+  }
+
+  private Pair<Definition, Long> removeUpdated(TCReferable definition) {
+    Pair<Definition, Long> old = myUpdatedDefinitions.remove(definition);
+    Set<TCReferable> dependents = myMarkedDependents.remove(definition);
+    if (dependents != null) {
+      for (TCReferable dependent : dependents) {
+        Set<TCReferable> updated = myUpdatedDependencies.get(dependent);
+        if (updated != null && updated.remove(definition) && updated.isEmpty()) {
+          myUpdatedDependencies.remove(dependent);
+        }
+      }
+    }
+    return old;
+  }
+
+  private Set<TCReferable> invalidate(TCReferable definition, boolean withRoot) {
     Set<TCReferable> updated = new HashSet<>();
     Stack<TCReferable> stack = new Stack<>();
     stack.push(definition);
@@ -37,14 +191,8 @@ public class DependencyCollector implements DependencyListener {
         continue;
       }
 
-      Set<TCReferable> dependencies = myDependencies.remove(toUpdate);
-      if (dependencies != null) {
-        for (TCReferable dependency : dependencies) {
-          Set<TCReferable> definitions = myReverseDependencies.get(dependency);
-          if (definitions != null) {
-            definitions.remove(definition);
-          }
-        }
+      if (withRoot || toUpdate != definition) {
+        removeDependencies(toUpdate);
       }
 
       Set<TCReferable> reverseDependencies = myReverseDependencies.remove(toUpdate);
@@ -54,6 +202,9 @@ public class DependencyCollector implements DependencyListener {
     }
 
     for (TCReferable updatedDef : updated) {
+      if (!withRoot && updatedDef == definition) {
+        continue;
+      }
       Definition def = myState.reset(updatedDef);
       if (def instanceof ClassDefinition) {
         for (ClassField field : ((ClassDefinition) def).getPersonalFields()) {
@@ -2,9 +2,36 @@ package org.arend.typechecking.order.dependency;
 
 import org.arend.naming.reference.TCReferable;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
 
 public interface DependencyListener {
   void dependsOn(TCReferable def1, TCReferable def2);
   Set<? extends TCReferable> update(TCReferable definition);
+
+  /**
+   * Is invoked after a definition is typechecked.
+   *
+   * @param isolated  true if the definition was typechecked separately from other definitions, that is, not as a part of a mutually recursive group.
+   * @return definitions that should be typechecked again.
+   */
+  default Set<? extends TCReferable> typechecked(TCReferable definition, boolean isolated) {
+    return Collections.emptySet();
+  }
+
+  /**
+   * Is invoked when a definition is reset without being updated; for example, when its library is unloaded.
+   */
+  default void reset(TCReferable definition) {
+
+  }
+
+  /**
+   * @return definitions which were updated, but not typechecked again, and on which the given definition depends.
+   *         They should be typechecked before the definition is used since they may reset it (see {@link #typechecked}).
+   */
+  default Collection<? extends TCReferable> getUpdatedDependencies(TCReferable definition) {
+    return Collections.emptySet();
+  }
 }
@@ -7,6 +7,7 @@ import org.arend.core.definition.*;
 import org.arend.core.expr.ClassCallExpression;
 import org.arend.core.expr.ErrorExpression;
 import org.arend.core.expr.PiExpression;
+import org.arend.core.expr.visitor.NormalizationCache;
 import org.arend.core.sort.Sort;
 import org.arend.error.CompositeErrorReporter;
 import org.arend.error.CountingErrorReporter;
@@ -29,6 +30,7 @@ import org.arend.typechecking.error.local.LocalErrorReporter;
 import org.arend.typechecking.instance.pool.GlobalInstancePool;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.arend.typechecking.order.Ordering;
+import org.arend.typechecking.order.ParallelOrdering;
 import org.arend.typechecking.order.PartialComparator;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.typechecking.order.dependency.DummyDependencyListener;
@@ -41,19 +43,23 @@ import org.arend.util.Pair;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TypecheckingOrderingListener extends ComputationRunner<Boolean> implements OrderingListener {
   private final TypecheckerState myState;
   private final DependencyListener myDependencyListener;
-  private final Map<GlobalReferable, Pair<CheckTypeVisitor,Boolean>> mySuspensions = new HashMap<>();
+  private final Map<GlobalReferable, Pair<CheckTypeVisitor,Boolean>> mySuspensions = new ConcurrentHashMap<>();
   private final ErrorReporter myErrorReporter;
   private final InstanceProviderSet myInstanceProviderSet;
   private final ConcreteProvider myConcreteProvider;
   private final ReferableConverter myReferableConverter;
   private final PartialComparator<TCReferable> myComparator;
   private final ArendExtensionProvider myExtensionProvider;
-  private List<TCReferable> myCurrentDefinitions = Collections.emptyList();
-  private boolean myHeadersAreOK = true;
+  private final Set<TCReferable> myCurrentDefinitions = ConcurrentHashMap.newKeySet();
+  private final Set<TCReferable> myHeadersWithErrors = ConcurrentHashMap.newKeySet();
+  private final Set<TCReferable> myInvalidatedDefinitions = ConcurrentHashMap.newKeySet();
+  private int myThreads = 1;
+  private TypecheckingProfiler myProfiler;
 
   public TypecheckingOrderingListener(InstanceProviderSet instanceProviderSet, TypecheckerState state, ConcreteProvider concreteProvider, ReferableConverter referableConverter, ErrorReporter errorReporter, DependencyListener dependencyListener, PartialComparator<TCReferable> comparator, ArendExtensionProvider extensionProvider) {
     myState = state;
@@ -82,34 +88,103 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
     return myState;
   }
 
+  public int getThreads() {
+    return myThreads;
+  }
+
+  /**
+   * Sets the number of threads used to typecheck modules and libraries.
+   * If it is greater than 1, independent definitions are typechecked concurrently,
+   * so the typechecker state and the error reporter must be thread-safe.
+   */
+  public void setThreads(int threads) {
+    myThreads = Math.max(threads, 1);
+  }
+
+  public @Nullable TypecheckingProfiler getProfiler() {
+    return myProfiler;
+  }
+
+  /**
+   * Sets a profiler that measures the typechecking of each definition.
+   * Counters of the profiler are not enabled by this method; see {@link TypecheckingProfiler#setEnabled}.
+   */
+  public void setProfiler(@Nullable TypecheckingProfiler profiler) {
+    myProfiler = profiler;
+  }
+
+  private void profile(TCReferable definition, Runnable runnable) {
+    if (myProfiler == null) {
+      runnable.run();
+    } else {
+      myProfiler.run(definition, runnable);
+    }
+  }
+
+  private Ordering newOrdering() {
+    return myThreads > 1
+      ? new ParallelOrdering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myState, myComparator, myThreads)
+      : new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myState, myComparator);
+  }
+
   @Override
   protected Boolean computationInterrupted() {
     for (TCReferable currentDefinition : myCurrentDefinitions) {
       typecheckingInterrupted(currentDefinition, myState.reset(currentDefinition));
     }
-    myCurrentDefinitions = Collections.emptyList();
+    myCurrentDefinitions.clear();
+    myHeadersWithErrors.clear();
+    myInvalidatedDefinitions.clear();
     return false;
   }
 
+  private void typechecked(TCReferable definition, boolean isolated) {
+    myInvalidatedDefinitions.addAll(myDependencyListener.typechecked(definition, isolated));
+  }
+
+  /**
+   * Typechecks definitions that were reset by {@link DependencyListener#typechecked}.
+   */
+  private void typecheckInvalidated() {
+    while (!myInvalidatedDefinitions.isEmpty()) {
+      List<TCReferable> invalidated = new ArrayList<>(myInvalidatedDefinitions);
+      myInvalidatedDefinitions.removeAll(invalidated);
+      Ordering ordering = newOrdering();
+      for (TCReferable definition : invalidated) {
+        Concrete.ReferableDefinition concrete = myConcreteProvider.getConcrete(definition);
+        if (concrete instanceof Concrete.Definition) {
+          ordering.order((Concrete.Definition) concrete);
+        }
+      }
+      ordering.typecheckCollected();
+    }
+  }
+
   public boolean typecheckDefinitions(final Collection<? extends Concrete.Definition> definitions, CancellationIndicator cancellationIndicator) {
     return run(cancellationIndicator, () -> {
       Ordering ordering = new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myState, myComparator);
       for (Concrete.Definition definition : definitions) {
         ordering.order(definition);
       }
+      typecheckInvalidated();
       return true;
     });
   }
 
   public boolean typecheckModules(final Collection<? extends Group> modules, CancellationIndicator cancellationIndicator) {
     return run(cancellationIndicator, () -> {
-      new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myState, myComparator).orderModules(modules);
+      newOrdering().orderModules(modules);
+      typecheckInvalidated();
       return true;
     });
   }
 
   public boolean typecheckLibrary(Library library, CancellationIndicator cancellationIndicator) {
-    return run(cancellationIndicator, () -> library.orderModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myState, myComparator)));
+    return run(cancellationIndicator, () -> {
+      boolean ok = library.orderModules(newOrdering());
+      typecheckInvalidated();
+      return ok;
+    });
   }
 
   public boolean typecheckLibrary(Library library) {
@@ -117,11 +192,16 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
   }
 
   public boolean typecheckTests(Library library, CancellationIndicator cancellationIndicator) {
-    return run(cancellationIndicator, () -> library.orderTestModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myState, myComparator)));
+    return run(cancellationIndicator, () -> {
+      boolean ok = library.orderTestModules(newOrdering());
+      typecheckInvalidated();
+      return ok;
+    });
   }
   public boolean typecheckCollected(CollectingOrderingListener collector, CancellationIndicator cancellationIndicator) {
     return run(cancellationIndicator, () -> {
       collector.feed(this);
+      typecheckInvalidated();
       return true;
     });
   }
@@ -189,10 +269,21 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
     return typechecked;
   }
 
+  /**
+   * Instance providers cache classifying heads of instances, so they must be recomputed when an instance is typechecked again.
+   */
+  private void resetInstance(Concrete.Definition definition) {
+    if (definition instanceof Concrete.FunctionDefinition && ((Concrete.FunctionDefinition) definition).getKind() == FunctionKind.INSTANCE) {
+      myInstanceProviderSet.resetInstance(definition.getData());
+    }
+  }
+
   @Override
   public void unitFound(Concrete.Definition definition, boolean recursive) {
-    myHeadersAreOK = true;
+    NormalizationCache.runInScope(() -> profile(definition.getData(), () -> typecheckUnit(definition, recursive)));
+  }
 
+  private void typecheckUnit(Concrete.Definition definition, boolean recursive) {
     if (recursive) {
       Set<TCReferable> dependencies = new HashSet<>();
       definition.accept(new CollectDefCallsVisitor(myConcreteProvider, myInstanceProviderSet.get(definition.getData()), dependencies, false), null);
@@ -200,6 +291,7 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
         typecheckingUnitStarted(definition.getData());
         myErrorReporter.report(new CycleError(Collections.singletonList(definition.getData())));
         typecheckingUnitFinished(definition.getData(), newDefinition(definition));
+        typechecked(definition.getData(), false);
         return;
       }
     }
@@ -211,7 +303,8 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
     CheckTypeVisitor checkTypeVisitor = new CheckTypeVisitor(myState, new LocalErrorReporter(definition.getData(), myErrorReporter), null, myExtensionProvider.getArendExtension(definition.getData()));
     checkTypeVisitor.setInstancePool(new GlobalInstancePool(myInstanceProviderSet.get(definition.getData()), checkTypeVisitor));
     DesugarVisitor.desugar(definition, myConcreteProvider, checkTypeVisitor.getErrorReporter());
-    myCurrentDefinitions = Collections.singletonList(definition.getData());
+    myCurrentDefinitions.add(definition.getData());
+    resetInstance(definition);
     typecheckingUnitStarted(definition.getData());
     clauses = definition.accept(new DefinitionTypechecker(checkTypeVisitor), null);
     typechecked = myState.getTypechecked(definition.getData());
@@ -221,7 +314,8 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
     }
 
     typecheckingUnitFinished(definition.getData(), typechecked);
-    myCurrentDefinitions = Collections.emptyList();
+    myCurrentDefinitions.remove(definition.getData());
+    typechecked(definition.getData(), true);
   }
 
   @Override
@@ -241,13 +335,19 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
       typecheckingUnitStarted(definition.getData());
       mySuspensions.remove(definition.getData());
       typecheckingUnitFinished(definition.getData(), typechecked);
+      typechecked(definition.getData(), false);
     }
     myErrorReporter.report(new CycleError(cycle));
   }
 
   @Override
   public void headerFound(Concrete.Definition definition) {
-    myCurrentDefinitions = Collections.singletonList(definition.getData());
+    NormalizationCache.runInScope(() -> profile(definition.getData(), () -> typecheckHeader(definition)));
+  }
+
+  private void typecheckHeader(Concrete.Definition definition) {
+    myCurrentDefinitions.add(definition.getData());
+    resetInstance(definition);
     typecheckingHeaderStarted(definition.getData());
 
     CountingErrorReporter countingErrorReporter = new CountingErrorReporter();
@@ -262,14 +362,18 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
     }
 
     typecheckingHeaderFinished(definition.getData(), typechecked);
-    myCurrentDefinitions = Collections.emptyList();
+    myCurrentDefinitions.remove(definition.getData());
     if (!typechecked.status().headerIsOK()) {
-      myHeadersAreOK = false;
+      myHeadersWithErrors.add(definition.getData());
     }
   }
 
   @Override
   public void bodiesFound(List<Concrete.Definition> definitions) {
+    NormalizationCache.runInScope(() -> profile(definitions.get(0).getData(), () -> typecheckBodies(definitions)));
+  }
+
+  private void typecheckBodies(List<Concrete.Definition> definitions) {
     Map<FunctionDefinition,Concrete.Definition> functionDefinitions = new HashMap<>();
     Map<FunctionDefinition, List<ExtElimClause>> clausesMap = new HashMap<>();
     Set<DataDefinition> dataDefinitions = new HashSet<>();
@@ -286,17 +390,26 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
     }
     orderedDefinitions.addAll(otherDefs);
 
+    boolean headersAreOK = true;
+    for (Concrete.Definition definition : orderedDefinitions) {
+      if (myHeadersWithErrors.remove(definition.getData())) {
+        headersAreOK = false;
+      }
+    }
+
     DefinitionTypechecker typechecking = new DefinitionTypechecker(null);
-    myCurrentDefinitions = new ArrayList<>();
     for (Concrete.Definition definition : orderedDefinitions) {
       myCurrentDefinitions.add(definition.getData());
     }
     for (Concrete.Definition definition : orderedDefinitions) {
       typecheckingBodyStarted(definition.getData());
+      if (myProfiler != null) {
+        myProfiler.start(definition.getData());
+      }
 
       Definition def = myState.getTypechecked(definition.getData());
       Pair<CheckTypeVisitor, Boolean> pair = mySuspensions.remove(definition.getData());
-      if (myHeadersAreOK && pair != null) {
+      if (headersAreOK && pair != null) {
         typechecking.setTypechecker(pair.proj1);
         List<ExtElimClause> clauses = typechecking.typecheckBody(def, definition, dataDefinitions, pair.proj2);
         if (clauses != null) {
@@ -305,9 +418,9 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
         }
       }
     }
-    myCurrentDefinitions = Collections.emptyList();
-
-    myHeadersAreOK = true;
+    for (Concrete.Definition definition : orderedDefinitions) {
+      myCurrentDefinitions.remove(definition.getData());
+    }
 
     if (!functionDefinitions.isEmpty()) {
       FindDefCallVisitor<DataDefinition> visitor = new FindDefCallVisitor<>(dataDefinitions, false);
@@ -333,17 +446,21 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
     for (Concrete.Definition definition : orderedDefinitions) {
       typecheckingBodyFinished(definition.getData(), myState.getTypechecked(definition.getData()));
     }
+    for (Concrete.Definition definition : definitions) {
+      typechecked(definition.getData(), false);
+    }
   }
 
   @Override
   public void useFound(List<Concrete.UseDefinition> definitions) {
-    myCurrentDefinitions = new ArrayList<>();
+    List<TCReferable> currentDefinitions = new ArrayList<>();
     for (Concrete.UseDefinition definition : definitions) {
-      myCurrentDefinitions.add(definition.getData());
-      myCurrentDefinitions.add(definition.getUseParent());
+      currentDefinitions.add(definition.getData());
+      currentDefinitions.add(definition.getUseParent());
     }
+    myCurrentDefinitions.addAll(currentDefinitions);
     UseTypechecking.typecheck(definitions, myState, myErrorReporter);
-    myCurrentDefinitions = Collections.emptyList();
+    myCurrentDefinitions.removeAll(currentDefinitions);
   }
 
   private void checkRecursiveFunctions(Map<FunctionDefinition,Concrete.Definition> definitions, Map<FunctionDefinition, List<ExtElimClause>> clauses) {
@@ -0,0 +1,242 @@
+package org.arend.typechecking.order.listener;
+
+import org.arend.module.FullModulePath;
+import org.arend.naming.reference.TCReferable;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures wall time, CPU time, and allocated memory of the typechecking of each definition,
+ * and counts normalization steps, comparisons of expressions, and instance searches made while it is typechecked.
+ * <p>
+ * Measurements are made per thread: {@link TypecheckingOrderingListener} invokes {@link #start} when it begins to typecheck a definition
+ * and {@link #stop} when it is done, so everything that happens on the thread in between is attributed to this definition.
+ * Bodies of mutually recursive definitions are typechecked together; each of them gets the time until the next one is started,
+ * and the final checks of the group are attributed to the last one.
+ * <p>
+ * Counters are disabled by default; see {@link #setEnabled}.
+ */
+public class TypecheckingProfiler {
+  public enum Counter { NORMALIZATIONS, COMPARISONS, INSTANCE_SEARCHES }
+
+  private static final Counter[] COUNTERS = Counter.values();
+  private static final ThreadLocal<long[]> THREAD_COUNTERS = ThreadLocal.withInitial(() -> new long[COUNTERS.length]);
+  private static volatile boolean ENABLED = false;
+
+  private final ThreadMXBean myThreadBean = ManagementFactory.getThreadMXBean();
+  private final boolean myCpuTimeSupported;
+  private final boolean myAllocatedBytesSupported;
+  private final ThreadLocal<Interval> myCurrentIntervals = new ThreadLocal<>();
+  private final Map<TCReferable, Record> myRecords = new ConcurrentHashMap<>();
+
+  public TypecheckingProfiler() {
+    myCpuTimeSupported = myThreadBean.isCurrentThreadCpuTimeSupported() && myThreadBean.isThreadCpuTimeEnabled();
+    myAllocatedBytesSupported = myThreadBean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) myThreadBean).isThreadAllocatedMemorySupported() && ((com.sun.management.ThreadMXBean) myThreadBean).isThreadAllocatedMemoryEnabled();
+  }
+
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    ENABLED = enabled;
+  }
+
+  /**
+   * Increments a counter of the current thread.
+   * This method does nothing if counters are disabled.
+   */
+  public static void count(Counter counter) {
+    if (ENABLED) {
+      THREAD_COUNTERS.get()[counter.ordinal()]++;
+    }
+  }
+
+  public static class Record {
+    private final TCReferable myReferable;
+    private long myWallTime;
+    private long myCpuTime;
+    private long myAllocatedBytes;
+    private final long[] myCounters = new long[COUNTERS.length];
+
+    private Record(TCReferable referable) {
+      myReferable = referable;
+    }
+
+    private synchronized void add(long wallTime, long cpuTime, long allocatedBytes, long[] counters) {
+      myWallTime += wallTime;
+      myCpuTime += cpuTime;
+      myAllocatedBytes += allocatedBytes;
+      for (int i = 0; i < counters.length; i++) {
+        myCounters[i] += counters[i];
+      }
+    }
+
+    public TCReferable getReferable() {
+      return myReferable;
+    }
+
+    /**
+     * @return the wall time in nanoseconds.
+     */
+    public synchronized long getWallTime() {
+      return myWallTime;
+    }
+
+    /**
+     * @return the CPU time in nanoseconds or 0 if it is not supported by the JVM.
+     */
+    public synchronized long getCpuTime() {
+      return myCpuTime;
+    }
+
+    /**
+     * @return the number of allocated bytes or 0 if it is not supported by the JVM.
+     */
+    public synchronized long getAllocatedBytes() {
+      return myAllocatedBytes;
+    }
+
+    public synchronized long getCounter(Counter counter) {
+      return myCounters[counter.ordinal()];
+    }
+  }
+
+  private static class Interval {
+    final TCReferable referable;
+    final long wallTime;
+    final long cpuTime;
+    final long allocatedBytes;
+    final long[] counters;
+
+    Interval(TCReferable referable, long wallTime, long cpuTime, long allocatedBytes, long[] counters) {
+      this.referable = referable;
+      this.wallTime = wallTime;
+      this.cpuTime = cpuTime;
+      this.allocatedBytes = allocatedBytes;
+      this.counters = counters;
+    }
+  }
+
+  private long getCpuTime() {
+    return myCpuTimeSupported ? myThreadBean.getCurrentThreadCpuTime() : 0;
+  }
+
+  private long getAllocatedBytes() {
+    return myAllocatedBytesSupported ? ((com.sun.management.ThreadMXBean) myThreadBean).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+  }
+
+  /**
+   * Starts measuring the typechecking of {@code referable} on the current thread.
+   * If another definition is measured on this thread, its measurement is stopped.
+   */
+  public void start(TCReferable referable) {
+    stop();
+    myCurrentIntervals.set(new Interval(referable, System.nanoTime(), getCpuTime(), getAllocatedBytes(), THREAD_COUNTERS.get().clone()));
+  }
+
+  /**
+   * Stops the measurement on the current thread and adds it to the record of the measured definition.
+   */
+  public void stop() {
+    Interval interval = myCurrentIntervals.get();
+    if (interval == null) {
+      return;
+    }
+    myCurrentIntervals.remove();
+
+    long wallTime = System.nanoTime() - interval.wallTime;
+    long cpuTime = getCpuTime() - interval.cpuTime;
+    long allocatedBytes = getAllocatedBytes() - interval.allocatedBytes;
+    long[] counters = THREAD_COUNTERS.get().clone();
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] -= interval.counters[i];
+    }
+    myRecords.computeIfAbsent(interval.referable, Record::new).add(wallTime, cpuTime, allocatedBytes, counters);
+  }
+
+  public void run(TCReferable referable, Runnable runnable) {
+    start(referable);
+    try {
+      runnable.run();
+    } finally {
+      stop();
+    }
+  }
+
+  public @Nullable Record getRecord(TCReferable referable) {
+    return myRecords.get(referable);
+  }
+
+  /**
+   * @return records of all measured definitions sorted by wall time in descending order.
+   */
+  public List<Record> getRecords() {
+    List<Record> records = new ArrayList<>(myRecords.values());
+    records.sort(Comparator.comparingLong(Record::getWallTime).reversed());
+    return records;
+  }
+
+  /**
+   * @return sums of records of definitions of each module sorted by wall time in descending order.
+   *         The referable of a sum is null.
+   */
+  public Map<FullModulePath, Record> getModuleRecords() {
+    Map<FullModulePath, Record> modules = new LinkedHashMap<>();
+    for (Record record : myRecords.values()) {
+      FullModulePath module = record.getReferable().getLocation();
+      if (module != null) {
+        long[] counters = new long[COUNTERS.length];
+        for (Counter counter : COUNTERS) {
+          counters[counter.ordinal()] = record.getCounter(counter);
+        }
+        modules.computeIfAbsent(module, k -> new Record(null)).add(record.getWallTime(), record.getCpuTime(), record.getAllocatedBytes(), counters);
+      }
+    }
+
+    List<Map.Entry<FullModulePath, Record>> entries = new ArrayList<>(modules.entrySet());
+    entries.sort(Comparator.comparingLong((Map.Entry<FullModulePath, Record> entry) -> entry.getValue().getWallTime()).reversed());
+    Map<FullModulePath, Record> result = new LinkedHashMap<>();
+    for (Map.Entry<FullModulePath, Record> entry : entries) {
+      result.put(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+
+  public void clear() {
+    myRecords.clear();
+  }
+
+  private static String escapeCsv(String value) {
+    return value.indexOf(',') >= 0 || value.indexOf('"') >= 0 ? '"' + value.replace("\"", "\"\"") + '"' : value;
+  }
+
+  /**
+   * Writes records of all definitions in the CSV format.
+   * Times are in nanoseconds.
+   */
+  public void writeCsv(Appendable out) throws IOException {
+    out.append("module,definition,wall_ns,cpu_ns,allocated_bytes,normalizations,comparisons,instance_searches\n");
+    for (Record record : getRecords()) {
+      FullModulePath module = record.getReferable().getLocation();
+      out.append(escapeCsv(module == null ? "" : module.toString())).append(',')
+        .append(escapeCsv(record.getReferable().getRefLongName().toString())).append(',')
+        .append(Long.toString(record.getWallTime())).append(',')
+        .append(Long.toString(record.getCpuTime())).append(',')
+        .append(Long.toString(record.getAllocatedBytes()));
+      for (Counter counter : COUNTERS) {
+        out.append(',').append(Long.toString(record.getCounter(counter)));
+      }
+      out.append('\n');
+    }
+  }
+}
@@ -10,6 +10,7 @@ import org.arend.core.definition.Function;
 import org.arend.core.elimtree.*;
 import org.arend.core.expr.*;
 import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.core.expr.visitor.NormalizationCache;
 import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.core.pattern.*;
 import org.arend.core.sort.Sort;
@@ -18,9 +19,13 @@ import org.arend.core.subst.LevelSubstitution;
 import org.arend.error.ListErrorReporter;
 import org.arend.ext.core.ops.CMP;
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
 import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.computation.CancellationIndicator;
+import org.arend.typechecking.computation.ComputationRunner;
 import org.arend.typechecking.error.local.ConditionsError;
+import org.arend.typechecking.implicitargs.equations.DummyEquations;
 import org.arend.typechecking.implicitargs.equations.Equations;
 import org.arend.util.Pair;
 
@@ -28,11 +33,24 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Checks that clauses of functions and constructors agree with conditions of constructors and interval cases.
+ * <p>
+ * In the parallel mode (see {@link #setParallel}), conditions are first collected and then checked on the common fork-join pool.
+ * Each condition is checked with its own error reporter, and errors are reported in the order in which conditions were collected.
+ * Comparisons which may solve inference variables are not independent, so the parallel mode is used only with {@link DummyEquations}.
+ */
 public class ConditionsChecking {
+  private static final int PARALLEL_THRESHOLD = 4;
+  private static volatile boolean PARALLEL = false;
+
   private final Equations myEquations;
   private final ErrorReporter myErrorReporter;
   private final Concrete.SourceNode mySourceNode;
+  private List<ConditionCheck> myDeferredChecks;
 
   public ConditionsChecking(Equations equations, ErrorReporter errorReporter, Concrete.SourceNode sourceNode) {
     myEquations = equations;
@@ -40,9 +58,82 @@ public class ConditionsChecking {
     mySourceNode = sourceNode;
   }
 
+  public static boolean isParallel() {
+    return PARALLEL;
+  }
+
+  public static void setParallel(boolean parallel) {
+    PARALLEL = parallel;
+  }
+
+  private interface ConditionCheck {
+    boolean check(ErrorReporter errorReporter);
+  }
+
+  private void startChecks() {
+    myDeferredChecks = PARALLEL && myEquations instanceof DummyEquations ? new ArrayList<>() : null;
+  }
+
+  /**
+   * Runs a check immediately or defers it until {@link #finishChecks} if checks are run in parallel.
+   *
+   * @return the result of the check or true if it is deferred.
+   */
+  private boolean run(ConditionCheck check) {
+    if (myDeferredChecks == null) {
+      return check.check(myErrorReporter);
+    }
+    myDeferredChecks.add(check);
+    return true;
+  }
+
+  private void report(GeneralError error) {
+    run(errorReporter -> {
+      errorReporter.report(error);
+      return true;
+    });
+  }
+
+  private boolean finishChecks() {
+    List<ConditionCheck> checks = myDeferredChecks;
+    myDeferredChecks = null;
+    if (checks == null) {
+      return true;
+    }
+
+    boolean ok = true;
+    if (checks.size() < PARALLEL_THRESHOLD) {
+      for (ConditionCheck check : checks) {
+        ok = check.check(myErrorReporter) && ok;
+      }
+      return ok;
+    }
+
+    // Tasks run in the cancellation indicator and the normalization cache of the current thread
+    CancellationIndicator cancellationIndicator = ComputationRunner.getCancellationIndicator();
+    NormalizationCache cache = NormalizationCache.getCurrent();
+    List<ListErrorReporter> errorReporters = new ArrayList<>(checks.size());
+    List<ForkJoinTask<Boolean>> tasks = new ArrayList<>(checks.size());
+    for (ConditionCheck check : checks) {
+      ListErrorReporter errorReporter = new ListErrorReporter();
+      errorReporters.add(errorReporter);
+      tasks.add(ForkJoinPool.commonPool().submit(() -> {
+        boolean[] result = new boolean[1];
+        ComputationRunner.runWithCancellationIndicator(cancellationIndicator, () -> NormalizationCache.runWithCache(cache, () -> result[0] = check.check(errorReporter)));
+        return result[0];
+      }));
+    }
+    for (int i = 0; i < tasks.size(); i++) {
+      ok = tasks.get(i).join() && ok;
+      errorReporters.get(i).reportTo(myErrorReporter);
+    }
+    return ok;
+  }
+
   public boolean check(Body body, List<ExtElimClause> clauses, List<? extends Concrete.FunctionClause> cClauses, Definition definition) {
     assert cClauses == null || clauses.size() <= cClauses.size();
 
+    startChecks();
     boolean ok;
     ElimBody elimBody;
     if (body instanceof IntervalElim) {
@@ -64,7 +155,7 @@ public class ConditionsChecking {
       }
     }
 
-    return ok;
+    return finishChecks() && ok;
   }
 
   private boolean checkIntervals(IntervalElim elim, Definition definition) {
@@ -74,10 +165,14 @@ public class ConditionsChecking {
     for (int i = 0; i < cases.size(); i++) {
       DependentLink link2 = link.getNext();
       for (int j = i + 1; j < cases.size(); j++) {
-        ok = checkIntervalCondition(cases.get(i), cases.get(j), true, true, link, link2, definition) && ok;
-        ok = checkIntervalCondition(cases.get(i), cases.get(j), true, false, link, link2, definition) && ok;
-        ok = checkIntervalCondition(cases.get(i), cases.get(j), false, true, link, link2, definition) && ok;
-        ok = checkIntervalCondition(cases.get(i), cases.get(j), false, false, link, link2, definition) && ok;
+        IntervalElim.CasePair case1 = cases.get(i);
+        IntervalElim.CasePair case2 = cases.get(j);
+        DependentLink link1 = link;
+        DependentLink finalLink2 = link2;
+        ok = run(errorReporter -> checkIntervalCondition(case1, case2, true, true, link1, finalLink2, definition, errorReporter)) && ok;
+        ok = run(errorReporter -> checkIntervalCondition(case1, case2, true, false, link1, finalLink2, definition, errorReporter)) && ok;
+        ok = run(errorReporter -> checkIntervalCondition(case1, case2, false, true, link1, finalLink2, definition, errorReporter)) && ok;
+        ok = run(errorReporter -> checkIntervalCondition(case1, case2, false, false, link1, finalLink2, definition, errorReporter)) && ok;
         link2 = link2.getNext();
       }
       link = link.getNext();
@@ -85,7 +180,7 @@ public class ConditionsChecking {
     return ok;
   }
 
-  private boolean checkIntervalCondition(Pair<Expression, Expression> pair1, Pair<Expression, Expression> pair2, boolean isLeft1, boolean isLeft2, DependentLink link1, DependentLink link2, Definition definition) {
+  private boolean checkIntervalCondition(Pair<Expression, Expression> pair1, Pair<Expression, Expression> pair2, boolean isLeft1, boolean isLeft2, DependentLink link1, DependentLink link2, Definition definition, ErrorReporter errorReporter) {
     Expression case1 = isLeft1 ? pair1.proj1 : pair1.proj2;
     Expression case2 = isLeft2 ? pair2.proj1 : pair2.proj2;
     if (case1 == null || case2 == null) {
@@ -105,7 +200,7 @@ public class ConditionsChecking {
       for (DependentLink link3 = definition.getParameters(); link3.hasNext(); link3 = link3.getNext()) {
         defCallArgs2.add(link3 == link2 ? (isLeft2 ? ExpressionFactory.Left() : ExpressionFactory.Right()) : new ReferenceExpression(link3));
       }
-      myErrorReporter.report(new ConditionsError(new Condition(definition.getDefCall(Sort.STD, defCallArgs1), substitution1, evaluatedExpr1), new Condition(definition.getDefCall(Sort.STD, defCallArgs2), substitution2, evaluatedExpr2), mySourceNode));
+      errorReporter.report(new ConditionsError(new Condition(definition.getDefCall(Sort.STD, defCallArgs1), substitution1, evaluatedExpr1), new Condition(definition.getDefCall(Sort.STD, defCallArgs2), substitution2, evaluatedExpr2), mySourceNode));
       return false;
     } else {
       return true;
@@ -113,30 +208,38 @@ public class ConditionsChecking {
   }
 
   private boolean checkIntervalClause(IntervalElim elim, ElimClause<ExpressionPattern> clause, Concrete.SourceNode sourceNode, Definition definition) {
+    // Paths and patterns of the clause do not depend on the case, so they are computed once
+    ExprSubstitution pathSubstitution = new ExprSubstitution();
+    collectPaths(clause.getPatterns(), pathSubstitution);
+    List<Expression> patternExprs = new ArrayList<>(clause.getPatterns().size());
+    for (ExpressionPattern pattern : clause.getPatterns()) {
+      patternExprs.add(pattern.toExpression().subst(pathSubstitution));
+    }
+
     boolean ok = true;
     List<IntervalElim.CasePair> cases = elim.getCases();
     int prefixLength = DependentLink.Helper.size(definition.getParameters()) - elim.getCases().size();
     for (int i = 0; i < cases.size(); i++) {
-      ok = checkIntervalClauseCondition(cases.get(i), true, prefixLength + i, clause, sourceNode, definition) && ok;
-      ok = checkIntervalClauseCondition(cases.get(i), false, prefixLength + i, clause, sourceNode, definition) && ok;
+      IntervalElim.CasePair pair = cases.get(i);
+      int index = prefixLength + i;
+      ok = run(errorReporter -> checkIntervalClauseCondition(pair, true, index, clause, pathSubstitution, patternExprs, sourceNode, definition, errorReporter)) && ok;
+      ok = run(errorReporter -> checkIntervalClauseCondition(pair, false, index, clause, pathSubstitution, patternExprs, sourceNode, definition, errorReporter)) && ok;
     }
     return ok;
   }
 
-  private boolean checkIntervalClauseCondition(Pair<Expression, Expression> pair, boolean isLeft, int index, ElimClause<ExpressionPattern> clause, Concrete.SourceNode sourceNode, Definition definition) {
+  private boolean checkIntervalClauseCondition(Pair<Expression, Expression> pair, boolean isLeft, int index, ElimClause<ExpressionPattern> clause, ExprSubstitution clausePathSubstitution, List<Expression> patternExprs, Concrete.SourceNode sourceNode, Definition definition, ErrorReporter errorReporter) {
     Expression expr = isLeft ? pair.proj1 : pair.proj2;
     if (expr == null || clause.getExpression() == null) {
       return true;
     }
 
-    ExprSubstitution pathSubstitution = new ExprSubstitution();
-    collectPaths(clause.getPatterns(), pathSubstitution);
-
+    ExprSubstitution pathSubstitution = new ExprSubstitution(clausePathSubstitution);
     ExprSubstitution substitution1 = new ExprSubstitution();
     DependentLink link = definition.getParameters();
     for (int i = 0; i < clause.getPatterns().size(); i++) {
       if (i != index) {
-        substitution1.add(link, clause.getPatterns().get(i).toExpression().subst(pathSubstitution));
+        substitution1.add(link, patternExprs.get(i));
       }
       link = link.getNext();
     }
@@ -179,7 +282,7 @@ public class ConditionsChecking {
         }
       }
 
-      myErrorReporter.report(new ConditionsError(new Condition(definition.getDefCall(Sort.STD, defCallArgs1), substitution1, evaluatedExpr1), new Condition(definition.getDefCall(Sort.STD, defCallArgs2), substitution2, evaluatedExpr2), sourceNode));
+      errorReporter.report(new ConditionsError(new Condition(definition.getDefCall(Sort.STD, defCallArgs1), substitution1, evaluatedExpr1), new Condition(definition.getDefCall(Sort.STD, defCallArgs2), substitution2, evaluatedExpr2), sourceNode));
       return false;
     } else {
       return true;
@@ -210,13 +313,14 @@ public class ConditionsChecking {
   public boolean check(List<ExtElimClause> clauses, List<? extends Concrete.FunctionClause> cClauses, ElimBody elimBody) {
     assert cClauses == null || clauses.size() <= cClauses.size();
 
+    startChecks();
     boolean ok = true;
     for (int i = 0; i < clauses.size(); i++) {
       if (!checkClause(clauses.get(i), cClauses == null ? mySourceNode : cClauses.get(i), elimBody, null)) {
         ok = false;
       }
     }
-    return ok;
+    return finishChecks() && ok;
   }
 
   @SuppressWarnings("BooleanMethodIsAlwaysInverted")
@@ -253,18 +357,9 @@ public class ConditionsChecking {
         }
       }
 
-      Expression evaluatedExpr1;
-      if (elimBody != null && (definition == null || expr instanceof GoalErrorExpression)) {
-        evaluatedExpr1 = NormalizeVisitor.INSTANCE.eval(elimBody, pair.proj1, new ExprSubstitution(), LevelSubstitution.EMPTY);
-        if (evaluatedExpr1 == null && definition != null) {
-          evaluatedExpr1 = definition.getDefCall(Sort.STD, pair.proj1);
-        }
-      } else {
-        evaluatedExpr1 = definition.getDefCall(Sort.STD, pair.proj1);
-      }
-
       if (expr instanceof GoalErrorExpression) {
         GoalErrorExpression goalExpr = (GoalErrorExpression) expr;
+        Expression evaluatedExpr1 = evaluate(elimBody, definition, true, pair.proj1);
         if (evaluatedExpr1 != null) {
           goalExpr.goalError.addCondition(new Condition(null, pair.proj2, evaluatedExpr1));
         }
@@ -272,7 +367,9 @@ public class ConditionsChecking {
           ok = false;
         }
       } else {
-        if (!checkCondition(expr, pair, evaluatedExpr1, clause, definition, sourceNode, myErrorReporter)) {
+        Expression finalExpr = expr;
+        ElimBody finalElimBody = elimBody;
+        if (!run(errorReporter -> checkCondition(finalExpr, pair, evaluate(finalElimBody, definition, false, pair.proj1), clause, definition, sourceNode, errorReporter))) {
           ok = false;
         }
       }
@@ -280,6 +377,15 @@ public class ConditionsChecking {
     return ok;
   }
 
+  private static Expression evaluate(ElimBody elimBody, Definition definition, boolean isGoal, List<Expression> args) {
+    if (elimBody != null && (definition == null || isGoal)) {
+      Expression result = NormalizeVisitor.INSTANCE.eval(elimBody, args, new ExprSubstitution(), LevelSubstitution.EMPTY);
+      return result == null && definition != null ? definition.getDefCall(Sort.STD, args) : result;
+    } else {
+      return definition.getDefCall(Sort.STD, args);
+    }
+  }
+
   private boolean checkCondition(Expression expr, Pair<List<Expression>, ExprSubstitution> pair, Expression evaluatedExpr1, ExtElimClause clause, Definition definition, Concrete.SourceNode sourceNode, ErrorReporter errorReporter) {
     Expression evaluatedExpr2 = expr.subst(pair.proj2);
     if (evaluatedExpr1 == null || !CompareVisitor.compare(myEquations, CMP.EQ, evaluatedExpr1, evaluatedExpr2, null, sourceNode)) {
@@ -382,7 +488,7 @@ public class ConditionsChecking {
         }
         ExprSubstitution substitution1 = new ExprSubstitution();
         ExprSubstitution substitution2 = new ExprSubstitution();
-        if (ExpressionPattern.unify(conPattern.getSubPatterns(), Objects.requireNonNull(Pattern.toExpressionPatterns(clause.getPatterns(), constructor.getParameters())), idpSubst, substitution1, substitution2, myErrorReporter, sourceNode)) {
+        if (ExpressionPattern.unify(conPattern.getSubPatterns(), Objects.requireNonNull(Pattern.toExpressionPatterns(clause.getPatterns(), constructor.getParameters())), idpSubst, substitution1, substitution2, this::report, sourceNode)) {
           result.add(new Pair<>(clause.getExpression().subst(substitution2), substitution1));
         }
       }
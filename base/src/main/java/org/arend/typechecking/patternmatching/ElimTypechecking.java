@@ -26,6 +26,7 @@ import org.arend.ext.error.TypecheckingError;
 import org.arend.naming.reference.Referable;
 import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.error.ErrorReporterCounter;
 import org.arend.typechecking.error.local.*;
 import org.arend.typechecking.implicitargs.equations.Equations;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
@@ -41,7 +42,7 @@ import static org.arend.core.expr.ExpressionFactory.Left;
 import static org.arend.core.expr.ExpressionFactory.Right;
 
 public class ElimTypechecking {
-  private final ErrorReporter myErrorReporter;
+  private final ErrorReporterCounter myErrorReporter;
   private final Equations myEquations;
   private Set<Integer> myUnusedClauses;
   private final PatternTypechecking.Mode myMode;
@@ -63,7 +64,7 @@ public class ElimTypechecking {
   }
 
   public ElimTypechecking(ErrorReporter errorReporter, Equations equations, Expression expectedType, PatternTypechecking.Mode mode, @Nullable Integer level, @NotNull Level actualLevel, boolean isSFunc, List<? extends Concrete.FunctionClause> clauses, Concrete.SourceNode sourceNode) {
-    myErrorReporter = errorReporter;
+    myErrorReporter = new ErrorReporterCounter(null, errorReporter);
     myEquations = equations;
     myExpectedType = expectedType;
     myMode = mode;
@@ -105,7 +106,7 @@ public class ElimTypechecking {
   }
 
   public ElimTypechecking(ErrorReporter errorReporter, Equations equations, Expression expectedType, PatternTypechecking.Mode mode, List<? extends Concrete.FunctionClause> clauses, Concrete.SourceNode sourceNode) {
-    myErrorReporter = errorReporter;
+    myErrorReporter = new ErrorReporterCounter(null, errorReporter);
     myEquations = equations;
     myExpectedType = expectedType;
     myMode = mode;
@@ -327,7 +328,49 @@ public class ElimTypechecking {
     return dataCall == null ? null : dataCall.getMatchedConstructors();
   }
 
-  private static List<List<ExpressionPattern>> generateMissingClauses(List<DependentLink> eliminatedParameters, int i, ExprSubstitution substitution) {
+  private static List<List<ExpressionPattern>> generateMissingClauses(List<DependentLink> eliminatedParameters) {
+    // independent.get(i) is true if the types of parameters starting from i do not depend on previous parameters
+    int size = eliminatedParameters.size();
+    List<Boolean> independent = new ArrayList<>(Collections.nCopies(size + 1, true));
+    int minDependency = size;
+    for (int j = size - 1; j > 0; j--) {
+      Expression type = eliminatedParameters.get(j).getTypeExpr();
+      for (int k = 0; k < j && k < minDependency; k++) {
+        if (type.findBinding(eliminatedParameters.get(k))) {
+          minDependency = k;
+          break;
+        }
+      }
+      independent.set(j, minDependency >= j);
+    }
+    return generateMissingClauses(eliminatedParameters, 0, new ExprSubstitution(), independent, new ArrayList<>(Collections.nCopies(size + 1, null)));
+  }
+
+  private static List<List<ExpressionPattern>> copyClauses(List<List<ExpressionPattern>> clauses) {
+    List<List<ExpressionPattern>> result = new ArrayList<>(clauses.size());
+    for (List<ExpressionPattern> clause : clauses) {
+      result.add(new ArrayList<>(clause));
+    }
+    return result;
+  }
+
+  /**
+   * Generates missing clauses for eliminated parameters starting from {@code i}.
+   * Clauses for a suffix of parameters which does not depend on previous parameters are generated once and stored in {@code memo}.
+   */
+  private static List<List<ExpressionPattern>> generateMissingClauses(List<DependentLink> eliminatedParameters, int i, ExprSubstitution substitution, List<Boolean> independent, List<List<List<ExpressionPattern>>> memo) {
+    if (independent.get(i) && memo.get(i) != null) {
+      return copyClauses(memo.get(i));
+    }
+
+    List<List<ExpressionPattern>> result = generateMissingClausesFrom(eliminatedParameters, i, substitution, independent, memo);
+    if (independent.get(i)) {
+      memo.set(i, copyClauses(result));
+    }
+    return result;
+  }
+
+  private static List<List<ExpressionPattern>> generateMissingClausesFrom(List<DependentLink> eliminatedParameters, int i, ExprSubstitution substitution, List<Boolean> independent, List<List<List<ExpressionPattern>>> memo) {
     if (i == eliminatedParameters.size()) {
       List<List<ExpressionPattern>> result = new ArrayList<>();
       result.add(new ArrayList<>());
@@ -355,7 +398,7 @@ public class ElimTypechecking {
             subPatterns.add(new BindingPattern(link1));
           }
           substitution.add(link, ConCallExpression.make(conCall.getDefinition(), conCall.getSortArgument(), conCall.getDataTypeArguments(), arguments));
-          List<List<ExpressionPattern>> result = generateMissingClauses(eliminatedParameters, i + 1, substitution);
+          List<List<ExpressionPattern>> result = generateMissingClauses(eliminatedParameters, i + 1, substitution, independent, memo);
 
           boolean hasEmpty = false;
           if (result.size() == 1) {
@@ -393,7 +436,7 @@ public class ElimTypechecking {
       }
       return totalResult;
     } else {
-      List<List<ExpressionPattern>> result = generateMissingClauses(eliminatedParameters, i + 1, substitution);
+      List<List<ExpressionPattern>> result = generateMissingClauses(eliminatedParameters, i + 1, substitution, independent, memo);
       for (List<ExpressionPattern> patterns : result) {
         patterns.add(new BindingPattern(link));
       }
@@ -424,7 +467,7 @@ public class ElimTypechecking {
       }
     }
 
-    List<List<ExpressionPattern>> missingClauses = generateMissingClauses(elimParams.isEmpty() ? DependentLink.Helper.toList(parameters) : elimParams, 0, new ExprSubstitution());
+    List<List<ExpressionPattern>> missingClauses = generateMissingClauses(elimParams.isEmpty() ? DependentLink.Helper.toList(parameters) : elimParams);
 
     if (myLevel != null) {
       missingClauses.removeIf(clause -> numberOfIntervals(clause) > myLevel);
@@ -606,6 +649,15 @@ public class ElimTypechecking {
     return result;
   }
 
+  private static boolean hasIndexedConstructors(List<? extends ExpressionPattern> patterns) {
+    for (ExpressionPattern pattern : patterns) {
+      if (pattern.getDefinition() instanceof Constructor && ((Constructor) pattern.getDefinition()).getDataType().hasIndexedConstructors() || hasIndexedConstructors(pattern.getSubPatterns())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private static boolean isConsequent(List<Integer> list) {
     for (int i = 0; i < list.size(); i++) {
       if (list.get(i) != i) {
@@ -738,10 +790,15 @@ public class ElimTypechecking {
       }
 
       boolean hasVars = false;
+      boolean dependsOnSubstitution = false;
+      Set<BranchKey> matchedKeys = new HashSet<>();
       Map<BranchKey, List<ExtElimClause>> branchKeyMap = new LinkedHashMap<>();
       for (ExtElimClause clause : clauses) {
         if (clause.getPatterns().get(index) instanceof BindingPattern) {
           hasVars = true;
+          if (!dependsOnSubstitution && hasIndexedConstructors(clause.getPatterns().subList(index + 1, clause.getPatterns().size()))) {
+            dependsOnSubstitution = true;
+          }
           for (BranchKey key : branchKeys) {
             branchKeyMap.computeIfAbsent(key, k -> new ArrayList<>()).add(clause);
           }
@@ -752,6 +809,7 @@ public class ElimTypechecking {
             key = branchKeys.get(0);
           }
           if (key != null) {
+            matchedKeys.add(key);
             branchKeyMap.computeIfAbsent(key, k -> new ArrayList<>()).add(clause);
           }
         }
@@ -771,12 +829,29 @@ public class ElimTypechecking {
         }
       }
 
+      // Constructors that do not occur in this column get the clauses with variables.
+      // If such constructors have the same number of parameters, their subtrees coincide, so the subtree is constructed once.
+      // It is shared only if its construction did not report anything since errors and missing clauses mention the constructor.
+      Map<Integer, ElimTree> defaultElimTrees = hasVars && !dependsOnSubstitution ? new HashMap<>() : null;
       BranchElimTree branchElimTree = new BranchElimTree(index, hasVars);
       for (BranchKey branchKey : branchKeys) {
         List<ExtElimClause> conClauseList = branchKeyMap.get(branchKey);
         if (conClauseList == null) {
           continue;
         }
+
+        int defaultArity = -1;
+        if (defaultElimTrees != null && branchKey instanceof Constructor && branchKey.getBody() == null && !matchedKeys.contains(branchKey)) {
+          defaultArity = DependentLink.Helper.size(branchKey.getParameters());
+          ElimTree defaultElimTree = defaultElimTrees.get(defaultArity);
+          if (defaultElimTree != null) {
+            branchElimTree.addChild(branchKey, defaultElimTree);
+            continue;
+          }
+        }
+        int numberOfErrors = myErrorReporter.getErrorsNumber();
+        int numberOfMissingClauses = myMissingClauses == null ? 0 : myMissingClauses.size();
+
         myContext.push(Util.makeDataClauseElem(branchKey, someConPattern));
 
         for (int i = 0; i < conClauseList.size(); i++) {
@@ -869,6 +944,9 @@ public class ElimTypechecking {
           myOK = false;
         } else {
           branchElimTree.addChild(branchKey, elimTree);
+          if (defaultArity >= 0 && numberOfErrors == myErrorReporter.getErrorsNumber() && numberOfMissingClauses == (myMissingClauses == null ? 0 : myMissingClauses.size())) {
+            defaultElimTrees.put(defaultArity, elimTree);
+          }
         }
 
         myContext.pop();
@@ -933,12 +1011,20 @@ public class ElimTypechecking {
     myMissingClauses.add(new Pair<>(clause, isInterval));
   }
 
-  private void collectClauseIndices(ElimTree elimTree, Set<Integer> indices) {
+  private static void collectClauseIndices(ElimTree elimTree, Set<Integer> indices) {
+    collectClauseIndices(elimTree, indices, Collections.newSetFromMap(new IdentityHashMap<>()));
+  }
+
+  // Subtrees may be shared, so every node is visited once
+  private static void collectClauseIndices(ElimTree elimTree, Set<Integer> indices, Set<ElimTree> visited) {
+    if (!visited.add(elimTree)) {
+      return;
+    }
     if (elimTree instanceof LeafElimTree) {
       indices.add(((LeafElimTree) elimTree).getClauseIndex());
     } else if (elimTree instanceof BranchElimTree) {
       for (Map.Entry<BranchKey, ElimTree> entry : ((BranchElimTree) elimTree).getChildren()) {
-        collectClauseIndices(entry.getValue(), indices);
+        collectClauseIndices(entry.getValue(), indices, visited);
       }
     } else {
       throw new IllegalStateException();
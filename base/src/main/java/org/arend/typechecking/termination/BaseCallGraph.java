@@ -5,51 +5,59 @@ package org.arend.typechecking.termination;
 import java.util.*;
 
 public abstract class BaseCallGraph<T> {
-  private HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> myGraph = new HashMap<>();
+  private final HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> myGraph = new HashMap<>();
   private boolean isCompositionClosed = false;
 
   BaseCallGraph() {
   }
 
+  /**
+   * Computes the composition closure of {@code g}.
+   * <p>
+   * The closure is computed semi-naively: in each round, only the edges discovered in the previous round are composed with the graph,
+   * since compositions of older edges were already added.
+   */
   BaseCallGraph(BaseCallGraph<T> g) {
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> newGraph;
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> oldGraph = g.myGraph;
-    int myNewEdges;
-
-    do {
-      myNewEdges = 0;
-      newGraph = new HashMap<>();
-
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = oldGraph.get(vDom);
-        for (T vCodom : outboundEdges.keySet()) {
-          for (BaseCallMatrix<T> edge : outboundEdges.get(vCodom)) {
-            append(edge, newGraph);
+    List<BaseCallMatrix<T>> newEdges = new ArrayList<>();
+    for (HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges : g.myGraph.values()) {
+      for (HashSet<BaseCallMatrix<T>> edges : outboundEdges.values()) {
+        for (BaseCallMatrix<T> edge : edges) {
+          if (append(edge, myGraph)) {
+            newEdges.add(edge);
           }
         }
       }
+    }
 
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = oldGraph.get(vDom);
-        for (T vCodom : outboundEdges.keySet()) {
-          for (BaseCallMatrix<T> edge : outboundEdges.get(vCodom)) {
-            HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges2 = oldGraph.get(edge.getCodomain());
-            if (outboundEdges2 != null) {
-              for (HashSet<BaseCallMatrix<T>> edgesSheaf : outboundEdges2.values()) {
-                for (BaseCallMatrix<T> edge2 : edgesSheaf) {
-                  if (append(new CompositeCallMatrix<>(edge, edge2), newGraph)) {
-                    myNewEdges++;
-                  }
-                }
-              }
+    while (!newEdges.isEmpty()) {
+      List<BaseCallMatrix<T>> compositions = new ArrayList<>();
+      for (BaseCallMatrix<T> edge : newEdges) {
+        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = myGraph.get(edge.getCodomain());
+        if (outboundEdges != null) {
+          for (HashSet<BaseCallMatrix<T>> edges : outboundEdges.values()) {
+            for (BaseCallMatrix<T> edge2 : edges) {
+              compositions.add(new CompositeCallMatrix<>(edge, edge2));
+            }
+          }
+        }
+        for (HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges1 : myGraph.values()) {
+          HashSet<BaseCallMatrix<T>> edges = outboundEdges1.get(edge.getDomain());
+          if (edges != null) {
+            for (BaseCallMatrix<T> edge1 : edges) {
+              compositions.add(new CompositeCallMatrix<>(edge1, edge));
             }
           }
         }
       }
-      oldGraph = newGraph;
-    } while (myNewEdges > 0);
 
-    myGraph = newGraph;
+      newEdges = new ArrayList<>();
+      for (BaseCallMatrix<T> edge : compositions) {
+        if (append(edge, myGraph)) {
+          newEdges.add(edge);
+        }
+      }
+    }
+
     isCompositionClosed = true;
   }
 
@@ -77,41 +85,26 @@ public abstract class BaseCallGraph<T> {
     return result.toString();
   }
 
+  /**
+   * Adds an edge to the graph unless it is subsumed by an existing edge.
+   * An edge {@code cm} is subsumed by {@code c} if {@code c.leq(cm)}:
+   * every composition with {@code cm} is subsumed by the corresponding composition with {@code c},
+   * and a termination order of {@code c} is also a termination order of {@code cm}, so {@code cm} can be omitted.
+   * Edges subsumed by the new one are removed.
+   *
+   * @return true if the edge was added.
+   */
   private static <T> boolean append(BaseCallMatrix<T> cm, HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> graph) {
-    HashSet<BaseCallMatrix<T>> set;
-    HashMap<T, HashSet<BaseCallMatrix<T>>> map;
-    if (!(graph.containsKey(cm.getDomain()))) {
-      map = new HashMap<>();
-      set = new HashSet<>();
-      set.add(cm);
-      map.put(cm.getCodomain(), set);
-      graph.put(cm.getDomain(), map);
-      return true;
-    } else {
-      map = graph.get(cm.getDomain());
-      if (!(map.containsKey(cm.getCodomain()))) {
-        set = new HashSet<>();
-        set.add(cm);
-        map.put(cm.getCodomain(), set);
-        return true;
-      } else {
-        set = map.get(cm.getCodomain());
-        boolean alreadyContainsEqual = false;
-
-        for (BaseCallMatrix<T> c : set) {
-          if (cm.equals(c)) {
-            alreadyContainsEqual = true;
-            break;
-          }
-        }
-
-        if (!(alreadyContainsEqual)) {
-          set.add(cm);
-        }
-
-        return !alreadyContainsEqual;
+    HashSet<BaseCallMatrix<T>> set = graph.computeIfAbsent(cm.getDomain(), k -> new HashMap<>()).computeIfAbsent(cm.getCodomain(), k -> new HashSet<>());
+    for (BaseCallMatrix<T> c : set) {
+      if (c.leq(cm)) {
+        return false;
       }
     }
+
+    set.removeIf(cm::leq);
+    set.add(cm);
+    return true;
   }
 
   public boolean checkTermination() {
@@ -9,7 +9,6 @@ import org.arend.ext.prettyprinting.doc.DocStringBuilder;
 import org.arend.util.StringFormat;
 
 import java.util.Arrays;
-import java.util.HashMap;
 
 public abstract class BaseCallMatrix<T> {
   public enum R {
@@ -18,36 +17,6 @@ public abstract class BaseCallMatrix<T> {
     LessThan()
   }
 
-  private static BaseCallMatrix.R rmul(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    switch (a) {
-      case Equal:
-        switch (b) {
-          case Equal:
-            return BaseCallMatrix.R.Equal;
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      case LessThan:
-        switch (b) {
-          case Equal:
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      default:
-        return BaseCallMatrix.R.Unknown;
-    }
-  }
-
-  private static BaseCallMatrix.R radd(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    if (a == R.LessThan || b == R.LessThan) return R.LessThan;
-    if (a == R.Equal || b == R.Equal) return R.Equal;
-    return R.Unknown;
-  }
-
   static boolean rleq(BaseCallMatrix.R a, BaseCallMatrix.R b) {
     switch (a) {
       case LessThan:
@@ -59,57 +28,61 @@ public abstract class BaseCallMatrix<T> {
     }
   }
 
-  private HashMap<Integer, BaseCallMatrix.CallMatrixEntry> myMatrixMap = new HashMap<>();
-  private BaseCallMatrix.R[][] fallbackMatrix = null;
+  /*
+   * Cells are packed into words, 2 bits per cell, row by row; each row starts with a new word.
+   * The encoding is chosen so that the order Unknown < Equal < LessThan is the inclusion of bits:
+   * the low bit of a cell means that the relation is known and the high bit means that it is strict.
+   * Then radd is bitwise or, and rleq(a, b) holds if and only if (a & ~b) == 0.
+   */
+  private static final int CELLS_PER_WORD = Long.SIZE / 2;
+  private static final long UNKNOWN = 0;
+  private static final long EQUAL = 1;
+  private static final long LESS_THAN = 3;
+  private static final long CELL_MASK = 3;
+  private static final long LOW_BITS = 0x5555555555555555L;
 
+  private final long[] myCells;
+  private final int myRowWords;
   private final int myWidth;
   private final int myHeight;
 
   BaseCallMatrix(int width, int height) {
     myWidth = width;
     myHeight = height;
+    myRowWords = (width + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+    myCells = new long[height * myRowWords];
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m) {
     // copy constructor 
     myWidth = m.myWidth;
     myHeight = m.myHeight;
-    if (m.myMatrixMap != null) {
-      for (Integer j : m.myMatrixMap.keySet()) {
-        BaseCallMatrix.CallMatrixEntry cme = m.myMatrixMap.get(j);
-        myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(cme.myIndex, cme.myRel));
-      }
-    } else {
-      fallbackMatrix = new BaseCallMatrix.R[myHeight][myWidth];
-      for (int i = 0; i < myHeight; i++) System.arraycopy(m.fallbackMatrix[i], 0, fallbackMatrix[i], 0, myWidth);
-    }
+    myRowWords = m.myRowWords;
+    myCells = m.myCells.clone();
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m1, BaseCallMatrix<T> m2) {
     // multiplication constructor 
+    this(m2.myWidth, m1.myHeight);
     if (m1.myWidth != m2.myHeight) {
       throw new IllegalArgumentException();
     }
-    myHeight = m1.myHeight;
-    myWidth = m2.myWidth;
 
-    if (m1.myMatrixMap != null && m2.myMatrixMap != null) {
-      for (int j = 0; j < myWidth; j++) {
-        BaseCallMatrix.CallMatrixEntry cme2 = m2.myMatrixMap.get(j);
-        if (cme2 != null) {
-          BaseCallMatrix.CallMatrixEntry cme = m1.myMatrixMap.get(cme2.myIndex);
-          if (cme != null) {
-            myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(cme.myIndex, rmul(cme.myRel, cme2.myRel)));
-          }
+    // Row i of the product is the sum of rows k of m2 multiplied by m1[i][k].
+    // Multiplication by Equal is the identity, and multiplication by LessThan makes every known cell strict.
+    for (int i = 0; i < myHeight; i++) {
+      int row = i * myRowWords;
+      for (int k = 0; k < m1.myWidth; k++) {
+        long r = m1.getCell(i, k);
+        if (r == UNKNOWN) {
+          continue;
         }
-      }
-    } else {
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++) {
-          BaseCallMatrix.R s = R.Unknown;
-          for (int k = 0; k < m1.myWidth; k++) s = radd(s, rmul(m1.getValue(i, k), m2.getValue(k, j)));
-          set(i, j, s);
+        int row2 = k * m2.myRowWords;
+        for (int w = 0; w < myRowWords; w++) {
+          long cells = m2.myCells[row2 + w];
+          myCells[row + w] |= r == LESS_THAN ? cells | (cells & LOW_BITS) << 1 : cells;
         }
+      }
     }
   }
 
@@ -127,62 +100,31 @@ public abstract class BaseCallMatrix<T> {
 
   public abstract int getCompositeLength();
 
-  public void set(int i, int j, BaseCallMatrix.R v) {
-    if (myMatrixMap != null) {
-      BaseCallMatrix.CallMatrixEntry cm = myMatrixMap.get(j);
-      if (cm != null) {
-        if (cm.myIndex != i && v != R.Unknown) {
-          enterFallBackMode();
-          fallbackMatrix[i][j] = v;
-        } else if (cm.myIndex == i) {
-          if (v == R.Unknown) myMatrixMap.put(j, null);
-          else cm.myRel = v;
-        }
-      } else if (v != R.Unknown) {
-        myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(i, v));
-      }
-    } else {
-      fallbackMatrix[i][j] = v;
-    }
+  private long getCell(int i, int j) {
+    return (myCells[i * myRowWords + j / CELLS_PER_WORD] >>> (2 * (j % CELLS_PER_WORD))) & CELL_MASK;
   }
 
-  public BaseCallMatrix.R getValue(int i, int j) {
-    if (myMatrixMap != null) {
-      BaseCallMatrix.CallMatrixEntry cme = myMatrixMap.get(j);
-      BaseCallMatrix.R result2 = BaseCallMatrix.R.Unknown;
-      if (cme != null && cme.myIndex == i) {
-        result2 = cme.myRel;
-      }
-      return result2;
-    } else {
-      return fallbackMatrix[i][j];
-    }
+  public void set(int i, int j, BaseCallMatrix.R v) {
+    int index = i * myRowWords + j / CELLS_PER_WORD;
+    int shift = 2 * (j % CELLS_PER_WORD);
+    long cell = v == R.LessThan ? LESS_THAN : v == R.Equal ? EQUAL : UNKNOWN;
+    myCells[index] = myCells[index] & ~(CELL_MASK << shift) | cell << shift;
   }
 
-  private void enterFallBackMode() {
-    fallbackMatrix = new BaseCallMatrix.R[myHeight][myWidth];
-    for (int i = 0; i < myHeight; i++) for (int j = 0; j < myWidth; j++) fallbackMatrix[i][j] = getValue(i, j);
-    myMatrixMap = null;
+  public BaseCallMatrix.R getValue(int i, int j) {
+    long cell = getCell(i, j);
+    return cell == LESS_THAN ? R.LessThan : cell == EQUAL ? R.Equal : R.Unknown;
   }
 
   public final boolean leq(BaseCallMatrix<T> cm) {
-    if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) {
+    if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain() || myWidth != cm.myWidth || myHeight != cm.myHeight) {
       return false;
     }
-    if (myMatrixMap != null && cm.myMatrixMap != null) {
-      for (int k : myMatrixMap.keySet()) {
-        BaseCallMatrix.CallMatrixEntry cme = cm.myMatrixMap.get(k);
-        BaseCallMatrix.CallMatrixEntry mme = myMatrixMap.get(k);
-        if (cme == null || cme.myIndex != mme.myIndex || !(BaseCallMatrix.rleq(mme.myRel, cme.myRel))) {
-          return false;
-        }
+    for (int i = 0; i < myCells.length; i++) {
+      if ((myCells[i] & ~cm.myCells[i]) != 0) {
+        return false;
       }
-    } else {
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++)
-          if (!rleq(getValue(i, j), cm.getValue(i, j))) return false;
     }
-
     return true;
   }
 
@@ -190,12 +132,7 @@ public abstract class BaseCallMatrix<T> {
   public final boolean equals(Object object) {
     if (object instanceof BaseCallMatrix) {
       BaseCallMatrix<?> cm = (BaseCallMatrix<?>) object;
-      if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) return false;
-      if (myMatrixMap != null && cm.myMatrixMap != null) return myMatrixMap.equals(cm.myMatrixMap);
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++)
-          if (getValue(i, j) != cm.getValue(i, j)) return false;
-      return true;
+      return getCodomain() == cm.getCodomain() && getDomain() == cm.getDomain() && myWidth == cm.myWidth && myHeight == cm.myHeight && Arrays.equals(myCells, cm.myCells);
     } else {
       return false;
     }
@@ -204,7 +141,7 @@ public abstract class BaseCallMatrix<T> {
   @Override
   public final int hashCode() {
     int result = getCodomain().hashCode() * 31 + getDomain().hashCode();
-    return result * 31 + (myMatrixMap != null ? myMatrixMap.hashCode() : Arrays.deepHashCode(fallbackMatrix));
+    return result * 31 + Arrays.hashCode(myCells);
   }
 
   protected String[] getColumnLabels() {
@@ -266,28 +203,4 @@ public abstract class BaseCallMatrix<T> {
 
     return result.toString();
   }
-
-  private static class CallMatrixEntry {
-    final int myIndex;
-    BaseCallMatrix.R myRel;
-
-    CallMatrixEntry(int index, BaseCallMatrix.R rel) {
-      myIndex = index;
-      myRel = rel;
-    }
-
-    @Override
-    public int hashCode() {
-      return myIndex * 31 + myRel.hashCode();
-    }
-
-    @Override
-    public boolean equals(Object object) {
-      if (object instanceof BaseCallMatrix.CallMatrixEntry) {
-        BaseCallMatrix.CallMatrixEntry cm = (BaseCallMatrix.CallMatrixEntry) object;
-        return cm.myIndex == myIndex && cm.myRel == myRel;
-      }
-      return false;
-    }
-  }
 }
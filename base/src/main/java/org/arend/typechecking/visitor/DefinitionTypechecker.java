@@ -48,6 +48,7 @@ import org.arend.typechecking.error.CycleError;
 import org.arend.typechecking.error.ErrorReporterCounter;
 import org.arend.typechecking.error.local.*;
 import org.arend.typechecking.implicitargs.equations.DummyEquations;
+import org.arend.typechecking.instance.ClassifyingHead;
 import org.arend.typechecking.instance.pool.GlobalInstancePool;
 import org.arend.typechecking.instance.pool.InstancePool;
 import org.arend.typechecking.instance.pool.LocalInstancePool;
@@ -1058,6 +1059,10 @@ public class DefinitionTypechecker extends BaseDefinitionTypechecker implements
           }
           index++;
         }
+
+        if (classifyingField != null) {
+          typedDef.setClassifyingHead(ClassifyingHead.compute(typedDef, classifyingField));
+        }
       }
     }
 
@@ -0,0 +1,32 @@
+plugins {
+    java
+    id("me.champeau.gradle.jmh") version "0.5.0"
+}
+
+dependencies {
+    val annotationsVersion: String by rootProject.ext
+    val antlrVersion: String by rootProject.ext
+    jmh("org.jetbrains:annotations:$annotationsVersion")
+    jmh("org.antlr:antlr4-runtime:$antlrVersion")
+    jmh(project(":api"))
+    jmh(project(":base"))
+    jmh(project(":parser"))
+    jmh(project(":cli"))
+}
+
+// Benchmarks read lib/Prelude.ard from the root of the repository
+val rootArgs = listOf("-Darend.root=${rootProject.rootDir}")
+
+jmh {
+    jmhVersion = "1.23"
+    jvmArgs = rootArgs
+    // Run a subset of benchmarks with -Pbench=<regex>, for example -Pbench=NormalizationBenchmark
+    include = listOf(project.findProperty("bench")?.toString() ?: ".*")
+}
+
+task<JavaExec>("heapFootprint") {
+    description = "Prints the retained heap after loading a generated library with and without hash-consing."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    main = "org.arend.bench.HeapFootprint"
+    jvmArgs = rootArgs
+}
@@ -0,0 +1,282 @@
+package org.arend.bench;
+
+import org.antlr.v4.runtime.*;
+import org.arend.core.definition.Definition;
+import org.arend.error.ListErrorReporter;
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.module.ModulePath;
+import org.arend.extImpl.DefinitionRequester;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.frontend.library.PreludeFileLibrary;
+import org.arend.frontend.parser.ArendLexer;
+import org.arend.frontend.parser.ArendParser;
+import org.arend.frontend.parser.BuildVisitor;
+import org.arend.frontend.source.FileRawSource;
+import org.arend.frontend.source.StreamRawSource;
+import org.arend.library.Library;
+import org.arend.library.LibraryManager;
+import org.arend.module.FullModulePath;
+import org.arend.naming.reference.ClassReferable;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.resolving.visitor.DefinitionResolveNameVisitor;
+import org.arend.naming.scope.Scope;
+import org.arend.prelude.Prelude;
+import org.arend.prelude.PreludeResourceSource;
+import org.arend.source.Source;
+import org.arend.term.FunctionKind;
+import org.arend.term.concrete.Concrete;
+import org.arend.term.group.FileGroup;
+import org.arend.term.group.Group;
+import org.arend.typechecking.ConcurrentTypecheckerState;
+import org.arend.typechecking.LibraryArendExtensionProvider;
+import org.arend.typechecking.SimpleTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.typechecking.provider.ConcreteProvider;
+import org.arend.util.Range;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A typechecking session used by benchmarks.
+ * Each session has its own typechecker state, library manager, and error reporter, so sessions can be used concurrently.
+ * Prelude is typechecked once per JVM and its definitions are shared by all sessions.
+ * <p>
+ * Prelude is read from {@code lib/Prelude.ard} in the directory specified by the system property {@code arend.root}.
+ */
+public class BenchEnvironment {
+  private static boolean myPreludeLoaded;
+
+  private final TypecheckerState myTypecheckerState = new ConcurrentTypecheckerState(true);
+  private final ListErrorReporter myErrorReporter = new ListErrorReporter();
+  private final ErrorReporter mySynchronizedErrorReporter = error -> {
+    synchronized (myErrorReporter) {
+      myErrorReporter.report(error);
+    }
+  };
+  private final ReloadingConcreteProvider myConcreteProvider = new ReloadingConcreteProvider();
+  private final LibraryManager myLibraryManager;
+  private final TypecheckingOrderingListener myTypechecking;
+
+  /**
+   * @param dependencyListener  creates a dependency listener for the typechecker state of this session.
+   */
+  public BenchEnvironment(Function<TypecheckerState, DependencyListener> dependencyListener) {
+    loadPrelude();
+    myLibraryManager = new LibraryManager((lib, name) -> null, new InstanceProviderSet(), mySynchronizedErrorReporter, mySynchronizedErrorReporter, DefinitionRequester.INSTANCE);
+    myTypechecking = new TypecheckingOrderingListener(myLibraryManager.getInstanceProviderSet(), myTypecheckerState, myConcreteProvider, IdReferableConverter.INSTANCE, mySynchronizedErrorReporter, dependencyListener.apply(myTypecheckerState), PositionComparator.INSTANCE, new LibraryArendExtensionProvider(myLibraryManager));
+    if (!myLibraryManager.loadLibrary(new BenchPreludeLibrary(myTypecheckerState), null)) {
+      throw new IllegalStateException("Cannot load prelude");
+    }
+  }
+
+  public BenchEnvironment() {
+    this(state -> DummyDependencyListener.INSTANCE);
+  }
+
+  public static Path getRoot() {
+    return Paths.get(System.getProperty("arend.root", "."));
+  }
+
+  public static Path getPreludePath() {
+    return getRoot().resolve(PreludeResourceSource.BASE_PATH);
+  }
+
+  private static class BenchPreludeLibrary extends PreludeFileLibrary {
+    BenchPreludeLibrary(TypecheckerState typecheckerState) {
+      super(null, typecheckerState);
+    }
+
+    @Nullable
+    @Override
+    public Source getRawSource(ModulePath modulePath) {
+      return modulePath.equals(Prelude.MODULE_PATH) ? new FileRawSource(getPreludePath(), Prelude.MODULE_PATH, false) : null;
+    }
+  }
+
+  /**
+   * Returns the concrete definitions of referables, the definitions of reloaded functions are replaced with new ones.
+   */
+  private static class ReloadingConcreteProvider implements ConcreteProvider {
+    private final Map<GlobalReferable, Concrete.FunctionDefinition> myReloaded = new ConcurrentHashMap<>();
+
+    @Override
+    public Concrete.ReferableDefinition getConcrete(GlobalReferable referable) {
+      Concrete.FunctionDefinition reloaded = myReloaded.get(referable);
+      return reloaded != null ? reloaded : ConcreteReferableProvider.INSTANCE.getConcrete(referable);
+    }
+
+    @Override
+    public Concrete.FunctionDefinition getConcreteFunction(GlobalReferable referable) {
+      Concrete.FunctionDefinition reloaded = myReloaded.get(referable);
+      return reloaded != null ? reloaded : ConcreteReferableProvider.INSTANCE.getConcreteFunction(referable);
+    }
+
+    @Override
+    public Concrete.FunctionDefinition getConcreteInstance(GlobalReferable referable) {
+      Concrete.FunctionDefinition reloaded = myReloaded.get(referable);
+      if (reloaded != null) {
+        return reloaded.getKind() == FunctionKind.INSTANCE ? reloaded : null;
+      }
+      return ConcreteReferableProvider.INSTANCE.getConcreteInstance(referable);
+    }
+
+    @Override
+    public Concrete.ClassDefinition getConcreteClass(ClassReferable referable) {
+      return ConcreteReferableProvider.INSTANCE.getConcreteClass(referable);
+    }
+
+    @Override
+    public Concrete.DataDefinition getConcreteData(GlobalReferable referable) {
+      return ConcreteReferableProvider.INSTANCE.getConcreteData(referable);
+    }
+  }
+
+  private static synchronized void loadPrelude() {
+    if (myPreludeLoaded) {
+      return;
+    }
+
+    TypecheckerState typecheckerState = new SimpleTypecheckerState();
+    ListErrorReporter errorReporter = new ListErrorReporter();
+    LibraryManager libraryManager = new LibraryManager((lib, name) -> null, new InstanceProviderSet(), errorReporter, errorReporter, DefinitionRequester.INSTANCE);
+    Library prelude = new BenchPreludeLibrary(typecheckerState);
+    if (!libraryManager.loadLibrary(prelude, null)) {
+      throw new IllegalStateException("Cannot load prelude from " + getPreludePath());
+    }
+    new Prelude.PreludeTypechecking(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, PositionComparator.INSTANCE).typecheckLibrary(prelude);
+    checkErrors(errorReporter);
+    myPreludeLoaded = true;
+  }
+
+  private static void checkErrors(ListErrorReporter errorReporter) {
+    for (GeneralError error : errorReporter.getErrorList()) {
+      if (error.level == GeneralError.Level.ERROR) {
+        throw new IllegalStateException(error.toString());
+      }
+    }
+    errorReporter.getErrorList().clear();
+  }
+
+  /**
+   * Throws an exception if an error was reported in this session.
+   * Benchmarks must not measure runs that fail.
+   */
+  public void checkErrors() {
+    synchronized (myErrorReporter) {
+      checkErrors(myErrorReporter);
+    }
+  }
+
+  public TypecheckerState getTypecheckerState() {
+    return myTypecheckerState;
+  }
+
+  public LibraryManager getLibraryManager() {
+    return myLibraryManager;
+  }
+
+  public TypecheckingOrderingListener getTypechecking() {
+    return myTypechecking;
+  }
+
+  public ErrorReporter getErrorReporter() {
+    return mySynchronizedErrorReporter;
+  }
+
+  /**
+   * Creates a library with the given modules.
+   *
+   * @param sourceDir   a directory with raw sources.
+   * @param binaryDir   a directory with binary sources or null if the library is not persisted.
+   * @param modules     modules of the library.
+   */
+  public FileSourceLibrary newLibrary(Path sourceDir, @Nullable Path binaryDir, Set<ModulePath> modules) {
+    return new FileSourceLibrary("bench", sourceDir, binaryDir, null, null, modules, true, Collections.emptyList(), Range.unbound(), myTypecheckerState);
+  }
+
+  public void load(Library library) {
+    if (!myLibraryManager.loadLibrary(library, null)) {
+      checkErrors();
+      throw new IllegalStateException("Cannot load library " + library.getName());
+    }
+    checkErrors();
+  }
+
+  public void typecheck(Library library, int threads) {
+    myTypechecking.setThreads(threads);
+    myTypechecking.typecheckLibrary(library);
+    checkErrors();
+  }
+
+  public TCReferable getReferable(Library library, ModulePath module, String name) {
+    Scope scope = library.getModuleScopeProvider().forModule(module);
+    Referable referable = scope == null ? null : Scope.Utils.resolveName(scope, Arrays.asList(name.split("\\.")));
+    if (!(referable instanceof TCReferable)) {
+      throw new IllegalArgumentException("Cannot find " + name + " in " + module);
+    }
+    return (TCReferable) referable;
+  }
+
+  /**
+   * Parses a module from {@code file} and replaces the concrete definition of function {@code name} with the new one.
+   * The new definition is resolved in the scope of the loaded module, so other definitions of the module are not reloaded.
+   * The typechecked definition is kept; it should be updated with the dependency listener of this session.
+   */
+  public void reloadFunction(Library library, ModulePath module, String name, Path file) throws IOException {
+    ArendLexer lexer = new ArendLexer(CharStreams.fromPath(file));
+    lexer.removeErrorListeners();
+    ArendParser.StatementsContext tree = StreamRawSource.parseStatements(new CommonTokenStream(lexer), new BaseErrorListener() {
+      @Override
+      public void syntaxError(Recognizer<?, ?> recognizer, Object o, int line, int pos, String msg, RecognitionException e) {
+        throw new IllegalStateException("Cannot parse " + file + ": " + msg);
+      }
+    });
+    FileGroup group = new BuildVisitor(new FullModulePath(library.getName(), FullModulePath.LocationKind.SOURCE, module.toList()), mySynchronizedErrorReporter).visitStatements(tree);
+    checkErrors();
+
+    Concrete.FunctionDefinition parsed = null;
+    for (Group subgroup : group.getSubgroups()) {
+      if (subgroup.getReferable().textRepresentation().equals(name)) {
+        parsed = ConcreteReferableProvider.INSTANCE.getConcreteFunction(subgroup.getReferable());
+      }
+    }
+    if (parsed == null) {
+      throw new IllegalArgumentException("Cannot find function " + name + " in " + file);
+    }
+
+    TCReferable referable = getReferable(library, module, name);
+    Concrete.FunctionDefinition definition = new Concrete.FunctionDefinition(parsed.getKind(), referable, parsed.getParameters(), parsed.getResultType(), parsed.getResultTypeLevel(), parsed.getBody());
+    Scope scope = library.getModuleGroup(module).getGroupScope();
+    new DefinitionResolveNameVisitor(myConcreteProvider, true, mySynchronizedErrorReporter).visitFunction(definition, scope);
+    new DefinitionResolveNameVisitor(myConcreteProvider, false, mySynchronizedErrorReporter).visitFunction(definition, scope);
+    checkErrors();
+    myConcreteProvider.myReloaded.put(referable, definition);
+  }
+
+  public Definition getDefinition(Library library, ModulePath module, String name) {
+    Definition definition = myTypecheckerState.getTypechecked(getReferable(library, module, name));
+    if (definition == null) {
+      throw new IllegalStateException(name + " is not typechecked");
+    }
+    return definition;
+  }
+}
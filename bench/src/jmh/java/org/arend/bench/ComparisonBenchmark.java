@@ -0,0 +1,59 @@
+package org.arend.bench;
+
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.ext.core.ops.CMP;
+import org.arend.typechecking.implicitargs.equations.DummyEquations;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CompareVisitor} on expressions that are equal structurally and on expressions that are equal only after normalization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComparisonBenchmark {
+  private ComputationModule myModule;
+  private Expression mySum;
+  private Expression mySumCopy;
+  private Expression mySumValue;
+  private Expression myReverse;
+
+  @Setup
+  public void setup() throws IOException {
+    myModule = new ComputationModule();
+    mySum = myModule.getBody("sum-test");
+    mySumCopy = myModule.getBody("sum-test'");
+    mySumValue = myModule.getBody("sum-value");
+    myReverse = myModule.getBody("reverse-test");
+    if (!CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, mySum, mySumValue, null, null)) {
+      throw new IllegalStateException();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    myModule.close();
+  }
+
+  @Benchmark
+  public boolean structurallyEqual() {
+    return CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, mySum, mySumCopy, null, null);
+  }
+
+  @Benchmark
+  public boolean equalAfterNormalization() {
+    return CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, mySum, mySumValue, null, null);
+  }
+
+  @Benchmark
+  public boolean notEqual() {
+    return CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, myReverse, mySumValue, null, null);
+  }
+}
@@ -0,0 +1,103 @@
+package org.arend.bench;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+/**
+ * A typechecked module with arithmetic and list functions which is used by benchmarks of core visitors.
+ */
+public class ComputationModule {
+  public static final ModulePath MODULE_PATH = new ModulePath("Computation");
+
+  public static final String TEXT =
+    "\\func plus (n m : Nat) : Nat \\elim m\n" +
+    "  | 0 => n\n" +
+    "  | suc m => suc (plus n m)\n\n" +
+    "\\func times (n m : Nat) : Nat \\elim m\n" +
+    "  | 0 => 0\n" +
+    "  | suc m => plus (times n m) n\n\n" +
+    "\\func fact (n : Nat) : Nat\n" +
+    "  | 0 => 1\n" +
+    "  | suc n => times (suc n) (fact n)\n\n" +
+    "\\data List (A : \\Type) | nil | cons A (List A)\n\n" +
+    "\\func range (n : Nat) : List Nat\n" +
+    "  | 0 => nil\n" +
+    "  | suc n => cons n (range n)\n\n" +
+    "\\func map {A B : \\Type} (f : A -> B) (l : List A) : List B \\elim l\n" +
+    "  | nil => nil\n" +
+    "  | cons a l => cons (f a) (map f l)\n\n" +
+    "\\func sum (l : List Nat) : Nat\n" +
+    "  | nil => 0\n" +
+    "  | cons n l => plus n (sum l)\n\n" +
+    "\\func rev-append {A : \\Type} (l acc : List A) : List A \\elim l\n" +
+    "  | nil => acc\n" +
+    "  | cons a l => rev-append l (cons a acc)\n\n" +
+    "\\func fact-test => fact 5\n" +
+    "\\func sum-test => sum (map (plus 1) (range 40))\n" +
+    "\\func sum-test' => sum (map (plus 1) (range 40))\n" +
+    "\\func sum-value => 820\n" +
+    "\\func reverse-test => rev-append (range 40) nil\n" +
+    "\\func shifted-range (x : Nat) => map (plus x) (range 30)\n\n" +
+    "\\data Digit | d0 | d1 | d2 | d3 | d4 | d5 | d6 | d7 | d8 | d9\n\n" +
+    "\\func next (d : Digit) : Digit\n" +
+    "  | d0 => d1 | d1 => d2 | d2 => d3 | d3 => d4 | d4 => d5\n" +
+    "  | d5 => d6 | d6 => d7 | d7 => d8 | d8 => d9 | d9 => d0\n\n" +
+    "\\func last-digit => d9\n\n" +
+    "\\func double (n : Nat) : Nat\n" +
+    "  | 0 => 0\n" +
+    "  | suc n => suc (suc (double n))\n\n" +
+    "\\func length {A : \\Type} (l : List A) : Nat \\elim l\n" +
+    "  | nil => 0\n" +
+    "  | cons _ l => suc (length l)\n\n" +
+    "\\func double-test => double 300\n" +
+    "\\func length-test => length (range 300)\n";
+
+  private final Path myDir;
+  private final BenchEnvironment myEnvironment = new BenchEnvironment();
+  private final FileSourceLibrary myLibrary;
+
+  public ComputationModule() throws IOException {
+    myDir = Files.createTempDirectory("arend-bench");
+    Files.write(FileUtils.sourceFile(myDir, MODULE_PATH), TEXT.getBytes(StandardCharsets.UTF_8));
+    myLibrary = myEnvironment.newLibrary(myDir, null, Collections.singleton(MODULE_PATH));
+    myEnvironment.load(myLibrary);
+    myEnvironment.typecheck(myLibrary, 1);
+  }
+
+  public BenchEnvironment getEnvironment() {
+    return myEnvironment;
+  }
+
+  public FunctionDefinition getFunction(String name) {
+    Definition definition = myEnvironment.getDefinition(myLibrary, MODULE_PATH, name);
+    if (!(definition instanceof FunctionDefinition)) {
+      throw new IllegalArgumentException(name + " is not a function");
+    }
+    return (FunctionDefinition) definition;
+  }
+
+  /**
+   * @return the body of a function defined without pattern matching.
+   */
+  public Expression getBody(String name) {
+    FunctionDefinition function = getFunction(name);
+    if (!(function.getBody() instanceof Expression)) {
+      throw new IllegalArgumentException(name + " is defined by pattern matching");
+    }
+    return (Expression) function.getBody();
+  }
+
+  public void close() throws IOException {
+    LibraryGenerator.delete(myDir);
+  }
+}
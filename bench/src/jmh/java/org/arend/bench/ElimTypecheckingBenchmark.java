@@ -0,0 +1,87 @@
+package org.arend.bench;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures typechecking of functions defined by pattern matching on many parameters.
+ * <p>
+ * The generated module contains a data type with {@code constructors} constructors and functions that eliminate {@code parameters} parameters of this type.
+ * The {@code i}-th clause of a function matches a fixed constructor in the {@code i}-th parameter and variables in the others,
+ * and the last clause matches only variables.
+ * In every column, all other constructors get the same default clauses, so an elim tree that does not share their subtrees is exponential.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ElimTypecheckingBenchmark {
+  private static final ModulePath MODULE_PATH = new ModulePath("Elim");
+  private static final int FUNCTIONS = 10;
+
+  @Param({"5", "7"})
+  int parameters;
+
+  @Param({"4", "8"})
+  int constructors;
+
+  private Path myDir;
+
+  public static String generateModule(int parameters, int constructors) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("\\data D");
+    for (int i = 0; i < constructors; i++) {
+      builder.append(" | c").append(i);
+    }
+    builder.append("\n\n");
+
+    for (int f = 0; f < FUNCTIONS; f++) {
+      builder.append("\\func f").append(f).append(" (");
+      for (int i = 0; i < parameters; i++) {
+        builder.append("x").append(i).append(" ");
+      }
+      builder.append(": D) : Nat\n");
+      for (int i = 0; i <= parameters; i++) {
+        builder.append("  |");
+        for (int j = 0; j < parameters; j++) {
+          builder.append(j == 0 ? " " : ", ").append(j == i ? "c" + (f % constructors) : "_");
+        }
+        builder.append(" => ").append(i).append("\n");
+      }
+      builder.append("\n");
+    }
+    return builder.toString();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    myDir = Files.createTempDirectory("arend-bench");
+    Files.write(FileUtils.sourceFile(myDir, MODULE_PATH), generateModule(parameters, constructors).getBytes(StandardCharsets.UTF_8));
+    typecheck();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    LibraryGenerator.delete(myDir);
+  }
+
+  @Benchmark
+  public FileSourceLibrary typecheck() {
+    BenchEnvironment environment = new BenchEnvironment();
+    FileSourceLibrary library = environment.newLibrary(myDir, null, Collections.singleton(MODULE_PATH));
+    environment.load(library);
+    environment.typecheck(library, 1);
+    return library;
+  }
+}
@@ -0,0 +1,59 @@
+package org.arend.bench;
+
+import org.arend.core.expr.HashConsingTable;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.FileSourceLibrary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Reports the heap retained by a typechecked generated library (see {@link LibraryGenerator})
+ * with and without hash-consing of closed expressions (see {@link HashConsingTable}).
+ * <p>
+ * JMH measures time rather than retained memory, so this is a separate program.
+ * Arguments: the number of modules and the number of functions in each module.
+ */
+public class HeapFootprint {
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static long measure(Path dir, Set<ModulePath> modules, boolean hashConsing) {
+    HashConsingTable.setEnabled(hashConsing);
+    HashConsingTable.clear();
+    long before = usedHeap();
+    BenchEnvironment environment = new BenchEnvironment();
+    FileSourceLibrary library = environment.newLibrary(dir, null, modules);
+    environment.load(library);
+    environment.typecheck(library, 1);
+    long result = usedHeap() - before;
+    System.out.println("hash-consing " + (hashConsing ? "on " : "off") + ": " + (result / 1024) + " KiB retained, " + HashConsingTable.size() + " interned expressions");
+    environment.getLibraryManager().unloadLibrary(library);
+    return result;
+  }
+
+  public static void main(String[] args) throws IOException {
+    int modules = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    int functions = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+    Path dir = Files.createTempDirectory("arend-bench");
+    try {
+      Set<ModulePath> generated = LibraryGenerator.generate(dir, modules, functions);
+      // The first run warms up the JVM and loads Prelude, which is shared by both measurements
+      measure(dir, generated, false);
+      long withoutHashConsing = measure(dir, generated, false);
+      long withHashConsing = measure(dir, generated, true);
+      System.out.println("saved: " + ((withoutHashConsing - withHashConsing) / 1024) + " KiB");
+    } finally {
+      HashConsingTable.setEnabled(false);
+      LibraryGenerator.delete(dir);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package org.arend.bench;
+
+import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.context.binding.inference.InferenceLevelVariable;
+import org.arend.core.sort.Level;
+import org.arend.core.subst.LevelSubstitution;
+import org.arend.error.ListErrorReporter;
+import org.arend.ext.core.ops.CMP;
+import org.arend.typechecking.SimpleTypecheckerState;
+import org.arend.typechecking.implicitargs.equations.TwoStageEquations;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TwoStageEquations#solveLevels} on systems of level equations of the kind produced by typechecking of definitions:
+ * chains of inequalities between variables, groups of variables that are forced to be equal, and constant lower bounds.
+ * The equations are added in the benchmark since solving consumes them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelSolverBenchmark {
+  private static final int GROUP_SIZE = 5;
+
+  @Param({"100", "1000"})
+  int variables;
+
+  private CheckTypeVisitor myVisitor;
+  private ListErrorReporter myErrorReporter;
+
+  @Setup
+  public void setup() {
+    myErrorReporter = new ListErrorReporter();
+    myVisitor = new CheckTypeVisitor(new SimpleTypecheckerState(), myErrorReporter, null, null);
+    solve();
+    if (!myErrorReporter.getErrorList().isEmpty()) {
+      throw new IllegalStateException(myErrorReporter.getErrorList().iterator().next().toString());
+    }
+  }
+
+  private void addEquations(TwoStageEquations equations, LevelVariable.LvlType type) {
+    List<InferenceLevelVariable> vars = new ArrayList<>(variables);
+    for (int i = 0; i < variables; i++) {
+      InferenceLevelVariable var = new InferenceLevelVariable(type, false, null);
+      equations.addVariable(var);
+      vars.add(var);
+    }
+
+    for (int i = 0; i < variables; i++) {
+      equations.addEquation(new Level(i % 3), new Level(vars.get(i)), CMP.LE, null);
+      if (i + 1 < variables) {
+        equations.addEquation(new Level(vars.get(i)), new Level(vars.get(i + 1)), CMP.LE, null);
+      }
+      if (i % GROUP_SIZE == GROUP_SIZE - 1) {
+        equations.addEquation(new Level(vars.get(i)), new Level(vars.get(i - GROUP_SIZE + 1)), CMP.LE, null);
+      }
+    }
+  }
+
+  @Benchmark
+  public LevelSubstitution solve() {
+    TwoStageEquations equations = new TwoStageEquations(myVisitor);
+    addEquations(equations, LevelVariable.LvlType.PLVL);
+    addEquations(equations, LevelVariable.LvlType.HLVL);
+    return equations.solveLevels(null);
+  }
+}
@@ -0,0 +1,128 @@
+package org.arend.bench;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Generates synthetic libraries for benchmarks.
+ * <p>
+ * Module {@code Gen.M<k>} imports {@code Gen.M<k-1>} and contains
+ * a data type with a recursive function and a lemma proved by computation,
+ * a pair of mutually recursive functions,
+ * a class with an instance which is found by instance search,
+ * and a chain of arithmetic functions each of which calls the previous one,
+ * the first of them also calls the first function of the previous module.
+ * Every arithmetic function has a lemma which requires normalization of the function.
+ * <p>
+ * Generated libraries are deterministic, so measurements of different runs are comparable.
+ */
+public class LibraryGenerator {
+  public static final String PREFIX = "Gen";
+
+  public static ModulePath getModulePath(int index) {
+    return new ModulePath(PREFIX, "M" + index);
+  }
+
+  /**
+   * Generates the text of a module.
+   *
+   * @param index     the index of the module.
+   * @param functions the number of arithmetic functions in the module.
+   */
+  public static String generateModule(int index, int functions) {
+    StringBuilder builder = new StringBuilder();
+    String k = Integer.toString(index);
+    if (index > 0) {
+      builder.append("\\import ").append(getModulePath(index - 1)).append("\n\n");
+    }
+
+    builder
+      .append("\\data Tree").append(k).append(" | leaf").append(k).append(" Nat | node").append(k).append(" (Tree").append(k).append(") (Tree").append(k).append(")\n\n")
+      .append("\\func size").append(k).append(" (t : Tree").append(k).append(") : Nat\n")
+      .append("  | leaf").append(k).append(" _ => 1\n")
+      .append("  | node").append(k).append(" l r => size").append(k).append(" l Nat.+ size").append(k).append(" r\n\n")
+      .append("\\func build").append(k).append(" (n : Nat) : Tree").append(k).append("\n")
+      .append("  | 0 => leaf").append(k).append(" 0\n")
+      .append("  | suc n => node").append(k).append(" (build").append(k).append(" n) (leaf").append(k).append(" n)\n\n")
+      .append("\\lemma size-build").append(k).append(" : size").append(k).append(" (build").append(k).append(" 8) = 9 => idp\n\n");
+
+    builder
+      .append("\\func isEven").append(k).append(" (n : Nat) : Nat\n")
+      .append("  | 0 => 1\n")
+      .append("  | suc n => isOdd").append(k).append(" n\n\n")
+      .append("\\func isOdd").append(k).append(" (n : Nat) : Nat\n")
+      .append("  | 0 => 0\n")
+      .append("  | suc n => isEven").append(k).append(" n\n\n")
+      .append("\\lemma isEven-test").append(k).append(" : isEven").append(k).append(" 20 = 1 => idp\n\n");
+
+    builder
+      .append("\\class Pointed").append(k).append(" (X : \\Type) | point").append(k).append(" : X\n\n")
+      .append("\\instance natPointed").append(k).append(" : Pointed").append(k).append(" Nat | point").append(k).append(" => ").append(k).append("\n\n");
+
+    for (int i = 0; i < functions; i++) {
+      String f = "f" + k + "_" + i;
+      builder.append("\\func ").append(f).append(" (x y : Nat) : Nat => ");
+      builder.append("x Nat.* ").append(i + 1).append(" Nat.+ (y Nat.+ ").append(i).append(") Nat.* (x Nat.+ 1)");
+      if (i > 0) {
+        builder.append(" Nat.+ f").append(k).append("_").append(i - 1).append(" y x");
+      } else if (index > 0) {
+        builder.append(" Nat.+ f").append(index - 1).append("_0 y x");
+      }
+      builder.append("\n");
+      builder.append("\\lemma ").append(f).append("-point : ").append(f).append(" 1 point").append(k).append(" = ").append(f).append(" 1 ").append(k).append(" => idp\n\n");
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Writes a generated library to a directory.
+   *
+   * @param dir       the source directory of the library.
+   * @param modules   the number of modules.
+   * @param functions the number of arithmetic functions in each module.
+   * @return the set of generated modules.
+   */
+  public static Set<ModulePath> generate(Path dir, int modules, int functions) throws IOException {
+    Set<ModulePath> result = new LinkedHashSet<>();
+    for (int i = 0; i < modules; i++) {
+      ModulePath modulePath = getModulePath(i);
+      Path file = FileUtils.sourceFile(dir, modulePath);
+      Files.createDirectories(file.getParent());
+      Files.write(file, generateModule(i, functions).getBytes(StandardCharsets.UTF_8));
+      result.add(modulePath);
+    }
+    return result;
+  }
+
+  /**
+   * Deletes a directory created for a generated library.
+   */
+  public static void delete(Path dir) throws IOException {
+    if (!Files.exists(dir)) {
+      return;
+    }
+    Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+}
@@ -0,0 +1,69 @@
+package org.arend.bench;
+
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.EvaluationStrategy;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link NormalizeVisitor} on arithmetic and list recursion with both evaluation strategies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizationBenchmark {
+  @Param({"SUBSTITUTION", "ENVIRONMENT"})
+  EvaluationStrategy strategy;
+
+  private ComputationModule myModule;
+  private Expression myFact;
+  private Expression mySum;
+  private Expression myReverse;
+
+  @Setup
+  public void setup() throws IOException {
+    myModule = new ComputationModule();
+    myFact = myModule.getBody("fact-test");
+    mySum = myModule.getBody("sum-test");
+    myReverse = myModule.getBody("reverse-test");
+    NormalizeVisitor.setEvaluationStrategy(strategy);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    NormalizeVisitor.setEvaluationStrategy(EvaluationStrategy.SUBSTITUTION);
+    myModule.close();
+  }
+
+  @Benchmark
+  public Expression arithmeticWhnf() {
+    return myFact.normalize(NormalizationMode.WHNF);
+  }
+
+  @Benchmark
+  public Expression arithmeticNf() {
+    return myFact.normalize(NormalizationMode.NF);
+  }
+
+  @Benchmark
+  public Expression listSumNf() {
+    return mySum.normalize(NormalizationMode.NF);
+  }
+
+  @Benchmark
+  public Expression listReverseWhnf() {
+    return myReverse.normalize(NormalizationMode.WHNF);
+  }
+
+  @Benchmark
+  public Expression listReverseNf() {
+    return myReverse.normalize(NormalizationMode.NF);
+  }
+}
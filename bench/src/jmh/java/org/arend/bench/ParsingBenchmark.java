@@ -0,0 +1,64 @@
+package org.arend.bench;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.arend.frontend.parser.ArendLexer;
+import org.arend.frontend.parser.ArendParser;
+import org.arend.frontend.source.StreamRawSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing throughput on a corpus of large generated modules (see {@link LibraryGenerator}).
+ * The two-stage mode calls {@link StreamRawSource#parseStatements} which is used to parse source files:
+ * the SLL mode with bail-out on the first error and the LL mode as a fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmark {
+  private static final ANTLRErrorListener ERROR_LISTENER = new BaseErrorListener();
+
+  @Param({"10"})
+  int modules;
+
+  @Param({"200"})
+  int functions;
+
+  @Param({"two-stage", "ll"})
+  String mode;
+
+  private final List<String> myTexts = new ArrayList<>();
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < modules; i++) {
+      myTexts.add(LibraryGenerator.generateModule(i, functions));
+    }
+  }
+
+  private static ArendParser.StatementsContext parseLL(CommonTokenStream tokens) {
+    ArendParser parser = new ArendParser(tokens);
+    parser.removeErrorListeners();
+    parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+    return parser.statements();
+  }
+
+  @Benchmark
+  public int parse() {
+    int statements = 0;
+    for (String text : myTexts) {
+      ArendLexer lexer = new ArendLexer(CharStreams.fromString(text));
+      lexer.removeErrorListeners();
+      CommonTokenStream tokens = new CommonTokenStream(lexer);
+      statements += (mode.equals("ll") ? parseLL(tokens) : StreamRawSource.parseStatements(tokens, ERROR_LISTENER)).statement().size();
+    }
+    return statements;
+  }
+}
@@ -0,0 +1,62 @@
+package org.arend.bench;
+
+import org.arend.core.elimtree.BranchElimTree;
+import org.arend.core.elimtree.ElimBody;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.core.subst.LevelSubstitution;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dispatch on constructors in {@link BranchElimTree}:
+ * a single evaluation step of a function with many clauses and deep recursion on {@code Nat} and lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternMatchingBenchmark {
+  private ComputationModule myModule;
+  private ElimBody myNextBody;
+  private List<Expression> myNextArguments;
+  private Expression myDouble;
+  private Expression myLength;
+
+  @Setup
+  public void setup() throws IOException {
+    myModule = new ComputationModule();
+    myNextBody = (ElimBody) myModule.getFunction("next").getBody();
+    myNextArguments = Collections.singletonList(myModule.getBody("last-digit"));
+    myDouble = myModule.getBody("double-test");
+    myLength = myModule.getBody("length-test");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    myModule.close();
+  }
+
+  @Benchmark
+  public Expression evalStep() {
+    return NormalizeVisitor.INSTANCE.eval(myNextBody, myNextArguments, new ExprSubstitution(), LevelSubstitution.EMPTY);
+  }
+
+  @Benchmark
+  public Expression natRecursionNf() {
+    return myDouble.normalize(NormalizationMode.NF);
+  }
+
+  @Benchmark
+  public Expression listRecursionNf() {
+    return myLength.normalize(NormalizationMode.NF);
+  }
+}
@@ -0,0 +1,77 @@
+package org.arend.bench;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.arend.error.ListErrorReporter;
+import org.arend.ext.error.GeneralError;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.frontend.parser.ArendLexer;
+import org.arend.frontend.parser.ArendParser;
+import org.arend.frontend.parser.BuildVisitor;
+import org.arend.naming.resolving.visitor.DefinitionResolveNameVisitor;
+import org.arend.prelude.Prelude;
+import org.arend.term.group.FileGroup;
+import org.arend.typechecking.SimpleTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing, name resolution, and typechecking of {@code lib/Prelude.ard}.
+ * <p>
+ * Typechecking of prelude replaces the definitions stored in {@link Prelude},
+ * so this benchmark must not run concurrently with other benchmarks in the same JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@Threads(1)
+public class PreludeBenchmark {
+  private String myText;
+
+  @Setup
+  public void setup() throws IOException {
+    myText = new String(Files.readAllBytes(FileUtils.sourceFile(BenchEnvironment.getPreludePath(), Prelude.MODULE_PATH)), StandardCharsets.UTF_8);
+  }
+
+  private static void checkErrors(ListErrorReporter errorReporter) {
+    for (GeneralError error : errorReporter.getErrorList()) {
+      if (error.level == GeneralError.Level.ERROR) {
+        throw new IllegalStateException(error.toString());
+      }
+    }
+  }
+
+  @Benchmark
+  public FileGroup parse() {
+    ListErrorReporter errorReporter = new ListErrorReporter();
+    ArendParser parser = new ArendParser(new CommonTokenStream(new ArendLexer(CharStreams.fromString(myText))));
+    FileGroup group = new BuildVisitor(Prelude.MODULE_PATH, errorReporter).visitStatements(parser.statements());
+    checkErrors(errorReporter);
+    return group;
+  }
+
+  @Benchmark
+  public TypecheckerState typecheck() {
+    FileGroup group = parse();
+    ListErrorReporter errorReporter = new ListErrorReporter();
+    group.setModuleScopeProvider(module -> null);
+    new DefinitionResolveNameVisitor(ConcreteReferableProvider.INSTANCE, true, errorReporter).resolveGroupWithTypes(group, null, group.getGroupScope());
+    checkErrors(errorReporter);
+
+    TypecheckerState typecheckerState = new SimpleTypecheckerState();
+    new Prelude.PreludeTypechecking(new InstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, PositionComparator.INSTANCE).typecheckModules(Collections.singletonList(group), null);
+    return typecheckerState;
+  }
+}
@@ -0,0 +1,99 @@
+package org.arend.bench;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.naming.reference.TCReferable;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures retypechecking of a generated library (see {@link LibraryGenerator}) after a function is edited.
+ * The edited function is the first arithmetic function of the first module, so every other arithmetic function depends on it.
+ * Before each invocation, the source of the function is rewritten and the function is reloaded;
+ * invocations alternate between the original and the edited version.
+ * <p>
+ * A body edit does not change the interface of the function,
+ * so with early cutoff only the function itself is typechecked again and without it all its dependents are typechecked again.
+ * A signature edit curries the function, so its dependents are typechecked again in both cases.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetypecheckingBenchmark {
+  private static final String EDITED = "f0_0";
+  private static final String HEADER = "\\func " + EDITED + " (x y : Nat) : Nat => ";
+
+  @Param({"10"})
+  int modules;
+
+  @Param({"20"})
+  int functions;
+
+  @Param({"true", "false"})
+  boolean earlyCutoff;
+
+  @Param({"body", "signature"})
+  String edit;
+
+  private Path myDir;
+  private Path myFile;
+  private BenchEnvironment myEnvironment;
+  private DependencyCollector myCollector;
+  private FileSourceLibrary myLibrary;
+  private ModulePath myModule;
+  private TCReferable myReferable;
+  private String myOriginalText;
+  private String myEditedText;
+  private boolean myEdited;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    myDir = Files.createTempDirectory("arend-bench");
+    myEnvironment = new BenchEnvironment(state -> myCollector = new DependencyCollector(state, earlyCutoff));
+    myLibrary = myEnvironment.newLibrary(myDir, null, LibraryGenerator.generate(myDir, modules, functions));
+    myEnvironment.load(myLibrary);
+    myEnvironment.typecheck(myLibrary, 1);
+
+    myModule = LibraryGenerator.getModulePath(0);
+    myFile = FileUtils.sourceFile(myDir, myModule);
+    myReferable = myEnvironment.getReferable(myLibrary, myModule, EDITED);
+
+    myOriginalText = LibraryGenerator.generateModule(0, functions);
+    int start = myOriginalText.indexOf(HEADER);
+    int end = myOriginalText.indexOf('\n', start);
+    String body = myOriginalText.substring(start + HEADER.length(), end);
+    String definition = edit.equals("body")
+      ? HEADER + body + " Nat.+ 0"
+      : "\\func " + EDITED + " (x : Nat) : Nat -> Nat => \\lam y => " + body;
+    myEditedText = myOriginalText.substring(0, start) + definition + myOriginalText.substring(end);
+  }
+
+  @Setup(Level.Invocation)
+  public void editSource() throws IOException {
+    myEdited = !myEdited;
+    Files.write(myFile, (myEdited ? myEditedText : myOriginalText).getBytes(StandardCharsets.UTF_8));
+    myEnvironment.reloadFunction(myLibrary, myModule, EDITED, myFile);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    LibraryGenerator.delete(myDir);
+  }
+
+  @Benchmark
+  public FileSourceLibrary retypecheck() {
+    myCollector.update(myReferable);
+    myEnvironment.typecheck(myLibrary, 1);
+    return myLibrary;
+  }
+}
@@ -0,0 +1,110 @@
+package org.arend.bench;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.library.SourceLibrary;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading of binary modules of a generated library (see {@link LibraryGenerator})
+ * in the gzip and in the memory-mapped format, with and without lazy deserialization of function bodies.
+ * <p>
+ * {@link #load} reads the whole library, {@link #loadAndAccessDefinition} reads the library and the body of a single function,
+ * and {@link #persist} writes all modules of a typechecked library.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SerializationBenchmark {
+  @Param({"20"})
+  int modules;
+
+  @Param({"20"})
+  int functions;
+
+  @Param({"gzip", "mapped"})
+  String format;
+
+  @Param({"false", "true"})
+  boolean lazyBodies;
+
+  private Path myDir;
+  private Set<ModulePath> myModules;
+  private FileSourceLibrary myTypecheckedLibrary;
+  private BenchEnvironment myTypecheckedEnvironment;
+
+  private FileSourceLibrary newLibrary(BenchEnvironment environment) {
+    FileSourceLibrary library = environment.newLibrary(myDir.resolve("src"), myDir.resolve("bin"), myModules);
+    if (format.equals("mapped")) {
+      library.addFlag(SourceLibrary.Flag.MAPPED_BINARIES);
+    }
+    if (lazyBodies) {
+      library.addFlag(SourceLibrary.Flag.LAZY_BODIES);
+    }
+    return library;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    myDir = Files.createTempDirectory("arend-bench");
+    myModules = LibraryGenerator.generate(myDir.resolve("src"), modules, functions);
+    myTypecheckedEnvironment = new BenchEnvironment();
+    myTypecheckedLibrary = newLibrary(myTypecheckedEnvironment);
+    myTypecheckedEnvironment.load(myTypecheckedLibrary);
+    myTypecheckedEnvironment.typecheck(myTypecheckedLibrary, 1);
+    persist();
+
+    if (!load().getUpdatedModules().isEmpty()) {
+      throw new IllegalStateException("Modules are not loaded from binary files");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    LibraryGenerator.delete(myDir);
+  }
+
+  @Benchmark
+  public boolean persist() {
+    boolean ok = true;
+    for (ModulePath module : myModules) {
+      if (!myTypecheckedLibrary.persistModule(module, IdReferableConverter.INSTANCE, myTypecheckedEnvironment.getErrorReporter())) {
+        ok = false;
+      }
+    }
+    myTypecheckedEnvironment.checkErrors();
+    if (!ok) {
+      throw new IllegalStateException("Cannot persist library");
+    }
+    return ok;
+  }
+
+  @Benchmark
+  public FileSourceLibrary load() {
+    BenchEnvironment environment = new BenchEnvironment();
+    FileSourceLibrary library = newLibrary(environment);
+    environment.load(library);
+    return library;
+  }
+
+  @Benchmark
+  public Object loadAndAccessDefinition() {
+    BenchEnvironment environment = new BenchEnvironment();
+    FileSourceLibrary library = newLibrary(environment);
+    environment.load(library);
+    Definition definition = environment.getDefinition(library, LibraryGenerator.getModulePath(modules - 1), "f" + (modules - 1) + "_" + (functions - 1));
+    return ((FunctionDefinition) definition).getActualBody();
+  }
+}
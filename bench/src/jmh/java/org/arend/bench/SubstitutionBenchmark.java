@@ -0,0 +1,56 @@
+package org.arend.bench;
+
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.core.subst.SubstVisitor;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SubstVisitor} on the normal form of a function which contains many occurrences of its parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubstitutionBenchmark {
+  private ComputationModule myModule;
+  private Expression myExpression;
+  private ExprSubstitution mySubstitution;
+  private ExprSubstitution myUnrelatedSubstitution;
+
+  @Setup
+  public void setup() throws IOException {
+    myModule = new ComputationModule();
+    FunctionDefinition function = myModule.getFunction("shifted-range");
+    DependentLink parameter = function.getParameters();
+    myExpression = ((Expression) function.getBody()).normalize(NormalizationMode.NF);
+    mySubstitution = new ExprSubstitution(parameter, myModule.getBody("sum-value"));
+    myUnrelatedSubstitution = new ExprSubstitution(myModule.getFunction("plus").getParameters(), myModule.getBody("sum-value"));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    myModule.close();
+  }
+
+  @Benchmark
+  public Expression substitute() {
+    return myExpression.subst(mySubstitution);
+  }
+
+  /**
+   * Substitutes a variable which does not occur in the expression.
+   */
+  @Benchmark
+  public Expression substituteUnrelated() {
+    return myExpression.subst(myUnrelatedSubstitution);
+  }
+}
@@ -0,0 +1,60 @@
+package org.arend.bench;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading and typechecking of a generated library (see {@link LibraryGenerator}) from sources.
+ * <p>
+ * Every invocation uses a new {@link BenchEnvironment}, so invocations are independent typechecking sessions.
+ * The state is per thread, so running this benchmark with several JMH threads ({@code -t N}) measures
+ * how independent sessions in the same JVM scale.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TypecheckingBenchmark {
+  @Param({"20"})
+  int modules;
+
+  @Param({"20"})
+  int functions;
+
+  @Param({"1", "4"})
+  int threads;
+
+  private Path myDir;
+  private Set<ModulePath> myModules;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    myDir = Files.createTempDirectory("arend-bench");
+    myModules = LibraryGenerator.generate(myDir, modules, functions);
+    typecheck();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    LibraryGenerator.delete(myDir);
+  }
+
+  @Benchmark
+  public FileSourceLibrary typecheck() {
+    BenchEnvironment environment = new BenchEnvironment();
+    FileSourceLibrary library = environment.newLibrary(myDir, null, myModules);
+    environment.getLibraryManager().setParsingThreads(threads);
+    environment.load(library);
+    environment.typecheck(library, threads);
+    return library;
+  }
+}
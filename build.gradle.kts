@@ -44,6 +44,9 @@ allprojects {
 }
 
 subprojects {
+    // Benchmarks are not published
+    if (name == "bench") return@subprojects
+
     apply {
         plugin("maven-publish")
         plugin("java-library")
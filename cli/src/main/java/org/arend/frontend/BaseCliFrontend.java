@@ -2,6 +2,11 @@ package org.arend.frontend;
 
 import org.apache.commons.cli.*;
 import org.arend.core.definition.Definition;
+import org.arend.core.expr.HashConsingTable;
+import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.core.expr.visitor.EvaluationStrategy;
+import org.arend.core.expr.visitor.NormalizationCache;
+import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.error.ListErrorReporter;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.error.GeneralError;
@@ -11,6 +16,7 @@ import org.arend.extImpl.DefinitionRequester;
 import org.arend.frontend.library.FileSourceLibrary;
 import org.arend.library.*;
 import org.arend.library.error.LibraryError;
+import org.arend.module.FullModulePath;
 import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.ModuleReferable;
 import org.arend.naming.reference.TCReferable;
@@ -21,16 +27,19 @@ import org.arend.prelude.PreludeResourceLibrary;
 import org.arend.term.group.Group;
 import org.arend.term.prettyprint.PrettyPrinterConfigWithRenamer;
 import org.arend.typechecking.LibraryArendExtensionProvider;
-import org.arend.typechecking.SimpleTypecheckerState;
+import org.arend.typechecking.ConcurrentTypecheckerState;
 import org.arend.typechecking.TypecheckerState;
 import org.arend.typechecking.doubleChecker.CoreModuleChecker;
 import org.arend.typechecking.error.local.GoalError;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.typechecking.order.listener.TypecheckingProfiler;
+import org.arend.typechecking.patternmatching.ConditionsChecking;
 import org.arend.util.FileUtils;
 import org.arend.util.Range;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -39,8 +48,13 @@ import java.util.*;
 
 public abstract class BaseCliFrontend {
   // Typechecking
-  private final TypecheckerState myTypecheckerState = new SimpleTypecheckerState();
+  private final TypecheckerState myTypecheckerState = new ConcurrentTypecheckerState(true);
   private final ListErrorReporter myErrorReporter = new ListErrorReporter();
+  private final ErrorReporter myTypecheckingErrorReporter = error -> {
+    synchronized (myErrorReporter) {
+      myErrorReporter.report(error);
+    }
+  };
   private final Map<ModulePath, GeneralError.Level> myModuleResults = new LinkedHashMap<>();
 
   // Status information
@@ -53,6 +67,7 @@ public abstract class BaseCliFrontend {
   // Libraries
   private final FileLibraryResolver myLibraryResolver = new FileLibraryResolver(new ArrayList<>(), myTypecheckerState, mySystemErrErrorReporter);
   private final LibraryManager myLibraryManager = new MyLibraryManager();
+  private final PersistingQueue myPersistingQueue = new PersistingQueue();
 
   private static String timeToString(long time) {
     if (time < 10000) {
@@ -66,6 +81,60 @@ public abstract class BaseCliFrontend {
     return (seconds / 60) + "m" + (seconds % 60) + "s";
   }
 
+  private static void printCheckingStatistics(Map<ModulePath, CoreModuleChecker.ModuleStatistics> statistics) {
+    int width = "Module".length();
+    for (ModulePath module : statistics.keySet()) {
+      width = Math.max(width, module.toString().length());
+    }
+
+    String format = "%-" + width + "s  %11s  %6s  %8s%n";
+    System.out.printf(format, "Module", "Definitions", "Failed", "Time");
+    for (Map.Entry<ModulePath, CoreModuleChecker.ModuleStatistics> entry : statistics.entrySet()) {
+      CoreModuleChecker.ModuleStatistics moduleStatistics = entry.getValue();
+      System.out.printf(format, entry.getKey(), moduleStatistics.getDefinitionsNumber(), moduleStatistics.getFailedNumber(), timeToString(moduleStatistics.getTime()));
+    }
+  }
+
+  private static final int PROFILE_REPORT_SIZE = 20;
+
+  private static void printProfileRecord(String format, Object name, TypecheckingProfiler.Record record) {
+    System.out.printf(format, name, timeToString(record.getWallTime() / 1000000), timeToString(record.getCpuTime() / 1000000), record.getAllocatedBytes() / (1024 * 1024) + " MB",
+      record.getCounter(TypecheckingProfiler.Counter.NORMALIZATIONS), record.getCounter(TypecheckingProfiler.Counter.COMPARISONS), record.getCounter(TypecheckingProfiler.Counter.INSTANCE_SEARCHES));
+  }
+
+  private static void printProfile(TypecheckingProfiler profiler) {
+    List<TypecheckingProfiler.Record> records = profiler.getRecords();
+    Map<FullModulePath, TypecheckingProfiler.Record> moduleRecords = profiler.getModuleRecords();
+    records = records.subList(0, Math.min(records.size(), PROFILE_REPORT_SIZE));
+
+    int width = "Definition".length();
+    for (TypecheckingProfiler.Record record : records) {
+      width = Math.max(width, record.getReferable().getRefLongName().toString().length());
+    }
+    int i = 0;
+    for (FullModulePath module : moduleRecords.keySet()) {
+      if (i++ == PROFILE_REPORT_SIZE) {
+        break;
+      }
+      width = Math.max(width, module.toString().length());
+    }
+
+    String format = "%-" + width + "s  %8s  %8s  %9s  %14s  %11s  %9s%n";
+    System.out.printf(format, "Definition", "Wall", "CPU", "Allocated", "Normalizations", "Comparisons", "Instances");
+    for (TypecheckingProfiler.Record record : records) {
+      printProfileRecord(format, record.getReferable().getRefLongName(), record);
+    }
+    System.out.println();
+    System.out.printf(format, "Module", "Wall", "CPU", "Allocated", "Normalizations", "Comparisons", "Instances");
+    i = 0;
+    for (Map.Entry<FullModulePath, TypecheckingProfiler.Record> entry : moduleRecords.entrySet()) {
+      if (i++ == PROFILE_REPORT_SIZE) {
+        break;
+      }
+      printProfileRecord(format, entry.getKey(), entry.getValue());
+    }
+  }
+
   private class MyLibraryManager extends LibraryManager {
     private final Stack<Long> times = new Stack<>();
 
@@ -79,12 +148,21 @@ public abstract class BaseCliFrontend {
       times.push(System.currentTimeMillis());
     }
 
+    @Override
+    public void onSourcesParsed(Library library, int modules, long time) {
+      System.out.println("[INFO] Parsed " + modules + " module" + (modules == 1 ? "" : "s") + " of library " + library.getName() + " (" + timeToString(time) + ")");
+    }
+
     @Override
     protected void afterLibraryLoading(Library library, boolean successful) {
       long time = System.currentTimeMillis() - times.pop();
       flushErrors();
       System.err.flush();
       System.out.println("[INFO] " + (successful ? "Loaded " : "Failed loading ") + "library " + library.getName() + (successful ? " (" + timeToString(time) + ")" : ""));
+      if (successful && HashConsingTable.isEnabled()) {
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println("[INFO] Hash-consing table: " + HashConsingTable.size() + " expressions, used heap: " + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " MB");
+      }
     }
   }
 
@@ -102,7 +180,7 @@ public abstract class BaseCliFrontend {
     private int failed;
 
     MyTypechecking() {
-      super(myLibraryManager.getInstanceProviderSet(), myTypecheckerState, ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, myErrorReporter, PositionComparator.INSTANCE, new LibraryArendExtensionProvider(myLibraryManager));
+      super(myLibraryManager.getInstanceProviderSet(), myTypecheckerState, ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, myTypecheckingErrorReporter, PositionComparator.INSTANCE, new LibraryArendExtensionProvider(myLibraryManager));
     }
 
     @Override
@@ -115,7 +193,7 @@ public abstract class BaseCliFrontend {
       update(definition);
     }
 
-    private void update(Definition definition) {
+    private synchronized void update(Definition definition) {
       flushErrors();
 
       LocatedReferable parent = definition.getRef().getLocatedReferableParent();
@@ -149,6 +227,14 @@ public abstract class BaseCliFrontend {
       cmdOptions.addOption(Option.builder("m").longOpt("extension-main").hasArg().argName("class").desc("main extension class").build());
       cmdOptions.addOption(Option.builder("r").longOpt("recompile").desc("recompile files").build());
       cmdOptions.addOption(Option.builder("c").longOpt("double-check").desc("double check correctness of the result").build());
+      cmdOptions.addOption(Option.builder().longOpt("environment-evaluation").desc("evaluate functions defined by pattern matching in environments instead of substituting arguments").build());
+      cmdOptions.addOption(Option.builder().longOpt("normalization-cache").desc("cache normal forms of expressions during typechecking and report cache statistics").build());
+      cmdOptions.addOption(Option.builder().longOpt("comparison-statistics").desc("report how many comparisons of expressions are settled without normalization").build());
+      cmdOptions.addOption(Option.builder().longOpt("parallel-conditions").desc("check coherence conditions of each definition in parallel").build());
+      cmdOptions.addOption(Option.builder().longOpt("hash-consing").desc("share structurally equal closed expressions and report the retained heap after loading libraries").build());
+      cmdOptions.addOption(Option.builder().longOpt("profile").hasArg().argName("file").desc("measure time, allocations, normalizations, comparisons, and instance searches of each definition, print the slowest ones, and write all measurements to a CSV file").build());
+      cmdOptions.addOption(Option.builder().longOpt("mapped").desc("store binary files in the memory-mapped format").build());
+      cmdOptions.addOption(Option.builder("j").longOpt("threads").hasArg().argName("N").desc("number of threads used for parsing and typechecking").build());
       cmdOptions.addOption("t", "test", false, "run tests");
       cmdOptions.addOption("v", "version", false, "print language version");
       addCommandOptions(cmdOptions);
@@ -180,10 +266,16 @@ public abstract class BaseCliFrontend {
       return null;
     }
 
+    HashConsingTable.setEnabled(cmdLine.hasOption("hash-consing"));
     if (!myLibraryManager.loadLibrary(new PreludeResourceLibrary(myTypecheckerState), null)) {
       return null;
     }
 
+    boolean mapped = cmdLine.hasOption("mapped");
+    if (mapped) {
+      myLibraryResolver.addLibraryFlag(SourceLibrary.Flag.MAPPED_BINARIES);
+    }
+
     // Get library directories
     String[] libDirStrings = cmdLine.getOptionValues("L");
     if (libDirStrings != null) {
@@ -282,15 +374,47 @@ public abstract class BaseCliFrontend {
       }
     }
 
+    // Get the number of threads
+    int threads = 1;
+    String threadsStr = cmdLine.getOptionValue("j");
+    if (threadsStr != null) {
+      try {
+        threads = Integer.parseInt(threadsStr);
+      } catch (NumberFormatException e) {
+        threads = 0;
+      }
+      if (threads <= 0) {
+        myExitWithError = true;
+        System.err.println("[ERROR] Illegal number of threads: " + threadsStr);
+        threads = 1;
+      }
+    }
+
     // Load and typecheck libraries
     MyTypechecking typechecking = new MyTypechecking();
+    typechecking.setThreads(threads);
+    myLibraryManager.setParsingThreads(threads);
     boolean recompile = cmdLine.hasOption("r");
     boolean doubleCheck = cmdLine.hasOption("c");
+    boolean normalizationCache = cmdLine.hasOption("normalization-cache");
+    boolean comparisonStatistics = cmdLine.hasOption("comparison-statistics");
+    NormalizationCache.setEnabled(normalizationCache);
+    ConditionsChecking.setParallel(cmdLine.hasOption("parallel-conditions"));
+    String profileFile = cmdLine.getOptionValue("profile");
+    TypecheckingProfiler profiler = profileFile == null ? null : new TypecheckingProfiler();
+    TypecheckingProfiler.setEnabled(profiler != null);
+    typechecking.setProfiler(profiler);
+    if (cmdLine.hasOption("environment-evaluation")) {
+      NormalizeVisitor.setEvaluationStrategy(EvaluationStrategy.ENVIRONMENT);
+    }
     for (UnmodifiableSourceLibrary library : requestedLibraries) {
       myModuleResults.clear();
       if (recompile) {
         library.addFlag(SourceLibrary.Flag.RECOMPILE);
       }
+      if (mapped) {
+        library.addFlag(SourceLibrary.Flag.MAPPED_BINARIES);
+      }
       if (!myLibraryManager.loadLibrary(library, typechecking)) {
         continue;
       }
@@ -302,6 +426,13 @@ public abstract class BaseCliFrontend {
 
       System.out.println();
       System.out.println("--- Typechecking " + library.getName() + " ---");
+      NormalizationCache.resetCounters();
+      CompareVisitor.resetCounters();
+      if (library.supportsPersisting()) {
+        for (ModulePath module : modules) {
+          myPersistingQueue.addModule(library, module);
+        }
+      }
       long time = System.currentTimeMillis();
       typechecking.typecheckLibrary(library);
       time = System.currentTimeMillis() - time;
@@ -327,11 +458,17 @@ public abstract class BaseCliFrontend {
       if (numWithGoals > 0) {
         System.out.println("Number of modules with goals: " + numWithGoals);
       }
+      if (normalizationCache) {
+        System.out.println("Normalization cache: " + NormalizationCache.getHits() + " hits, " + NormalizationCache.getMisses() + " misses");
+      }
+      if (comparisonStatistics) {
+        System.out.println("Comparisons: " + CompareVisitor.getComparisons() + ", structural hash matches: " + CompareVisitor.getHashMatches() + ", settled without normalization: " + CompareVisitor.getStructuralMatches());
+      }
       System.out.println("--- Done (" + timeToString(time) + ") ---");
 
-      // Persist updated modules
+      // Modules are written in the background; see waitForPersisting
       if (library.supportsPersisting()) {
-        library.persistUpdatedModules(mySystemErrErrorReporter);
+        myPersistingQueue.flush(library);
         library.clearUpdateModules();
       }
 
@@ -340,16 +477,18 @@ public abstract class BaseCliFrontend {
         System.out.println("--- Checking " + library.getName() + " ---");
         time = System.currentTimeMillis();
 
-        CoreModuleChecker checker = new CoreModuleChecker(myErrorReporter, myTypecheckerState);
+        Map<ModulePath, Group> groups = new LinkedHashMap<>();
         for (ModulePath module : library.getLoadedModules()) {
           Group group = library.getModuleGroup(module);
           if (group != null) {
-            checker.checkGroup(group);
+            groups.put(module, group);
           }
         }
+        Map<ModulePath, CoreModuleChecker.ModuleStatistics> statistics = new CoreModuleChecker(myErrorReporter, myTypecheckerState).checkModules(groups, threads);
 
         time = System.currentTimeMillis() - time;
         flushErrors();
+        printCheckingStatistics(statistics);
         System.out.println("--- Done (" + timeToString(time) + ") ---");
       }
     }
@@ -404,10 +543,42 @@ public abstract class BaseCliFrontend {
       }
     }
 
+    if (profiler != null) {
+      System.out.println();
+      System.out.println("--- Profile ---");
+      printProfile(profiler);
+      try (Writer writer = Files.newBufferedWriter(Paths.get(profileFile))) {
+        profiler.writeCsv(writer);
+        System.out.println("[INFO] Profile is written to " + profileFile);
+      } catch (IOException e) {
+        myExitWithError = true;
+        System.err.println("[ERROR] Cannot write profile to " + profileFile + ": " + e.getMessage());
+      }
+    }
+
+    waitForPersisting();
     return cmdLine;
   }
 
+  private void waitForPersisting() {
+    long time = System.currentTimeMillis();
+    if (!myPersistingQueue.waitForAll(mySystemErrErrorReporter)) {
+      myExitWithError = true;
+    }
+    myPersistingQueue.shutdown();
+    time = System.currentTimeMillis() - time;
+    if (time > 0) {
+      System.out.println("[INFO] Waited for persisting (" + timeToString(time) + ")");
+    }
+  }
+
   private void flushErrors() {
+    synchronized (myErrorReporter) {
+      doFlushErrors();
+    }
+  }
+
+  private void doFlushErrors() {
     for (GeneralError error : myErrorReporter.getErrorList()) {
       error.forAffectedDefinitions((referable, err) -> {
         if (referable instanceof LocatedReferable) {
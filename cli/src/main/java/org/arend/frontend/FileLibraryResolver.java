@@ -5,6 +5,7 @@ import org.arend.ext.error.ErrorReporter;
 import org.arend.frontend.library.FileLoadableHeaderLibrary;
 import org.arend.library.Library;
 import org.arend.library.LibraryConfig;
+import org.arend.library.SourceLibrary;
 import org.arend.library.UnmodifiableSourceLibrary;
 import org.arend.library.error.LibraryIOError;
 import org.arend.library.error.MultipleLibraries;
@@ -23,6 +24,7 @@ public class FileLibraryResolver implements LibraryResolver {
   private final TypecheckerState myTypecheckerState;
   private final ErrorReporter myErrorReporter;
   private final Map<String, FileLoadableHeaderLibrary> myLibraries = new HashMap<>();
+  private final EnumSet<SourceLibrary.Flag> myFlags = EnumSet.noneOf(SourceLibrary.Flag.class);
 
   public FileLibraryResolver(List<Path> libDirs, TypecheckerState typecheckerState, ErrorReporter errorReporter) {
     myLibDirs = libDirs;
@@ -45,7 +47,11 @@ public class FileLibraryResolver implements LibraryResolver {
       if (config.getSourcesDir() == null) {
         config.setSourcesDir(headerFile.getParent().toString());
       }
-      return new FileLoadableHeaderLibrary(config, headerFile, myTypecheckerState);
+      FileLoadableHeaderLibrary library = new FileLoadableHeaderLibrary(config, headerFile, myTypecheckerState);
+      for (SourceLibrary.Flag flag : myFlags) {
+        library.addFlag(flag);
+      }
+      return library;
     } catch (IOException e) {
       myErrorReporter.report(new LibraryIOError(headerFile.toString(), "Failed to read header file", e.getLocalizedMessage()));
       return null;
@@ -63,6 +69,13 @@ public class FileLibraryResolver implements LibraryResolver {
     return null;
   }
 
+  /**
+   * Adds a flag to all libraries that will be resolved.
+   */
+  public void addLibraryFlag(SourceLibrary.Flag flag) {
+    myFlags.add(flag);
+  }
+
   public void addLibraryDirectory(Path libDir) {
     myLibDirs.add(libDir);
   }
@@ -121,6 +134,7 @@ public class FileLibraryResolver implements LibraryResolver {
     }
 
     if (library != null) {
+      library.addFlag(SourceLibrary.Flag.LAZY_BODIES);
       myLibraries.put(dependencyName, library);
     }
 
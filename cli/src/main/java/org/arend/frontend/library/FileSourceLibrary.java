@@ -11,6 +11,7 @@ import org.arend.library.UnmodifiableSourceLibrary;
 import org.arend.source.BinarySource;
 import org.arend.source.FileBinarySource;
 import org.arend.source.GZIPStreamBinarySource;
+import org.arend.source.MappedFileBinarySource;
 import org.arend.source.Source;
 import org.arend.typechecking.TypecheckerState;
 import org.arend.util.Range;
@@ -87,7 +88,10 @@ public class FileSourceLibrary extends UnmodifiableSourceLibrary {
   @Nullable
   @Override
   public BinarySource getBinarySource(ModulePath modulePath) {
-    return myBinaryBasePath == null ? null : new GZIPStreamBinarySource(new FileBinarySource(myBinaryBasePath, modulePath));
+    if (myBinaryBasePath == null) {
+      return null;
+    }
+    return hasFlag(Flag.MAPPED_BINARIES) ? new MappedFileBinarySource(myBinaryBasePath, modulePath) : new GZIPStreamBinarySource(new FileBinarySource(myBinaryBasePath, modulePath));
   }
 
   @Override
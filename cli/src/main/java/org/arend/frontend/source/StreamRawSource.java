@@ -1,8 +1,11 @@
 package org.arend.frontend.source;
 
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.arend.error.CompositeErrorReporter;
 import org.arend.error.CountingErrorReporter;
+import org.arend.error.ListErrorReporter;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
 import org.arend.frontend.ConcreteReferableProvider;
@@ -14,10 +17,12 @@ import org.arend.naming.resolving.visitor.DefinitionResolveNameVisitor;
 import org.arend.naming.scope.CachingScope;
 import org.arend.naming.scope.ScopeFactory;
 import org.arend.source.Source;
+import org.arend.source.SourceHashes;
 import org.arend.source.SourceLoader;
 import org.arend.term.NamespaceCommand;
 import org.arend.term.group.FileGroup;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -29,6 +34,8 @@ public abstract class StreamRawSource implements Source {
   private final ModulePath myModulePath;
   private final boolean myInTests;
   private FileGroup myGroup;
+  private ListErrorReporter myParsingErrorReporter;
+  private boolean myReadingFailed;
   private byte myPass = 0;
 
   protected StreamRawSource(ModulePath modulePath, boolean inTests) {
@@ -50,11 +57,29 @@ public abstract class StreamRawSource implements Source {
   @NotNull
   protected abstract InputStream getInputStream() throws IOException;
 
+  @Nullable
   @Override
-  public boolean preload(SourceLoader sourceLoader) {
-    SourceLibrary library = sourceLoader.getLibrary();
+  public byte[] getContentHash() {
+    try {
+      return SourceHashes.digest(getInputStream());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parses the source and builds its group.
+   * Errors are reported to a local error reporter and passed to the typechecking error reporter in {@link #preload}.
+   */
+  @Override
+  public void parse(SourceLoader sourceLoader) {
+    ListErrorReporter errorReporter = new ListErrorReporter();
+    parse(sourceLoader.getLibrary(), errorReporter);
+    myParsingErrorReporter = errorReporter;
+  }
+
+  private void parse(SourceLibrary library, ErrorReporter errorReporter) {
     ModulePath modulePath = getModulePath();
-    ErrorReporter errorReporter = sourceLoader.getTypecheckingErrorReporter();
     CountingErrorReporter countingErrorReporter = new CountingErrorReporter();
     final CompositeErrorReporter compositeErrorReporter = new CompositeErrorReporter(errorReporter, countingErrorReporter);
 
@@ -70,35 +95,75 @@ public abstract class StreamRawSource implements Source {
       lexer.removeErrorListeners();
       lexer.addErrorListener(errorListener);
 
-      ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
-      parser.removeErrorListeners();
-      parser.addErrorListener(errorListener);
-
-      ArendParser.StatementsContext tree = parser.statements();
+      ArendParser.StatementsContext tree = parseStatements(new CommonTokenStream(lexer), errorListener);
       if (countingErrorReporter.getErrorsNumber() > 0) {
-        return false;
+        return;
       }
 
       myGroup = new BuildVisitor(new FullModulePath(library.getName(), myInTests ? FullModulePath.LocationKind.TEST : FullModulePath.LocationKind.SOURCE, modulePath.toList()), errorReporter).visitStatements(tree);
-      library.onGroupLoaded(modulePath, myGroup, true);
-
-      for (NamespaceCommand command : myGroup.getNamespaceCommands()) {
-        if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
-          ModulePath module = new ModulePath(command.getPath());
-          if (library.containsModule(module) && !sourceLoader.preloadRaw(module, myInTests)) {
-            library.onGroupLoaded(modulePath, null, true);
-            myGroup = null;
-            return false;
-          }
-        }
-      }
-
-      return true;
     } catch (IOException e) {
       errorReporter.report(new ExceptionError(e, "loading", modulePath));
-      library.onGroupLoaded(modulePath, null, true);
+      myReadingFailed = true;
+    }
+  }
+
+  /**
+   * Parses a file in two stages.
+   * First, it is parsed in the SLL mode which is faster, but it cannot parse some inputs and does not recover from errors.
+   * If it fails, the file is parsed again in the LL mode which reports syntax errors.
+   * The DFA built during prediction is shared among all instances of the parser, so it is reused for all files.
+   *
+   * @param errorListener receives syntax errors reported in the LL mode.
+   */
+  public static ArendParser.StatementsContext parseStatements(CommonTokenStream tokens, ANTLRErrorListener errorListener) {
+    ArendParser parser = new ArendParser(tokens);
+    parser.removeErrorListeners();
+    parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+    parser.setErrorHandler(new BailErrorStrategy());
+    try {
+      return parser.statements();
+    } catch (ParseCancellationException e) {
+      tokens.seek(0);
+      parser.reset();
+      parser.addErrorListener(errorListener);
+      parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+      parser.setErrorHandler(new DefaultErrorStrategy());
+      return parser.statements();
+    }
+  }
+
+  @Override
+  public boolean preload(SourceLoader sourceLoader) {
+    SourceLibrary library = sourceLoader.getLibrary();
+    ModulePath modulePath = getModulePath();
+    ErrorReporter errorReporter = sourceLoader.getTypecheckingErrorReporter();
+    if (myParsingErrorReporter == null) {
+      parse(library, errorReporter);
+    } else {
+      myParsingErrorReporter.reportTo(errorReporter);
+      myParsingErrorReporter = null;
+    }
+
+    if (myGroup == null) {
+      if (myReadingFailed) {
+        library.onGroupLoaded(modulePath, null, true);
+      }
       return false;
     }
+
+    library.onGroupLoaded(modulePath, myGroup, true);
+    for (NamespaceCommand command : myGroup.getNamespaceCommands()) {
+      if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
+        ModulePath module = new ModulePath(command.getPath());
+        if (library.containsModule(module) && !sourceLoader.preloadRaw(module, myInTests)) {
+          library.onGroupLoaded(modulePath, null, true);
+          myGroup = null;
+          return false;
+        }
+      }
+    }
+
+    return true;
   }
 
   @Override
@@ -1,8 +1,13 @@
 package org.arend.library;
 
+import org.arend.core.definition.DataDefinition;
 import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.BranchElimTree;
+import org.arend.core.elimtree.ElimBody;
 import org.arend.ext.module.ModulePath;
 import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
 import org.arend.source.Source;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
@@ -145,6 +150,86 @@ public class CachingTest extends LibraryTestCase {
     assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("A")), "f")), is(notNullValue()));
   }
 
+  @Test
+  public void sourceTouched() {
+    library.addModule(new ModulePath("A"), "\\data D\n");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"), "\\data D\n", true);
+    libraryManager.loadLibrary(library, null);
+    assertThat(library.getUpdatedModules(), is(empty()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("A")), "D")), is(notNullValue()));
+  }
+
+  @Test
+  public void lazyBodies() {
+    library.addModule(new ModulePath("A"),
+      "\\func f (n : Nat) : Nat | 0 => 0 | suc n => f n\n" +
+      "\\func g : f 3 = 0 => idp");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    library.addFlag(SourceLibrary.Flag.LAZY_BODIES);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(library.getUpdatedModules(), is(empty()));
+    Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+    Definition f = typecheckerState.getTypechecked(get(scope, "f"));
+    assertThat(f, is(instanceOf(FunctionDefinition.class)));
+    assertThat(((FunctionDefinition) f).getActualBody(), is(instanceOf(ElimBody.class)));
+    assertTrue(typecheckerState.getTypechecked(get(scope, "g")).status().isOK());
+  }
+
+  @Test
+  public void lazyBodyLoadingFailed() {
+    library.addModule(new ModulePath("A"), "\\func f (n : Nat) : Nat | 0 => 0 | suc n => f n");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    library.addFlag(SourceLibrary.Flag.LAZY_BODIES);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+    library.lazyBodyLoadingFailed(new ModulePath("A"));
+    assertThat(typecheckerState.getTypechecked(get(scope, "f")), is(notNullValue()));
+    library.resetModulesWithFailedBodies();
+    assertThat(typecheckerState.getTypechecked(get(scope, "f")), is(nullValue()));
+  }
+
+  @Test
+  public void sharedElimTrees() {
+    library.addModule(new ModulePath("A"),
+      "\\data D | a | b | c | d\n" +
+      "\\func f (x1 x2 x3 x4 x5 : D) : Nat\n" +
+      "  | a, _, _, _, _ => 1\n" +
+      "  | _, a, _, _, _ => 2\n" +
+      "  | _, _, a, _, _ => 3\n" +
+      "  | _, _, _, a, _ => 4\n" +
+      "  | _, _, _, _, a => 5\n" +
+      "  | _, _, _, _, _ => 0");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(library.getUpdatedModules(), is(empty()));
+    Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+    DataDefinition dataDef = (DataDefinition) typecheckerState.getTypechecked(get(scope, "D"));
+    BranchElimTree elimTree = (BranchElimTree) ((ElimBody) ((FunctionDefinition) typecheckerState.getTypechecked(get(scope, "f"))).getBody()).getElimTree();
+    assertNotSame(elimTree.getChild(dataDef.getConstructor("a")), elimTree.getChild(dataDef.getConstructor("b")));
+    assertSame(elimTree.getChild(dataDef.getConstructor("b")), elimTree.getChild(dataDef.getConstructor("c")));
+    assertSame(elimTree.getChild(dataDef.getConstructor("b")), elimTree.getChild(dataDef.getConstructor("d")));
+  }
+
   @Test
   public void dependencySourceChanged() {
     library.addModule(new ModulePath("A"), "\\data D\n");
@@ -272,4 +357,29 @@ public class CachingTest extends LibraryTestCase {
     assertThat(sourceB, is(notNullValue()));
     assertTrue(sourceB.isAvailable());
   }
+
+  @Test
+  public void persistingQueue() {
+    ModulePath modulePath = new ModulePath("A");
+    library.addModule(modulePath, "\\func a => 0\n\\func b => a");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    ChildGroup aGroup = library.getModuleGroup(modulePath);
+    assertThat(aGroup, is(notNullValue()));
+
+    PersistingQueue queue = new PersistingQueue();
+    for (ModulePath module : library.getUpdatedModules()) {
+      queue.addModule(library, module);
+    }
+    typechecking.typecheckLibrary(library);
+    queue.flush(library);
+    assertTrue(queue.waitForAll(errorReporter));
+    queue.shutdown();
+    assertThat(errorList, is(empty()));
+
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    aGroup = library.getModuleGroup(modulePath);
+    assertThat(aGroup, is(notNullValue()));
+    assertThat(typecheckerState.getTypechecked(get(aGroup.getGroupScope(), "b")), is(notNullValue()));
+  }
 }
@@ -69,4 +69,19 @@ public class LibraryLoadingTest extends LibraryTestCase {
     assertThat(library.getModuleGroup(modulePath), is(nullValue()));
     assertThat(errorList, is(not(empty())));
   }
+
+  @Test
+  public void parallelParsing() {
+    libraryManager.setParsingThreads(4);
+    for (int i = 0; i < 10; i++) {
+      library.addModule(new ModulePath("M" + i), i == 0 ? "\\func f0 => 0" : "\\import M" + (i - 1) + "\n\\func f" + i + " => f" + (i - 1));
+    }
+    library.addModule(new ModulePath("E"), "hello world");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    for (int i = 0; i < 10; i++) {
+      assertThat(library.getModuleGroup(new ModulePath("M" + i)), is(notNullValue()));
+    }
+    assertThat(library.getModuleGroup(new ModulePath("E")), is(nullValue()));
+    assertThat(errorList, is(not(empty())));
+  }
 }
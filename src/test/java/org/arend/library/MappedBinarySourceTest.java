@@ -0,0 +1,116 @@
+package org.arend.library;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.ElimBody;
+import org.arend.ext.module.ModulePath;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
+import org.arend.source.FileBinarySource;
+import org.arend.source.GZIPStreamBinarySource;
+import org.arend.source.MappedFileBinarySource;
+import org.arend.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class MappedBinarySourceTest extends LibraryTestCase {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private void addModule(ModulePath modulePath, String text) {
+    library.addModule(modulePath, text);
+    library.setBinarySource(modulePath, new MappedFileBinarySource(folder.getRoot().toPath(), modulePath));
+  }
+
+  private void reload() {
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(library.getUpdatedModules(), is(empty()));
+  }
+
+  @Test
+  public void bodiesTest() {
+    addModule(new ModulePath("A"),
+      "\\func f (n : Nat) : Nat | 0 => 0 | suc n => f n\n" +
+      "\\func g => f 3\n" +
+      "\\data D | con \\where { \\func h (d : D) : Nat | con => 0 }");
+    addModule(new ModulePath("B"),
+      "\\import A\n" +
+      "\\func k : g = 0 => idp");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    reload();
+
+    Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+    Definition f = typecheckerState.getTypechecked(get(scope, "f"));
+    assertThat(f, is(instanceOf(FunctionDefinition.class)));
+    assertThat(((FunctionDefinition) f).getActualBody(), is(instanceOf(ElimBody.class)));
+    Definition h = typecheckerState.getTypechecked(get(scope, "D.h"));
+    assertThat(h, is(instanceOf(FunctionDefinition.class)));
+    assertThat(((FunctionDefinition) h).getActualBody(), is(instanceOf(ElimBody.class)));
+    assertTrue(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("B")), "k")).status().isOK());
+  }
+
+  @Test
+  public void gzipModuleTest() {
+    ModulePath modulePath = new ModulePath("A");
+    library.addModule(modulePath, "\\func f (n : Nat) : Nat | 0 => 0 | suc n => f n");
+    library.setBinarySource(modulePath, new GZIPStreamBinarySource(new FileBinarySource(folder.getRoot().toPath(), modulePath)));
+    assertTrue(libraryManager.loadLibrary(library, null));
+    reload();
+
+    library.setBinarySource(modulePath, new MappedFileBinarySource(folder.getRoot().toPath(), modulePath));
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(library.getUpdatedModules(), is(empty()));
+    Definition f = typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(modulePath), "f"));
+    assertThat(((FunctionDefinition) f).getActualBody(), is(instanceOf(ElimBody.class)));
+  }
+
+  @Test
+  public void persistLoadedModuleTest() {
+    addModule(new ModulePath("A"), "\\func f (n : Nat) : Nat | 0 => 0 | suc n => f n");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    reload();
+
+    library.persistModule(new ModulePath("A"), IdReferableConverter.INSTANCE, errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    Definition f = typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("A")), "f"));
+    assertThat(((FunctionDefinition) f).getActualBody(), is(instanceOf(ElimBody.class)));
+  }
+
+  @Test
+  public void corruptedBodyTest() throws IOException {
+    ModulePath modulePath = new ModulePath("A");
+    addModule(modulePath, "\\func f (n : Nat) : Nat | 0 => 0 | suc n => f n");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    reload();
+
+    Path file = FileUtils.binaryFile(folder.getRoot().toPath(), modulePath);
+    byte[] bytes = Files.readAllBytes(file);
+    Arrays.fill(bytes, bytes.length - 4, bytes.length, (byte) 0xFF);
+    Files.write(file, bytes);
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library, null));
+
+    TCReferable ref = get(library.getModuleScopeProvider().forModule(modulePath), "f");
+    FunctionDefinition f = (FunctionDefinition) typecheckerState.getTypechecked(ref);
+    assertThat(f.getActualBody(), is(nullValue()));
+    assertThat(errorList, hasSize(1));
+    assertThat(typecheckerState.getTypechecked(ref), is(nullValue()));
+  }
+}
@@ -0,0 +1,68 @@
+package org.arend.naming;
+
+import org.arend.naming.reference.Referable;
+import org.arend.naming.scope.GroupNameIndex;
+import org.arend.term.group.ChildGroup;
+import org.arend.term.group.Group;
+import org.arend.term.group.StaticGroup;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.arend.Matchers.notInScope;
+import static org.junit.Assert.*;
+
+public class GroupNameIndexTest extends NameResolverTestCase {
+  private static String getName(Referable referable) {
+    return referable == null ? null : referable.textRepresentation();
+  }
+
+  @Test
+  public void indexTest() {
+    ChildGroup group = resolveNamesModule(
+      "\\data D | con1 | con2\n" +
+      "\\class C { | field : Nat }\n" +
+      "\\func f => 0 \\where { \\func g => 1 }");
+    GroupNameIndex index = ((StaticGroup) group).getNameIndex();
+    assertSame(index, ((StaticGroup) group).getNameIndex());
+    assertEquals("D", getName(index.resolveInSubgroups("D", false)));
+    assertEquals("con2", getName(index.resolveInSubgroups("con2", false)));
+    assertEquals("field", getName(index.resolveInSubgroups("field", false)));
+    assertNull(index.resolveInSubgroups("g", false));
+    assertNotNull(index.resolveSubgroup("f", false));
+    assertNull(index.resolveSubgroup("con1", false));
+  }
+
+  @Test
+  public void dynamicSubgroupsTest() {
+    ChildGroup group = resolveNamesModule("\\class C { | field : Nat \\func h => 0 }");
+    GroupNameIndex index = ((StaticGroup) group.getSubgroups().iterator().next()).getNameIndex();
+    assertEquals("field", getName(index.resolveField("field", true)));
+    assertEquals("h", getName(index.resolveInSubgroups("h", true)));
+    assertNull(index.resolveInSubgroups("h", false));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void invalidateTest() {
+    ChildGroup group = resolveNamesModule("\\func f => 0");
+    GroupNameIndex index = ((StaticGroup) group).getNameIndex();
+    assertNull(index.resolveInSubgroups("g", false));
+
+    ((List<Group>) group.getSubgroups()).add(parseDef("\\func g => 0"));
+    assertFalse(index.isUpToDate());
+    assertEquals("g", getName(((StaticGroup) group).getNameIndex().resolveInSubgroups("g", false)));
+  }
+
+  @Test
+  public void openUsingRenamingTest() {
+    resolveNamesModule(
+      "\\module X \\where { \\func f => 0 \\func g => 1 \\func h => 2 }\n" +
+      "\\open X \\using (f \\as f') \\hiding (g)\n" +
+      "\\func a => f'\n" +
+      "\\func b => h\n" +
+      "\\func c => f\n" +
+      "\\func d => g", 2);
+    assertThatErrorsAre(notInScope("f"), notInScope("g"));
+  }
+}
@@ -0,0 +1,61 @@
+package org.arend.term.expr;
+
+import org.arend.core.context.binding.TypedBinding;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.HashConsingTable;
+import org.arend.core.expr.SigmaExpression;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.arend.ExpressionFactory.*;
+import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.*;
+
+public class HashConsingTest extends TypeCheckingTestCase {
+  @Before
+  public void enableTable() {
+    HashConsingTable.setEnabled(true);
+  }
+
+  @After
+  public void disableTable() {
+    HashConsingTable.setEnabled(false);
+  }
+
+  @Test
+  public void closedTest() {
+    Expression expr1 = HashConsingTable.intern(Suc(HashConsingTable.intern(Zero())));
+    Expression expr2 = HashConsingTable.intern(Suc(HashConsingTable.intern(Zero())));
+    assertSame(expr1, expr2);
+    assertSame(HashConsingTable.intern(Nat()), HashConsingTable.intern(Nat()));
+  }
+
+  @Test
+  public void openTest() {
+    TypedBinding x = new TypedBinding("x", Nat());
+    Expression expr = Suc(Ref(x));
+    assertSame(expr, HashConsingTable.intern(expr));
+    assertNotSame(HashConsingTable.intern(Suc(Ref(x))), expr);
+    assertFalse(HashConsingTable.isCanonical(expr));
+  }
+
+  @Test
+  public void nonCanonicalArgumentTest() {
+    Expression expr1 = HashConsingTable.intern(Pos(Zero()));
+    Expression expr2 = HashConsingTable.intern(Pos(Zero()));
+    assertNotSame(expr1, expr2);
+  }
+
+  @Test
+  public void definitionsTest() {
+    typeCheckModule(
+      "\\func f : \\Sigma Nat Nat => (7, 7)\n" +
+      "\\func g : \\Sigma Nat Nat => (7, 7)");
+    FunctionDefinition f = (FunctionDefinition) getDefinition("f");
+    FunctionDefinition g = (FunctionDefinition) getDefinition("g");
+    assertSame(f.getResultType().cast(SigmaExpression.class).getParameters().getTypeExpr(), g.getResultType().cast(SigmaExpression.class).getParameters().getTypeExpr());
+  }
+}
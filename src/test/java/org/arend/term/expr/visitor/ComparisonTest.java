@@ -10,9 +10,11 @@ import org.arend.core.expr.DataCallExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.PiExpression;
 import org.arend.core.expr.let.LetClause;
+import org.arend.core.expr.visitor.CompareVisitor;
 import org.arend.core.sort.Sort;
 import org.arend.ext.core.ops.CMP;
 import org.arend.prelude.Prelude;
+import org.arend.typechecking.implicitargs.equations.DummyEquations;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.junit.Test;
@@ -219,4 +221,28 @@ public class ComparisonTest extends TypeCheckingTestCase {
     assertEquals(result2.expression, result1.expression);
     assertEquals(result1.expression, result2.expression);
   }
+
+  @Test
+  public void structuralCopyTest() {
+    // (A : \Type0) -> (a : A) -> A = copy
+    SingleDependentLink A = singleParam("A", Universe(0));
+    SingleDependentLink a = singleParam("a", Ref(A));
+    Expression expr = Pi(A, Pi(a, Ref(A)));
+    Expression copy = expr.copy();
+    long matches = CompareVisitor.getStructuralMatches();
+    assertTrue(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, expr, copy, null, null));
+    assertEquals(matches + 1, CompareVisitor.getStructuralMatches());
+  }
+
+  @Test
+  public void structuralVariablesTest() {
+    // \lam x y => f x y /= \lam x y => f y x
+    Binding f = new TypedBinding("f", Pi(Nat(), Pi(Nat(), Nat())));
+    SingleDependentLink xy = singleParam(true, vars("x", "y"), Nat());
+    SingleDependentLink xy2 = singleParam(true, vars("x", "y"), Nat());
+    Expression expr1 = Lam(xy, Apps(Ref(f), Ref(xy), Ref(xy.getNext())));
+    Expression expr2 = Lam(xy2, Apps(Ref(f), Ref(xy2.getNext()), Ref(xy2)));
+    assertEquals(expr1.getStructuralHash(), expr2.getStructuralHash());
+    assertFalse(CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, expr1, expr2, null, null));
+  }
 }
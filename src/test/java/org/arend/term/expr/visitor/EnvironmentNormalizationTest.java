@@ -0,0 +1,42 @@
+package org.arend.term.expr.visitor;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.visitor.EvaluationStrategy;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.sort.Sort;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.arend.ExpressionFactory.*;
+import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs {@link NormalizationTest} with {@link EvaluationStrategy#ENVIRONMENT}.
+ */
+public class EnvironmentNormalizationTest extends NormalizationTest {
+  @Before
+  public void setEnvironmentStrategy() {
+    NormalizeVisitor.setEvaluationStrategy(EvaluationStrategy.ENVIRONMENT);
+  }
+
+  @After
+  public void resetStrategy() {
+    NormalizeVisitor.setEvaluationStrategy(EvaluationStrategy.SUBSTITUTION);
+  }
+
+  @Test
+  public void constructorConditionsTest() {
+    typeCheckModule(
+      "\\func f (x : Int) : Nat\n" +
+      "  | pos n => suc n\n" +
+      "  | neg (suc n) => 0\n" +
+      "\\func test (n m : Nat) : Nat \\elim n\n" +
+      "  | 0 => f (neg m)\n" +
+      "  | suc n => test n m");
+    FunctionDefinition test = (FunctionDefinition) getDefinition("test");
+    assertEquals(Suc(Zero()), FunCall(test, Sort.SET0, Suc(Suc(Zero())), Zero()).normalize(NormalizationMode.NF));
+  }
+}
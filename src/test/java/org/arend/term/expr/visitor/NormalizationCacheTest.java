@@ -0,0 +1,88 @@
+package org.arend.term.expr.visitor;
+
+import org.arend.core.context.binding.TypedBinding;
+import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.NormalizationCache;
+import org.arend.core.sort.Sort;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.arend.ExpressionFactory.*;
+import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.*;
+
+public class NormalizationCacheTest extends TypeCheckingTestCase {
+  private FunctionDefinition doubleFun;
+
+  @Before
+  public void initialize() {
+    NormalizationCache.setEnabled(true);
+    NormalizationCache.resetCounters();
+    typeCheckModule(
+      "\\func double (x : Nat) : Nat\n" +
+      "  | zero => 1\n" +
+      "  | suc x => suc (suc (double x))");
+    doubleFun = (FunctionDefinition) getDefinition("double");
+  }
+
+  @After
+  public void disableCache() {
+    NormalizationCache.setEnabled(false);
+  }
+
+  @Test
+  public void closedTermTest() {
+    Expression expr = FunCall(doubleFun, Sort.SET0, Suc(Suc(Suc(Zero()))));
+    Expression[] results = new Expression[2];
+    NormalizationCache.runInScope(() -> results[0] = expr.normalize(NormalizationMode.WHNF));
+    long hits = NormalizationCache.getHits();
+    NormalizationCache.runInScope(() -> results[1] = expr.normalize(NormalizationMode.WHNF));
+    assertSame(results[0], results[1]);
+    assertEquals(hits + 1, NormalizationCache.getHits());
+  }
+
+  @Test
+  public void openTermTest() {
+    TypedBinding x = new TypedBinding("x", Nat());
+    Expression expr = FunCall(doubleFun, Sort.SET0, Suc(Ref(x)));
+    Expression[] results = new Expression[3];
+    NormalizationCache.runInScope(() -> {
+      results[0] = expr.normalize(NormalizationMode.WHNF);
+      results[1] = expr.normalize(NormalizationMode.WHNF);
+    });
+    assertSame(results[0], results[1]);
+
+    long misses = NormalizationCache.getMisses();
+    NormalizationCache.runInScope(() -> results[2] = expr.normalize(NormalizationMode.WHNF));
+    assertNotSame(results[0], results[2]);
+    assertTrue(NormalizationCache.getMisses() > misses);
+  }
+
+  @Test
+  public void closedUnderBinderTest() {
+    SingleDependentLink x = singleParam("x", Nat());
+    Expression expr = FunCall(doubleFun, Sort.SET0, Apps(Lam(x, Suc(Ref(x))), Zero()));
+    Expression[] results = new Expression[2];
+    NormalizationCache.runInScope(() -> results[0] = expr.normalize(NormalizationMode.WHNF));
+    long hits = NormalizationCache.getHits();
+    NormalizationCache.runInScope(() -> results[1] = expr.normalize(NormalizationMode.WHNF));
+    assertSame(results[0], results[1]);
+    assertEquals(hits + 1, NormalizationCache.getHits());
+  }
+
+  @Test
+  public void noScopeTest() {
+    Expression expr = FunCall(doubleFun, Sort.SET0, Suc(Zero()));
+    long hits = NormalizationCache.getHits();
+    long misses = NormalizationCache.getMisses();
+    expr.normalize(NormalizationMode.WHNF);
+    expr.normalize(NormalizationMode.WHNF);
+    assertEquals(hits, NormalizationCache.getHits());
+    assertEquals(misses, NormalizationCache.getMisses());
+  }
+}
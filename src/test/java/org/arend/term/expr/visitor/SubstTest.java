@@ -4,13 +4,15 @@ import org.arend.core.context.binding.Binding;
 import org.arend.core.context.binding.TypedBinding;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.expr.AppExpression;
 import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.VariablesMaskVisitor;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
 import static org.arend.ExpressionFactory.*;
 import static org.arend.core.expr.ExpressionFactory.*;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class SubstTest extends TypeCheckingTestCase {
   @Test
@@ -118,4 +120,39 @@ public class SubstTest extends TypeCheckingTestCase {
     Expression expr2 = let(lets(let("x", Lam(z, Ref(z))), let("y", Lam(w, Zero()))), Zero());
     assertEquals(expr2, expr1.subst(a, Zero()));
   }
+
+  private static Binding newBindingNotIn(Expression expr) {
+    while (true) {
+      Binding binding = new TypedBinding("y", Nat());
+      if (!VariablesMaskVisitor.intersects(expr.getVariablesMask(), VariablesMaskVisitor.getMask(binding))) {
+        return binding;
+      }
+    }
+  }
+
+  @Test
+  public void substSharesUnaffected() {
+    // f (\x. x) y [y := zero] = f (\x. x) zero
+    SingleDependentLink x = singleParam("x", Nat());
+    Expression lam = Lam(x, Ref(x));
+    Binding y = newBindingNotIn(lam);
+    Binding f = new TypedBinding("f", Pi(Pi(Nat(), Nat()), Pi(Nat(), Nat())));
+    Expression expr = Apps(Ref(f), lam, Ref(y));
+
+    Expression result = expr.subst(y, Zero());
+    assertEquals(Apps(Ref(f), lam, Zero()), result);
+    assertSame(lam, ((AppExpression) ((AppExpression) result).getFunction()).getArgument());
+    assertFalse(lam.findBinding(y));
+    assertTrue(expr.findBinding(y));
+  }
+
+  @Test
+  public void copyDoesNotShare() {
+    SingleDependentLink x = singleParam("x", Nat());
+    Expression lam = Lam(x, Ref(x));
+    Expression expr = Apps(Ref(new TypedBinding("f", Pi(Pi(Nat(), Nat()), Nat()))), lam);
+    Expression copy = expr.copy();
+    assertEquals(expr, copy);
+    assertNotSame(lam, ((AppExpression) copy).getArgument());
+  }
 }
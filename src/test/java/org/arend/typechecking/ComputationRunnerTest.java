@@ -0,0 +1,55 @@
+package org.arend.typechecking;
+
+import org.arend.typechecking.computation.ComputationRunner;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ComputationRunnerTest {
+  private static Boolean await(CyclicBarrier barrier) {
+    try {
+      barrier.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+      throw new IllegalStateException(e);
+    }
+    ComputationRunner.checkCanceled();
+    return true;
+  }
+
+  @Test
+  public void concurrentRunsTest() throws Exception {
+    int n = 4;
+    CyclicBarrier barrier = new CyclicBarrier(n);
+    ExecutorService executor = Executors.newFixedThreadPool(n);
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        futures.add(executor.submit(() -> new ComputationRunner<Boolean>().run(() -> false, () -> await(barrier))));
+      }
+      for (Future<Boolean> future : futures) {
+        assertEquals(true, future.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void independentCancellationTest() throws Exception {
+    CyclicBarrier barrier = new CyclicBarrier(2);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Boolean> canceled = executor.submit(() -> new ComputationRunner<Boolean>().run(() -> true, () -> await(barrier)));
+      Future<Boolean> notCanceled = executor.submit(() -> new ComputationRunner<Boolean>().run(() -> false, () -> await(barrier)));
+      assertNull(canceled.get());
+      assertEquals(true, notCanceled.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
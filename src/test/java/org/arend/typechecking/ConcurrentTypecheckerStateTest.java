@@ -0,0 +1,56 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.ext.reference.Precedence;
+import org.arend.module.FullModulePath;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.LocatedReferableImpl;
+import org.arend.naming.reference.TCReferable;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentTypecheckerStateTest {
+  private static TCReferable referable(String libraryName, String name) {
+    return new LocatedReferableImpl(Precedence.DEFAULT, name, new FullModulePath(libraryName, FullModulePath.LocationKind.SOURCE, Collections.singletonList("A")), GlobalReferable.Kind.TYPECHECKABLE);
+  }
+
+  @Test
+  public void recordTest() {
+    ConcurrentTypecheckerState state = new ConcurrentTypecheckerState();
+    TCReferable ref = referable("lib", "f");
+    FunctionDefinition def1 = new FunctionDefinition(ref);
+    FunctionDefinition def2 = new FunctionDefinition(ref);
+    assertNull(state.record(ref, def1));
+    assertSame(def1, state.record(ref, def2));
+    assertSame(def1, state.getTypechecked(ref));
+    state.rewrite(ref, def2);
+    assertSame(def2, state.getTypechecked(ref));
+    assertSame(def2, state.reset(ref));
+    assertNull(state.getTypechecked(ref));
+    assertFalse(state.resetLibrary("lib"));
+  }
+
+  @Test
+  public void resetLibraryTest() {
+    ConcurrentTypecheckerState state = new ConcurrentTypecheckerState(true);
+    TCReferable ref1 = referable("lib1", "f");
+    TCReferable ref2 = referable("lib2", "g");
+    TCReferable ref3 = referable(null, "h");
+    state.record(ref1, new FunctionDefinition(ref1));
+    state.record(ref2, new FunctionDefinition(ref2));
+    state.record(ref3, new FunctionDefinition(ref3));
+
+    assertTrue(state.resetLibrary("lib1"));
+    assertNull(state.getTypechecked(ref1));
+    assertNotNull(state.getTypechecked(ref2));
+    assertNull(state.getTypechecked(ref3));
+
+    state.record(ref3, new FunctionDefinition(ref3));
+    state.reset();
+    assertNull(state.getTypechecked(ref2));
+    assertNull(state.getTypechecked(ref3));
+  }
+}
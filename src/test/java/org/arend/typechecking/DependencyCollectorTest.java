@@ -0,0 +1,188 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class DependencyCollectorTest extends TypeCheckingTestCase {
+  private DependencyCollector collector;
+
+  @Before
+  public void initializeCollector() {
+    collector = new DependencyCollector(typecheckerState, true);
+  }
+
+  private TypecheckingOrderingListener newListener() {
+    return new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, collector, PositionComparator.INSTANCE, ref -> null);
+  }
+
+  private void typeCheckModuleWithCollector(String text) {
+    lastGroup = resolveNamesModule(text);
+    assertTrue(newListener().typecheckModules(Collections.singletonList(lastGroup), null));
+    assertTrue(errorList.isEmpty());
+  }
+
+  @Test
+  public void bodyRenamedTest() {
+    typeCheckModuleWithCollector(
+      "\\func f (x : Nat) => x\n" +
+      "\\func g => f 0");
+    TCReferable f = get("f");
+    Definition oldF = getDefinition("f");
+    Definition oldG = getDefinition("g");
+
+    assertEquals(Collections.singleton(f), collector.update(f));
+    assertNull(typecheckerState.getTypechecked(f));
+    assertSame(oldG, getDefinition("g"));
+
+    typecheckerState.record(f, typeCheckDef("\\func f (y : Nat) => y"));
+    assertTrue(collector.typechecked(f, true).isEmpty());
+    assertSame(oldF, typecheckerState.getTypechecked(f));
+    assertSame(oldG, typecheckerState.getTypechecked(get("g")));
+  }
+
+  @Test
+  public void lemmaBodyChangedTest() {
+    typeCheckModuleWithCollector(
+      "\\lemma p (n : Nat) : n = n => idp\n" +
+      "\\func g => p 0");
+    TCReferable p = get("p");
+    Definition oldP = getDefinition("p");
+    Definition oldG = getDefinition("g");
+
+    collector.update(p);
+    FunctionDefinition newP = (FunctionDefinition) typeCheckDef("\\lemma p (n : Nat) : n = n => (\\lam m => idp {Nat} {m}) n");
+    typecheckerState.record(p, newP);
+    assertTrue(collector.typechecked(p, true).isEmpty());
+    assertSame(oldP, typecheckerState.getTypechecked(p));
+    assertSame(newP.getActualBody(), ((FunctionDefinition) oldP).getActualBody());
+    assertSame(newP.getParameters(), ((FunctionDefinition) oldP).getParameters());
+    assertSame(oldG, typecheckerState.getTypechecked(get("g")));
+  }
+
+  @Test
+  public void lemmaBodyRenamedTest() {
+    typeCheckModuleWithCollector(
+      "\\lemma p (n : Nat) : n = n => idp\n" +
+      "\\func g => p 0");
+    TCReferable p = get("p");
+    Definition oldP = getDefinition("p");
+    Definition oldG = getDefinition("g");
+
+    collector.update(p);
+    typecheckerState.record(p, typeCheckDef("\\lemma p (m : Nat) : m = m => idp"));
+    assertTrue(collector.typechecked(p, true).isEmpty());
+    assertSame(oldP, typecheckerState.getTypechecked(p));
+    assertSame(oldG, typecheckerState.getTypechecked(get("g")));
+  }
+
+  @Test
+  public void notTypecheckedTest() {
+    typeCheckModuleWithCollector(
+      "\\func f (x : Nat) => x\n" +
+      "\\func g => f 0");
+    TCReferable f = get("f");
+    TCReferable g = get("g");
+
+    collector.update(f);
+    assertNotNull(typecheckerState.getTypechecked(g));
+    assertEquals(new HashSet<>(Arrays.asList(f, g)), collector.update(f));
+    assertNull(typecheckerState.getTypechecked(g));
+  }
+
+  @Test
+  public void resetTest() {
+    typeCheckModuleWithCollector(
+      "\\func f (x : Nat) => x\n" +
+      "\\func g => f 0");
+    TCReferable f = get("f");
+    TCReferable g = get("g");
+
+    collector.update(f);
+    collector.reset(f);
+    assertNull(typecheckerState.getTypechecked(g));
+    assertTrue(collector.typechecked(f, true).isEmpty());
+  }
+
+  @Test
+  public void orderUpdatedDependencyTest() {
+    typeCheckModuleWithCollector(
+      "\\func f (x : Nat) => x\n" +
+      "\\func g => f 0\n" +
+      "\\func h => g");
+    TCReferable f = get("f");
+    TCReferable h = get("h");
+    Definition oldF = getDefinition("f");
+    Definition oldH = getDefinition("h");
+
+    collector.update(f);
+    assertEquals(Collections.singletonList(f), new ArrayList<>(collector.getUpdatedDependencies(h)));
+    assertTrue(newListener().typecheckDefinitions(Collections.singletonList((Concrete.Definition) ConcreteReferableProvider.INSTANCE.getConcrete(h)), null));
+    assertTrue(errorList.isEmpty());
+    assertSame(oldF, typecheckerState.getTypechecked(f));
+    assertSame(oldH, typecheckerState.getTypechecked(h));
+    assertTrue(collector.getUpdatedDependencies(h).isEmpty());
+  }
+
+  @Test
+  public void bodyChangedTest() {
+    typeCheckModuleWithCollector(
+      "\\func f (x : Nat) => x\n" +
+      "\\func g => f 0\n" +
+      "\\func h => g");
+    TCReferable f = get("f");
+    TCReferable g = get("g");
+    TCReferable h = get("h");
+
+    collector.update(f);
+    Definition newF = typeCheckDef("\\func f (x : Nat) => suc x");
+    typecheckerState.record(f, newF);
+    assertEquals(new HashSet<>(Arrays.asList(g, h)), collector.typechecked(f, true));
+    assertSame(newF, typecheckerState.getTypechecked(f));
+    assertNull(typecheckerState.getTypechecked(g));
+    assertNull(typecheckerState.getTypechecked(h));
+  }
+
+  @Test
+  public void notIsolatedTest() {
+    typeCheckModuleWithCollector(
+      "\\func f (x : Nat) => x\n" +
+      "\\func g => f 0");
+    TCReferable f = get("f");
+    TCReferable g = get("g");
+
+    collector.update(f);
+    typecheckerState.record(f, typeCheckDef("\\func f (x : Nat) => x"));
+    assertEquals(Collections.singleton(g), collector.typechecked(f, false));
+    assertNull(typecheckerState.getTypechecked(g));
+  }
+
+  @Test
+  public void withoutCutoffTest() {
+    collector = new DependencyCollector(typecheckerState);
+    typeCheckModuleWithCollector(
+      "\\func f (x : Nat) => x\n" +
+      "\\func g => f 0");
+    TCReferable f = get("f");
+    TCReferable g = get("g");
+
+    assertEquals(new HashSet<>(Arrays.asList(f, g)), collector.update(f));
+    assertNull(typecheckerState.getTypechecked(f));
+    assertNull(typecheckerState.getTypechecked(g));
+  }
+}
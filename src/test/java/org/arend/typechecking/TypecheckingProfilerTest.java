@@ -0,0 +1,77 @@
+package org.arend.typechecking;
+
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.typechecking.order.listener.TypecheckingProfiler;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TypecheckingProfilerTest extends TypeCheckingTestCase {
+  private TypecheckingProfiler profile(ChildGroup group) {
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, localErrorReporter, PositionComparator.INSTANCE, ref -> null);
+    TypecheckingProfiler profiler = new TypecheckingProfiler();
+    listener.setProfiler(profiler);
+    TypecheckingProfiler.setEnabled(true);
+    try {
+      assertTrue(listener.typecheckModules(Collections.singletonList(group), null));
+    } finally {
+      TypecheckingProfiler.setEnabled(false);
+    }
+    assertTrue(errorList.isEmpty());
+    return profiler;
+  }
+
+  @Test
+  public void countersTest() {
+    ChildGroup group = resolveNamesModule(
+      "\\func f (n : Nat) : Nat | 0 => 0 | suc n => f n\n" +
+      "\\func g : f 3 = 0 => idp");
+    TypecheckingProfiler profiler = profile(group);
+
+    TypecheckingProfiler.Record record = profiler.getRecord(get(group.getGroupScope(), "g"));
+    assertNotNull(record);
+    assertTrue(record.getWallTime() > 0);
+    assertTrue(record.getCounter(TypecheckingProfiler.Counter.NORMALIZATIONS) > 0);
+    assertTrue(record.getCounter(TypecheckingProfiler.Counter.COMPARISONS) > 0);
+    assertNotNull(profiler.getRecord(get(group.getGroupScope(), "f")));
+  }
+
+  @Test
+  public void mutualRecursionTest() {
+    ChildGroup group = resolveNamesModule(
+      "\\func h (n : Nat) : Nat | 0 => 0 | suc n => k n\n" +
+      "\\func k (n : Nat) : Nat | 0 => 0 | suc n => h n");
+    TypecheckingProfiler profiler = profile(group);
+    assertNotNull(profiler.getRecord(get(group.getGroupScope(), "h")));
+    assertNotNull(profiler.getRecord(get(group.getGroupScope(), "k")));
+  }
+
+  @Test
+  public void reportTest() throws IOException {
+    TypecheckingProfiler profiler = profile(resolveNamesModule(
+      "\\func f => 0\n" +
+      "\\func g => f\n" +
+      "\\data D | con (f = 0)"));
+
+    List<TypecheckingProfiler.Record> records = profiler.getRecords();
+    assertEquals(3, records.size());
+    for (int i = 1; i < records.size(); i++) {
+      assertTrue(records.get(i - 1).getWallTime() >= records.get(i).getWallTime());
+    }
+
+    StringBuilder builder = new StringBuilder();
+    profiler.writeCsv(builder);
+    String[] lines = builder.toString().split("\n");
+    assertEquals(records.size() + 1, lines.length);
+    assertTrue(lines[0].startsWith("module,definition,"));
+    assertEquals(8, lines[1].split(",").length);
+  }
+}
@@ -0,0 +1,30 @@
+package org.arend.typechecking.doubleChecker;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class CoreModuleCheckerTest extends TypeCheckingTestCase {
+  @Test
+  public void parallelCheckTest() {
+    ChildGroup group = typeCheckModule(
+      "\\data D | con1 | con2 Nat\n" +
+      "\\func f (d : D) : Nat\n" +
+      "  | con1 => 0\n" +
+      "  | con2 n => suc n\n" +
+      "\\class C (x : Nat) \\where {\n" +
+      "  \\func g => f (con2 1)\n" +
+      "}\n" +
+      "\\func h (c : C) => c.x");
+    Map<ModulePath, CoreModuleChecker.ModuleStatistics> statistics = new CoreModuleChecker(errorReporter, typecheckerState).checkModules(Collections.singletonMap(MODULE_PATH, group), 4);
+    assertEquals(0, errorList.size());
+    assertEquals(5, statistics.get(MODULE_PATH).getDefinitionsNumber());
+    assertEquals(0, statistics.get(MODULE_PATH).getFailedNumber());
+  }
+}
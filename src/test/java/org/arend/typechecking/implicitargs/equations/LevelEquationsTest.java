@@ -0,0 +1,197 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LevelEquationsTest {
+  private static final Integer INFINITY = LevelEquations.INFINITY;
+
+  private static LevelEquations<String> equations(int variables) {
+    LevelEquations<String> equations = new LevelEquations<>();
+    for (int i = 0; i < variables; i++) {
+      equations.addVariable("x" + i);
+    }
+    return equations;
+  }
+
+  private static String var(Random random, int variables) {
+    int index = random.nextInt(variables + 1);
+    return index == variables ? null : "x" + index;
+  }
+
+  // Solves the system by repeated passes over all equations, infinite values are propagated first
+  private static boolean solveDirectly(List<String> variables, List<LevelEquation<String>> equations, Map<String, Integer> solution) {
+    solution.put(null, 0);
+    for (String var : variables) {
+      solution.put(var, 0);
+    }
+
+    for (LevelEquation<String> equation : equations) {
+      if (equation.isInfinity()) {
+        solution.put(equation.getVariable(), INFINITY);
+      }
+    }
+    for (boolean updated = true; updated; ) {
+      updated = false;
+      for (LevelEquation<String> equation : equations) {
+        if (!equation.isInfinity() && solution.get(equation.getVariable1()).equals(INFINITY) && !INFINITY.equals(solution.put(equation.getVariable2(), INFINITY))) {
+          updated = true;
+        }
+      }
+    }
+
+    for (int i = variables.size(); i >= 0; i--) {
+      boolean updated = false;
+      for (LevelEquation<String> equation : equations) {
+        if (!equation.isInfinity()) {
+          int a = solution.get(equation.getVariable1());
+          int b = solution.get(equation.getVariable2());
+          Integer m = equation.getMaxConstant();
+          if (b != INFINITY && (m == null || a + m < 0) && b > a + equation.getConstant()) {
+            if (i == 0 || equation.getVariable2() == null) {
+              return false;
+            }
+            solution.put(equation.getVariable2(), a + equation.getConstant());
+            updated = true;
+          }
+        }
+      }
+      if (!updated) {
+        break;
+      }
+    }
+
+    solution.remove(null);
+    return true;
+  }
+
+  private static void assertCycle(List<LevelEquation<String>> cycle) {
+    assertNotNull(cycle);
+    assertFalse(cycle.isEmpty());
+    for (int i = 1; i < cycle.size(); i++) {
+      assertEquals(cycle.get(i - 1).getVariable2(), cycle.get(i).getVariable1());
+    }
+  }
+
+  @Test
+  public void chainTest() {
+    LevelEquations<String> equations = equations(3);
+    equations.addEquation(new LevelEquation<>(null, "x0", -2));
+    equations.addEquation(new LevelEquation<>("x0", "x1", -1));
+    equations.addEquation(new LevelEquation<>("x1", "x2", 0));
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(Integer.valueOf(-2), solution.get("x0"));
+    assertEquals(Integer.valueOf(-3), solution.get("x1"));
+    assertEquals(Integer.valueOf(-3), solution.get("x2"));
+  }
+
+  @Test
+  public void infinityTest() {
+    LevelEquations<String> equations = equations(3);
+    equations.addEquation(new LevelEquation<>("x0", "x1", -1));
+    equations.addEquation(new LevelEquation<>("x1", "x2", 0));
+    equations.addEquation(new LevelEquation<>("x0"));
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(INFINITY, solution.get("x0"));
+    assertEquals(INFINITY, solution.get("x1"));
+    assertEquals(INFINITY, solution.get("x2"));
+  }
+
+  @Test
+  public void cycleTest() {
+    LevelEquations<String> equations = equations(3);
+    equations.addEquation(new LevelEquation<>("x0", "x1", 0));
+    equations.addEquation(new LevelEquation<>("x1", "x2", 0));
+    equations.addEquation(new LevelEquation<>("x2", "x0", -1));
+    List<LevelEquation<String>> cycle = equations.solve(new HashMap<>());
+    assertCycle(cycle);
+    assertEquals(3, cycle.size());
+  }
+
+  @Test
+  public void baseTest() {
+    LevelEquations<String> equations = equations(2);
+    equations.addEquation(new LevelEquation<>(null, "x0", -1));
+    equations.addEquation(new LevelEquation<>("x0", "x1", 0));
+    equations.addEquation(new LevelEquation<>("x1", null, 0));
+    List<LevelEquation<String>> cycle = equations.solve(new HashMap<>());
+    assertCycle(cycle);
+    assertEquals(3, cycle.size());
+    assertNull(cycle.get(cycle.size() - 1).getVariable2());
+  }
+
+  @Test
+  public void removeTest() {
+    LevelEquations<String> equations = equations(2);
+    equations.addEquation(new LevelEquation<>(null, "x0", -1));
+    equations.addEquation(new LevelEquation<>("x0", "x1", -1));
+    equations.addEquation(new LevelEquation<>("x1", null, 0));
+    assertNotNull(equations.solve(new HashMap<>()));
+
+    equations.removeEquations(equation -> equation.getVariable2() == null);
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(Integer.valueOf(-2), solution.get("x1"));
+
+    equations.addEquation(new LevelEquation<>(null, "x1", -3));
+    solution.clear();
+    assertNull(equations.solve(solution));
+    assertEquals(Integer.valueOf(-1), solution.get("x0"));
+    assertEquals(Integer.valueOf(-3), solution.get("x1"));
+  }
+
+  @Test
+  public void resolvedCycleTest() {
+    LevelEquations<String> equations = equations(3);
+    equations.addEquation(new LevelEquation<>("x0", "x1", -1));
+    equations.addEquation(new LevelEquation<>("x1", "x0", 0));
+    equations.addEquation(new LevelEquation<>(null, "x2", -1));
+    equations.addEquation(new LevelEquation<>("x2"));
+    equations.addEquation(new LevelEquation<>("x2", "x0", 0));
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(INFINITY, solution.get("x0"));
+    assertEquals(INFINITY, solution.get("x1"));
+  }
+
+  @Test
+  public void randomTest() {
+    Random random = new Random(0);
+    for (int t = 0; t < 2000; t++) {
+      int variables = 1 + random.nextInt(12);
+      LevelEquations<String> equations = equations(variables);
+      List<String> varList = new ArrayList<>(equations.getVariables());
+      List<LevelEquation<String>> equationList = new ArrayList<>();
+      int size = random.nextInt(3 * variables);
+      for (int i = 0; i < size; i++) {
+        LevelEquation<String> equation;
+        if (random.nextInt(20) == 0) {
+          equation = new LevelEquation<>("x" + random.nextInt(variables));
+        } else {
+          String var1 = var(random, variables);
+          String var2 = var1 == null ? "x" + random.nextInt(variables) : var(random, variables);
+          equation = new LevelEquation<>(var1, var2, random.nextInt(4) - 2, random.nextInt(3) == 0 ? random.nextInt(4) - 2 : null);
+        }
+        equations.addEquation(equation);
+        equationList.add(equation);
+      }
+
+      Map<String, Integer> expected = new HashMap<>();
+      boolean consistent = solveDirectly(varList, equationList, expected);
+      Map<String, Integer> actual = new HashMap<>();
+      List<LevelEquation<String>> cycle = equations.solve(actual);
+      if (consistent) {
+        assertNull(cycle);
+        assertEquals(expected, actual);
+      } else {
+        assertCycle(cycle);
+      }
+      equations.clear();
+    }
+  }
+}
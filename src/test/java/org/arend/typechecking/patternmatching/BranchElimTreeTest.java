@@ -0,0 +1,91 @@
+package org.arend.typechecking.patternmatching;
+
+import org.arend.core.constructor.IdpConstructor;
+import org.arend.core.elimtree.BranchElimTree;
+import org.arend.core.elimtree.BranchKey;
+import org.arend.core.elimtree.ElimTree;
+import org.arend.core.elimtree.LeafElimTree;
+import org.arend.prelude.Prelude;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BranchElimTreeTest extends TypeCheckingTestCase {
+  private static LeafElimTree leaf(int index) {
+    return new LeafElimTree(0, Collections.emptyList(), index);
+  }
+
+  @Test
+  public void constructorChildrenTest() {
+    BranchElimTree tree = new BranchElimTree(0, false);
+    LeafElimTree zero = leaf(0);
+    LeafElimTree suc = leaf(1);
+    tree.addChild(Prelude.SUC, suc);
+    tree.addChild(Prelude.ZERO, zero);
+    assertSame(zero, tree.getChild(Prelude.ZERO));
+    assertSame(suc, tree.getChild(Prelude.SUC));
+    assertNull(tree.getChild(Prelude.LEFT));
+    assertNull(tree.getChild(null));
+    assertNull(tree.getSingleConstructorChild());
+    assertEquals(2, tree.getChildren().size());
+
+    LeafElimTree suc2 = leaf(2);
+    tree.addChild(Prelude.SUC, suc2);
+    assertSame(suc2, tree.getChild(Prelude.SUC));
+    assertEquals(2, tree.getChildren().size());
+  }
+
+  @Test
+  public void mixedKeysTest() {
+    BranchElimTree tree = new BranchElimTree(0, false);
+    LeafElimTree left = leaf(0);
+    LeafElimTree zero = leaf(1);
+    LeafElimTree other = leaf(2);
+    tree.addChild(Prelude.LEFT, left);
+    tree.addChild(Prelude.ZERO, zero);
+    tree.addChild(null, other);
+    assertSame(left, tree.getChild(Prelude.LEFT));
+    assertSame(zero, tree.getChild(Prelude.ZERO));
+    assertSame(other, tree.getChild(null));
+    assertNull(tree.getChild(Prelude.RIGHT));
+
+    Map<BranchKey, ElimTree> children = new HashMap<>();
+    for (Map.Entry<BranchKey, ElimTree> entry : tree.getChildren()) {
+      children.put(entry.getKey(), entry.getValue());
+    }
+    assertEquals(3, children.size());
+    assertSame(left, children.get(Prelude.LEFT));
+    assertSame(zero, children.get(Prelude.ZERO));
+    assertSame(other, children.get(null));
+  }
+
+  @Test
+  public void singleConstructorTest() {
+    BranchElimTree tree = new BranchElimTree(0, false);
+    IdpConstructor idp = new IdpConstructor();
+    LeafElimTree child = leaf(0);
+    tree.addChild(idp, child);
+    assertSame(idp, tree.getSingleConstructorKey());
+    assertSame(child, tree.getSingleConstructorChild());
+    assertSame(child, tree.getChild(idp));
+  }
+
+  @Test
+  public void evaluationTest() {
+    typeCheckModule(
+      "\\data Color | red | green | blue | black | white\n" +
+      "\\func next (c : Color) : Color\n" +
+      "  | red => green\n" +
+      "  | green => blue\n" +
+      "  | blue => black\n" +
+      "  | black => white\n" +
+      "  | white => red\n" +
+      "\\func test : next (next (next (next (next red)))) = red => idp\n" +
+      "\\func test2 : next white = red => idp");
+  }
+}
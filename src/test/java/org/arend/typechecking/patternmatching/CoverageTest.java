@@ -1,9 +1,15 @@
 package org.arend.typechecking.patternmatching;
 
+import org.arend.core.definition.DataDefinition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.BranchElimTree;
+import org.arend.core.elimtree.ElimBody;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
 import static org.arend.Matchers.missingClauses;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class CoverageTest extends TypeCheckingTestCase {
   @Test
@@ -95,4 +101,44 @@ public class CoverageTest extends TypeCheckingTestCase {
       "\\func test (x : S1) : \\Sigma", 1);
     assertThatErrorsAre(missingClauses(1));
   }
+
+  @Test
+  public void sharedDefaultBranches() {
+    typeCheckModule(
+      "\\data D | a | b | c | d\n" +
+      "\\func f (x1 x2 x3 x4 x5 : D) : Nat\n" +
+      "  | a, _, _, _, _ => 1\n" +
+      "  | _, a, _, _, _ => 2\n" +
+      "  | _, _, a, _, _ => 3\n" +
+      "  | _, _, _, a, _ => 4\n" +
+      "  | _, _, _, _, a => 5\n" +
+      "  | _, _, _, _, _ => 0\n" +
+      "\\func test1 : f b c b a d = 4 => idp\n" +
+      "\\func test2 : f d d d d d = 0 => idp\n" +
+      "\\func test3 : f c b a a a = 3 => idp");
+
+    DataDefinition dataDef = (DataDefinition) getDefinition("D");
+    BranchElimTree elimTree = (BranchElimTree) ((ElimBody) ((FunctionDefinition) getDefinition("f")).getBody()).getElimTree();
+    assertNotSame(elimTree.getChild(dataDef.getConstructor("a")), elimTree.getChild(dataDef.getConstructor("b")));
+    assertSame(elimTree.getChild(dataDef.getConstructor("b")), elimTree.getChild(dataDef.getConstructor("c")));
+    assertSame(elimTree.getChild(dataDef.getConstructor("b")), elimTree.getChild(dataDef.getConstructor("d")));
+  }
+
+  @Test
+  public void sharedDefaultBranchesMissingClauses() {
+    typeCheckModule(
+      "\\data D | a | b | c\n" +
+      "\\func f (x y : D) : Nat\n" +
+      "  | a, _ => 0\n" +
+      "  | _, a => 1", 1);
+    assertThatErrorsAre(missingClauses(4));
+  }
+
+  @Test
+  public void manyVariablesEmptyCoverage() {
+    typeCheckModule(
+      "\\data D | a | b | c\n" +
+      "\\func f (x1 x2 x3 x4 x5 : D) : Nat", 1);
+    assertThatErrorsAre(missingClauses(243));
+  }
 }
@@ -0,0 +1,32 @@
+package org.arend.typechecking.patternmatching;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs {@link ConditionsTest} with conditions checked in parallel.
+ */
+public class ParallelConditionsTest extends ConditionsTest {
+  @Before
+  public void setParallel() {
+    ConditionsChecking.setParallel(true);
+  }
+
+  @After
+  public void resetParallel() {
+    ConditionsChecking.setParallel(false);
+  }
+
+  @Test
+  public void multipleErrorsTest() {
+    typeCheckModule(
+      "\\data Z | a Nat | b Nat { zero => a 0 } | c Nat { zero => a 1 } | d Nat { zero => a 2 } | e Nat { zero => a 3 }\n" +
+      "\\func f (z : Z) : Nat\n" +
+      "  | a n => n\n" +
+      "  | b n => 0\n" +
+      "  | c n => 0\n" +
+      "  | d n => 2\n" +
+      "  | e n => 0", 2);
+  }
+}
@@ -0,0 +1,110 @@
+package org.arend.typechecking.termination;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CallMatrixTest {
+  private static final BaseCallMatrix.R[] VALUES = BaseCallMatrix.R.values();
+
+  private static TestVertex vertex(String name, int arguments) {
+    String[] names = new String[arguments];
+    for (int i = 0; i < arguments; i++) {
+      names[i] = name + i;
+    }
+    return new TestVertex(name, names);
+  }
+
+  private static TestCallMatrix randomMatrix(Random random, TestVertex dom, TestVertex codom) {
+    TestCallMatrix matrix = new TestCallMatrix("m", dom, codom);
+    for (int i = 0; i < matrix.getHeight(); i++) {
+      for (int j = 0; j < matrix.getWidth(); j++) {
+        matrix.set(i, j, VALUES[random.nextInt(VALUES.length)]);
+      }
+    }
+    return matrix;
+  }
+
+  private static BaseCallMatrix.R mul(BaseCallMatrix.R a, BaseCallMatrix.R b) {
+    if (a == BaseCallMatrix.R.Unknown || b == BaseCallMatrix.R.Unknown) return BaseCallMatrix.R.Unknown;
+    return a == BaseCallMatrix.R.LessThan || b == BaseCallMatrix.R.LessThan ? BaseCallMatrix.R.LessThan : BaseCallMatrix.R.Equal;
+  }
+
+  private static BaseCallMatrix.R add(BaseCallMatrix.R a, BaseCallMatrix.R b) {
+    return a.ordinal() >= b.ordinal() ? a : b;
+  }
+
+  @Test
+  public void setTest() {
+    TestVertex f = vertex("f", 70);
+    TestCallMatrix matrix = new TestCallMatrix("m", f, f);
+    matrix.set(1, 31, BaseCallMatrix.R.LessThan);
+    matrix.set(1, 32, BaseCallMatrix.R.Equal);
+    matrix.set(2, 69, BaseCallMatrix.R.LessThan);
+    matrix.set(2, 69, BaseCallMatrix.R.Equal);
+    for (int i = 0; i < 70; i++) {
+      for (int j = 0; j < 70; j++) {
+        BaseCallMatrix.R expected = i == 1 && j == 31 ? BaseCallMatrix.R.LessThan : i == 1 && j == 32 || i == 2 && j == 69 ? BaseCallMatrix.R.Equal : BaseCallMatrix.R.Unknown;
+        assertEquals(expected, matrix.getValue(i, j));
+      }
+    }
+  }
+
+  @Test
+  public void compositionTest() {
+    Random random = new Random(0);
+    TestVertex f = vertex("f", 3);
+    TestVertex g = vertex("g", 40);
+    TestVertex h = vertex("h", 70);
+    for (int t = 0; t < 20; t++) {
+      TestCallMatrix m1 = randomMatrix(random, f, g);
+      TestCallMatrix m2 = randomMatrix(random, g, h);
+      CompositeCallMatrix<TestVertex> product = new CompositeCallMatrix<>(m1, m2);
+      assertEquals(f, product.getDomain());
+      assertEquals(h, product.getCodomain());
+      for (int i = 0; i < product.getHeight(); i++) {
+        for (int j = 0; j < product.getWidth(); j++) {
+          BaseCallMatrix.R expected = BaseCallMatrix.R.Unknown;
+          for (int k = 0; k < m1.getWidth(); k++) {
+            expected = add(expected, mul(m1.getValue(i, k), m2.getValue(k, j)));
+          }
+          assertEquals(expected, product.getValue(i, j));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void leqTest() {
+    TestVertex f = vertex("f", 40);
+    TestCallMatrix m1 = new TestCallMatrix("m1", f, f);
+    TestCallMatrix m2 = new TestCallMatrix("m2", f, f);
+    m1.set(0, 35, BaseCallMatrix.R.Equal);
+    m2.set(0, 35, BaseCallMatrix.R.LessThan);
+    m2.set(3, 3, BaseCallMatrix.R.Equal);
+    assertTrue(m1.leq(m2));
+    assertFalse(m2.leq(m1));
+    assertTrue(m1.leq(m1));
+    assertNotEquals(m1, m2);
+
+    m1.set(0, 35, BaseCallMatrix.R.LessThan);
+    m1.set(3, 3, BaseCallMatrix.R.Equal);
+    assertEquals(m1, m2);
+    assertEquals(m1.hashCode(), m2.hashCode());
+  }
+
+  @Test
+  public void subsumedEdgesTest() {
+    TestVertex f = new TestVertex("f", "x", "y");
+    Set<BaseCallMatrix<TestVertex>> cms = new HashSet<>();
+    cms.add(new TestCallMatrix("1", f, f, '<', 0, '<', 1));
+    cms.add(new TestCallMatrix("2", f, f, '<', 0, '?'));
+    assertTrue(TestCallGraph.calculateClosure(cms).checkTermination());
+    cms.add(new TestCallMatrix("3", f, f, '=', 0, '?'));
+    assertFalse(TestCallGraph.calculateClosure(cms).checkTermination());
+  }
+}
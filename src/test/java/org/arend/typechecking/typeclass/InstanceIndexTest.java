@@ -0,0 +1,80 @@
+package org.arend.typechecking.typeclass;
+
+import org.arend.naming.reference.ClassReferable;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.instance.provider.InstanceProvider;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class InstanceIndexTest extends TypeCheckingTestCase {
+  @Test
+  public void differentHeadsTest() {
+    typeCheckModule(
+      "\\class C (X : \\Type) | get : X -> Nat\n" +
+      "\\data D | con\n" +
+      "\\instance typeInst : C \\Type | get _ => 0\n" +
+      "\\instance natInst : C Nat | get _ => 1\n" +
+      "\\instance sigmaInst : C (\\Sigma Nat Nat) | get _ => 2\n" +
+      "\\instance dataInst : C D | get _ => 3\n" +
+      "\\func f1 : get 7 = 1 => idp\n" +
+      "\\func f2 : get (7,7) = 2 => idp\n" +
+      "\\func f3 : get con = 3 => idp\n" +
+      "\\func f4 : get Nat = 0 => idp");
+  }
+
+  @Test
+  public void integerHeadsTest() {
+    typeCheckModule(
+      "\\class C (x : Nat) | val : Nat\n" +
+      "\\instance inst0 : C 0 | val => 10\n" +
+      "\\instance inst1 : C 1 | val => 11\n" +
+      "\\instance inst2 : C 2 | val => 12\n" +
+      "\\func f (c : C) => c.val\n" +
+      "\\func g0 : f 0 = 10 => idp\n" +
+      "\\func g1 : f 1 = 11 => idp\n" +
+      "\\func g2 : f 2 = 12 => idp");
+  }
+
+  @Test
+  public void subclassInstanceTest() {
+    typeCheckModule(
+      "\\class C (X : \\Type) | get : X -> Nat\n" +
+      "\\class C' \\extends C | get' : X -> Nat\n" +
+      "\\instance natInst : C' Nat | get _ => 1 | get' _ => 2\n" +
+      "\\func f : get 0 = 1 => idp");
+  }
+
+  @Test
+  public void noMatchingHeadTest() {
+    typeCheckModule(
+      "\\class C (X : \\Type) | get : X -> Nat\n" +
+      "\\instance natInst : C Nat | get _ => 1\n" +
+      "\\func f => get (0,0)", 1);
+  }
+
+  @Test
+  public void resetInstanceTest() {
+    typeCheckModule(
+      "\\class C (X : \\Type) | get : X -> Nat\n" +
+      "\\instance natInst : C Nat | get _ => 1\n" +
+      "\\func f => 0");
+    InstanceProvider provider = libraryManager.getInstanceProviderSet().get(get("f"));
+    ClassReferable classRef = (ClassReferable) get("C");
+    Concrete.FunctionDefinition instance = provider.findInstance(classRef, inst -> true);
+    assertNotNull(instance);
+
+    Object[] key = new Object[1];
+    assertNull(provider.findInstance(classRef, Collections.singletonList("key1"), inst -> key[0], inst -> true));
+    key[0] = "key1";
+    assertSame(instance, provider.findInstance(classRef, Collections.singletonList("key1"), inst -> key[0], inst -> true));
+    key[0] = "key2";
+    assertNull(provider.findInstance(classRef, Collections.singletonList("key2"), inst -> key[0], inst -> true));
+    provider.resetInstance(instance.getData());
+    assertSame(instance, provider.findInstance(classRef, Collections.singletonList("key2"), inst -> key[0], inst -> true));
+    assertNull(provider.findInstance(classRef, Collections.singletonList("key1"), inst -> key[0], inst -> true));
+  }
+}